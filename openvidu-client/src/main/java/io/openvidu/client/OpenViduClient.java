@@ -17,6 +17,7 @@
 package io.openvidu.client;
 
 import static io.openvidu.client.internal.ProtocolElements.CUSTOMREQUEST_METHOD;
+import static io.openvidu.client.internal.ProtocolElements.JOINROOM_BATCHEDICECANDIDATES_PARAM;
 import static io.openvidu.client.internal.ProtocolElements.JOINROOM_METHOD;
 import static io.openvidu.client.internal.ProtocolElements.JOINROOM_PEERID_PARAM;
 import static io.openvidu.client.internal.ProtocolElements.JOINROOM_PEERSTREAMID_PARAM;
@@ -29,6 +30,9 @@ import static io.openvidu.client.internal.ProtocolElements.ONICECANDIDATE_EPNAME
 import static io.openvidu.client.internal.ProtocolElements.ONICECANDIDATE_METHOD;
 import static io.openvidu.client.internal.ProtocolElements.ONICECANDIDATE_SDPMIDPARAM;
 import static io.openvidu.client.internal.ProtocolElements.ONICECANDIDATE_SDPMLINEINDEX_PARAM;
+import static io.openvidu.client.internal.ProtocolElements.ONICECANDIDATES_CANDIDATES_PARAM;
+import static io.openvidu.client.internal.ProtocolElements.ONICECANDIDATES_EPNAME_PARAM;
+import static io.openvidu.client.internal.ProtocolElements.ONICECANDIDATES_METHOD;
 import static io.openvidu.client.internal.ProtocolElements.PUBLISHVIDEO_DOLOOPBACK_PARAM;
 import static io.openvidu.client.internal.ProtocolElements.PUBLISHVIDEO_METHOD;
 import static io.openvidu.client.internal.ProtocolElements.PUBLISHVIDEO_SDPANSWER_PARAM;
@@ -61,6 +65,7 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
+import io.openvidu.client.internal.IceCandidate;
 import io.openvidu.client.internal.JsonRoomUtils;
 import io.openvidu.client.internal.Notification;
 
@@ -122,10 +127,22 @@ public class OpenViduClient {
 
   public Map<String, List<String>> joinRoom(String roomName, String userName)
       throws IOException {
-        
+    return joinRoom(roomName, userName, false);
+  }
+
+  /**
+   * @param batchedIceCandidates if true, the server may send several gathered ICE candidates
+   *          in a single {@code iceCandidates} notification
+   */
+  public Map<String, List<String>> joinRoom(String roomName, String userName,
+      boolean batchedIceCandidates) throws IOException {
+
     JsonObject params = new JsonObject();
     params.addProperty(JOINROOM_ROOM_PARAM, roomName);
     params.addProperty(JOINROOM_USER_PARAM, userName);
+    if (batchedIceCandidates) {
+      params.addProperty(JOINROOM_BATCHEDICECANDIDATES_PARAM, true);
+    }
 
     JsonElement result = client.sendRequest(JOINROOM_METHOD, params);
     Map<String, List<String>> peers = new HashMap<String, List<String>>();
@@ -194,6 +211,25 @@ public class OpenViduClient {
     client.sendRequest(ONICECANDIDATE_METHOD, params);
   }
 
+  /**
+   * Sends several ICE candidates of the same endpoint in a single request
+   */
+  public void onIceCandidates(String endpointName, List<IceCandidate> candidates)
+      throws IOException {
+    JsonArray jsonCandidates = new JsonArray();
+    for (IceCandidate candidate : candidates) {
+      JsonObject jsonCandidate = new JsonObject();
+      jsonCandidate.addProperty(ONICECANDIDATE_CANDIDATE_PARAM, candidate.getCandidate());
+      jsonCandidate.addProperty(ONICECANDIDATE_SDPMIDPARAM, candidate.getSdpMid());
+      jsonCandidate.addProperty(ONICECANDIDATE_SDPMLINEINDEX_PARAM, candidate.getSdpMLineIndex());
+      jsonCandidates.add(jsonCandidate);
+    }
+    JsonObject params = new JsonObject();
+    params.addProperty(ONICECANDIDATES_EPNAME_PARAM, endpointName);
+    params.add(ONICECANDIDATES_CANDIDATES_PARAM, jsonCandidates);
+    client.sendRequest(ONICECANDIDATES_METHOD, params);
+  }
+
   public void sendMessage(String userName, String roomName, String message) throws IOException {
     JsonObject params = new JsonObject();
     params.addProperty(SENDMESSAGE_MESSAGE_PARAM, message);
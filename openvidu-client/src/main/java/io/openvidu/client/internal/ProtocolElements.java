@@ -39,6 +39,7 @@ public class ProtocolElements {
 	public static final String JOINROOM_SECRET_PARAM = "secret";
 	public static final String JOINROOM_PLATFORM_PARAM = "platform";
 	public static final String JOINROOM_RECORDER_PARAM = "recorder";
+	public static final String JOINROOM_BATCHEDICECANDIDATES_PARAM = "batchedIceCandidates";
 
 	public static final String JOINROOM_PEERID_PARAM = "id";
 	public static final String JOINROOM_PEERCREATEDAT_PARAM = "createdAt";
@@ -88,6 +89,10 @@ public class ProtocolElements {
 	public static final String ONICECANDIDATE_SDPMIDPARAM = "sdpMid";
 	public static final String ONICECANDIDATE_SDPMLINEINDEX_PARAM = "sdpMLineIndex";
 
+	public static final String ONICECANDIDATES_METHOD = "onIceCandidates";
+	public static final String ONICECANDIDATES_EPNAME_PARAM = "endpointName";
+	public static final String ONICECANDIDATES_CANDIDATES_PARAM = "candidates";
+
 	public static final String CUSTOMREQUEST_METHOD = "customRequest";
 
 	public static final String STREAMPROPERTYCHANGED_METHOD = "streamPropertyChanged";
@@ -203,6 +208,11 @@ public class ProtocolElements {
 	public static final String ICECANDIDATE_SDPMID_PARAM = "sdpMid";
 	public static final String ICECANDIDATE_SDPMLINEINDEX_PARAM = "sdpMLineIndex";
 
+	public static final String ICECANDIDATES_METHOD = "iceCandidates";
+	public static final String ICECANDIDATES_SENDERCONNECTIONID_PARAM = "senderConnectionId";
+	public static final String ICECANDIDATES_EPNAME_PARAM = "endpointName";
+	public static final String ICECANDIDATES_CANDIDATES_PARAM = "candidates";
+
 	public static final String RECORDINGSTARTED_METHOD = "recordingStarted";
 	public static final String RECORDINGSTARTED_ID_PARAM = "id";
 	public static final String RECORDINGSTARTED_NAME_PARAM = "name";
@@ -18,6 +18,7 @@
 package io.openvidu.java.client;
 
 import java.io.IOException;
+import java.net.URISyntaxException;
 import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
@@ -44,6 +45,7 @@ import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpDelete;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.BasicCredentialsProvider;
@@ -75,6 +77,12 @@ public class OpenVidu {
 	protected final static String API_RECORDINGS_START = API_RECORDINGS + "/start";
 	protected final static String API_RECORDINGS_STOP = API_RECORDINGS + "/stop";
 
+	/**
+	 * Number of elements requested to OpenVidu Server in each page when listing
+	 * sessions or recordings
+	 */
+	protected final static int PAGE_SIZE = 100;
+
 	/**
 	 * @param hostname URL where your instance of OpenVidu Server is up an running.
 	 *                 It must be the full URL (e.g.
@@ -397,7 +405,8 @@ public class OpenVidu {
 	}
 
 	/**
-	 * Lists all existing recordings
+	 * Lists all existing recordings. They are retrieved from OpenVidu Server in
+	 * pages of {@link OpenVidu#PAGE_SIZE} elements
 	 *
 	 * @return A {@link java.util.List} with all existing recordings
 	 * 
@@ -405,30 +414,32 @@ public class OpenVidu {
 	 * @throws OpenViduHttpException
 	 */
 	public List<Recording> listRecordings() throws OpenViduJavaClientException, OpenViduHttpException {
-		HttpGet request = new HttpGet(this.hostname + API_RECORDINGS);
-		HttpResponse response;
-		try {
-			response = this.httpClient.execute(request);
-		} catch (IOException e) {
-			throw new OpenViduJavaClientException(e.getMessage(), e.getCause());
-		}
+		List<Recording> recordings = new ArrayList<>();
+		this.getAllPages(API_RECORDINGS, "items").forEach(item -> {
+			recordings.add(new Recording(item.getAsJsonObject()));
+		});
+		return recordings;
+	}
 
-		try {
-			int statusCode = response.getStatusLine().getStatusCode();
-			if ((statusCode == org.apache.http.HttpStatus.SC_OK)) {
-				List<Recording> recordings = new ArrayList<>();
-				JsonObject json = httpResponseToJson(response);
-				JsonArray array = json.get("items").getAsJsonArray();
-				array.forEach(item -> {
-					recordings.add(new Recording(item.getAsJsonObject()));
-				});
-				return recordings;
-			} else {
-				throw new OpenViduHttpException(statusCode);
-			}
-		} finally {
-			EntityUtils.consumeQuietly(response.getEntity());
-		}
+	/**
+	 * Lists one page of existing recordings, sorted by their id
+	 *
+	 * @param limit Maximum number of recordings to return
+	 * @param after Id of the last recording of the previous page, or null to get
+	 *              the first page
+	 * 
+	 * @return A {@link java.util.List} with at most <i>limit</i> recordings
+	 * 
+	 * @throws OpenViduJavaClientException
+	 * @throws OpenViduHttpException
+	 */
+	public List<Recording> listRecordings(int limit, String after)
+			throws OpenViduJavaClientException, OpenViduHttpException {
+		List<Recording> recordings = new ArrayList<>();
+		this.getPage(API_RECORDINGS, limit, after).get("items").getAsJsonArray().forEach(item -> {
+			recordings.add(new Recording(item.getAsJsonObject()));
+		});
+		return recordings;
 	}
 
 	/**
@@ -517,7 +528,82 @@ public class OpenVidu {
 	 * @throws OpenViduJavaClientException
 	 */
 	public boolean fetch() throws OpenViduJavaClientException, OpenViduHttpException {
-		HttpGet request = new HttpGet(this.hostname + API_SESSIONS + "?pendingConnections=true");
+		JsonArray jsonArraySessions = this.getAllPages(API_SESSIONS + "?pendingConnections=true", "content");
+
+		// Boolean to store if any Session has changed
+		final boolean[] hasChanged = { false };
+
+		// 1. Set to store fetched sessionIds and later remove closed ones
+		Set<String> fetchedSessionIds = new HashSet<>();
+		jsonArraySessions.forEach(sessionJsonElement -> {
+
+			JsonObject sessionJson = sessionJsonElement.getAsJsonObject();
+			final Session sessionObj = new Session(this, sessionJson);
+			String id = sessionObj.getSessionId();
+			fetchedSessionIds.add(id);
+
+			// 2. Update existing Session
+			this.activeSessions.computeIfPresent(id, (sId, s) -> {
+				String beforeJSON = s.toJson();
+				s = s.resetWithJson(sessionJson);
+				String afterJSON = s.toJson();
+				boolean changed = !beforeJSON.equals(afterJSON);
+				hasChanged[0] = hasChanged[0] || changed;
+				log.info("Available session '{}' info fetched. Any change: {}", id, changed);
+				return s;
+			});
+
+			// 3. Add new Session
+			this.activeSessions.computeIfAbsent(id, sId -> {
+				log.info("New session '{}' fetched", id);
+				hasChanged[0] = true;
+				return sessionObj;
+			});
+		});
+
+		// 4. Remove closed sessions from local collection
+		this.activeSessions.entrySet().removeIf(entry -> {
+			if (fetchedSessionIds.contains(entry.getKey())) {
+				return false;
+			} else {
+				log.info("Removing closed session {}", entry.getKey());
+				hasChanged[0] = true;
+				return true;
+			}
+		});
+
+		log.info("Active sessions info fetched: {}", this.activeSessions.keySet());
+		return hasChanged[0];
+	}
+
+	/**
+	 * Retrieves every element of a paginated resource, requesting pages of
+	 * {@link OpenVidu#PAGE_SIZE} elements until there are no more
+	 */
+	private JsonArray getAllPages(String path, String itemsProperty)
+			throws OpenViduJavaClientException, OpenViduHttpException {
+		JsonArray items = new JsonArray();
+		String after = null;
+		do {
+			JsonObject page = this.getPage(path, PAGE_SIZE, after);
+			items.addAll(page.get(itemsProperty).getAsJsonArray());
+			after = page.has("next") ? page.get("next").getAsString() : null;
+		} while (after != null);
+		return items;
+	}
+
+	private JsonObject getPage(String path, int limit, String after)
+			throws OpenViduJavaClientException, OpenViduHttpException {
+		HttpGet request;
+		try {
+			URIBuilder uriBuilder = new URIBuilder(this.hostname + path).addParameter("limit", String.valueOf(limit));
+			if (after != null) {
+				uriBuilder.addParameter("after", after);
+			}
+			request = new HttpGet(uriBuilder.build());
+		} catch (URISyntaxException e) {
+			throw new OpenViduJavaClientException(e.getMessage(), e.getCause());
+		}
 
 		HttpResponse response;
 		try {
@@ -529,55 +615,7 @@ public class OpenVidu {
 		try {
 			int statusCode = response.getStatusLine().getStatusCode();
 			if ((statusCode == org.apache.http.HttpStatus.SC_OK)) {
-
-				JsonObject jsonSessions = httpResponseToJson(response);
-				JsonArray jsonArraySessions = jsonSessions.get("content").getAsJsonArray();
-
-				// Boolean to store if any Session has changed
-				final boolean[] hasChanged = { false };
-
-				// 1. Set to store fetched sessionIds and later remove closed ones
-				Set<String> fetchedSessionIds = new HashSet<>();
-				jsonArraySessions.forEach(sessionJsonElement -> {
-
-					JsonObject sessionJson = sessionJsonElement.getAsJsonObject();
-					final Session sessionObj = new Session(this, sessionJson);
-					String id = sessionObj.getSessionId();
-					fetchedSessionIds.add(id);
-
-					// 2. Update existing Session
-					this.activeSessions.computeIfPresent(id, (sId, s) -> {
-						String beforeJSON = s.toJson();
-						s = s.resetWithJson(sessionJson);
-						String afterJSON = s.toJson();
-						boolean changed = !beforeJSON.equals(afterJSON);
-						hasChanged[0] = hasChanged[0] || changed;
-						log.info("Available session '{}' info fetched. Any change: {}", id, changed);
-						return s;
-					});
-
-					// 3. Add new Session
-					this.activeSessions.computeIfAbsent(id, sId -> {
-						log.info("New session '{}' fetched", id);
-						hasChanged[0] = true;
-						return sessionObj;
-					});
-				});
-
-				// 4. Remove closed sessions from local collection
-				this.activeSessions.entrySet().removeIf(entry -> {
-					if (fetchedSessionIds.contains(entry.getKey())) {
-						return false;
-					} else {
-						log.info("Removing closed session {}", entry.getKey());
-						hasChanged[0] = true;
-						return true;
-					}
-				});
-
-				log.info("Active sessions info fetched: {}", this.activeSessions.keySet());
-				return hasChanged[0];
-
+				return httpResponseToJson(response);
 			} else {
 				throw new OpenViduHttpException(statusCode);
 			}
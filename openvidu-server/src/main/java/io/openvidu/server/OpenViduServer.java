@@ -58,10 +58,11 @@ import io.openvidu.server.coturn.CoturnCredentialsServiceFactory;
 import io.openvidu.server.kurento.core.KurentoParticipantEndpointConfig;
 import io.openvidu.server.kurento.core.KurentoSessionEventsHandler;
 import io.openvidu.server.kurento.core.KurentoSessionManager;
-import io.openvidu.server.kurento.kms.DummyLoadManager;
 import io.openvidu.server.kurento.kms.FixedOneKmsManager;
 import io.openvidu.server.kurento.kms.KmsManager;
 import io.openvidu.server.kurento.kms.LoadManager;
+import io.openvidu.server.kurento.kms.MultipleKmsManager;
+import io.openvidu.server.kurento.kms.WeightedLoadManager;
 import io.openvidu.server.recording.DummyRecordingDownloader;
 import io.openvidu.server.recording.DummyRecordingUploader;
 import io.openvidu.server.recording.RecordingDownloader;
@@ -116,18 +117,21 @@ public class OpenViduServer implements JsonRpcConfigurer {
 		if (openviduConfig.isWebhookEnabled()) {
 			log.info("OpenVidu Webhook service is enabled");
 			loggers.add(new CDRLoggerWebhook(openviduConfig.getOpenViduWebhookEndpoint(),
-					openviduConfig.getOpenViduWebhookHeaders(), openviduConfig.getOpenViduWebhookEvents()));
+					openviduConfig.getOpenViduWebhookHeaders(), openviduConfig.getOpenViduWebhookEvents(),
+					openviduConfig.getOpenViduWebhookQueueSize(), openviduConfig.getOpenViduWebhookBatchSize(),
+					openviduConfig.getOpenViduWebhookBatchTimeout(), openviduConfig.getOpenViduWebhookWorkers(),
+					openviduConfig.getOpenViduWebhookMaxRetries(), openviduConfig.getOpenViduWebhookSpoolPath()));
 		} else {
 			log.info("OpenVidu Webhook service is disabled (may be enabled with 'OPENVIDU_WEBHOOK=true')");
 		}
-		return new CallDetailRecord(loggers);
+		return new CallDetailRecord(loggers, openviduConfig.getOpenviduCdrQueueSize());
 	}
 
 	@Bean
 	@ConditionalOnMissingBean
 	@DependsOn("openviduConfig")
 	public CoturnCredentialsService coturnCredentialsService(OpenviduConfig openviduConfig) {
-		return new CoturnCredentialsServiceFactory().getCoturnCredentialsService(openviduConfig.getSpringProfile());
+		return new CoturnCredentialsServiceFactory().getCoturnCredentialsService(openviduConfig);
 	}
 
 	@Bean
@@ -144,6 +148,11 @@ public class OpenViduServer implements JsonRpcConfigurer {
 		if (openviduConfig.getKmsUris().isEmpty()) {
 			throw new IllegalArgumentException("'KMS_URIS' should contain at least one KMS url");
 		}
+		if (openviduConfig.getKmsUris().size() > 1) {
+			log.info("OpenVidu Server using {} KMSs: {}", openviduConfig.getKmsUris().size(),
+					openviduConfig.getKmsUris());
+			return new MultipleKmsManager(sessionManager);
+		}
 		String firstKmsWsUri = openviduConfig.getKmsUris().get(0);
 		log.info("OpenVidu Server using one KMS: {}", firstKmsWsUri);
 		return new FixedOneKmsManager(sessionManager);
@@ -186,8 +195,9 @@ public class OpenViduServer implements JsonRpcConfigurer {
 
 	@Bean
 	@ConditionalOnMissingBean
+	@DependsOn("openviduConfig")
 	public LoadManager loadManager() {
-		return new DummyLoadManager();
+		return new WeightedLoadManager();
 	}
 
 	@Bean
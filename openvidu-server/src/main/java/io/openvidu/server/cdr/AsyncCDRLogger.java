@@ -0,0 +1,182 @@
+/*
+ * (C) Copyright 2017-2020 OpenVidu (https://openvidu.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.openvidu.server.cdr;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.openvidu.server.kurento.endpoint.KmsEvent;
+import io.openvidu.server.summary.SessionSummary;
+
+/**
+ * Decorator that moves the work of a {@link CDRLogger} out of the threads
+ * generating the events. Events are stored in a bounded queue and consumed in
+ * batches by a dedicated thread, which hands consecutive {@link CDREvent}s to
+ * {@link CDRLogger#log(List)} at once. If the queue is full the event is
+ * discarded instead of blocking the caller. Events are serialized by the
+ * consumer thread: {@link CDREvent}s are queued as snapshots
+ * ({@link CDREvent#snapshot()}), so later changes of the objects they describe
+ * do not reach the logger. The rest of events are immutable
+ */
+public class AsyncCDRLogger implements CDRLogger {
+
+	private static final Logger log = LoggerFactory.getLogger(AsyncCDRLogger.class);
+
+	private static final int MAX_BATCH_SIZE = 100;
+
+	private final CDRLogger logger;
+	private final BlockingQueue<Object> queue;
+	private final Thread consumer;
+	private final AtomicLong droppedEvents = new AtomicLong(0);
+
+	private volatile boolean running = true;
+
+	public AsyncCDRLogger(CDRLogger logger, int queueSize) {
+		this.logger = logger;
+		this.queue = new ArrayBlockingQueue<>(queueSize);
+		this.consumer = new Thread(this::consume, "cdr-" + logger.getClass().getSimpleName());
+		this.consumer.setDaemon(true);
+		this.consumer.start();
+	}
+
+	public CDRLogger getLogger() {
+		return this.logger;
+	}
+
+	public int getQueueDepth() {
+		return this.queue.size();
+	}
+
+	public long getDroppedEvents() {
+		return this.droppedEvents.get();
+	}
+
+	@Override
+	public void log(CDREvent event) {
+		this.enqueue(event.snapshot());
+	}
+
+	@Override
+	public void log(KmsEvent event) {
+		this.enqueue(event);
+	}
+
+	@Override
+	public void log(WebrtcDebugEvent event) {
+		this.enqueue(event);
+	}
+
+	@Override
+	public void log(SessionSummary sessionSummary) {
+		this.enqueue(sessionSummary);
+	}
+
+	/**
+	 * Stops consuming events once the queue has been emptied, waiting at most the
+	 * specified milliseconds, and then closes the decorated logger
+	 */
+	public void close(long timeoutMs) {
+		this.running = false;
+		try {
+			this.consumer.join(timeoutMs);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (this.consumer.isAlive()) {
+			log.warn("{} CDR events of {} not processed before closing", this.queue.size(),
+					this.logger.getClass().getSimpleName());
+			this.consumer.interrupt();
+		}
+		this.logger.close();
+	}
+
+	private void enqueue(Object event) {
+		if (!this.running || !this.queue.offer(event)) {
+			long dropped = this.droppedEvents.incrementAndGet();
+			// Do not flood the log if the queue remains full
+			if (Long.bitCount(dropped) == 1) {
+				log.warn("CDR queue of {} is full. {} events dropped so far", this.logger.getClass().getSimpleName(),
+						dropped);
+			}
+		}
+	}
+
+	private void consume() {
+		List<Object> batch = new ArrayList<>(MAX_BATCH_SIZE);
+		List<CDREvent> cdrEvents = new ArrayList<>(MAX_BATCH_SIZE);
+		while (this.running || !this.queue.isEmpty()) {
+			try {
+				Object first = this.queue.poll(500, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				this.queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+				for (Object event : batch) {
+					if (event instanceof CDREvent) {
+						cdrEvents.add((CDREvent) event);
+					} else {
+						this.flush(cdrEvents);
+						this.dispatch(event);
+					}
+				}
+				this.flush(cdrEvents);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} finally {
+				batch.clear();
+				cdrEvents.clear();
+			}
+		}
+	}
+
+	private void flush(List<CDREvent> cdrEvents) {
+		if (cdrEvents.isEmpty()) {
+			return;
+		}
+		try {
+			this.logger.log(cdrEvents);
+		} catch (Exception e) {
+			log.error("Error logging {} CDR events: {}", cdrEvents.size(), e.getMessage());
+		}
+		cdrEvents.clear();
+	}
+
+	private void dispatch(Object event) {
+		try {
+			if (event instanceof KmsEvent) {
+				this.logger.log((KmsEvent) event);
+			} else if (event instanceof WebrtcDebugEvent) {
+				this.logger.log((WebrtcDebugEvent) event);
+			} else if (event instanceof SessionSummary) {
+				this.logger.log((SessionSummary) event);
+			}
+		} catch (Exception e) {
+			log.error("Error logging CDR event {}: {}", event.getClass().getSimpleName(), e.getMessage());
+		}
+	}
+
+}
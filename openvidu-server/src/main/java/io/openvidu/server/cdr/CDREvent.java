@@ -49,6 +49,17 @@ public class CDREvent {
 		return this.eventName;
 	}
 
+	/**
+	 * @return An event that keeps the values this one has now, so it can be
+	 *         serialized later in another thread while the session, participant
+	 *         or recording it describes keeps changing. Taking it must be cheap:
+	 *         values are copied, not serialized. Events only holding immutable
+	 *         values are their own snapshot
+	 */
+	public CDREvent snapshot() {
+		return this;
+	}
+
 	public JsonObject toJson() {
 		JsonObject json = new JsonObject();
 		if (sessionId != null) {
@@ -39,6 +39,14 @@ public class CDREventEnd extends CDREvent {
 		this.reason = reason;
 	}
 
+	// snapshot
+	protected CDREventEnd(CDREventEnd event) {
+		super(event.eventName, event.sessionId, event.uniqueSessionId, event.timeStamp);
+		this.startTime = event.startTime;
+		this.duration = event.duration;
+		this.reason = event.reason;
+	}
+
 	@Override
 	public JsonObject toJson() {
 		JsonObject json = super.toJson();
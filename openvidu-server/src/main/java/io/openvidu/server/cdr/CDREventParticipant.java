@@ -21,11 +21,20 @@ import com.google.gson.JsonObject;
 
 import io.openvidu.server.core.EndReason;
 import io.openvidu.server.core.Participant;
+import io.openvidu.server.utils.GeoLocation;
 
 public class CDREventParticipant extends CDREventEnd {
 
 	private Participant participant;
 
+	// Values of the participant when the snapshot was taken
+	private boolean isSnapshot = false;
+	private String connectionId;
+	private GeoLocation location;
+	private String platform;
+	private String clientData;
+	private String serverData;
+
 	// participantJoined
 	public CDREventParticipant(Participant participant) {
 		super(CDREventName.participantJoined, participant.getSessionId(), participant.getUniqueSessionId(),
@@ -40,17 +49,36 @@ public class CDREventParticipant extends CDREventEnd {
 		this.participant = event.participant;
 	}
 
+	// snapshot
+	private CDREventParticipant(CDREventParticipant event) {
+		super(event);
+		this.participant = event.participant;
+		this.isSnapshot = true;
+		this.connectionId = this.participant.getParticipantPublicId();
+		this.location = this.participant.getLocation();
+		this.platform = this.participant.getPlatform();
+		this.clientData = this.participant.getClientMetadata();
+		this.serverData = this.participant.getServerMetadata();
+	}
+
+	@Override
+	public CDREventParticipant snapshot() {
+		return this.isSnapshot ? this : new CDREventParticipant(this);
+	}
+
 	@Override
 	public JsonObject toJson() {
+		if (!this.isSnapshot) {
+			return this.snapshot().toJson();
+		}
 		JsonObject json = super.toJson();
 		// TODO: remove deprecated "participantId" when possible
-		json.addProperty("participantId", this.participant.getParticipantPublicId());
-		json.addProperty("connectionId", this.participant.getParticipantPublicId());
-		json.addProperty("location",
-				this.participant.getLocation() != null ? this.participant.getLocation().toString() : "unknown");
-		json.addProperty("platform", this.participant.getPlatform());
-		json.addProperty("clientData", this.participant.getClientMetadata());
-		json.addProperty("serverData", this.participant.getServerMetadata());
+		json.addProperty("participantId", this.connectionId);
+		json.addProperty("connectionId", this.connectionId);
+		json.addProperty("location", this.location != null ? this.location.toString() : "unknown");
+		json.addProperty("platform", this.platform);
+		json.addProperty("clientData", this.clientData);
+		json.addProperty("serverData", this.serverData);
 		return json;
 	}
 
@@ -27,6 +27,7 @@ import io.openvidu.server.utils.RecordingUtils;
 public class CDREventRecording extends CDREventEnd {
 
 	protected Recording recording;
+	private boolean isSnapshot = false;
 
 	// recordingStarted
 	public CDREventRecording(Recording recording) {
@@ -43,6 +44,18 @@ public class CDREventRecording extends CDREventEnd {
 		this.recording = recording;
 	}
 
+	// snapshot
+	private CDREventRecording(CDREventRecording event) {
+		super(event);
+		this.recording = new Recording(event.recording);
+		this.isSnapshot = true;
+	}
+
+	@Override
+	public CDREventRecording snapshot() {
+		return this.isSnapshot ? this : new CDREventRecording(this);
+	}
+
 	@Override
 	public JsonObject toJson() {
 		JsonObject json = super.toJson();
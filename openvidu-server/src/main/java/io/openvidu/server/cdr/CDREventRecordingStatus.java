@@ -29,6 +29,7 @@ public class CDREventRecordingStatus extends CDREventEnd {
 
 	private Recording recording;
 	private Status status;
+	private boolean isSnapshot = false;
 
 	public CDREventRecordingStatus(Recording recording, Long startTime, EndReason reason, Long timestamp,
 			Status status) {
@@ -38,6 +39,19 @@ public class CDREventRecordingStatus extends CDREventEnd {
 		this.status = status;
 	}
 
+	// snapshot
+	private CDREventRecordingStatus(CDREventRecordingStatus event) {
+		super(event);
+		this.recording = new Recording(event.recording);
+		this.status = event.status;
+		this.isSnapshot = true;
+	}
+
+	@Override
+	public CDREventRecordingStatus snapshot() {
+		return this.isSnapshot ? this : new CDREventRecordingStatus(this);
+	}
+
 	@Override
 	public JsonObject toJson() {
 		JsonObject json = super.toJson();
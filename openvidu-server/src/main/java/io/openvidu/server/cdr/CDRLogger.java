@@ -17,6 +17,8 @@
 
 package io.openvidu.server.cdr;
 
+import java.util.List;
+
 import io.openvidu.server.kurento.endpoint.KmsEvent;
 import io.openvidu.server.summary.SessionSummary;
 
@@ -24,10 +26,33 @@ public interface CDRLogger {
 
 	public void log(CDREvent event);
 
+	/**
+	 * Logs a batch of consecutive events. By default they are logged one by one
+	 */
+	public default void log(List<CDREvent> events) {
+		events.forEach(event -> this.log(event));
+	}
+
 	public void log(KmsEvent event);
 
 	public void log(WebrtcDebugEvent event);
 
 	public void log(SessionSummary sessionSummary);
 
+	/**
+	 * Whether the logger hands the events to its own threads without blocking the
+	 * caller. Loggers that are not asynchronous are run in an
+	 * {@link AsyncCDRLogger}
+	 */
+	public default boolean isAsync() {
+		return false;
+	}
+
+	/**
+	 * Releases the resources of the logger when OpenVidu Server stops. By default
+	 * there is nothing to release
+	 */
+	public default void close() {
+	}
+
 }
@@ -17,6 +17,8 @@
 
 package io.openvidu.server.cdr;
 
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,6 +37,25 @@ public class CDRLoggerFile implements CDRLogger {
 		log.info("{}", event);
 	}
 
+	/**
+	 * The whole batch is appended to the file at once, one event per line
+	 */
+	@Override
+	public void log(List<CDREvent> events) {
+		if (events.size() == 1) {
+			this.log(events.get(0));
+			return;
+		}
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < events.size(); i++) {
+			if (i > 0) {
+				sb.append('\n');
+			}
+			sb.append(events.get(i).toString());
+		}
+		log.info("{}", sb);
+	}
+
 	@Override
 	public void log(KmsEvent event) {
 	}
@@ -19,10 +19,14 @@ package io.openvidu.server.cdr;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Collectors;
+
+import javax.annotation.PreDestroy;
 
 import org.kurento.client.GenericMediaEvent;
 import org.slf4j.Logger;
@@ -54,7 +58,14 @@ public class CallDetailRecord {
 	@Autowired
 	private SessionManager sessionManager;
 
+	private static final long CLOSE_TIMEOUT = 5000;
+
 	private Collection<CDRLogger> loggers;
+	/**
+	 * Loggers wrapped in an {@link AsyncCDRLogger}, except those that already
+	 * queue the events in their own threads
+	 */
+	private List<CDRLogger> asyncLoggers;
 
 	private Map<String, CDREventSession> sessions = new ConcurrentHashMap<>();
 	private Map<String, CDREventParticipant> participants = new ConcurrentHashMap<>();
@@ -62,14 +73,52 @@ public class CallDetailRecord {
 	private Map<String, Set<CDREventWebrtcConnection>> subscriptions = new ConcurrentHashMap<>();
 	private Map<String, CDREventRecording> recordings = new ConcurrentHashMap<>();
 
-	public CallDetailRecord(Collection<CDRLogger> loggers) {
+	/**
+	 * @param queueSize Maximum number of events waiting to be processed by each
+	 *                  logger. Loggers are run in their own thread, so threads
+	 *                  generating events never wait for them. Loggers that are
+	 *                  already asynchronous ({@link CDRLogger#isAsync()}) use
+	 *                  their own queue instead
+	 */
+	public CallDetailRecord(Collection<CDRLogger> loggers, int queueSize) {
 		this.loggers = loggers;
+		this.asyncLoggers = loggers.stream()
+				.map(logger -> logger.isAsync() ? logger : new AsyncCDRLogger(logger, queueSize))
+				.collect(Collectors.toList());
 	}
 
 	public Collection<CDRLogger> getLoggers() {
 		return this.loggers;
 	}
 
+	/**
+	 * @return Number of events waiting to be processed, adding up all loggers
+	 */
+	public int getQueueDepth() {
+		return this.asyncLoggers.stream().filter(logger -> logger instanceof AsyncCDRLogger)
+				.mapToInt(logger -> ((AsyncCDRLogger) logger).getQueueDepth()).sum();
+	}
+
+	/**
+	 * @return Number of events discarded because of a full queue, adding up all
+	 *         loggers
+	 */
+	public long getDroppedEvents() {
+		return this.asyncLoggers.stream().filter(logger -> logger instanceof AsyncCDRLogger)
+				.mapToLong(logger -> ((AsyncCDRLogger) logger).getDroppedEvents()).sum();
+	}
+
+	@PreDestroy
+	public void close() {
+		this.asyncLoggers.forEach(logger -> {
+			if (logger instanceof AsyncCDRLogger) {
+				((AsyncCDRLogger) logger).close(CLOSE_TIMEOUT);
+			} else {
+				logger.close();
+			}
+		});
+	}
+
 	public void recordSessionCreated(Session session) {
 		CDREventSession e = new CDREventSession(session);
 		this.sessions.put(session.getSessionId(), e);
@@ -193,32 +242,36 @@ public class CallDetailRecord {
 	}
 
 	protected void log(CDREvent event) {
-		this.loggers.forEach(logger -> {
+		// Loggers serialize the event in their own threads
+		final CDREvent snapshot = event.snapshot();
+		this.asyncLoggers.forEach(logger -> {
 
 			// TEMP FIX: AVOID SENDING recordingStarted AND recordingStopped EVENTS TO
 			// WEBHOOK. ONLY recordingStatusChanged
-			if (!(logger instanceof CDRLoggerWebhook && (CDREventName.recordingStarted.equals(event.getEventName())
+			CDRLogger target = logger instanceof AsyncCDRLogger ? ((AsyncCDRLogger) logger).getLogger() : logger;
+			if (!(target instanceof CDRLoggerWebhook
+					&& (CDREventName.recordingStarted.equals(event.getEventName())
 					|| CDREventName.recordingStopped.equals(event.getEventName())))) {
-				logger.log(event);
+				logger.log(snapshot);
 			}
 
 		});
 	}
 
 	public void log(KmsEvent event) {
-		this.loggers.forEach(logger -> {
+		this.asyncLoggers.forEach(logger -> {
 			logger.log(event);
 		});
 	}
 
 	public void log(WebrtcDebugEvent event) {
-		this.loggers.forEach(logger -> {
+		this.asyncLoggers.forEach(logger -> {
 			logger.log(event);
 		});
 	}
 
 	public void log(SessionSummary sessionSummary) {
-		this.loggers.forEach(logger -> {
+		this.asyncLoggers.forEach(logger -> {
 			logger.log(sessionSummary);
 		});
 	}
@@ -18,7 +18,11 @@ public class WebrtcDebugEvent {
 		sdpOffer, sdpOfferMunged, sdpAnswer, iceCandidate
 	}
 
-	private Participant participant;
+	// Values of the participant, so the event can be serialized in another thread
+	private String sessionId;
+	private String uniqueSessionId;
+	private String user;
+	private String connectionId;
 	private String endpoint;
 	private WebrtcDebugEventIssuer issuer;
 	private WebrtcDebugEventOperation operation;
@@ -28,7 +32,10 @@ public class WebrtcDebugEvent {
 
 	public WebrtcDebugEvent(Participant participant, String endpoint, WebrtcDebugEventIssuer issuer,
 			WebrtcDebugEventOperation operation, WebrtcDebugEventType type, String content) {
-		this.participant = participant;
+		this.sessionId = participant.getSessionId();
+		this.uniqueSessionId = participant.getUniqueSessionId();
+		this.user = participant.getFinalUserId();
+		this.connectionId = participant.getParticipantPublicId();
 		this.endpoint = endpoint;
 		this.issuer = issuer;
 		this.operation = operation;
@@ -39,10 +46,10 @@ public class WebrtcDebugEvent {
 
 	public JsonObject toJson() {
 		JsonObject json = new JsonObject();
-		json.addProperty("sessionId", participant.getSessionId());
-		json.addProperty("uniqueSessionId", participant.getUniqueSessionId());
-		json.addProperty("user", participant.getFinalUserId());
-		json.addProperty("connectionId", participant.getParticipantPublicId());
+		json.addProperty("sessionId", this.sessionId);
+		json.addProperty("uniqueSessionId", this.uniqueSessionId);
+		json.addProperty("user", this.user);
+		json.addProperty("connectionId", this.connectionId);
 		json.addProperty("endpoint", this.endpoint);
 		json.addProperty("issuer", this.issuer.name());
 		json.addProperty("operation", this.operation.name());
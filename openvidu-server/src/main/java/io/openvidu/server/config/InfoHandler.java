@@ -19,8 +19,13 @@ package io.openvidu.server.config;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.BlockingDeque;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,42 +34,136 @@ import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
+/**
+ * Feeds the dashboard websockets with KMS events. Every subscriber has its own
+ * bounded queue and sender thread, so publishing an event never blocks the
+ * caller (usually a KMS event listener) and a slow dashboard only delays its
+ * own feed. When a queue is full the oldest event is discarded
+ */
 public class InfoHandler extends TextWebSocketHandler {
-	
+
 	private static final Logger log = LoggerFactory.getLogger(InfoHandler.class);
-	
-	Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
-	Semaphore semaphore = new Semaphore(1);
-	
-	public void sendInfo(String info){
-		for (WebSocketSession session : this.sessions.values()) {
-			try {
-				this.semaphore.acquire();
-				session.sendMessage(new TextMessage(info));
-				this.semaphore.release();
-			} catch (IOException | InterruptedException e) {
-				e.printStackTrace();
-			}
+
+	public static final int DEFAULT_QUEUE_SIZE = 1000;
+
+	private final int queueSize;
+
+	Map<String, Subscriber> sessions = new ConcurrentHashMap<>();
+
+	public InfoHandler() {
+		this(DEFAULT_QUEUE_SIZE);
+	}
+
+	public InfoHandler(int queueSize) {
+		this.queueSize = queueSize;
+	}
+
+	public boolean hasSubscribers() {
+		return !this.sessions.isEmpty();
+	}
+
+	public void sendInfo(String info) {
+		this.sendInfo(() -> info);
+	}
+
+	/**
+	 * The message is only built if there is at least one dashboard connected, and
+	 * it is built once for all of them
+	 */
+	public void sendInfo(Supplier<String> info) {
+		if (this.sessions.isEmpty()) {
+			return;
 		}
+		TextMessage message = new TextMessage(info.get());
+		for (Subscriber subscriber : this.sessions.values()) {
+			subscriber.enqueue(message);
+		}
+	}
+
+	public long getNumberOfDiscardedMessages() {
+		return this.sessions.values().stream().mapToLong(subscriber -> subscriber.discarded.get()).sum();
 	}
-	
+
 	@Override
 	public void afterConnectionEstablished(WebSocketSession session) throws Exception {
 		log.info("Info websocket stablished...");
-		this.sessions.put(session.getId(), session);
+		Subscriber subscriber = new Subscriber(session, this.queueSize);
+		this.sessions.put(session.getId(), subscriber);
+		subscriber.start();
 	}
-	
+
 	@Override
 	public void afterConnectionClosed(WebSocketSession session, CloseStatus close) throws Exception {
 		log.info("Info websocket closed: " + close.getReason());
-		this.sessions.remove(session.getId());
+		Subscriber subscriber = this.sessions.remove(session.getId());
+		if (subscriber != null) {
+			subscriber.stop();
+		}
 		session.close();
 	}
-	
+
 	@Override
-	protected void handleTextMessage(WebSocketSession session, TextMessage message)
-			throws Exception {
+	protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
 		log.info("Message received: " + message.getPayload());
 	}
-	
+
+	@PreDestroy
+	public void close() {
+		this.sessions.values().forEach(Subscriber::stop);
+		this.sessions.clear();
+	}
+
+	private class Subscriber implements Runnable {
+
+		private final WebSocketSession session;
+		private final BlockingDeque<TextMessage> queue;
+		private final AtomicLong discarded = new AtomicLong(0);
+		private final Thread sender;
+
+		private volatile boolean closed = false;
+
+		Subscriber(WebSocketSession session, int queueSize) {
+			this.session = session;
+			this.queue = new LinkedBlockingDeque<>(queueSize);
+			this.sender = new Thread(this, "info-sender-" + session.getId());
+			this.sender.setDaemon(true);
+		}
+
+		void start() {
+			this.sender.start();
+		}
+
+		void stop() {
+			this.closed = true;
+			this.queue.clear();
+			this.sender.interrupt();
+		}
+
+		void enqueue(TextMessage message) {
+			while (!this.queue.offerLast(message)) {
+				if (this.queue.pollFirst() != null && this.discarded.incrementAndGet() % queueSize == 1) {
+					log.warn("Info websocket {} is not keeping up. {} messages discarded so far", session.getId(),
+							this.discarded.get());
+				}
+			}
+		}
+
+		@Override
+		public void run() {
+			while (!this.closed) {
+				TextMessage message;
+				try {
+					message = this.queue.takeFirst();
+				} catch (InterruptedException e) {
+					return;
+				}
+				try {
+					this.session.sendMessage(message);
+				} catch (IOException | IllegalStateException e) {
+					log.warn("Error sending message to info websocket {}: {}", this.session.getId(), e.getMessage());
+				}
+			}
+		}
+	}
+
 }
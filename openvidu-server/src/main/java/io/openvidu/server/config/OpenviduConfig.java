@@ -31,10 +31,13 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import javax.annotation.PostConstruct;
 
@@ -62,6 +65,8 @@ import io.openvidu.server.OpenViduServer;
 import io.openvidu.server.cdr.CDREventName;
 import io.openvidu.server.config.Dotenv.DotenvFormatException;
 import io.openvidu.server.core.MediaServer;
+import io.openvidu.server.kurento.endpoint.KmsEventType;
+import io.openvidu.server.kurento.kms.LoadMetric;
 import io.openvidu.server.recording.RecordingNotification;
 import io.openvidu.server.rest.RequestMappings;
 
@@ -123,6 +128,8 @@ public class OpenviduConfig {
 
 	private String openviduCdrPath;
 
+	private int openviduCdrQueueSize;
+
 	private boolean openviduRecording;
 
 	private boolean openViduRecordingDebug;
@@ -139,6 +146,8 @@ public class OpenviduConfig {
 
 	private boolean openviduRecordingComposedBasicauth;
 
+	private boolean openviduRecordingIndividualZipOnDownload;
+
 	private String openviduRecordingVersion;
 
 	private Integer openviduStreamsVideoMaxRecvBandwidth;
@@ -161,6 +170,18 @@ public class OpenviduConfig {
 
 	private List<CDREventName> webhookEventsList;
 
+	private int openviduWebhookQueueSize;
+
+	private int openviduWebhookBatchSize;
+
+	private int openviduWebhookBatchTimeout;
+
+	private int openviduWebhookWorkers;
+
+	private int openviduWebhookMaxRetries;
+
+	private String openviduWebhookSpoolPath;
+
 	private List<String> kmsUrisList;
 
 	private String domainOrPublicIp;
@@ -179,16 +200,50 @@ public class OpenviduConfig {
 
 	private String coturnRedisConnectTimeout;
 
+	private String coturnSharedSecretKey;
+
+	private int coturnCredentialsTtl;
+
 	private String certificateType;
 
 	protected int openviduSessionsGarbageInterval;
 
 	protected int openviduSessionsGarbageThreshold;
 
+	private int openviduSessionsWebrtcStatsConcurrency;
+
+	private int openviduSessionsWebrtcStatsCacheTtl;
+
+	private int openviduSessionsRpcThreads;
+
+	private int openviduSessionsIceCandidatesBatchWindow;
+
+	private int openviduSessionsGeolocationCacheSize;
+
+	private int openviduSessionsGeolocationCacheTtl;
+
+	private boolean openviduSessionsGeolocationAsync;
+
+	private int openviduSessionsCloseConcurrency;
+
+	private int openviduSessionsCloseTimeout;
+
 	private VideoCodec openviduForcedCodec;
 
 	private boolean openviduAllowTranscoding;
 
+	private Set<KmsEventType> openviduStreamsKmsEvents;
+
+	private int openviduStreamsKmsEventsHistorySize;
+
+	private Map<String, Integer> openviduStreamsKmsEventsSampling;
+
+	private int mediaNodeLoadSamplingInterval;
+
+	private Map<LoadMetric, Double> mediaNodeLoadWeights;
+
+	private Map<LoadMetric, Double> mediaNodeCapacity;
+
 	private String dotenvPath;
 
 	// Derived properties
@@ -207,6 +262,14 @@ public class OpenviduConfig {
 		return this.coturnRedisPassword;
 	}
 
+	public String getCoturnSharedSecretKey() {
+		return this.coturnSharedSecretKey;
+	}
+
+	public int getCoturnCredentialsTtl() {
+		return this.coturnCredentialsTtl;
+	}
+
 	public List<String> getKmsUris() {
 		return kmsUrisList;
 	}
@@ -235,6 +298,10 @@ public class OpenviduConfig {
 		return this.openviduCdrPath;
 	}
 
+	public int getOpenviduCdrQueueSize() {
+		return this.openviduCdrQueueSize;
+	}
+
 	public boolean isRecordingModuleEnabled() {
 		return this.openviduRecording;
 	}
@@ -271,6 +338,10 @@ public class OpenviduConfig {
 		return this.openviduRecordingComposedBasicauth;
 	}
 
+	public boolean isOpenviduRecordingIndividualZipOnDownload() {
+		return this.openviduRecordingIndividualZipOnDownload;
+	}
+
 	public String getOpenViduRecordingVersion() {
 		return this.openviduRecordingVersion;
 	}
@@ -323,6 +394,30 @@ public class OpenviduConfig {
 		return webhookEventsList;
 	}
 
+	public int getOpenViduWebhookQueueSize() {
+		return openviduWebhookQueueSize;
+	}
+
+	public int getOpenViduWebhookBatchSize() {
+		return openviduWebhookBatchSize;
+	}
+
+	public int getOpenViduWebhookBatchTimeout() {
+		return openviduWebhookBatchTimeout;
+	}
+
+	public int getOpenViduWebhookWorkers() {
+		return openviduWebhookWorkers;
+	}
+
+	public int getOpenViduWebhookMaxRetries() {
+		return openviduWebhookMaxRetries;
+	}
+
+	public String getOpenViduWebhookSpoolPath() {
+		return openviduWebhookSpoolPath;
+	}
+
 	public int getSessionGarbageInterval() {
 		return openviduSessionsGarbageInterval;
 	}
@@ -331,6 +426,42 @@ public class OpenviduConfig {
 		return openviduSessionsGarbageThreshold;
 	}
 
+	public int getSessionWebrtcStatsConcurrency() {
+		return openviduSessionsWebrtcStatsConcurrency;
+	}
+
+	public int getSessionWebrtcStatsCacheTtl() {
+		return openviduSessionsWebrtcStatsCacheTtl;
+	}
+
+	public int getSessionRpcThreads() {
+		return openviduSessionsRpcThreads;
+	}
+
+	public int getSessionIceCandidatesBatchWindow() {
+		return openviduSessionsIceCandidatesBatchWindow;
+	}
+
+	public int getSessionGeolocationCacheSize() {
+		return openviduSessionsGeolocationCacheSize;
+	}
+
+	public int getSessionGeolocationCacheTtl() {
+		return openviduSessionsGeolocationCacheTtl;
+	}
+
+	public boolean isSessionGeolocationAsync() {
+		return openviduSessionsGeolocationAsync;
+	}
+
+	public int getSessionCloseConcurrency() {
+		return openviduSessionsCloseConcurrency;
+	}
+
+	public int getSessionCloseTimeout() {
+		return openviduSessionsCloseTimeout;
+	}
+
 	public VideoCodec getOpenviduForcedCodec() {
 		return openviduForcedCodec;
 	}
@@ -339,6 +470,30 @@ public class OpenviduConfig {
 		return openviduAllowTranscoding;
 	}
 
+	public Set<KmsEventType> getKmsEventTypes() {
+		return openviduStreamsKmsEvents;
+	}
+
+	public int getKmsEventsHistorySize() {
+		return openviduStreamsKmsEventsHistorySize;
+	}
+
+	public Map<String, Integer> getKmsEventsSampling() {
+		return openviduStreamsKmsEventsSampling;
+	}
+
+	public int getMediaNodeLoadSamplingInterval() {
+		return mediaNodeLoadSamplingInterval;
+	}
+
+	public Map<LoadMetric, Double> getMediaNodeLoadWeights() {
+		return mediaNodeLoadWeights;
+	}
+
+	public Map<LoadMetric, Double> getMediaNodeCapacity() {
+		return mediaNodeCapacity;
+	}
+
 	public String getDotenvPath() {
 		return dotenvPath;
 	}
@@ -486,7 +641,8 @@ public class OpenviduConfig {
 
 	protected List<String> getNonUserProperties() {
 		return Arrays.asList("server.port", "SERVER_PORT", "DOTENV_PATH", "COTURN_IP", "COTURN_REDIS_IP",
-				"COTURN_REDIS_DBNAME", "COTURN_REDIS_PASSWORD", "COTURN_REDIS_CONNECT_TIMEOUT");
+				"COTURN_REDIS_DBNAME", "COTURN_REDIS_PASSWORD", "COTURN_REDIS_CONNECT_TIMEOUT", "COTURN_SHARED_SECRET_KEY",
+				"COTURN_CREDENTIALS_TTL");
 	}
 
 	// Properties
@@ -514,6 +670,7 @@ public class OpenviduConfig {
 		openviduCdr = asBoolean("OPENVIDU_CDR");
 		openviduCdrPath = openviduCdr ? asWritableFileSystemPath("OPENVIDU_CDR_PATH")
 				: asFileSystemPath("OPENVIDU_CDR_PATH");
+		openviduCdrQueueSize = asPositiveInteger("OPENVIDU_CDR_QUEUE_SIZE");
 
 		openviduRecording = asBoolean("OPENVIDU_RECORDING");
 		openViduRecordingDebug = asBoolean("OPENVIDU_RECORDING_DEBUG");
@@ -523,6 +680,7 @@ public class OpenviduConfig {
 		openviduRecordingAutostopTimeout = asNonNegativeInteger("OPENVIDU_RECORDING_AUTOSTOP_TIMEOUT");
 		openviduRecordingCustomLayout = asFileSystemPath("OPENVIDU_RECORDING_CUSTOM_LAYOUT");
 		openviduRecordingComposedBasicauth = asBoolean("OPENVIDU_RECORDING_COMPOSED_BASICAUTH");
+		openviduRecordingIndividualZipOnDownload = asBoolean("OPENVIDU_RECORDING_INDIVIDUAL_ZIP_ON_DOWNLOAD");
 		openviduRecordingVersion = asNonEmptyString("OPENVIDU_RECORDING_VERSION");
 		openviduRecordingComposedUrl = asOptionalURL("OPENVIDU_RECORDING_COMPOSED_URL");
 		checkOpenviduRecordingNotification();
@@ -534,9 +692,26 @@ public class OpenviduConfig {
 
 		openviduSessionsGarbageInterval = asNonNegativeInteger("OPENVIDU_SESSIONS_GARBAGE_INTERVAL");
 		openviduSessionsGarbageThreshold = asNonNegativeInteger("OPENVIDU_SESSIONS_GARBAGE_THRESHOLD");
+		openviduSessionsWebrtcStatsConcurrency = asPositiveInteger("OPENVIDU_SESSIONS_WEBRTC_STATS_CONCURRENCY");
+		openviduSessionsWebrtcStatsCacheTtl = asNonNegativeInteger("OPENVIDU_SESSIONS_WEBRTC_STATS_CACHE_TTL");
+		openviduSessionsRpcThreads = asPositiveInteger("OPENVIDU_SESSIONS_RPC_THREADS");
+		openviduSessionsIceCandidatesBatchWindow = asNonNegativeInteger(
+				"OPENVIDU_SESSIONS_ICE_CANDIDATES_BATCH_WINDOW");
+		openviduSessionsGeolocationCacheSize = asNonNegativeInteger("OPENVIDU_SESSIONS_GEOLOCATION_CACHE_SIZE");
+		openviduSessionsGeolocationCacheTtl = asPositiveInteger("OPENVIDU_SESSIONS_GEOLOCATION_CACHE_TTL");
+		openviduSessionsGeolocationAsync = asBoolean("OPENVIDU_SESSIONS_GEOLOCATION_ASYNC");
+		openviduSessionsCloseConcurrency = asPositiveInteger("OPENVIDU_SESSIONS_CLOSE_CONCURRENCY");
+		openviduSessionsCloseTimeout = asNonNegativeInteger("OPENVIDU_SESSIONS_CLOSE_TIMEOUT");
 
 		openviduForcedCodec = asEnumValue("OPENVIDU_STREAMS_FORCED_VIDEO_CODEC", VideoCodec.class);
 		openviduAllowTranscoding = asBoolean("OPENVIDU_STREAMS_ALLOW_TRANSCODING");
+		openviduStreamsKmsEvents = getKmsEvents();
+		openviduStreamsKmsEventsHistorySize = asNonNegativeInteger("OPENVIDU_STREAMS_KMS_EVENTS_HISTORY_SIZE");
+		checkKmsEventsSampling();
+
+		mediaNodeLoadSamplingInterval = asPositiveInteger("OPENVIDU_MEDIA_NODE_LOAD_SAMPLING_INTERVAL");
+		mediaNodeLoadWeights = asOptionalNonNegativeNumberMap("OPENVIDU_MEDIA_NODE_LOAD_WEIGHTS", LoadMetric.class);
+		mediaNodeCapacity = asOptionalNonNegativeNumberMap("OPENVIDU_MEDIA_NODE_CAPACITY", LoadMetric.class);
 
 		kmsUrisList = checkKmsUris();
 
@@ -544,6 +719,8 @@ public class OpenviduConfig {
 
 		coturnRedisIp = asOptionalInetAddress("COTURN_REDIS_IP");
 
+		checkCoturnSharedSecret();
+
 		checkWebhook();
 
 		checkCertificateType();
@@ -575,6 +752,14 @@ public class OpenviduConfig {
 		}
 	}
 
+	private void checkCoturnSharedSecret() {
+		coturnSharedSecretKey = asOptionalString("COTURN_SHARED_SECRET_KEY");
+		if (coturnSharedSecretKey != null && coturnSharedSecretKey.isEmpty()) {
+			coturnSharedSecretKey = null;
+		}
+		coturnCredentialsTtl = asPositiveInteger("COTURN_CREDENTIALS_TTL");
+	}
+
 	private void checkWebhook() {
 		openviduWebhookEnabled = asBoolean("OPENVIDU_WEBHOOK");
 		openviduWebhookEndpoint = asOptionalURL("OPENVIDU_WEBHOOK_ENDPOINT");
@@ -584,6 +769,51 @@ public class OpenviduConfig {
 		if (openviduWebhookEnabled && (openviduWebhookEndpoint == null || openviduWebhookEndpoint.isEmpty())) {
 			addError("OPENVIDU_WEBHOOK_ENDPOINT", "With OPENVIDU_WEBHOOK=true, this property cannot be empty");
 		}
+
+		openviduWebhookWorkers = asPositiveInteger("OPENVIDU_WEBHOOK_WORKERS");
+		openviduWebhookQueueSize = asPositiveInteger("OPENVIDU_WEBHOOK_QUEUE_SIZE");
+		openviduWebhookBatchSize = asPositiveInteger("OPENVIDU_WEBHOOK_BATCH_SIZE");
+		openviduWebhookBatchTimeout = asNonNegativeInteger("OPENVIDU_WEBHOOK_BATCH_TIMEOUT");
+		openviduWebhookMaxRetries = asNonNegativeInteger("OPENVIDU_WEBHOOK_MAX_RETRIES");
+
+		if (openviduWebhookQueueSize < openviduWebhookWorkers) {
+			addError("OPENVIDU_WEBHOOK_QUEUE_SIZE", "Cannot be lower than OPENVIDU_WEBHOOK_WORKERS");
+		}
+
+		String spoolPath = asOptionalString("OPENVIDU_WEBHOOK_SPOOL_PATH");
+		if (openviduWebhookEnabled && spoolPath != null && !spoolPath.isEmpty()) {
+			openviduWebhookSpoolPath = asWritableFileSystemPath("OPENVIDU_WEBHOOK_SPOOL_PATH");
+		}
+	}
+
+	private Set<KmsEventType> getKmsEvents() {
+		String property = "OPENVIDU_STREAMS_KMS_EVENTS";
+		Set<KmsEventType> eventSet = EnumSet.noneOf(KmsEventType.class);
+		for (String event : asJsonStringsArray(property)) {
+			try {
+				eventSet.add(KmsEventType.valueOf(event));
+			} catch (IllegalArgumentException e) {
+				addError(property, "Event '" + event + "' must be one of " + Arrays.asList(KmsEventType.values()));
+			}
+		}
+		return eventSet;
+	}
+
+	private void checkKmsEventsSampling() {
+		final String property = "OPENVIDU_STREAMS_KMS_EVENTS_SAMPLING";
+		openviduStreamsKmsEventsSampling = new HashMap<>();
+		for (Entry<String, String> entry : asOptionalStringMap(property).entrySet()) {
+			try {
+				int rate = Integer.parseInt(entry.getValue());
+				if (rate <= 0) {
+					addError(property, "Value of key '" + entry.getKey() + "' is not a positive integer");
+				} else {
+					openviduStreamsKmsEventsSampling.put(entry.getKey(), rate);
+				}
+			} catch (NumberFormatException e) {
+				addError(property, "Value of key '" + entry.getKey() + "' is not a positive integer");
+			}
+		}
 	}
 
 	private void checkOpenviduRecordingNotification() {
@@ -814,6 +1044,20 @@ public class OpenviduConfig {
 		}
 	}
 
+	protected Integer asPositiveInteger(String property) {
+		try {
+			Integer integerValue = Integer.parseInt(getValue(property));
+
+			if (integerValue <= 0) {
+				addError(property, "Is not a positive integer");
+			}
+			return integerValue;
+		} catch (NumberFormatException e) {
+			addError(property, "Is not a positive integer");
+			return 0;
+		}
+	}
+
 	/*
 	 * This method checks all types of Internet addresses (IPv4, IPv6 and Domains)
 	 */
@@ -933,6 +1177,31 @@ public class OpenviduConfig {
 		return map;
 	}
 
+	protected <E extends Enum<E>> Map<E, Double> asOptionalNonNegativeNumberMap(String property, Class<E> keyType) {
+		Map<E, Double> map = new EnumMap<>(keyType);
+		for (Entry<String, String> entry : asOptionalStringMap(property).entrySet()) {
+			E key;
+			try {
+				key = Enum.valueOf(keyType, entry.getKey());
+			} catch (IllegalArgumentException e) {
+				addError(property, "Key '" + entry.getKey() + "' must be one of "
+						+ Arrays.asList(keyType.getEnumConstants()));
+				continue;
+			}
+			try {
+				double value = Double.parseDouble(entry.getValue());
+				if (value < 0) {
+					addError(property, "Value of key '" + entry.getKey() + "' is not a non negative number");
+				} else {
+					map.put(key, value);
+				}
+			} catch (NumberFormatException e) {
+				addError(property, "Value of key '" + entry.getKey() + "' is not a non negative number");
+			}
+		}
+		return map;
+	}
+
 	public URI checkWebsocketUri(String uri) throws Exception {
 		try {
 			if (!StringUtils.startsWithAny(uri, "ws://", "wss://")) {
@@ -0,0 +1,156 @@
+/*
+ * (C) Copyright 2017-2020 OpenVidu (https://openvidu.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.openvidu.server.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.openvidu.server.utils.RemoteOperationUtils;
+
+/**
+ * Closes many sessions at once (all the sessions of a crashed Media Node, or
+ * all the sessions of the server when it stops) on a bounded number of threads.
+ * Each session is closed from start to end by the same thread, so the CDR
+ * events of a session keep their order, while different sessions are closed in
+ * parallel. The caller waits for a global deadline at most: sessions not closed
+ * by then are reported and keep closing in the background
+ */
+public class ParallelSessionCloser {
+
+	private static final Logger log = LoggerFactory.getLogger(ParallelSessionCloser.class);
+
+	private static final long PROGRESS_INTERVAL = 5000; // milliseconds
+
+	private final int concurrency;
+	private final long timeout; // milliseconds
+
+	/**
+	 * @param concurrency   maximum number of sessions closed at the same time
+	 * @param timeoutMillis maximum time to wait for all the sessions to be
+	 *                      closed. 0 waits until all of them are closed
+	 */
+	public ParallelSessionCloser(int concurrency, long timeoutMillis) {
+		this.concurrency = concurrency;
+		this.timeout = timeoutMillis;
+	}
+
+	/**
+	 * Runs <code>closeAction</code> for every session and waits for all of them
+	 * to finish or for the deadline to be reached. If the calling thread is
+	 * flagged to skip remote operations (see {@link RemoteOperationUtils}), so are
+	 * the threads closing the sessions
+	 *
+	 * @param description what is being closed, for the logs
+	 * @return identifiers of the sessions not closed before the deadline
+	 */
+	public Collection<String> closeAll(String description, Collection<String> sessionIds,
+			Consumer<String> closeAction) {
+
+		final int total = sessionIds.size();
+		if (total == 0) {
+			return List.of();
+		}
+
+		final boolean skipRemoteOperations = RemoteOperationUtils.mustSkipRemoteOperation();
+		final Set<String> pending = ConcurrentHashMap.newKeySet();
+		final Set<String> running = ConcurrentHashMap.newKeySet();
+		final CountDownLatch closed = new CountDownLatch(total);
+		final AtomicInteger failed = new AtomicInteger(0);
+		pending.addAll(sessionIds);
+
+		AtomicInteger counter = new AtomicInteger(0);
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(this.concurrency, total), runnable -> {
+			Thread thread = new Thread(runnable, "session-closer-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		log.info("{}: closing {} sessions with {} threads", description, total, Math.min(this.concurrency, total));
+		final long startTime = System.currentTimeMillis();
+
+		for (String sessionId : sessionIds) {
+			pool.execute(() -> {
+				running.add(sessionId);
+				if (skipRemoteOperations) {
+					RemoteOperationUtils.setToSkipRemoteOperations();
+				}
+				try {
+					closeAction.accept(sessionId);
+				} catch (Exception e) {
+					failed.incrementAndGet();
+					log.warn("Error closing session '{}': {}", sessionId, e.getMessage());
+				} finally {
+					RemoteOperationUtils.revertToRunRemoteOperations();
+					running.remove(sessionId);
+					pending.remove(sessionId);
+					closed.countDown();
+				}
+			});
+		}
+		// Sessions already queued are closed anyway. Threads end afterwards
+		pool.shutdown();
+
+		try {
+			boolean done = false;
+			while (!done) {
+				long wait = PROGRESS_INTERVAL;
+				if (this.timeout > 0) {
+					long remaining = startTime + this.timeout - System.currentTimeMillis();
+					if (remaining <= 0) {
+						break;
+					}
+					wait = Math.min(wait, remaining);
+				}
+				done = closed.await(wait, TimeUnit.MILLISECONDS);
+				if (!done) {
+					log.info("{}: {} of {} sessions closed after {} ms ({} failed)", description,
+							total - closed.getCount(), total, System.currentTimeMillis() - startTime, failed.get());
+				}
+			}
+		} catch (InterruptedException e) {
+			log.error("{}: interrupted while waiting for sessions to be closed", description);
+			Thread.currentThread().interrupt();
+		}
+
+		List<String> stragglers = new ArrayList<>(pending);
+		long elapsed = System.currentTimeMillis() - startTime;
+		if (stragglers.isEmpty()) {
+			log.info("{}: {} sessions closed in {} ms ({} failed)", description, total, elapsed, failed.get());
+		} else {
+			List<String> notStarted = new ArrayList<>(stragglers);
+			notStarted.removeAll(running);
+			log.warn(
+					"{}: {} of {} sessions not closed after {} ms. They will keep closing in the background. Closing: {}. Not started: {}",
+					description, stragglers.size(), total, elapsed, running, notStarted);
+		}
+		return stragglers;
+	}
+
+}
@@ -17,6 +17,8 @@
 
 package io.openvidu.server.core;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -55,6 +57,7 @@ public class Participant {
 	protected GeoLocation location; // Location of the participant
 	protected String platform; // Platform used by the participant to connect to the session
 	protected EndpointType endpointType; // Type of participant (web participant, IP cam participant...)
+	protected boolean batchedIceCandidates = false; // Client accepts several ICE candidates per notification
 
 	// TODO
 	// Unify with "PublisherEndpoint.MediaOptions"
@@ -163,6 +166,14 @@ public class Participant {
 		this.platform = platform;
 	}
 
+	public boolean isBatchedIceCandidates() {
+		return this.batchedIceCandidates;
+	}
+
+	public void setBatchedIceCandidates(boolean batchedIceCandidates) {
+		this.batchedIceCandidates = batchedIceCandidates;
+	}
+
 	public EndpointType getEndpointType() {
 		return this.endpointType;
 	}
@@ -334,4 +345,14 @@ public class Participant {
 		return null;
 	}
 
+	/**
+	 * Prefetches the remote information needed by
+	 * {@link Participant#withStatsToJson()}, taking one permit of
+	 * concurrencyLimit for each request in flight. Requests that cannot get a
+	 * permit before the deadline (epoch milliseconds) are not made
+	 */
+	public CompletableFuture<Void> fetchWebrtcStats(Semaphore concurrencyLimit, long deadline) {
+		return CompletableFuture.completedFuture(null);
+	}
+
 }
@@ -48,6 +48,9 @@ public class Session implements SessionInterface {
 
 	protected ConcurrentMap<String, Token> tokens = new ConcurrentHashMap<>();
 	protected final ConcurrentMap<String, Participant> participants = new ConcurrentHashMap<>();
+	protected final ConcurrentMap<String, Participant> participantsByPublicId = new ConcurrentHashMap<>();
+	// Immutable copy of the participants, only rebuilt when one joins or leaves
+	private volatile Set<Participant> participantsSnapshot = Set.of();
 	protected String sessionId;
 	protected String uniqueSessionId;
 	protected SessionProperties sessionProperties;
@@ -120,7 +123,19 @@ public class Session implements SessionInterface {
 
 	public Set<Participant> getParticipants() {
 		checkClosed();
-		return new HashSet<Participant>(this.participants.values());
+		return new HashSet<Participant>(this.participantsSnapshot);
+	}
+
+	/**
+	 * Immutable snapshot of the participants of the session. Unlike
+	 * {@link Session#getParticipants()} it does not copy them: the snapshot is
+	 * only rebuilt when a participant joins or leaves, so it can be shared by any
+	 * number of concurrent notifications and safely iterated while participants
+	 * come and go
+	 */
+	public Set<Participant> getParticipantsView() {
+		checkClosed();
+		return this.participantsSnapshot;
 	}
 
 	public Participant getParticipantByPrivateId(String participantPrivateId) {
@@ -130,12 +145,7 @@ public class Session implements SessionInterface {
 
 	public Participant getParticipantByPublicId(String participantPublicId) {
 		checkClosed();
-		for (Participant p : participants.values()) {
-			if (p.getParticipantPublicId().equals(participantPublicId)) {
-				return p;
-			}
-		}
-		return null;
+		return participantsByPublicId.get(participantPublicId);
 	}
 
 	public boolean onlyRecorderParticipant() {
@@ -165,6 +175,37 @@ public class Session implements SessionInterface {
 		}
 	}
 
+	protected void addParticipant(Participant participant) {
+		synchronized (this.participants) {
+			this.participants.put(participant.getParticipantPrivateId(), participant);
+			this.participantsByPublicId.put(participant.getParticipantPublicId(), participant);
+			this.updateParticipantsSnapshot();
+		}
+	}
+
+	protected Participant removeParticipantByPrivateId(String participantPrivateId) {
+		synchronized (this.participants) {
+			Participant removed = this.participants.remove(participantPrivateId);
+			if (removed != null) {
+				this.participantsByPublicId.remove(removed.getParticipantPublicId(), removed);
+				this.updateParticipantsSnapshot();
+			}
+			return removed;
+		}
+	}
+
+	protected void clearParticipants() {
+		synchronized (this.participants) {
+			this.participants.clear();
+			this.participantsByPublicId.clear();
+			this.participantsSnapshot = Set.of();
+		}
+	}
+
+	private void updateParticipantsSnapshot() {
+		this.participantsSnapshot = Set.copyOf(this.participants.values());
+	}
+
 	public void storeToken(Token token) {
 		this.tokens.put(token.getToken(), token);
 	}
@@ -17,12 +17,14 @@
 
 package io.openvidu.server.core;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.kurento.client.GenericMediaEvent;
@@ -84,6 +86,15 @@ public class SessionEventsHandler {
 		JsonObject result = new JsonObject();
 		JsonArray resultArray = new JsonArray();
 
+		JsonObject notifParams = new JsonObject();
+
+		// Metadata associated to new participant
+		notifParams.addProperty(ProtocolElements.PARTICIPANTJOINED_USER_PARAM, participant.getParticipantPublicId());
+		notifParams.addProperty(ProtocolElements.PARTICIPANTJOINED_CREATEDAT_PARAM, participant.getActiveAt());
+		notifParams.addProperty(ProtocolElements.PARTICIPANTJOINED_METADATA_PARAM, participant.getFullMetadata());
+
+		List<String> notifRecipients = new ArrayList<>(existingParticipants.size());
+
 		for (Participant existingParticipant : existingParticipants) {
 			JsonObject participantJson = new JsonObject();
 			participantJson.addProperty(ProtocolElements.JOINROOM_PEERID_PARAM,
@@ -140,20 +151,13 @@ public class SessionEventsHandler {
 			// notification to existing participants. 'recordingStarted' will be sent to all
 			// existing participants when recorder first subscribe to a stream
 			if (!ProtocolElements.RECORDER_PARTICIPANT_PUBLICID.equals(participant.getParticipantPublicId())) {
-				JsonObject notifParams = new JsonObject();
-
-				// Metadata associated to new participant
-				notifParams.addProperty(ProtocolElements.PARTICIPANTJOINED_USER_PARAM,
-						participant.getParticipantPublicId());
-				notifParams.addProperty(ProtocolElements.PARTICIPANTJOINED_CREATEDAT_PARAM, participant.getActiveAt());
-				notifParams.addProperty(ProtocolElements.PARTICIPANTJOINED_METADATA_PARAM,
-						participant.getFullMetadata());
-
-				rpcNotificationService.sendNotification(existingParticipant.getParticipantPrivateId(),
-						ProtocolElements.PARTICIPANTJOINED_METHOD, notifParams);
+				notifRecipients.add(existingParticipant.getParticipantPrivateId());
 			}
 		}
 
+		rpcNotificationService.broadcastNotification(notifRecipients, ProtocolElements.PARTICIPANTJOINED_METHOD,
+				notifParams);
+
 		result.addProperty(ProtocolElements.PARTICIPANTJOINED_USER_PARAM, participant.getParticipantPublicId());
 		result.addProperty(ProtocolElements.PARTICIPANTJOINED_FINALUSERID_PARAM, participant.getFinalUserId());
 		result.addProperty(ProtocolElements.PARTICIPANTJOINED_CREATEDAT_PARAM, participant.getActiveAt());
@@ -199,10 +203,8 @@ public class SessionEventsHandler {
 		params.addProperty(ProtocolElements.PARTICIPANTLEFT_NAME_PARAM, participant.getParticipantPublicId());
 		params.addProperty(ProtocolElements.PARTICIPANTLEFT_REASON_PARAM, reason != null ? reason.name() : "");
 
-		for (Participant p : remainingParticipants) {
-			rpcNotificationService.sendNotification(p.getParticipantPrivateId(),
-					ProtocolElements.PARTICIPANTLEFT_METHOD, params);
-		}
+		rpcNotificationService.broadcastNotification(toPrivateIds(remainingParticipants),
+				ProtocolElements.PARTICIPANTLEFT_METHOD, params);
 
 		if (transactionId != null) {
 			// No response when the participant is forcibly evicted instead of voluntarily
@@ -255,14 +257,13 @@ public class SessionEventsHandler {
 		streamsArray.add(stream);
 		params.add(ProtocolElements.PARTICIPANTPUBLISHED_STREAMS_PARAM, streamsArray);
 
+		List<String> recipients = new ArrayList<>(participants.size());
 		for (Participant p : participants) {
-			if (p.getParticipantPrivateId().equals(participant.getParticipantPrivateId())) {
-				continue;
-			} else {
-				rpcNotificationService.sendNotification(p.getParticipantPrivateId(),
-						ProtocolElements.PARTICIPANTPUBLISHED_METHOD, params);
+			if (!p.getParticipantPrivateId().equals(participant.getParticipantPrivateId())) {
+				recipients.add(p.getParticipantPrivateId());
 			}
 		}
+		rpcNotificationService.broadcastNotification(recipients, ProtocolElements.PARTICIPANTPUBLISHED_METHOD, params);
 	}
 
 	public void onUnpublishMedia(Participant participant, Set<Participant> participants, Participant moderator,
@@ -283,12 +284,12 @@ public class SessionEventsHandler {
 		params.addProperty(ProtocolElements.PARTICIPANTUNPUBLISHED_NAME_PARAM, participant.getParticipantPublicId());
 		params.addProperty(ProtocolElements.PARTICIPANTUNPUBLISHED_REASON_PARAM, reason != null ? reason.name() : "");
 
+		List<String> recipients = new ArrayList<>(participants.size());
 		for (Participant p : participants) {
 			if (p.getParticipantPrivateId().equals(participant.getParticipantPrivateId())) {
 				// Send response to the affected participant
 				if (!isRpcFromOwner) {
-					rpcNotificationService.sendNotification(p.getParticipantPrivateId(),
-							ProtocolElements.PARTICIPANTUNPUBLISHED_METHOD, params);
+					recipients.add(p.getParticipantPrivateId());
 				} else {
 					if (error != null) {
 						rpcNotificationService.sendErrorResponse(p.getParticipantPrivateId(), transactionId, null,
@@ -301,11 +302,12 @@ public class SessionEventsHandler {
 				if (error == null) {
 					// Send response to every other user in the session different than the affected
 					// participant
-					rpcNotificationService.sendNotification(p.getParticipantPrivateId(),
-							ProtocolElements.PARTICIPANTUNPUBLISHED_METHOD, params);
+					recipients.add(p.getParticipantPrivateId());
 				}
 			}
 		}
+		rpcNotificationService.broadcastNotification(recipients, ProtocolElements.PARTICIPANTUNPUBLISHED_METHOD,
+				params);
 	}
 
 	public void onPrepareSubscription(Participant participant, Session session, String sdpOffer, Integer transactionId,
@@ -363,8 +365,29 @@ public class SessionEventsHandler {
 		rpcNotificationService.sendResponse(participant.getParticipantPrivateId(), transactionId, new JsonObject());
 	}
 
+	/**
+	 * @deprecated use
+	 *             {@link #onSendMessage(Participant, JsonObject, Session, String, String, Integer, OpenViduException)},
+	 *             which resolves each recipient without scanning every participant
+	 */
+	@Deprecated
 	public void onSendMessage(Participant participant, JsonObject message, Set<Participant> participants,
 			String sessionId, String uniqueSessionId, Integer transactionId, OpenViduException error) {
+		Map<String, Participant> participantsByPublicId = participants.stream()
+				.collect(Collectors.toMap(Participant::getParticipantPublicId, p -> p, (p1, p2) -> p1));
+		this.sendSignal(participant, message, participants, participantsByPublicId::get, sessionId, uniqueSessionId,
+				transactionId, error);
+	}
+
+	public void onSendMessage(Participant participant, JsonObject message, Session session, String sessionId,
+			String uniqueSessionId, Integer transactionId, OpenViduException error) {
+		this.sendSignal(participant, message, session.getParticipantsView(), session::getParticipantByPublicId,
+				sessionId, uniqueSessionId, transactionId, error);
+	}
+
+	private void sendSignal(Participant participant, JsonObject message, Set<Participant> participants,
+			Function<String, Participant> participantByPublicId, String sessionId, String uniqueSessionId,
+			Integer transactionId, OpenViduException error) {
 
 		boolean isRpcCall = transactionId != null;
 		if (isRpcCall) {
@@ -407,27 +430,28 @@ public class SessionEventsHandler {
 			}
 		}
 
+		List<String> recipients;
 		if (toSet.isEmpty()) {
+			recipients = new ArrayList<>();
 			for (Participant p : participants) {
-				toSet.add(p.getParticipantPublicId());
-				rpcNotificationService.sendNotification(p.getParticipantPrivateId(),
-						ProtocolElements.PARTICIPANTSENDMESSAGE_METHOD, params);
+				if (!p.isClosed()) {
+					toSet.add(p.getParticipantPublicId());
+					recipients.add(p.getParticipantPrivateId());
+				}
 			}
 		} else {
-			Set<String> participantPublicIds = participants.stream().map(Participant::getParticipantPublicId)
-					.collect(Collectors.toSet());
-			if (participantPublicIds.containsAll(toSet)) {
-				for (String to : toSet) {
-					Optional<Participant> p = participants.stream().filter(x -> to.equals(x.getParticipantPublicId()))
-							.findFirst();
-					rpcNotificationService.sendNotification(p.get().getParticipantPrivateId(),
-							ProtocolElements.PARTICIPANTSENDMESSAGE_METHOD, params);
+			recipients = new ArrayList<>(toSet.size());
+			for (String to : toSet) {
+				Participant p = participantByPublicId.apply(to);
+				if (p == null || p.isClosed()) {
+					throw new OpenViduException(Code.SIGNAL_TO_INVALID_ERROR_CODE,
+							"Signal \"to\" field invalid format: some connectionId does not exist in this session");
 				}
-			} else {
-				throw new OpenViduException(Code.SIGNAL_TO_INVALID_ERROR_CODE,
-						"Signal \"to\" field invalid format: some connectionId does not exist in this session");
+				recipients.add(p.getParticipantPrivateId());
 			}
 		}
+		rpcNotificationService.broadcastNotification(recipients, ProtocolElements.PARTICIPANTSENDMESSAGE_METHOD,
+				params);
 
 		if (isRpcCall) {
 			rpcNotificationService.sendResponse(participant.getParticipantPrivateId(), transactionId, new JsonObject());
@@ -447,15 +471,17 @@ public class SessionEventsHandler {
 		params.addProperty(ProtocolElements.STREAMPROPERTYCHANGED_NEWVALUE_PARAM, newValue.toString());
 		params.addProperty(ProtocolElements.STREAMPROPERTYCHANGED_REASON_PARAM, reason);
 
+		List<String> recipients = new ArrayList<>(participants.size());
 		for (Participant p : participants) {
 			if (p.getParticipantPrivateId().equals(participant.getParticipantPrivateId())) {
 				rpcNotificationService.sendResponse(participant.getParticipantPrivateId(), transactionId,
 						new JsonObject());
 			} else {
-				rpcNotificationService.sendNotification(p.getParticipantPrivateId(),
-						ProtocolElements.STREAMPROPERTYCHANGED_METHOD, params);
+				recipients.add(p.getParticipantPrivateId());
 			}
 		}
+		rpcNotificationService.broadcastNotification(recipients, ProtocolElements.STREAMPROPERTYCHANGED_METHOD,
+				params);
 	}
 
 	public void onRecvIceCandidate(Participant participant, Integer transactionId, OpenViduException error) {
@@ -486,14 +512,13 @@ public class SessionEventsHandler {
 
 		if (!ProtocolElements.RECORDER_PARTICIPANT_PUBLICID.equals(evictedParticipant.getParticipantPublicId())) {
 			// Do not send a message when evicting RECORDER participant
-			rpcNotificationService.sendNotification(evictedParticipant.getParticipantPrivateId(),
-					ProtocolElements.PARTICIPANTEVICTED_METHOD, params);
-		}
-		for (Participant p : participants) {
-			if (!ProtocolElements.RECORDER_PARTICIPANT_PUBLICID.equals(evictedParticipant.getParticipantPublicId())) {
-				rpcNotificationService.sendNotification(p.getParticipantPrivateId(),
-						ProtocolElements.PARTICIPANTEVICTED_METHOD, params);
+			List<String> recipients = new ArrayList<>(participants.size() + 1);
+			recipients.add(evictedParticipant.getParticipantPrivateId());
+			for (Participant p : participants) {
+				recipients.add(p.getParticipantPrivateId());
 			}
+			rpcNotificationService.broadcastNotification(recipients, ProtocolElements.PARTICIPANTEVICTED_METHOD,
+					params);
 		}
 
 		// Schedule the close up of this WebSocket connection. This is only as an extra
@@ -506,16 +531,14 @@ public class SessionEventsHandler {
 		if (recording.recordingNotificationSent.compareAndSet(false, true)) {
 			// Filter participants by roles according to "OPENVIDU_RECORDING_NOTIFICATION"
 			Set<Participant> filteredParticipants = this.filterParticipantsByRole(
-					this.openviduConfig.getRolesFromRecordingNotification(), session.getParticipants());
+					this.openviduConfig.getRolesFromRecordingNotification(), session.getParticipantsView());
 
 			JsonObject params = new JsonObject();
 			params.addProperty(ProtocolElements.RECORDINGSTARTED_ID_PARAM, recording.getId());
 			params.addProperty(ProtocolElements.RECORDINGSTARTED_NAME_PARAM, recording.getName());
 
-			for (Participant p : filteredParticipants) {
-				rpcNotificationService.sendNotification(p.getParticipantPrivateId(),
-						ProtocolElements.RECORDINGSTARTED_METHOD, params);
-			}
+			rpcNotificationService.broadcastNotification(toPrivateIds(filteredParticipants),
+					ProtocolElements.RECORDINGSTARTED_METHOD, params);
 		}
 	}
 
@@ -527,7 +550,7 @@ public class SessionEventsHandler {
 		// Filter participants by roles according to "OPENVIDU_RECORDING_NOTIFICATION"
 		Set<Participant> existingParticipants;
 		try {
-			existingParticipants = session.getParticipants();
+			existingParticipants = session.getParticipantsView();
 		} catch (OpenViduException exception) {
 			// Session is already closed. This happens when RecordingMode.ALWAYS and last
 			// participant has left the session. No notification needs to be sent
@@ -542,10 +565,8 @@ public class SessionEventsHandler {
 		params.addProperty(ProtocolElements.RECORDINGSTARTED_NAME_PARAM, recording.getName());
 		params.addProperty(ProtocolElements.RECORDINGSTOPPED_REASON_PARAM, reason != null ? reason.name() : "");
 
-		for (Participant p : filteredParticipants) {
-			rpcNotificationService.sendNotification(p.getParticipantPrivateId(),
-					ProtocolElements.RECORDINGSTOPPED_METHOD, params);
-		}
+		rpcNotificationService.broadcastNotification(toPrivateIds(filteredParticipants),
+				ProtocolElements.RECORDINGSTOPPED_METHOD, params);
 	}
 
 	public void onFilterChanged(Participant participant, Participant moderator, Integer transactionId,
@@ -580,13 +601,13 @@ public class SessionEventsHandler {
 		params.add(ProtocolElements.STREAMPROPERTYCHANGED_NEWVALUE_PARAM, filterJson);
 		params.addProperty(ProtocolElements.STREAMPROPERTYCHANGED_REASON_PARAM, filterReason);
 
+		List<String> recipients = new ArrayList<>(participants.size());
 		for (Participant p : participants) {
 			if (p.getParticipantPrivateId().equals(participant.getParticipantPrivateId())) {
 				// Affected participant
 				if (isRpcFromModerator) {
 					// Force by moderator. Send notification to affected participant
-					rpcNotificationService.sendNotification(p.getParticipantPrivateId(),
-							ProtocolElements.STREAMPROPERTYCHANGED_METHOD, params);
+					recipients.add(p.getParticipantPrivateId());
 				} else {
 					// Send response to participant
 					if (error != null) {
@@ -601,11 +622,12 @@ public class SessionEventsHandler {
 				// participant or the moderator
 				if (error == null && (moderator == null
 						|| !p.getParticipantPrivateId().equals(moderator.getParticipantPrivateId()))) {
-					rpcNotificationService.sendNotification(p.getParticipantPrivateId(),
-							ProtocolElements.STREAMPROPERTYCHANGED_METHOD, params);
+					recipients.add(p.getParticipantPrivateId());
 				}
 			}
 		}
+		rpcNotificationService.broadcastNotification(recipients, ProtocolElements.STREAMPROPERTYCHANGED_METHOD,
+				params);
 	}
 
 	public void onFilterEventDispatched(String sessionId, String uniqueSessionId, String connectionId, String streamId,
@@ -621,12 +643,14 @@ public class SessionEventsHandler {
 		params.addProperty(ProtocolElements.FILTEREVENTLISTENER_EVENTTYPE_PARAM, event.getType());
 		params.addProperty(ProtocolElements.FILTEREVENTLISTENER_DATA_PARAM, event.getData().toString());
 
+		List<String> recipients = new ArrayList<>(subscribedParticipants.size());
 		for (Participant p : participants) {
 			if (subscribedParticipants.contains(p.getParticipantPublicId())) {
-				rpcNotificationService.sendNotification(p.getParticipantPrivateId(),
-						ProtocolElements.FILTEREVENTDISPATCHED_METHOD, params);
+				recipients.add(p.getParticipantPrivateId());
 			}
 		}
+		rpcNotificationService.broadcastNotification(recipients, ProtocolElements.FILTEREVENTDISPATCHED_METHOD,
+				params);
 	}
 
 	public void onVideoData(Participant participant, Integer transactionId, Integer height, Integer width,
@@ -660,6 +684,10 @@ public class SessionEventsHandler {
 		recordingsToSendClientEvents.put(recording.getSessionId(), recording);
 	}
 
+	protected Collection<String> toPrivateIds(Collection<Participant> participants) {
+		return participants.stream().map(Participant::getParticipantPrivateId).collect(Collectors.toList());
+	}
+
 	protected Set<Participant> filterParticipantsByRole(OpenViduRole[] roles, Set<Participant> participants) {
 		return participants.stream().filter(part -> {
 			if (ProtocolElements.RECORDER_PARTICIPANT_PUBLICID.equals(part.getParticipantPublicId())) {
@@ -17,22 +17,29 @@
 
 package io.openvidu.server.core;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 
+import org.kurento.client.IceCandidate;
 import org.kurento.jsonrpc.message.Request;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -95,12 +102,22 @@ public abstract class SessionManager {
 
 	private UpdatableTimerTask sessionGarbageCollectorTimer;
 
+	private static final int WEBRTC_STATS_FETCH_TIMEOUT = 10;
+	private volatile Semaphore webrtcStatsConcurrencyLimit;
+
 	final protected ConcurrentMap<String, Session> sessions = new ConcurrentHashMap<>();
 	final protected ConcurrentMap<String, Session> sessionsNotActive = new ConcurrentHashMap<>();
 	protected ConcurrentMap<String, ConcurrentHashMap<String, Participant>> sessionidParticipantpublicidParticipant = new ConcurrentHashMap<>();
 	protected ConcurrentMap<String, ConcurrentHashMap<String, FinalUser>> sessionidFinalUsers = new ConcurrentHashMap<>();
 	protected ConcurrentMap<String, ConcurrentLinkedQueue<CDREventRecording>> sessionidAccumulatedRecordings = new ConcurrentHashMap<>();
 
+	/**
+	 * Server-wide index of joined participants by their private id. It is updated
+	 * on every join and leave, and cleaned up for the whole session when the
+	 * session collections are emptied
+	 */
+	protected ConcurrentMap<String, Participant> participantsByPrivateId = new ConcurrentHashMap<>();
+
 	protected ConcurrentMap<String, Boolean> insecureUsers = new ConcurrentHashMap<>();
 
 	public abstract void joinRoom(Participant participant, String sessionId, Integer transactionId);
@@ -124,7 +141,7 @@ public abstract class SessionManager {
 	public void sendMessage(String message, Session session) {
 		try {
 			JsonObject messageJson = JsonParser.parseString(message).getAsJsonObject();
-			sessionEventsHandler.onSendMessage(null, messageJson, getParticipants(session.getSessionId()),
+			sessionEventsHandler.onSendMessage(null, messageJson, getActiveSession(session.getSessionId()),
 					session.getSessionId(), session.getUniqueSessionId(), null, null);
 		} catch (JsonSyntaxException | IllegalStateException e) {
 			throw new OpenViduException(Code.SIGNAL_FORMAT_INVALID_ERROR_CODE,
@@ -135,7 +152,7 @@ public abstract class SessionManager {
 	public void sendMessage(Participant participant, String message, Integer transactionId) {
 		try {
 			JsonObject messageJson = JsonParser.parseString(message).getAsJsonObject();
-			sessionEventsHandler.onSendMessage(participant, messageJson, getParticipants(participant.getSessionId()),
+			sessionEventsHandler.onSendMessage(participant, messageJson, getActiveSession(participant.getSessionId()),
 					participant.getSessionId(), participant.getUniqueSessionId(), transactionId, null);
 		} catch (JsonSyntaxException | IllegalStateException e) {
 			throw new OpenViduException(Code.SIGNAL_FORMAT_INVALID_ERROR_CODE,
@@ -149,6 +166,9 @@ public abstract class SessionManager {
 	public abstract void onIceCandidate(Participant participant, String endpointName, String candidate,
 			int sdpMLineIndex, String sdpMid, Integer transactionId);
 
+	public abstract void onIceCandidates(Participant participant, String endpointName, List<IceCandidate> candidates,
+			Integer transactionId);
+
 	public abstract boolean unpublishStream(Session session, String streamId, Participant moderator,
 			Integer transactionId, EndReason reason);
 
@@ -225,20 +245,72 @@ public abstract class SessionManager {
 	}
 
 	/**
-	 * Returns all the participants inside a session.
+	 * Retrieves in parallel from the Media Nodes the information needed to
+	 * serialize the sessions with WebRTC stats, so
+	 * {@link Session#toJson(boolean, boolean)} does not have to make blocking
+	 * calls for every endpoint one after another. No more than
+	 * OPENVIDU_SESSIONS_WEBRTC_STATS_CONCURRENCY requests are in flight at the same
+	 * time for the whole server. The caller waits 10 seconds at most, and the
+	 * information not retrieved by then is left out of the stats
+	 */
+	public void fetchWebrtcStats(Collection<Session> sessions) {
+		Semaphore concurrencyLimit = this.getWebrtcStatsConcurrencyLimit();
+		final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(WEBRTC_STATS_FETCH_TIMEOUT);
+		List<CompletableFuture<Void>> futures = new ArrayList<>();
+		for (Session session : sessions) {
+			for (Participant participant : session.getParticipants()) {
+				futures.add(participant.fetchWebrtcStats(concurrencyLimit, deadline));
+			}
+		}
+		try {
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()]))
+					.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			log.warn("Timeout retrieving WebRTC stats of {} sessions. Pending ones will not be reported",
+					sessions.size());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			log.error("Error retrieving WebRTC stats: {}", e.getMessage());
+		}
+	}
+
+	private Semaphore getWebrtcStatsConcurrencyLimit() {
+		if (this.webrtcStatsConcurrencyLimit == null) {
+			synchronized (this) {
+				if (this.webrtcStatsConcurrencyLimit == null) {
+					this.webrtcStatsConcurrencyLimit = new Semaphore(
+							openviduConfig.getSessionWebrtcStatsConcurrency());
+				}
+			}
+		}
+		return this.webrtcStatsConcurrencyLimit;
+	}
+
+	/**
+	 * Returns all the participants inside a session. The returned set is
+	 * immutable, and it is only copied if some participant is closed
 	 *
 	 * @param sessionId identifier of the session
 	 * @return set of {@link Participant}
 	 * @throws OpenViduException in case the session doesn't exist
 	 */
 	public Set<Participant> getParticipants(String sessionId) throws OpenViduException {
+		Set<Participant> participants = getActiveSession(sessionId).getParticipantsView();
+		for (Participant p : participants) {
+			if (p.isClosed()) {
+				return participants.stream().filter(part -> !part.isClosed()).collect(Collectors.toUnmodifiableSet());
+			}
+		}
+		return participants;
+	}
+
+	private Session getActiveSession(String sessionId) throws OpenViduException {
 		Session session = sessions.get(sessionId);
 		if (session == null) {
 			throw new OpenViduException(Code.ROOM_NOT_FOUND_ERROR_CODE, "Session '" + sessionId + "' not found");
 		}
-		Set<Participant> participants = session.getParticipants();
-		participants.removeIf(p -> p.isClosed());
-		return participants;
+		return session;
 	}
 
 	/**
@@ -271,17 +343,43 @@ public abstract class SessionManager {
 	 * @throws OpenViduException in case the participant doesn't exist
 	 */
 	public Participant getParticipant(String participantPrivateId) throws OpenViduException {
-		for (Session session : sessions.values()) {
-			if (!session.isClosed()) {
-				if (session.getParticipantByPrivateId(participantPrivateId) != null) {
-					return session.getParticipantByPrivateId(participantPrivateId);
-				}
+		Participant participant = this.participantsByPrivateId.get(participantPrivateId);
+		if (participant != null) {
+			Session session = sessions.get(participant.getSessionId());
+			if (session != null && !session.isClosed()) {
+				return participant;
 			}
 		}
 		throw new OpenViduException(Code.USER_NOT_FOUND_ERROR_CODE,
 				"No participant with private id '" + participantPrivateId + "' was found");
 	}
 
+	/**
+	 * Stores a participant that has just joined its session in the server-wide
+	 * private id index
+	 *
+	 * @param participant participant as stored by its {@link Session}
+	 */
+	protected void indexParticipant(Participant participant) {
+		if (participant != null) {
+			this.participantsByPrivateId.put(participant.getParticipantPrivateId(), participant);
+		}
+	}
+
+	/**
+	 * Removes a participant that has just left its session from the server-wide
+	 * private id index. If the private id has been already reassigned to a
+	 * different participant, the index is not modified
+	 *
+	 * @param participant participant as stored by its {@link Session}
+	 */
+	protected void unindexParticipant(Participant participant) {
+		if (participant != null) {
+			this.participantsByPrivateId.computeIfPresent(participant.getParticipantPrivateId(),
+					(privateId, indexed) -> indexed == participant ? null : indexed);
+		}
+	}
+
 	public Map<String, FinalUser> getFinalUsers(String sessionId) {
 		return this.sessionidFinalUsers.get(sessionId);
 	}
@@ -445,13 +543,8 @@ public abstract class SessionManager {
 	@PreDestroy
 	public void close() {
 		log.info("Closing all sessions");
-		for (String sessionId : sessions.keySet()) {
-			try {
-				closeSession(sessionId, EndReason.openviduServerStopped);
-			} catch (Exception e) {
-				log.warn("Error closing session '{}': {}", sessionId, e.getMessage());
-			}
-		}
+		this.newParallelSessionCloser().closeAll("Server stopping", new ArrayList<>(sessions.keySet()),
+				sessionId -> closeSession(sessionId, EndReason.openviduServerStopped));
 		if (this.sessionGarbageCollectorTimer != null) {
 			this.sessionGarbageCollectorTimer.cancelTimer();
 		}
@@ -626,12 +719,23 @@ public abstract class SessionManager {
 	protected void cleanCollections(String sessionId) {
 		sessions.remove(sessionId);
 		sessionsNotActive.remove(sessionId);
-		sessionidParticipantpublicidParticipant.remove(sessionId);
+		ConcurrentHashMap<String, Participant> participantsOfSession = sessionidParticipantpublicidParticipant
+				.remove(sessionId);
+		if (participantsOfSession != null) {
+			participantsOfSession.values().forEach(p -> this.participantsByPrivateId
+					.computeIfPresent(p.getParticipantPrivateId(),
+							(privateId, indexed) -> sessionId.equals(indexed.getSessionId()) ? null : indexed));
+		}
 		sessionidFinalUsers.remove(sessionId);
 		sessionidAccumulatedRecordings.remove(sessionId);
 		tokenRegister.deregisterTokens(sessionId);
 	}
 
+	private ParallelSessionCloser newParallelSessionCloser() {
+		return new ParallelSessionCloser(openviduConfig.getSessionCloseConcurrency(),
+				TimeUnit.SECONDS.toMillis(openviduConfig.getSessionCloseTimeout()));
+	}
+
 	private void initializeCollections(String sessionId) {
 		this.sessionidParticipantpublicidParticipant.putIfAbsent(sessionId, new ConcurrentHashMap<>());
 		this.sessionidFinalUsers.putIfAbsent(sessionId, new ConcurrentHashMap<>());
@@ -642,9 +746,10 @@ public abstract class SessionManager {
 
 	public void closeAllSessionsAndRecordingsOfKms(Kms kms, EndReason reason) {
 		// Close all active sessions
-		kms.getKurentoSessions().forEach(kSession -> {
-			this.closeSession(kSession.getSessionId(), reason);
-		});
+		List<String> sessionIds = kms.getKurentoSessions().stream().map(kSession -> kSession.getSessionId())
+				.collect(Collectors.toList());
+		this.newParallelSessionCloser().closeAll("Media Node " + kms.getId(), sessionIds,
+				sessionId -> this.closeSession(sessionId, reason));
 		// Close all non active sessions configured with this Media Node
 		this.closeNonActiveSessions(sessionNotActive -> {
 			return (sessionNotActive.getSessionProperties().mediaNode() != null
@@ -19,30 +19,39 @@ public class TokenRegister {
 
     /**
      * O(1)
-     * Register a token of an specific active session
+     * Register a token of an specific active session. This method does not block: if the session
+     * is concurrently deregistered, the token registration is rolled back
      * @param sessionId Id of the sessions where the token is generated
      * @param token Token to register
      */
-    protected synchronized void registerToken(String sessionId, Participant participant, Token token) {
-        this.tokensRegisteredBySession.putIfAbsent(sessionId, new ConcurrentHashMap<>());
-        ConcurrentHashMap<String, Token> registeredTokensInSession = this.tokensRegisteredBySession.get(sessionId);
-        this.tokensRegistered.put(token.getToken(), token);
-        this.participantsByTokens.put(token.getToken(), participant);
-        registeredTokensInSession.put(token.getToken(), token);
+    protected void registerToken(String sessionId, Participant participant, Token token) {
+        final String tokenString = token.getToken();
+        ConcurrentHashMap<String, Token> registeredTokensInSession = this.tokensRegisteredBySession
+                .computeIfAbsent(sessionId, k -> new ConcurrentHashMap<>());
+        this.tokensRegistered.put(tokenString, token);
+        this.participantsByTokens.put(tokenString, participant);
+        registeredTokensInSession.put(tokenString, token);
+        if (this.tokensRegisteredBySession.get(sessionId) != registeredTokensInSession) {
+            // The session was deregistered while registering the token
+            this.tokensRegistered.remove(tokenString, token);
+            this.participantsByTokens.remove(tokenString, participant);
+        }
     }
 
     /**
-     * O(n)
-     * Deregister all tokens of an specific session which is not active
+     * O(n), being n the number of tokens registered in the session
+     * Deregister all tokens of an specific session which is not active. Tokens of other sessions are not affected
      * @param sessionId Id of the session which is no longer active
      */
-    protected synchronized void deregisterTokens(String sessionId) {
-        if (this.tokensRegisteredBySession.containsKey(sessionId)) {
-            for(Map.Entry<String, Token> tokenRegisteredInSession: tokensRegistered.entrySet()) {
-                this.tokensRegistered.remove(tokenRegisteredInSession.getKey());
-                this.participantsByTokens.remove(tokenRegisteredInSession.getKey());
+    protected void deregisterTokens(String sessionId) {
+        ConcurrentHashMap<String, Token> registeredTokensInSession = this.tokensRegisteredBySession.remove(sessionId);
+        if (registeredTokensInSession != null) {
+            for (Map.Entry<String, Token> tokenRegisteredInSession : registeredTokensInSession.entrySet()) {
+                if (this.tokensRegistered.remove(tokenRegisteredInSession.getKey(),
+                        tokenRegisteredInSession.getValue())) {
+                    this.participantsByTokens.remove(tokenRegisteredInSession.getKey());
+                }
             }
-            this.tokensRegisteredBySession.remove(sessionId);
         }
     }
 
@@ -17,8 +17,17 @@
 
 package io.openvidu.server.coturn;
 
+import io.openvidu.server.config.OpenviduConfig;
+
 public class CoturnCredentialsServiceFactory {
 
+	public CoturnCredentialsService getCoturnCredentialsService(OpenviduConfig openviduConfig) {
+		if (openviduConfig.getCoturnSharedSecretKey() != null) {
+			return new HmacCoturnCredentialsService();
+		}
+		return this.getCoturnCredentialsService(openviduConfig.getSpringProfile());
+	}
+
 	public CoturnCredentialsService getCoturnCredentialsService(String springProfile) {
 		if (!"docker".equals(springProfile)) {
 			return new BashCoturnCredentialsService();
@@ -0,0 +1,83 @@
+/*
+ * (C) Copyright 2017-2020 OpenVidu (https://openvidu.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.openvidu.server.coturn;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.commons.lang3.RandomStringUtils;
+
+/**
+ * Generates ephemeral TURN credentials following the TURN REST API scheme
+ * supported by coturn with "use-auth-secret": the username is
+ * "&lt;expiration-unix-timestamp&gt;:&lt;random-id&gt;" and the credential is
+ * the Base64 encoded HMAC-SHA1 of the username keyed with the shared secret.
+ * coturn validates them statelessly, so there is nothing to store or delete
+ */
+public class HmacCoturnCredentialsService extends CoturnCredentialsService {
+
+	private static final String HMAC_ALGORITHM = "HmacSHA1";
+
+	private SecretKeySpec secretKey;
+	private ThreadLocal<Mac> mac;
+
+	@PostConstruct
+	private void initialize() {
+		byte[] secret = this.openviduConfig.getCoturnSharedSecretKey().getBytes(StandardCharsets.UTF_8);
+		this.secretKey = new SecretKeySpec(secret, HMAC_ALGORITHM);
+		this.mac = ThreadLocal.withInitial(this::newMac);
+		this.openviduConfig.setTurnadminAvailable(true);
+		log.info("COTURN IP: " + this.openviduConfig.getCoturnIp());
+		log.info("Using COTURN credentials service with shared secret (credentials valid for {} seconds)",
+				this.openviduConfig.getCoturnCredentialsTtl());
+	}
+
+	@Override
+	public TurnCredentials createUser() {
+		long expiration = System.currentTimeMillis() / 1000 + this.openviduConfig.getCoturnCredentialsTtl();
+		String user = expiration + ":" + RandomStringUtils.randomAlphanumeric(6).toUpperCase();
+		return new TurnCredentials(user, this.generateCredential(user));
+	}
+
+	@Override
+	public boolean deleteUser(String user) {
+		// Credentials expire by themselves
+		return true;
+	}
+
+	protected String generateCredential(String user) {
+		byte[] hmac = this.mac.get().doFinal(user.getBytes(StandardCharsets.UTF_8));
+		return Base64.getEncoder().encodeToString(hmac);
+	}
+
+	private Mac newMac() {
+		try {
+			Mac hmac = Mac.getInstance(HMAC_ALGORITHM);
+			hmac.init(this.secretKey);
+			return hmac;
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Cannot initialize " + HMAC_ALGORITHM + " for COTURN credentials", e);
+		}
+	}
+
+}
@@ -17,19 +17,24 @@
 
 package io.openvidu.server.kurento.core;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import org.apache.commons.lang3.RandomStringUtils;
 import org.kurento.client.Continuation;
-import org.kurento.client.Endpoint;
 import org.kurento.client.ErrorEvent;
 import org.kurento.client.Filter;
 import org.kurento.client.IceCandidate;
@@ -83,6 +88,7 @@ public class KurentoParticipant extends Participant {
 				kurentoSession.getSessionId(), kurentoSession.getUniqueSessionId(), participant.getToken(),
 				participant.getClientMetadata(), participant.getLocation(), participant.getPlatform(),
 				participant.getEndpointType(), participant.getActiveAt());
+		this.batchedIceCandidates = participant.isBatchedIceCandidates();
 		this.endpointConfig = endpointConfig;
 		this.openviduConfig = openviduConfig;
 		this.recordingManager = recordingManager;
@@ -208,7 +214,12 @@ public class KurentoParticipant extends Participant {
 				this.getParticipantPublicId());
 	}
 
-	public String prepareReceiveMediaFrom(Participant sender) {
+	/**
+	 * Server initiated negotiation of a subscription. The returned future
+	 * completes with the Sdp offer of KMS (or null if KMS failed to generate it)
+	 * without blocking any thread while KMS responds
+	 */
+	public CompletableFuture<String> prepareReceiveMediaFromAsync(Participant sender) {
 		final String senderName = sender.getParticipantPublicId();
 
 		log.info("PARTICIPANT {}: Request to prepare receive media from {} in room {}", this.getParticipantPublicId(),
@@ -219,42 +230,57 @@ public class KurentoParticipant extends Participant {
 			throw new OpenViduException(Code.USER_NOT_STREAMING_ERROR_CODE, "Can loopback only when publishing media");
 		}
 
-		KurentoParticipant kSender = (KurentoParticipant) sender;
-		if (kSender.streaming && kSender.getPublisher() != null) {
-
-			final Lock closingReadLock = kSender.getPublisher().closingLock.readLock();
-			if (closingReadLock.tryLock()) {
-				try {
-
-					SubscriberEndpoint subscriber = initializeSubscriberEndpoint(kSender);
+		final KurentoParticipant kSender = (KurentoParticipant) sender;
+		final PublisherEndpoint senderPublisher = kSender.streaming ? kSender.getPublisher() : null;
+
+		return this.whilePublisherNotClosing(kSender, senderPublisher, () -> initializeSubscriberEndpointAsync(kSender))
+				.thenCompose(subscriber -> this
+						.whilePublisherNotClosing(kSender, senderPublisher,
+								() -> subscriber.prepareSubscription(senderPublisher))
+						.handle((sdpOffer, error) -> {
+							if (error == null) {
+								log.trace("PARTICIPANT {}: Subscribing SdpOffer is {}", this.getParticipantPublicId(),
+										sdpOffer);
+								log.info("PARTICIPANT {}: offer prepared to receive media from {} in room {}",
+										this.getParticipantPublicId(), senderName, this.session.getSessionId());
+								return sdpOffer;
+							}
+							Throwable cause = unwrap(error);
+							this.subscribers.remove(senderName, subscriber);
+							releaseSubscriberEndpoint(senderName, kSender, subscriber, null, false);
+							if (cause instanceof KurentoServerException) {
+								log.error("Exception preparing subscriber endpoint for user {}: {}",
+										this.getParticipantPublicId(), cause.getMessage());
+								return null;
+							}
+							throw new CompletionException(cause);
+						}));
+	}
 
-					try {
-						String sdpOffer = subscriber.prepareSubscription(kSender.getPublisher());
-						log.trace("PARTICIPANT {}: Subscribing SdpOffer is {}", this.getParticipantPublicId(),
-								sdpOffer);
-						log.info("PARTICIPANT {}: offer prepared to receive media from {} in room {}",
-								this.getParticipantPublicId(), senderName, this.session.getSessionId());
-						return sdpOffer;
-					} catch (KurentoServerException e) {
-						log.error("Exception preparing subscriber endpoint for user {}: {}",
-								this.getParticipantPublicId(), e.getMessage());
-						this.subscribers.remove(senderName);
-						releaseSubscriberEndpoint(senderName, (KurentoParticipant) sender, subscriber, null, false);
-						return null;
-					}
-				} finally {
-					closingReadLock.unlock();
-				}
+	/**
+	 * Blocking version of
+	 * {@link #receiveMediaAsync(Participant, String, boolean, boolean)}
+	 */
+	public String receiveMedia(Participant sender, String sdpString, boolean silent, boolean initByServer) {
+		try {
+			return this.receiveMediaAsync(sender, sdpString, silent, initByServer).join();
+		} catch (CompletionException e) {
+			Throwable cause = unwrap(e);
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
 			}
+			throw new OpenViduException(Code.MEDIA_ENDPOINT_ERROR_CODE, cause.getMessage());
 		}
-		log.error(
-				"PublisherEndpoint of participant {} of session {} is closed. Participant {} couldn't subscribe to it ",
-				senderName, sender.getSessionId(), this.participantPublicId);
-		throw new OpenViduException(Code.MEDIA_ENDPOINT_ERROR_CODE,
-				"Unable to create subscriber endpoint. Publisher endpoint of participant " + senderName + "is closed");
 	}
 
-	public String receiveMedia(Participant sender, String sdpString, boolean silent, boolean initByServer) {
+	/**
+	 * Client initiated negotiation of a subscription (or second step of a server
+	 * initiated one). The returned future completes with the Sdp answer of KMS
+	 * (or null if the subscriber endpoint couldn't be connected) without blocking
+	 * any thread while KMS responds
+	 */
+	public CompletableFuture<String> receiveMediaAsync(Participant sender, String sdpString, boolean silent,
+			boolean initByServer) {
 		final String senderName = sender.getParticipantPublicId();
 		log.info("PARTICIPANT {}: Request to receive media from {} in room {}", this.getParticipantPublicId(),
 				senderName, this.session.getSessionId());
@@ -264,56 +290,51 @@ public class KurentoParticipant extends Participant {
 			log.warn("PARTICIPANT {}: trying to configure loopback by subscribing", this.getParticipantPublicId());
 			throw new OpenViduException(Code.USER_NOT_STREAMING_ERROR_CODE, "Can loopback only when publishing media");
 		}
-		KurentoParticipant kSender = (KurentoParticipant) sender;
-		if (kSender.streaming && kSender.getPublisher() != null) {
-
-			final Lock closingReadLock = kSender.getPublisher().closingLock.readLock();
-			if (closingReadLock.tryLock()) {
-				try {
 
-					// If initialized by server SubscriberEndpoint was created on
-					// prepareReceiveMediaFrom. If initialized by client must be created now
-					final SubscriberEndpoint subscriber = initByServer ? getSubscriber(senderName)
-							: initializeSubscriberEndpoint(kSender);
+		final KurentoParticipant kSender = (KurentoParticipant) sender;
+		final PublisherEndpoint senderPublisher = kSender.streaming ? kSender.getPublisher() : null;
 
-					if (subscriber.getEndpoint() == null) {
+		// If initialized by server SubscriberEndpoint was created on
+		// prepareReceiveMediaFromAsync. If initialized by client must be created now
+		return this.whilePublisherNotClosing(kSender, senderPublisher,
+				() -> initByServer ? CompletableFuture.completedFuture(getSubscriber(senderName))
+						: initializeSubscriberEndpointAsync(kSender))
+				.thenCompose(subscriber -> {
+					if (subscriber == null || subscriber.getEndpoint() == null) {
 						throw new OpenViduException(Code.MEDIA_ENDPOINT_ERROR_CODE,
 								"Unable to create subscriber endpoint");
 					}
-					try {
-						String sdpAnswer = subscriber.subscribe(sdpString, kSender.getPublisher());
-						log.info("PARTICIPANT {}: Is now receiving video from {} in room {}",
-								this.getParticipantPublicId(), senderName, this.session.getSessionId());
-						if (!silent && !ProtocolElements.RECORDER_PARTICIPANT_PUBLICID
-								.equals(this.getParticipantPublicId())) {
-							endpointConfig.getCdr().recordNewSubscriber(this, sender.getPublisherStreamId(),
-									sender.getParticipantPublicId(), subscriber.createdAt());
-						}
-						return sdpAnswer;
-					} catch (KurentoServerException e) {
-						// TODO Check object status when KurentoClient sets this info in the object
-						if (e.getCode() == 40101) {
-							log.warn(
-									"Publisher endpoint was already released when trying to connect a subscriber endpoint to it",
-									e);
-						} else {
-							log.error("Exception connecting subscriber endpoint to publisher endpoint", e);
-						}
-						this.subscribers.remove(senderName);
-						releaseSubscriberEndpoint(senderName, (KurentoParticipant) sender, subscriber, null, false);
-						return null;
-					}
-				} finally {
-					closingReadLock.unlock();
-				}
-
-			}
-		}
-		log.error(
-				"PublisherEndpoint of participant {} of session {} is closed. Participant {} couldn't subscribe to it ",
-				senderName, sender.getSessionId(), this.participantPublicId);
-		throw new OpenViduException(Code.MEDIA_ENDPOINT_ERROR_CODE,
-				"Unable to create subscriber endpoint. Publisher endpoint of participant " + senderName + "is closed");
+					return this.whilePublisherNotClosing(kSender, senderPublisher,
+							() -> subscriber.subscribe(sdpString, senderPublisher)).handle((sdpAnswer, error) -> {
+								if (error == null) {
+									log.info("PARTICIPANT {}: Is now receiving video from {} in room {}",
+											this.getParticipantPublicId(), senderName, this.session.getSessionId());
+									if (!silent && !ProtocolElements.RECORDER_PARTICIPANT_PUBLICID
+											.equals(this.getParticipantPublicId())) {
+										endpointConfig.getCdr().recordNewSubscriber(this,
+												sender.getPublisherStreamId(), sender.getParticipantPublicId(),
+												subscriber.createdAt());
+									}
+									return sdpAnswer;
+								}
+								Throwable cause = unwrap(error);
+								this.subscribers.remove(senderName, subscriber);
+								releaseSubscriberEndpoint(senderName, kSender, subscriber, null, false);
+								if (cause instanceof KurentoServerException) {
+									// TODO Check object status when KurentoClient sets this info in the object
+									if (((KurentoServerException) cause).getCode() == 40101) {
+										log.warn(
+												"Publisher endpoint was already released when trying to connect a subscriber endpoint to it",
+												cause);
+									} else {
+										log.error("Exception connecting subscriber endpoint to publisher endpoint",
+												cause);
+									}
+									return null;
+								}
+								throw new CompletionException(cause);
+							});
+				});
 	}
 
 	public void cancelReceivingMedia(KurentoParticipant senderKurentoParticipant, EndReason reason, boolean silent) {
@@ -358,6 +379,18 @@ public class KurentoParticipant extends Participant {
 	}
 
 	public void close(EndReason reason, boolean definitelyClosed, Long kmsDisconnectionTime) {
+		this.close(reason, definitelyClosed, kmsDisconnectionTime, true);
+	}
+
+	/**
+	 * @param releaseElements false if the MediaPipeline of the session is about
+	 *                        to be released, which releases all the media
+	 *                        elements of the participant at once. Elements are
+	 *                        then not released one by one, nor their listeners
+	 *                        unregistered. CDR events are recorded anyway
+	 */
+	public void close(EndReason reason, boolean definitelyClosed, Long kmsDisconnectionTime,
+			boolean releaseElements) {
 		log.debug("PARTICIPANT {}: Closing user", this.getParticipantPublicId());
 		if (isClosed()) {
 			log.warn("PARTICIPANT {}: Already closed", this.getParticipantPublicId());
@@ -373,9 +406,12 @@ public class KurentoParticipant extends Participant {
 			if (subscriber != null && subscriber.getEndpoint() != null) {
 
 				try {
-					releaseSubscriberEndpoint(remoteParticipantName,
-							(KurentoParticipant) this.session.getParticipantByPublicId(remoteParticipantName),
-							subscriber, reason, false);
+					// The publisher is only needed to update its own elements
+					KurentoParticipant publisherParticipant = releaseElements
+							? (KurentoParticipant) this.session.getParticipantByPublicId(remoteParticipantName)
+							: null;
+					releaseSubscriberEndpoint(remoteParticipantName, publisherParticipant, subscriber, reason, false,
+							releaseElements);
 					log.debug("PARTICIPANT {}: Released subscriber endpoint to {}", this.getParticipantPublicId(),
 							remoteParticipantName);
 				} catch (JsonRpcException e) {
@@ -390,7 +426,7 @@ public class KurentoParticipant extends Participant {
 			}
 		}
 		if (publisher != null && publisher.getEndpoint() != null) {
-			releasePublisherEndpoint(reason, kmsDisconnectionTime);
+			releasePublisherEndpoint(reason, kmsDisconnectionTime, releaseElements);
 		}
 	}
 
@@ -425,10 +461,22 @@ public class KurentoParticipant extends Participant {
 		}
 	}
 
+	public void addIceCandidates(String endpointName, List<IceCandidate> iceCandidates) {
+		if (this.getParticipantPublicId().equals(endpointName)) {
+			this.publisher.addIceCandidates(iceCandidates);
+		} else {
+			this.getNewOrExistingSubscriber(endpointName).addIceCandidates(iceCandidates);
+		}
+	}
+
 	public void sendIceCandidate(String senderPublicId, String endpointName, IceCandidate candidate) {
 		session.sendIceCandidate(this.getParticipantPrivateId(), senderPublicId, endpointName, candidate);
 	}
 
+	public void sendIceCandidates(String senderPublicId, String endpointName, List<IceCandidate> candidates) {
+		session.sendIceCandidates(this.getParticipantPrivateId(), senderPublicId, endpointName, candidates);
+	}
+
 	public void sendMediaError(ErrorEvent event) {
 		String desc = event.getType() + ": " + event.getDescription() + "(errCode=" + event.getErrorCode() + ")";
 		log.warn("PARTICIPANT {}: Media error encountered: {}", getParticipantPublicId(), desc);
@@ -446,64 +494,107 @@ public class KurentoParticipant extends Participant {
 		return this.getParticipantPublicId() + "_" + senderParticipant.getPublisherStreamId();
 	}
 
-	private SubscriberEndpoint initializeSubscriberEndpoint(Participant kSender) {
+	private CompletableFuture<SubscriberEndpoint> initializeSubscriberEndpointAsync(Participant kSender) {
 
-		String senderName = kSender.getParticipantPublicId();
+		final String senderName = kSender.getParticipantPublicId();
 
 		log.debug("PARTICIPANT {}: Creating a subscriber endpoint to user {}", this.getParticipantPublicId(),
 				senderName);
 
-		SubscriberEndpoint subscriber = getNewOrExistingSubscriber(senderName);
-
-		try {
-			CountDownLatch subscriberLatch = new CountDownLatch(1);
-			Endpoint oldMediaEndpoint = subscriber.createEndpoint(subscriberLatch);
+		final SubscriberEndpoint subscriber = getNewOrExistingSubscriber(senderName);
 
-			try {
-				if (!subscriberLatch.await(KurentoSession.ASYNC_LATCH_TIMEOUT, TimeUnit.SECONDS)) {
-					throw new OpenViduException(Code.MEDIA_ENDPOINT_ERROR_CODE,
-							"Timeout reached when creating subscriber endpoint");
-				}
-			} catch (InterruptedException e) {
-				throw new OpenViduException(Code.MEDIA_ENDPOINT_ERROR_CODE,
-						"Interrupted when creating subscriber endpoint: " + e.getMessage());
+		return subscriber.createEndpointAsync().handle((oldMediaEndpoint, error) -> {
+			if (error != null) {
+				this.subscribers.remove(senderName, subscriber);
+				throw new CompletionException(unwrap(error));
 			}
 			if (oldMediaEndpoint != null) {
 				log.warn(
 						"PARTICIPANT {}: Two threads are trying to create at "
 								+ "the same time a subscriber endpoint for user {}",
 						this.getParticipantPublicId(), senderName);
-				return null;
-			}
-			if (subscriber.getEndpoint() == null) {
-				throw new OpenViduException(Code.MEDIA_ENDPOINT_ERROR_CODE, "Unable to create subscriber endpoint");
+				throw new OpenViduException(Code.MEDIA_ENDPOINT_ERROR_CODE,
+						"Subscriber endpoint for user " + senderName + " already exists");
 			}
 
 			String subscriberEndpointName = calculateSubscriberEndpointName(kSender);
 
-			subscriber.setEndpointName(subscriberEndpointName);
-			subscriber.getEndpoint().setName(subscriberEndpointName);
+			// Naming the endpoint and subscribing to its events don't depend on each other
+			// nor on the negotiation, so none of them is waited for
+			subscriber.setEndpointNameAsync(subscriberEndpointName).exceptionally(e -> {
+				log.warn("PARTICIPANT {}: Could not set name {} to subscriber endpoint: {}",
+						this.getParticipantPublicId(), subscriberEndpointName, e.getMessage());
+				return null;
+			});
 			subscriber.setStreamId(kSender.getPublisherStreamId());
 
 			endpointConfig.addEndpointListeners(subscriber, "subscriber");
 
-		} catch (OpenViduException e) {
-			this.subscribers.remove(senderName);
-			throw e;
-		}
+			log.debug("PARTICIPANT {}: Created subscriber endpoint for user {}", this.getParticipantPublicId(),
+					senderName);
 
-		log.debug("PARTICIPANT {}: Created subscriber endpoint for user {}", this.getParticipantPublicId(), senderName);
+			return subscriber;
+		});
+	}
 
-		return subscriber;
+	/**
+	 * Runs an operation over the PublisherEndpoint of the sender only if it is not
+	 * being closed. The closing lock can only be released by the thread that
+	 * acquired it, so it only covers the requests sent to KMS by the operation.
+	 * Until KMS answers them the operation is registered as a pending subscription
+	 * of the publisher, which is waited for before releasing it
+	 */
+	private <T> CompletableFuture<T> whilePublisherNotClosing(KurentoParticipant kSender,
+			PublisherEndpoint senderPublisher, Supplier<CompletableFuture<T>> operation) {
+		if (senderPublisher != null) {
+			final Lock closingReadLock = senderPublisher.closingLock.readLock();
+			if (closingReadLock.tryLock()) {
+				try {
+					senderPublisher.subscriptionStarted();
+					CompletableFuture<T> future;
+					try {
+						future = operation.get();
+					} catch (RuntimeException e) {
+						senderPublisher.subscriptionFinished();
+						throw e;
+					}
+					return future.whenComplete((result, error) -> senderPublisher.subscriptionFinished());
+				} finally {
+					closingReadLock.unlock();
+				}
+			}
+		}
+		log.error(
+				"PublisherEndpoint of participant {} of session {} is closed. Participant {} couldn't subscribe to it ",
+				kSender.getParticipantPublicId(), kSender.getSessionId(), this.participantPublicId);
+		return CompletableFuture.failedFuture(new OpenViduException(Code.MEDIA_ENDPOINT_ERROR_CODE,
+				"Unable to create subscriber endpoint. Publisher endpoint of participant "
+						+ kSender.getParticipantPublicId() + "is closed"));
+	}
+
+	private static Throwable unwrap(Throwable error) {
+		while (error instanceof CompletionException && error.getCause() != null) {
+			error = error.getCause();
+		}
+		return error;
 	}
 
 	private void releasePublisherEndpoint(EndReason reason, Long kmsDisconnectionTime) {
+		this.releasePublisherEndpoint(reason, kmsDisconnectionTime, true);
+	}
+
+	private void releasePublisherEndpoint(EndReason reason, Long kmsDisconnectionTime, boolean releaseElements) {
 		if (publisher != null && publisher.getEndpoint() != null) {
 			try {
 				final Lock closingWriteLock = publisher.closingLock.writeLock();
 				if (closingWriteLock.tryLock(15, TimeUnit.SECONDS)) {
 					try {
-						this.releasePublisherEndpointAux(reason, kmsDisconnectionTime);
+						if (!publisher.awaitPendingSubscriptions(15000)) {
+							log.warn(
+									"PARTICIPANT {}: Timeout waiting for subscriptions in progress to the publisher endpoint. Releasing it anyway",
+									this.getParticipantPublicId());
+						}
+						this.releasePublisherEndpointAux(reason, kmsDisconnectionTime, releaseElements);
 					} finally {
 						closingWriteLock.unlock();
 					}
@@ -513,14 +604,15 @@ public class KurentoParticipant extends Participant {
 						"Timeout wating for PublisherEndpoint closing lock of participant {} to be available to call releasePublisherEndpoint",
 						this.participantPublicId, this.getParticipantPublicId());
 				log.error("Forcing PublisherEndpoint release. Possibly some session event will be incomplete");
-				this.releasePublisherEndpointAux(reason, kmsDisconnectionTime);
+				this.releasePublisherEndpointAux(reason, kmsDisconnectionTime, releaseElements);
 			}
 		} else {
 			log.warn("PARTICIPANT {}: Trying to release publisher endpoint but is null", getParticipantPublicId());
 		}
 	}
 
-	private void releasePublisherEndpointAux(EndReason reason, Long kmsDisconnectionTime) {
+	private void releasePublisherEndpointAux(EndReason reason, Long kmsDisconnectionTime,
+			boolean releaseElements) {
 		try {
 			// Remove streamId from publisher's map
 			this.session.publishedStreamIds.remove(this.getPublisherStreamId());
@@ -537,11 +629,13 @@ public class KurentoParticipant extends Participant {
 			publisher.cancelStatsLoop.set(true);
 
 			// These operations are all remote
-			publisher.unregisterErrorListeners();
-			for (MediaElement el : publisher.getMediaElements()) {
-				releaseElement(getParticipantPublicId(), el);
+			if (releaseElements) {
+				publisher.unregisterErrorListeners();
+				for (MediaElement el : publisher.getMediaElements()) {
+					releaseElement(getParticipantPublicId(), el);
+				}
+				releaseElement(getParticipantPublicId(), publisher.getEndpoint());
 			}
-			releaseElement(getParticipantPublicId(), publisher.getEndpoint());
 
 		} catch (JsonRpcException e) {
 			log.error("Error releasing publisher endpoint of participant {}: {}", this.participantPublicId,
@@ -554,14 +648,21 @@ public class KurentoParticipant extends Participant {
 
 	private void releaseSubscriberEndpoint(String senderName, KurentoParticipant publisherParticipant,
 			SubscriberEndpoint subscriber, EndReason reason, boolean silent) {
+		this.releaseSubscriberEndpoint(senderName, publisherParticipant, subscriber, reason, silent, true);
+	}
+
+	private void releaseSubscriberEndpoint(String senderName, KurentoParticipant publisherParticipant,
+			SubscriberEndpoint subscriber, EndReason reason, boolean silent, boolean releaseElements) {
 
 		if (subscriber != null) {
 
-			subscriber.unregisterErrorListeners();
 			subscriber.cancelStatsLoop.set(true);
 
-			if (subscriber.getEndpoint() != null) {
-				releaseElement(senderName, subscriber.getEndpoint());
+			if (releaseElements) {
+				subscriber.unregisterErrorListeners();
+				if (subscriber.getEndpoint() != null) {
+					releaseElement(senderName, subscriber.getEndpoint());
+				}
 			}
 
 			if (!silent) {
@@ -658,6 +759,20 @@ public class KurentoParticipant extends Participant {
 		return this.sharedJson(MediaEndpoint::withStatsToJson);
 	}
 
+	@Override
+	public CompletableFuture<Void> fetchWebrtcStats(Semaphore concurrencyLimit, long deadline) {
+		List<CompletableFuture<Void>> futures = new ArrayList<>();
+		if (this.streaming && this.publisher.getEndpoint() != null) {
+			futures.add(this.publisher.fetchSessionDescriptors(concurrencyLimit, deadline));
+		}
+		for (MediaEndpoint sub : this.subscribers.values()) {
+			if (sub.getEndpoint() != null) {
+				futures.add(sub.fetchSessionDescriptors(concurrencyLimit, deadline));
+			}
+		}
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()]));
+	}
+
 	private JsonObject sharedJson(Function<MediaEndpoint, JsonObject> toJsonFunction) {
 		JsonObject json = super.toJson();
 		JsonArray publisherEndpoints = new JsonArray();
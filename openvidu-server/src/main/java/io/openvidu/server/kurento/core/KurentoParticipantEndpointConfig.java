@@ -17,8 +17,16 @@
 
 package io.openvidu.server.kurento.core;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
 import org.kurento.client.BaseRtpEndpoint;
+import org.kurento.client.Continuation;
 import org.kurento.client.Endpoint;
+import org.kurento.client.ListenerSubscription;
 import org.kurento.client.PlayerEndpoint;
 import org.kurento.client.WebRtcEndpoint;
 import org.slf4j.Logger;
@@ -27,7 +35,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 import io.openvidu.server.cdr.CallDetailRecord;
 import io.openvidu.server.config.InfoHandler;
+import io.openvidu.server.config.OpenviduConfig;
 import io.openvidu.server.kurento.endpoint.KmsEvent;
+import io.openvidu.server.kurento.endpoint.KmsEventType;
 import io.openvidu.server.kurento.endpoint.KmsMediaEvent;
 import io.openvidu.server.kurento.endpoint.MediaEndpoint;
 
@@ -41,74 +51,85 @@ public class KurentoParticipantEndpointConfig {
 	@Autowired
 	protected CallDetailRecord CDR;
 
-	public void addEndpointListeners(MediaEndpoint endpoint, String typeOfEndpoint) {
+	@Autowired
+	protected OpenviduConfig openviduConfig;
+
+	/**
+	 * Subscribes to the KMS events of the endpoint configured with property
+	 * OPENVIDU_STREAMS_KMS_EVENTS. Subscriptions are requested asynchronously and
+	 * all at once, so they can progress in parallel with the SDP negotiation of
+	 * the endpoint instead of adding one round trip to the Media Node each
+	 *
+	 * @return Future completed once every subscription has been answered by the
+	 *         Media Node (successfully or not). It never completes exceptionally
+	 */
+	public CompletableFuture<Void> addEndpointListeners(MediaEndpoint endpoint, String typeOfEndpoint) {
+
+		final Set<KmsEventType> eventTypes = this.openviduConfig.getKmsEventTypes();
+		final List<CompletableFuture<Void>> subscriptions = new ArrayList<>();
 
 		// WebRtcEndpoint events
 		if (endpoint.getWebEndpoint() != null) {
 
 			final WebRtcEndpoint finalEndpoint = endpoint.getWebEndpoint();
 
-			finalEndpoint.addIceGatheringDoneListener(event -> {
-				String msg = "KMS event [IceGatheringDone] -> endpoint: " + endpoint.getEndpointName() + " ("
-						+ typeOfEndpoint + ") | timestamp: " + event.getTimestampMillis();
-				KmsEvent kmsEvent = new KmsEvent(event, endpoint.getOwner(), endpoint.getEndpointName(),
-						endpoint.createdAt());
-				endpoint.kmsEvents.add(kmsEvent);
-				this.CDR.log(kmsEvent);
-				this.infoHandler.sendInfo(msg);
-				log.info(msg);
-			});
-
-			finalEndpoint.addNewCandidatePairSelectedListener(event -> {
-				endpoint.selectedLocalIceCandidate = event.getCandidatePair().getLocalCandidate();
-				endpoint.selectedRemoteIceCandidate = event.getCandidatePair().getRemoteCandidate();
-				String msg = "KMS event [NewCandidatePairSelected]: -> endpoint: " + endpoint.getEndpointName() + " ("
-						+ typeOfEndpoint + ") | local: " + endpoint.selectedLocalIceCandidate + " | remote: "
-						+ endpoint.selectedRemoteIceCandidate + " | timestamp: " + event.getTimestampMillis();
-				KmsEvent kmsEvent = new KmsEvent(event, endpoint.getOwner(), endpoint.getEndpointName(),
-						endpoint.createdAt());
-				endpoint.kmsEvents.add(kmsEvent);
-				this.CDR.log(kmsEvent);
-				this.infoHandler.sendInfo(msg);
-				log.info(msg);
-			});
-
-			finalEndpoint.addIceComponentStateChangeListener(event -> {
-				String msg = "KMS event [IceComponentStateChange]: -> endpoint: " + endpoint.getEndpointName() + " ("
-						+ typeOfEndpoint + ") | state: " + event.getState().name() + " | componentId: "
-						+ event.getComponentId() + " | streamId: " + event.getStreamId() + " | timestamp: "
-						+ event.getTimestampMillis();
-				KmsEvent kmsEvent = new KmsEvent(event, endpoint.getOwner(), endpoint.getEndpointName(),
-						endpoint.createdAt());
-				endpoint.kmsEvents.add(kmsEvent);
-				this.CDR.log(kmsEvent);
-				this.infoHandler.sendInfo(msg);
-				log.info(msg);
-			});
-
-			finalEndpoint.addDataChannelOpenListener(event -> {
-				String msg = "KMS event [DataChannelOpenEvent]: -> endpoint: " + endpoint.getEndpointName() + " ("
-						+ typeOfEndpoint + ") | channelId: " + event.getChannelId() + " | timestamp: "
-						+ event.getTimestampMillis();
-				KmsEvent kmsEvent = new KmsEvent(event, endpoint.getOwner(), endpoint.getEndpointName(),
-						endpoint.createdAt());
-				endpoint.kmsEvents.add(kmsEvent);
-				this.CDR.log(kmsEvent);
-				this.infoHandler.sendInfo(msg);
-				log.info(msg);
-			});
-
-			finalEndpoint.addDataChannelCloseListener(event -> {
-				String msg = "KMS event [DataChannelCloseEvent]: -> endpoint: " + endpoint.getEndpointName() + " ("
-						+ typeOfEndpoint + ") | channelId: " + event.getChannelId() + " | timestamp: "
-						+ event.getTimestampMillis();
-				KmsEvent kmsEvent = new KmsEvent(event, endpoint.getOwner(), endpoint.getEndpointName(),
-						endpoint.createdAt());
-				endpoint.kmsEvents.add(kmsEvent);
-				this.CDR.log(kmsEvent);
-				this.infoHandler.sendInfo(msg);
-				log.info(msg);
-			});
+			if (eventTypes.contains(KmsEventType.IceGatheringDone)) {
+				finalEndpoint.addIceGatheringDoneListener(event -> {
+					KmsEvent kmsEvent = new KmsEvent(event, endpoint.getOwner(), endpoint.getEndpointName(),
+							endpoint.createdAt());
+					this.processKmsEvent(endpoint, kmsEvent,
+							() -> "KMS event [IceGatheringDone] -> endpoint: " + endpoint.getEndpointName() + " ("
+									+ typeOfEndpoint + ") | timestamp: " + event.getTimestampMillis(), false);
+				}, this.subscription(endpoint, KmsEventType.IceGatheringDone, subscriptions));
+			}
+
+			if (eventTypes.contains(KmsEventType.NewCandidatePairSelected)) {
+				finalEndpoint.addNewCandidatePairSelectedListener(event -> {
+					endpoint.selectedLocalIceCandidate = event.getCandidatePair().getLocalCandidate();
+					endpoint.selectedRemoteIceCandidate = event.getCandidatePair().getRemoteCandidate();
+					KmsEvent kmsEvent = new KmsEvent(event, endpoint.getOwner(), endpoint.getEndpointName(),
+							endpoint.createdAt());
+					this.processKmsEvent(endpoint, kmsEvent,
+							() -> "KMS event [NewCandidatePairSelected]: -> endpoint: " + endpoint.getEndpointName()
+									+ " (" + typeOfEndpoint + ") | local: " + endpoint.selectedLocalIceCandidate
+									+ " | remote: " + endpoint.selectedRemoteIceCandidate + " | timestamp: "
+									+ event.getTimestampMillis(), false);
+				}, this.subscription(endpoint, KmsEventType.NewCandidatePairSelected, subscriptions));
+			}
+
+			if (eventTypes.contains(KmsEventType.IceComponentStateChange)) {
+				finalEndpoint.addIceComponentStateChangeListener(event -> {
+					KmsEvent kmsEvent = new KmsEvent(event, endpoint.getOwner(), endpoint.getEndpointName(),
+							endpoint.createdAt());
+					this.processKmsEvent(endpoint, kmsEvent,
+							() -> "KMS event [IceComponentStateChange]: -> endpoint: " + endpoint.getEndpointName()
+									+ " (" + typeOfEndpoint + ") | state: " + event.getState().name()
+									+ " | componentId: " + event.getComponentId() + " | streamId: "
+									+ event.getStreamId() + " | timestamp: " + event.getTimestampMillis(), false);
+				}, this.subscription(endpoint, KmsEventType.IceComponentStateChange, subscriptions));
+			}
+
+			if (eventTypes.contains(KmsEventType.DataChannelOpen)) {
+				finalEndpoint.addDataChannelOpenListener(event -> {
+					KmsEvent kmsEvent = new KmsEvent(event, endpoint.getOwner(), endpoint.getEndpointName(),
+							endpoint.createdAt());
+					this.processKmsEvent(endpoint, kmsEvent,
+							() -> "KMS event [DataChannelOpenEvent]: -> endpoint: " + endpoint.getEndpointName()
+									+ " (" + typeOfEndpoint + ") | channelId: " + event.getChannelId()
+									+ " | timestamp: " + event.getTimestampMillis(), false);
+				}, this.subscription(endpoint, KmsEventType.DataChannelOpen, subscriptions));
+			}
+
+			if (eventTypes.contains(KmsEventType.DataChannelClose)) {
+				finalEndpoint.addDataChannelCloseListener(event -> {
+					KmsEvent kmsEvent = new KmsEvent(event, endpoint.getOwner(), endpoint.getEndpointName(),
+							endpoint.createdAt());
+					this.processKmsEvent(endpoint, kmsEvent,
+							() -> "KMS event [DataChannelCloseEvent]: -> endpoint: " + endpoint.getEndpointName()
+									+ " (" + typeOfEndpoint + ") | channelId: " + event.getChannelId()
+									+ " | timestamp: " + event.getTimestampMillis(), false);
+				}, this.subscription(endpoint, KmsEventType.DataChannelClose, subscriptions));
+			}
 
 		}
 
@@ -117,28 +138,26 @@ public class KurentoParticipantEndpointConfig {
 
 			final PlayerEndpoint finalEndpoint = endpoint.getPlayerEndpoint();
 
-			finalEndpoint.addEndOfStreamListener(event -> {
-				String msg = "KMS event [EndOfStreamEvent]: -> endpoint: " + endpoint.getEndpointName() + " ("
-						+ typeOfEndpoint + ") | timestamp: " + event.getTimestampMillis();
-				KmsEvent kmsEvent = new KmsEvent(event, endpoint.getOwner(), endpoint.getEndpointName(),
-						endpoint.createdAt());
-				endpoint.kmsEvents.add(kmsEvent);
-				this.CDR.log(kmsEvent);
-				this.infoHandler.sendInfo(msg);
-				log.info(msg);
-			});
-
-			finalEndpoint.addUriEndpointStateChangedListener(event -> {
-				String msg = "KMS event [UriEndpointStateChangedEvent]: -> endpoint: " + endpoint.getEndpointName()
-						+ " (" + typeOfEndpoint + ") | state: " + event.getState().name() + " | timestamp: "
-						+ event.getTimestampMillis();
-				KmsEvent kmsEvent = new KmsEvent(event, endpoint.getOwner(), endpoint.getEndpointName(),
-						endpoint.createdAt());
-				endpoint.kmsEvents.add(kmsEvent);
-				this.CDR.log(kmsEvent);
-				this.infoHandler.sendInfo(msg);
-				log.info(msg);
-			});
+			if (eventTypes.contains(KmsEventType.EndOfStream)) {
+				finalEndpoint.addEndOfStreamListener(event -> {
+					KmsEvent kmsEvent = new KmsEvent(event, endpoint.getOwner(), endpoint.getEndpointName(),
+							endpoint.createdAt());
+					this.processKmsEvent(endpoint, kmsEvent,
+							() -> "KMS event [EndOfStreamEvent]: -> endpoint: " + endpoint.getEndpointName() + " ("
+									+ typeOfEndpoint + ") | timestamp: " + event.getTimestampMillis(), false);
+				}, this.subscription(endpoint, KmsEventType.EndOfStream, subscriptions));
+			}
+
+			if (eventTypes.contains(KmsEventType.UriEndpointStateChanged)) {
+				finalEndpoint.addUriEndpointStateChangedListener(event -> {
+					KmsEvent kmsEvent = new KmsEvent(event, endpoint.getOwner(), endpoint.getEndpointName(),
+							endpoint.createdAt());
+					this.processKmsEvent(endpoint, kmsEvent,
+							() -> "KMS event [UriEndpointStateChangedEvent]: -> endpoint: "
+									+ endpoint.getEndpointName() + " (" + typeOfEndpoint + ") | state: "
+									+ event.getState().name() + " | timestamp: " + event.getTimestampMillis(), false);
+				}, this.subscription(endpoint, KmsEventType.UriEndpointStateChanged, subscriptions));
+			}
 
 		}
 
@@ -147,82 +166,121 @@ public class KurentoParticipantEndpointConfig {
 
 			final BaseRtpEndpoint finalEndpoint = ((BaseRtpEndpoint) endpoint.getEndpoint());
 
-			finalEndpoint.addConnectionStateChangedListener(event -> {
-				String msg = "KMS event [ConnectionStateChanged]: -> endpoint: " + endpoint.getEndpointName() + " ("
-						+ typeOfEndpoint + ") | oldState: " + event.getOldState() + " | newState: "
-						+ event.getNewState() + " | timestamp: " + event.getTimestampMillis();
-				KmsEvent kmsEvent = new KmsEvent(event, endpoint.getOwner(), endpoint.getEndpointName(),
-						endpoint.createdAt());
-				endpoint.kmsEvents.add(kmsEvent);
-				this.CDR.log(kmsEvent);
-				this.infoHandler.sendInfo(msg);
-				log.info(msg);
-			});
-
-			finalEndpoint.addMediaStateChangedListener(event -> {
-				String msg = "KMS event [MediaStateChangedEvent]: -> endpoint: " + endpoint.getEndpointName() + " ("
-						+ typeOfEndpoint + ") | oldState: " + event.getOldState() + " | newState: "
-						+ event.getNewState() + " | timestamp: " + event.getTimestampMillis();
-				KmsEvent kmsEvent = new KmsEvent(event, endpoint.getOwner(), endpoint.getEndpointName(),
-						endpoint.createdAt());
-				endpoint.kmsEvents.add(kmsEvent);
-				this.CDR.log(kmsEvent);
-				this.infoHandler.sendInfo(msg);
-				log.info(msg);
-			});
+			if (eventTypes.contains(KmsEventType.ConnectionStateChanged)) {
+				finalEndpoint.addConnectionStateChangedListener(event -> {
+					KmsEvent kmsEvent = new KmsEvent(event, endpoint.getOwner(), endpoint.getEndpointName(),
+							endpoint.createdAt());
+					this.processKmsEvent(endpoint, kmsEvent,
+							() -> "KMS event [ConnectionStateChanged]: -> endpoint: " + endpoint.getEndpointName()
+									+ " (" + typeOfEndpoint + ") | oldState: " + event.getOldState()
+									+ " | newState: " + event.getNewState() + " | timestamp: "
+									+ event.getTimestampMillis(), false);
+				}, this.subscription(endpoint, KmsEventType.ConnectionStateChanged, subscriptions));
+			}
+
+			if (eventTypes.contains(KmsEventType.MediaStateChanged)) {
+				finalEndpoint.addMediaStateChangedListener(event -> {
+					KmsEvent kmsEvent = new KmsEvent(event, endpoint.getOwner(), endpoint.getEndpointName(),
+							endpoint.createdAt());
+					this.processKmsEvent(endpoint, kmsEvent,
+							() -> "KMS event [MediaStateChangedEvent]: -> endpoint: " + endpoint.getEndpointName()
+									+ " (" + typeOfEndpoint + ") | oldState: " + event.getOldState()
+									+ " | newState: " + event.getNewState() + " | timestamp: "
+									+ event.getTimestampMillis(), false);
+				}, this.subscription(endpoint, KmsEventType.MediaStateChanged, subscriptions));
+			}
 
 		}
 
 		// Endpoint events
 		final Endpoint finalEndpoint = endpoint.getEndpoint();
 
-		finalEndpoint.addMediaFlowInStateChangeListener(event -> {
-			String msg = "KMS event [MediaFlowInStateChange] -> endpoint: " + endpoint.getEndpointName() + " ("
-					+ typeOfEndpoint + ") | state: " + event.getState() + " | pad: " + event.getPadName()
-					+ " | mediaType: " + event.getMediaType() + " | timestamp: " + event.getTimestampMillis();
-			KmsEvent kmsEvent = new KmsMediaEvent(event, endpoint.getOwner(), endpoint.getEndpointName(),
-					event.getMediaType(), endpoint.createdAt());
-			endpoint.kmsEvents.add(kmsEvent);
-			this.CDR.log(kmsEvent);
-			this.infoHandler.sendInfo(msg);
-			log.info(msg);
-		});
-
-		finalEndpoint.addMediaFlowOutStateChangeListener(event -> {
-			String msg = "KMS event [MediaFlowOutStateChange] -> endpoint: " + endpoint.getEndpointName() + " ("
-					+ typeOfEndpoint + ") | state: " + event.getState() + " | pad: " + event.getPadName()
-					+ " | mediaType: " + event.getMediaType() + " | timestamp: " + event.getTimestampMillis();
-			KmsEvent kmsEvent = new KmsMediaEvent(event, endpoint.getOwner(), endpoint.getEndpointName(),
-					event.getMediaType(), endpoint.createdAt());
-			endpoint.kmsEvents.add(kmsEvent);
-			this.CDR.log(kmsEvent);
-			this.infoHandler.sendInfo(msg);
-			log.info(msg);
-		});
-
-		finalEndpoint.addErrorListener(event -> {
-			String msg = "KMS event [ERROR]: -> endpoint: " + endpoint.getEndpointName() + " (" + typeOfEndpoint
-					+ ") | errorCode: " + event.getErrorCode() + " | description: " + event.getDescription()
-					+ " | timestamp: " + event.getTimestampMillis();
-			KmsEvent kmsEvent = new KmsEvent(event, endpoint.getOwner(), endpoint.getEndpointName(),
-					endpoint.createdAt());
-			endpoint.kmsEvents.add(kmsEvent);
-			this.CDR.log(kmsEvent);
-			this.infoHandler.sendInfo(msg);
-			log.error(msg);
-		});
-
-		finalEndpoint.addMediaTranscodingStateChangeListener(event -> {
-			String msg = "KMS event [MediaTranscodingStateChange]: -> endpoint: " + endpoint.getEndpointName() + " ("
-					+ typeOfEndpoint + ") | state: " + event.getState().name() + " | mediaType: " + event.getMediaType()
-					+ " | binName: " + event.getBinName() + " | timestamp: " + event.getTimestampMillis();
-			KmsEvent kmsEvent = new KmsMediaEvent(event, endpoint.getOwner(), endpoint.getEndpointName(),
-					event.getMediaType(), endpoint.createdAt());
-			endpoint.kmsEvents.add(kmsEvent);
-			this.CDR.log(kmsEvent);
-			this.infoHandler.sendInfo(msg);
-			log.info(msg);
-		});
+		if (eventTypes.contains(KmsEventType.MediaFlowInStateChange)) {
+			finalEndpoint.addMediaFlowInStateChangeListener(event -> {
+				KmsEvent kmsEvent = new KmsMediaEvent(event, endpoint.getOwner(), endpoint.getEndpointName(),
+						event.getMediaType(), endpoint.createdAt());
+				this.processKmsEvent(endpoint, kmsEvent,
+						() -> "KMS event [MediaFlowInStateChange] -> endpoint: " + endpoint.getEndpointName() + " ("
+								+ typeOfEndpoint + ") | state: " + event.getState() + " | pad: " + event.getPadName()
+								+ " | mediaType: " + event.getMediaType() + " | timestamp: "
+								+ event.getTimestampMillis(), false);
+			}, this.subscription(endpoint, KmsEventType.MediaFlowInStateChange, subscriptions));
+		}
+
+		if (eventTypes.contains(KmsEventType.MediaFlowOutStateChange)) {
+			finalEndpoint.addMediaFlowOutStateChangeListener(event -> {
+				KmsEvent kmsEvent = new KmsMediaEvent(event, endpoint.getOwner(), endpoint.getEndpointName(),
+						event.getMediaType(), endpoint.createdAt());
+				this.processKmsEvent(endpoint, kmsEvent,
+						() -> "KMS event [MediaFlowOutStateChange] -> endpoint: " + endpoint.getEndpointName() + " ("
+								+ typeOfEndpoint + ") | state: " + event.getState() + " | pad: " + event.getPadName()
+								+ " | mediaType: " + event.getMediaType() + " | timestamp: "
+								+ event.getTimestampMillis(), false);
+			}, this.subscription(endpoint, KmsEventType.MediaFlowOutStateChange, subscriptions));
+		}
+
+		if (eventTypes.contains(KmsEventType.Error)) {
+			finalEndpoint.addErrorListener(event -> {
+				KmsEvent kmsEvent = new KmsEvent(event, endpoint.getOwner(), endpoint.getEndpointName(),
+						endpoint.createdAt());
+				this.processKmsEvent(endpoint, kmsEvent,
+						() -> "KMS event [ERROR]: -> endpoint: " + endpoint.getEndpointName() + " (" + typeOfEndpoint
+								+ ") | errorCode: " + event.getErrorCode() + " | description: "
+								+ event.getDescription() + " | timestamp: " + event.getTimestampMillis(), true);
+			}, this.subscription(endpoint, KmsEventType.Error, subscriptions));
+		}
+
+		if (eventTypes.contains(KmsEventType.MediaTranscodingStateChange)) {
+			finalEndpoint.addMediaTranscodingStateChangeListener(event -> {
+				KmsEvent kmsEvent = new KmsMediaEvent(event, endpoint.getOwner(), endpoint.getEndpointName(),
+						event.getMediaType(), endpoint.createdAt());
+				this.processKmsEvent(endpoint, kmsEvent,
+						() -> "KMS event [MediaTranscodingStateChange]: -> endpoint: " + endpoint.getEndpointName()
+								+ " (" + typeOfEndpoint + ") | state: " + event.getState().name() + " | mediaType: "
+								+ event.getMediaType() + " | binName: " + event.getBinName() + " | timestamp: "
+								+ event.getTimestampMillis(), false);
+			}, this.subscription(endpoint, KmsEventType.MediaTranscodingStateChange, subscriptions));
+		}
+
+		CompletableFuture<Void> allSubscriptions = CompletableFuture
+				.allOf(subscriptions.toArray(new CompletableFuture[subscriptions.size()]));
+		endpoint.setKmsEventListenersFuture(allSubscriptions);
+		return allSubscriptions;
+	}
+
+	private Continuation<ListenerSubscription> subscription(MediaEndpoint endpoint, KmsEventType eventType,
+			List<CompletableFuture<Void>> subscriptions) {
+		final CompletableFuture<Void> future = new CompletableFuture<>();
+		subscriptions.add(future);
+		return new Continuation<ListenerSubscription>() {
+			@Override
+			public void onSuccess(ListenerSubscription result) throws Exception {
+				future.complete(null);
+			}
+
+			@Override
+			public void onError(Throwable cause) throws Exception {
+				log.warn("Error subscribing to KMS event {} of endpoint {}: {}", eventType,
+						endpoint.getEndpointName(), cause.getMessage());
+				future.complete(null);
+			}
+		};
+	}
+
+	protected void processKmsEvent(MediaEndpoint endpoint, KmsEvent kmsEvent, Supplier<String> msg, boolean isError) {
+		endpoint.kmsEvents.add(kmsEvent);
+		this.CDR.log(kmsEvent);
+		// Event description is only built if someone is going to read it. Regular
+		// media events are frequent, so they are logged at DEBUG level
+		if ((isError ? log.isErrorEnabled() : log.isDebugEnabled()) || this.infoHandler.hasSubscribers()) {
+			String message = msg.get();
+			this.infoHandler.sendInfo(message);
+			if (isError) {
+				log.error(message);
+			} else {
+				log.debug(message);
+			}
+		}
 	}
 
 	public CallDetailRecord getCdr() {
@@ -18,6 +18,7 @@
 package io.openvidu.server.kurento.core;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
@@ -81,7 +82,7 @@ public class KurentoSession extends Session {
 
 		KurentoParticipant kurentoParticipant = new KurentoParticipant(participant, this, this.kurentoEndpointConfig,
 				this.openviduConfig, this.recordingManager);
-		participants.put(participant.getParticipantPrivateId(), kurentoParticipant);
+		this.addParticipant(kurentoParticipant);
 
 		log.info("SESSION {}: Added participant {}", sessionId, participant);
 
@@ -134,12 +135,13 @@ public class KurentoSession extends Session {
 
 			this.tokens.clear();
 
+			// Releasing the pipeline releases every endpoint and filter it contains, so
+			// participants do not release their own media elements one by one
 			for (Participant participant : participants.values()) {
-				((KurentoParticipant) participant).releaseAllFilters();
-				((KurentoParticipant) participant).close(reason, true, null);
+				((KurentoParticipant) participant).close(reason, true, null, false);
 			}
 
-			participants.clear();
+			this.clearParticipants();
 
 			closePipeline(null);
 
@@ -167,6 +169,12 @@ public class KurentoSession extends Session {
 				candidate);
 	}
 
+	public void sendIceCandidates(String participantPrivateId, String senderPublicId, String endpointName,
+			List<IceCandidate> candidates) {
+		this.kurentoSessionHandler.onIceCandidates(sessionId, participantPrivateId, senderPublicId, endpointName,
+				candidates);
+	}
+
 	public void sendMediaError(String connectionId, String description) {
 		this.kurentoSessionHandler.onMediaElementError(sessionId, connectionId, description);
 	}
@@ -175,8 +183,8 @@ public class KurentoSession extends Session {
 
 		checkClosed();
 
-		KurentoParticipant removedParticipant = (KurentoParticipant) participants
-				.remove(participant.getParticipantPrivateId());
+		KurentoParticipant removedParticipant = (KurentoParticipant) this
+				.removeParticipantByPrivateId(participant.getParticipantPrivateId());
 
 		log.debug("SESSION {}: Cancel receiving media from participant '{}' for other participant", this.sessionId,
 				participant.getParticipantPublicId());
@@ -17,10 +17,12 @@
 
 package io.openvidu.server.kurento.core;
 
+import java.util.List;
 import java.util.Set;
 
 import org.kurento.client.IceCandidate;
 
+import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 
 import io.openvidu.client.internal.ProtocolElements;
@@ -41,13 +43,28 @@ public class KurentoSessionEventsHandler extends SessionEventsHandler {
 		rpcNotificationService.sendNotification(participantPrivateId, ProtocolElements.ICECANDIDATE_METHOD, params);
 	}
 
+	public void onIceCandidates(String roomName, String participantPrivateId, String senderPublicId,
+			String endpointName, List<IceCandidate> candidates) {
+		JsonArray jsonCandidates = new JsonArray();
+		for (IceCandidate candidate : candidates) {
+			JsonObject jsonCandidate = new JsonObject();
+			jsonCandidate.addProperty(ProtocolElements.ICECANDIDATE_SDPMLINEINDEX_PARAM, candidate.getSdpMLineIndex());
+			jsonCandidate.addProperty(ProtocolElements.ICECANDIDATE_SDPMID_PARAM, candidate.getSdpMid());
+			jsonCandidate.addProperty(ProtocolElements.ICECANDIDATE_CANDIDATE_PARAM, candidate.getCandidate());
+			jsonCandidates.add(jsonCandidate);
+		}
+		JsonObject params = new JsonObject();
+		params.addProperty(ProtocolElements.ICECANDIDATES_SENDERCONNECTIONID_PARAM, senderPublicId);
+		params.addProperty(ProtocolElements.ICECANDIDATES_EPNAME_PARAM, endpointName);
+		params.add(ProtocolElements.ICECANDIDATES_CANDIDATES_PARAM, jsonCandidates);
+		rpcNotificationService.sendNotification(participantPrivateId, ProtocolElements.ICECANDIDATES_METHOD, params);
+	}
+
 	public void onPipelineError(String roomName, Set<Participant> participants, String description) {
 		JsonObject notifParams = new JsonObject();
 		notifParams.addProperty(ProtocolElements.MEDIAERROR_ERROR_PARAM, description);
-		for (Participant p : participants) {
-			rpcNotificationService.sendNotification(p.getParticipantPrivateId(), ProtocolElements.MEDIAERROR_METHOD,
-					notifParams);
-		}
+		rpcNotificationService.broadcastNotification(toPrivateIds(participants), ProtocolElements.MEDIAERROR_METHOD,
+				notifParams);
 	}
 
 	public void onMediaElementError(String roomName, String connectionId, String description) {
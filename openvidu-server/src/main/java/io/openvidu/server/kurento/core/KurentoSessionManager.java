@@ -22,12 +22,17 @@ import java.net.InetAddress;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.sql.Timestamp;
-import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -101,6 +106,8 @@ public class KurentoSessionManager extends SessionManager {
 	@Autowired
 	private CallDetailRecord CDR;
 
+	private final ConcurrentMap<String, CompletableFuture<KurentoSession>> sessionCreations = new ConcurrentHashMap<>();
+
 	@Override
 	/* Protected by Session.closingLock.readLock */
 	public void joinRoom(Participant participant, String sessionId, Integer transactionId) {
@@ -124,28 +131,18 @@ public class KurentoSessionManager extends SessionManager {
 				}
 
 				try {
-					if (KmsManager.selectAndRemoveKmsLock.tryLock(KmsManager.MAX_SECONDS_LOCK_WAIT, TimeUnit.SECONDS)) {
-						try {
-							kSession = (KurentoSession) sessions.get(sessionId);
-							if (kSession == null) {
-								// Session still null. It was not created by other thread while waiting for lock
-								Kms selectedMediaNode = this.selectMediaNode(sessionNotActive);
-								kSession = createSession(sessionNotActive, selectedMediaNode);
-							}
-						} finally {
-							KmsManager.selectAndRemoveKmsLock.unlock();
-						}
-					} else {
-						String error = "Timeout of " + KmsManager.MAX_SECONDS_LOCK_WAIT
-								+ " seconds waiting to acquire lock";
-						log.error(error);
-						sessionEventsHandler.onParticipantJoined(participant, sessionId, null, transactionId,
-								new OpenViduException(Code.ROOM_CANNOT_BE_CREATED_ERROR_CODE, error));
-						return;
-					}
+					kSession = this.getOrCreateSession(sessionNotActive);
+				} catch (TimeoutException e) {
+					String error = "Timeout of " + KmsManager.MAX_SECONDS_LOCK_WAIT
+							+ " seconds waiting for session '" + sessionId + "' to be created";
+					log.error(error);
+					sessionEventsHandler.onParticipantJoined(participant, sessionId, null, transactionId,
+							new OpenViduException(Code.ROOM_CANNOT_BE_CREATED_ERROR_CODE, error));
+					return;
 				} catch (InterruptedException e) {
 					String error = "'" + participant.getParticipantPublicId() + "' is trying to join session '"
-							+ sessionId + "' but was interrupted while waiting to acquire lock: " + e.getMessage();
+							+ sessionId + "' but was interrupted while waiting for it to be created: "
+							+ e.getMessage();
 					log.error(error);
 					throw new OpenViduException(Code.ROOM_CLOSED_ERROR_CODE, error);
 				}
@@ -171,6 +168,7 @@ public class KurentoSessionManager extends SessionManager {
 					try {
 						existingParticipants = getParticipants(sessionId);
 						kSession.join(participant);
+						this.indexParticipant(kSession.getParticipantByPrivateId(participant.getParticipantPrivateId()));
 						sessionEventsHandler.onParticipantJoined(participant, sessionId, existingParticipants,
 								transactionId, null);
 					} finally {
@@ -223,6 +221,7 @@ public class KurentoSessionManager extends SessionManager {
 				try {
 
 					session.leave(participant.getParticipantPrivateId(), reason);
+					this.unindexParticipant(participant);
 
 					// Update control data structures
 
@@ -236,15 +235,7 @@ public class KurentoSessionManager extends SessionManager {
 
 						// TODO: why is this necessary??
 						if (p != null && insecureUsers.containsKey(p.getParticipantPrivateId())) {
-							boolean stillParticipant = false;
-							for (Session s : sessions.values()) {
-								if (!s.isClosed()
-										&& (s.getParticipantByPrivateId(p.getParticipantPrivateId()) != null)) {
-									stillParticipant = true;
-									break;
-								}
-							}
-							if (!stillParticipant) {
+							if (!participantsByPrivateId.containsKey(p.getParticipantPrivateId())) {
 								insecureUsers.remove(p.getParticipantPrivateId());
 							}
 						}
@@ -493,7 +484,7 @@ public class KurentoSessionManager extends SessionManager {
 		participant.setPublishedAt(new Timestamp(System.currentTimeMillis()).getTime());
 		kSession.newPublisher(participant);
 
-		participants = kParticipant.getSession().getParticipants();
+		participants = kParticipant.getSession().getParticipantsView();
 
 		if (sdpAnswer != null) {
 			log.debug("SDP Answer for publishing PARTICIPANT {}: {}", participant.getParticipantPublicId(), sdpAnswer);
@@ -523,13 +514,13 @@ public class KurentoSessionManager extends SessionManager {
 			kParticipant.unpublishMedia(reason, null);
 			session.cancelPublisher(participant, reason);
 
-			Set<Participant> participants = session.getParticipants();
+			Set<Participant> participants = session.getParticipantsView();
 
 			sessionEventsHandler.onUnpublishMedia(participant, participants, moderator, transactionId, null, reason);
 
 		} catch (OpenViduException e) {
 			log.warn("PARTICIPANT {}: Error unpublishing media", participant.getParticipantPublicId(), e);
-			sessionEventsHandler.onUnpublishMedia(participant, new HashSet<>(Arrays.asList(participant)), moderator,
+			sessionEventsHandler.onUnpublishMedia(participant, Set.of(participant), moderator,
 					transactionId, e, null);
 		}
 	}
@@ -537,10 +528,9 @@ public class KurentoSessionManager extends SessionManager {
 	@Override
 	public void prepareSubscription(Participant participant, String senderPublicId, boolean reconnect,
 			Integer transactionId) {
-		String sdpOffer = null;
 		Session session = null;
 		try {
-			log.debug("Request [SUBSCRIBE] remoteParticipant={} sdpOffer={} ({})", senderPublicId, sdpOffer,
+			log.debug("Request [SUBSCRIBE] remoteParticipant={} ({})", senderPublicId,
 					participant.getParticipantPublicId());
 
 			KurentoParticipant kParticipant = (KurentoParticipant) participant;
@@ -568,36 +558,51 @@ public class KurentoSessionManager extends SessionManager {
 				kParticipant.cancelReceivingMedia(((KurentoParticipant) senderParticipant), null, true);
 			}
 
-			sdpOffer = kParticipant.prepareReceiveMediaFrom(senderParticipant);
+			final Session finalSession = session;
 			final String subscriberEndpointName = kParticipant.calculateSubscriberEndpointName(senderParticipant);
 
-			CDR.log(new WebrtcDebugEvent(participant, subscriberEndpointName, WebrtcDebugEventIssuer.server,
-					WebrtcDebugEventOperation.subscribe, WebrtcDebugEventType.sdpOffer, sdpOffer));
+			// The response is sent when KMS generates the offer, without blocking the
+			// thread that handled the request
+			kParticipant.prepareReceiveMediaFromAsync(senderParticipant).thenApply(sdpOffer -> {
 
-			boolean isTranscodingAllowed = session.getSessionProperties().isTranscodingAllowed();
-			VideoCodec forcedVideoCodec = session.getSessionProperties().forcedVideoCodec();
+				CDR.log(new WebrtcDebugEvent(participant, subscriberEndpointName, WebrtcDebugEventIssuer.server,
+						WebrtcDebugEventOperation.subscribe, WebrtcDebugEventType.sdpOffer, sdpOffer));
 
-			// Modify server's SDPOffer if forced codec is defined
-			if (forcedVideoCodec != VideoCodec.NONE && !participant.isIpcam()) {
-				sdpOffer = sdpMunging.forceCodec(sdpOffer, participant, false, false, isTranscodingAllowed,
-						forcedVideoCodec);
+				boolean isTranscodingAllowed = finalSession.getSessionProperties().isTranscodingAllowed();
+				VideoCodec forcedVideoCodec = finalSession.getSessionProperties().forcedVideoCodec();
 
-				CDR.log(new WebrtcDebugEvent(participant, subscriberEndpointName, WebrtcDebugEventIssuer.server,
-						WebrtcDebugEventOperation.subscribe, WebrtcDebugEventType.sdpOfferMunged, sdpOffer));
-			}
+				// Modify server's SDPOffer if forced codec is defined
+				if (forcedVideoCodec != VideoCodec.NONE && !participant.isIpcam()) {
+					sdpOffer = sdpMunging.forceCodec(sdpOffer, participant, false, false, isTranscodingAllowed,
+							forcedVideoCodec);
+
+					CDR.log(new WebrtcDebugEvent(participant, subscriberEndpointName, WebrtcDebugEventIssuer.server,
+							WebrtcDebugEventOperation.subscribe, WebrtcDebugEventType.sdpOfferMunged, sdpOffer));
+				}
+
+				if (sdpOffer == null) {
+					throw new OpenViduException(Code.MEDIA_SDP_ERROR_CODE,
+							"Unable to generate SDP offer when subscribing '" + participant.getParticipantPublicId()
+									+ "' to '" + senderPublicId + "'");
+				}
+				return sdpOffer;
+			}).whenComplete((sdpOffer, error) -> {
+				if (error == null) {
+					sessionEventsHandler.onPrepareSubscription(participant, finalSession, sdpOffer, transactionId,
+							null);
+				} else {
+					OpenViduException e = toOpenViduException(error);
+					log.error("PARTICIPANT {}: Error preparing subscription to {}",
+							participant.getParticipantPublicId(), senderPublicId, e);
+					sessionEventsHandler.onPrepareSubscription(participant, finalSession, null, transactionId, e);
+				}
+			});
 
-			if (sdpOffer == null) {
-				throw new OpenViduException(Code.MEDIA_SDP_ERROR_CODE, "Unable to generate SDP offer when subscribing '"
-						+ participant.getParticipantPublicId() + "' to '" + senderPublicId + "'");
-			}
 		} catch (OpenViduException e) {
 			log.error("PARTICIPANT {}: Error preparing subscription to {}", participant.getParticipantPublicId(),
 					senderPublicId, e);
 			sessionEventsHandler.onPrepareSubscription(participant, session, null, transactionId, e);
 		}
-		if (sdpOffer != null) {
-			sessionEventsHandler.onPrepareSubscription(participant, session, sdpOffer, transactionId, null);
-		}
 	}
 
 	@Override
@@ -630,8 +635,11 @@ public class KurentoSessionManager extends SessionManager {
 						"User '" + senderName + " not streaming media in session '" + session.getSessionId() + "'");
 			}
 
+			final Session finalSession = session;
 			String subscriberEndpointName = kParticipant.calculateSubscriberEndpointName(senderParticipant);
 
+			// In both cases the response is sent when KMS answers, without blocking the
+			// thread that handled the request
 			if (initByServer) {
 
 				// Server initiated negotiation. sdpString is the SDP Answer of the client
@@ -639,8 +647,14 @@ public class KurentoSessionManager extends SessionManager {
 				CDR.log(new WebrtcDebugEvent(participant, subscriberEndpointName, WebrtcDebugEventIssuer.client,
 						WebrtcDebugEventOperation.subscribe, WebrtcDebugEventType.sdpAnswer, sdpString));
 
-				kParticipant.receiveMedia(senderParticipant, sdpString, false, true);
-				sessionEventsHandler.onSubscribe(participant, session, transactionId, null);
+				kParticipant.receiveMediaAsync(senderParticipant, sdpString, false, true)
+						.whenComplete((result, error) -> {
+							if (error == null) {
+								sessionEventsHandler.onSubscribe(participant, finalSession, transactionId, null);
+							} else {
+								this.onSubscribeError(participant, finalSession, senderName, transactionId, error);
+							}
+						});
 
 			} else {
 
@@ -659,16 +673,22 @@ public class KurentoSessionManager extends SessionManager {
 							WebrtcDebugEventOperation.subscribe, WebrtcDebugEventType.sdpOfferMunged, sdpOffer));
 				}
 
-				String sdpAnswer = kParticipant.receiveMedia(senderParticipant, sdpOffer, false, false);
-				if (sdpAnswer == null) {
-					throw new OpenViduException(Code.MEDIA_SDP_ERROR_CODE,
-							"Unable to generate SDP answer when subscribing '" + participant.getParticipantPublicId()
-									+ "' to '" + senderName + "'");
-				}
-
-				CDR.log(new WebrtcDebugEvent(participant, subscriberEndpointName, WebrtcDebugEventIssuer.server,
-						WebrtcDebugEventOperation.subscribe, WebrtcDebugEventType.sdpAnswer, sdpAnswer));
-				sessionEventsHandler.onSubscribe(participant, session, sdpAnswer, transactionId, null);
+				kParticipant.receiveMediaAsync(senderParticipant, sdpOffer, false, false).thenApply(sdpAnswer -> {
+					if (sdpAnswer == null) {
+						throw new OpenViduException(Code.MEDIA_SDP_ERROR_CODE,
+								"Unable to generate SDP answer when subscribing '"
+										+ participant.getParticipantPublicId() + "' to '" + senderName + "'");
+					}
+					CDR.log(new WebrtcDebugEvent(participant, subscriberEndpointName, WebrtcDebugEventIssuer.server,
+							WebrtcDebugEventOperation.subscribe, WebrtcDebugEventType.sdpAnswer, sdpAnswer));
+					return sdpAnswer;
+				}).whenComplete((sdpAnswer, error) -> {
+					if (error == null) {
+						sessionEventsHandler.onSubscribe(participant, finalSession, sdpAnswer, transactionId, null);
+					} else {
+						this.onSubscribeError(participant, finalSession, senderName, transactionId, error);
+					}
+				});
 			}
 
 		} catch (OpenViduException e) {
@@ -677,6 +697,23 @@ public class KurentoSessionManager extends SessionManager {
 		}
 	}
 
+	private void onSubscribeError(Participant participant, Session session, String senderName,
+			Integer transactionId, Throwable error) {
+		OpenViduException e = toOpenViduException(error);
+		log.error("PARTICIPANT {}: Error subscribing to {}", participant.getParticipantPublicId(), senderName, e);
+		sessionEventsHandler.onSubscribe(participant, session, null, transactionId, e);
+	}
+
+	private OpenViduException toOpenViduException(Throwable error) {
+		while (error instanceof CompletionException && error.getCause() != null) {
+			error = error.getCause();
+		}
+		if (error instanceof OpenViduException) {
+			return (OpenViduException) error;
+		}
+		return new OpenViduException(Code.MEDIA_ENDPOINT_ERROR_CODE, error.getMessage());
+	}
+
 	@Override
 	public void unsubscribe(Participant participant, String senderName, Integer transactionId) {
 		log.debug("Request [UNSUBSCRIBE] remoteParticipant={} ({})", senderName, participant.getParticipantPublicId());
@@ -731,7 +768,7 @@ public class KurentoSessionManager extends SessionManager {
 				typeOfVideo, frameRate, videoDimensions, filter, streamProperties));
 
 		sessionEventsHandler.onStreamPropertyChanged(participant, transactionId,
-				kParticipant.getSession().getParticipants(), streamId, property, newValue, reason);
+				kParticipant.getSession().getParticipantsView(), streamId, property, newValue, reason);
 	}
 
 	@Override
@@ -750,6 +787,72 @@ public class KurentoSessionManager extends SessionManager {
 		}
 	}
 
+	@Override
+	public void onIceCandidates(Participant participant, String endpointName, List<IceCandidate> candidates,
+			Integer transactionId) {
+		try {
+			KurentoParticipant kParticipant = (KurentoParticipant) participant;
+			log.debug("Request [ICE_CANDIDATES] endpoint={} candidates={} ({})", endpointName, candidates.size(),
+					participant.getParticipantPublicId());
+			kParticipant.addIceCandidates(endpointName, candidates);
+			sessionEventsHandler.onRecvIceCandidate(participant, transactionId, null);
+		} catch (OpenViduException e) {
+			log.error("PARTICIPANT {}: Error receiving {} ICE candidates (epName={})",
+					participant.getParticipantPublicId(), candidates.size(), endpointName, e);
+			sessionEventsHandler.onRecvIceCandidate(participant, transactionId, e);
+		}
+	}
+
+	/**
+	 * Returns the active session with the same id as the not-active one, creating
+	 * it if necessary. Only one thread per session id selects the Media Node and
+	 * creates the session: concurrent callers for the same session id wait for the
+	 * same in-flight creation, while sessions with different ids are created in
+	 * parallel
+	 * 
+	 * @throws OpenViduException    in case of error while creating the session
+	 * @throws TimeoutException     if the session is not created in
+	 *                              {@link KmsManager#MAX_SECONDS_LOCK_WAIT}
+	 *                              seconds
+	 * @throws InterruptedException if interrupted while waiting for the session
+	 *                              to be created
+	 */
+	protected KurentoSession getOrCreateSession(Session sessionNotActive)
+			throws OpenViduException, TimeoutException, InterruptedException {
+		final String sessionId = sessionNotActive.getSessionId();
+		final CompletableFuture<KurentoSession> newCreation = new CompletableFuture<>();
+		CompletableFuture<KurentoSession> creation = this.sessionCreations.putIfAbsent(sessionId, newCreation);
+		if (creation == null) {
+			creation = newCreation;
+			try {
+				KurentoSession kSession = (KurentoSession) sessions.get(sessionId);
+				if (kSession == null) {
+					// Session still null. It was not created by other thread in the meantime
+					Kms selectedMediaNode = this.selectMediaNode(sessionNotActive);
+					try {
+						kSession = createSession(sessionNotActive, selectedMediaNode);
+					} finally {
+						selectedMediaNode.releaseSessionReservation();
+					}
+				}
+				newCreation.complete(kSession);
+			} catch (Throwable e) {
+				newCreation.completeExceptionally(e);
+			} finally {
+				this.sessionCreations.remove(sessionId, newCreation);
+			}
+		}
+		try {
+			return creation.get(KmsManager.MAX_SECONDS_LOCK_WAIT, TimeUnit.SECONDS);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof OpenViduException) {
+				throw (OpenViduException) e.getCause();
+			}
+			throw new OpenViduException(Code.ROOM_CANNOT_BE_CREATED_ERROR_CODE,
+					"Unable to create session '" + sessionId + "': " + e.getCause().getMessage());
+		}
+	}
+
 	/**
 	 * Creates a session with the already existing not-active session in the
 	 * indicated KMS, if it doesn't already exist
@@ -789,7 +892,7 @@ public class KurentoSessionManager extends SessionManager {
 		if (evictedParticipant != null) {
 
 			KurentoParticipant kParticipant = (KurentoParticipant) evictedParticipant;
-			Set<Participant> participants = kParticipant.getSession().getParticipants();
+			Set<Participant> participants = kParticipant.getSession().getParticipantsView();
 			sessionClosedByLastParticipant = this.leaveRoom(kParticipant, null, reason, false);
 			sessionEventsHandler.onForceDisconnect(moderator, evictedParticipant, participants, transactionId, null,
 					reason);
@@ -797,7 +900,7 @@ public class KurentoSessionManager extends SessionManager {
 		} else if (moderator != null && transactionId != null) {
 
 			this.sessionEventsHandler.onForceDisconnect(moderator, evictedParticipant,
-					new HashSet<>(Arrays.asList(moderator)), transactionId,
+					Set.of(moderator), transactionId,
 					new OpenViduException(Code.USER_NOT_FOUND_ERROR_CODE,
 							"Connection not found when calling 'forceDisconnect'"),
 					null);
@@ -915,12 +1018,13 @@ public class KurentoSessionManager extends SessionManager {
 				try {
 					KurentoFilter filter = new KurentoFilter(filterType, filterOptions);
 					this.applyFilterInPublisher(kParticipantPublisher, filter);
-					Set<Participant> participants = kParticipantPublisher.getSession().getParticipants();
+					Set<Participant> participants = kParticipantPublisher.getSession()
+							.getParticipantsView();
 					sessionEventsHandler.onFilterChanged(publisher, moderator, transactionId, participants, streamId,
 							filter, null, filterReason);
 				} catch (OpenViduException e) {
 					log.warn("PARTICIPANT {}: Error applying filter", publisher.getParticipantPublicId(), e);
-					sessionEventsHandler.onFilterChanged(publisher, moderator, transactionId, new HashSet<>(), streamId,
+					sessionEventsHandler.onFilterChanged(publisher, moderator, transactionId, Set.of(), streamId,
 							null, e, "");
 				}
 			}
@@ -964,7 +1068,7 @@ public class KurentoSessionManager extends SessionManager {
 								+ session.getSessionId() + "'");
 			} else {
 				this.removeFilterInPublisher(kParticipant);
-				Set<Participant> participants = kParticipant.getSession().getParticipants();
+				Set<Participant> participants = kParticipant.getSession().getParticipantsView();
 				sessionEventsHandler.onFilterChanged(participant, moderator, transactionId, participants, streamId,
 						null, null, filterReason);
 			}
@@ -1009,7 +1113,7 @@ public class KurentoSessionManager extends SessionManager {
 			} else {
 				KurentoFilter updatedFilter = this.execFilterMethodInPublisher(kParticipant, filterMethod,
 						filterParams);
-				Set<Participant> participants = kParticipant.getSession().getParticipants();
+				Set<Participant> participants = kParticipant.getSession().getParticipantsView();
 				sessionEventsHandler.onFilterChanged(participant, moderator, transactionId, participants, streamId,
 						updatedFilter, null, filterReason);
 			}
@@ -1234,7 +1338,7 @@ public class KurentoSessionManager extends SessionManager {
 				WebrtcDebugEventOperation.reconnectPublisher, WebrtcDebugEventType.sdpAnswer, sdpAnswer));
 		sessionEventsHandler.onPublishMedia(kParticipant, kParticipant.getPublisherStreamId(),
 				kParticipant.getPublisher().createdAt(), kSession.getSessionId(), kurentoOptions, sdpAnswer,
-				new HashSet<Participant>(), transactionId, null);
+				Set.of(), transactionId, null);
 	}
 
 	private void reconnectSubscriber(KurentoSession kSession, KurentoParticipant kParticipant, String streamId,
@@ -1353,7 +1457,7 @@ public class KurentoSessionManager extends SessionManager {
 			try {
 				ListenerSubscription listener = pub.getFilter().addEventListener(eventType, event -> {
 					sessionEventsHandler.onFilterEventDispatched(sessionId, uniqueSessionId, connectionId, streamId,
-							filterType, event, kParticipant.getSession().getParticipants(),
+							filterType, event, kParticipant.getSession().getParticipantsView(),
 							kParticipant.getPublisher().getPartipantsListentingToFilterEvent(eventType));
 				});
 				pub.storeListener(eventType, listener);
@@ -1377,7 +1481,7 @@ public class KurentoSessionManager extends SessionManager {
 	protected Kms selectMediaNode(Session session) throws OpenViduException {
 		Kms lessLoadedKms = null;
 		try {
-			lessLoadedKms = this.kmsManager.getLessLoadedConnectedAndRunningKms();
+			lessLoadedKms = this.kmsManager.reserveLessLoadedConnectedAndRunningKms();
 		} catch (NoSuchElementException e) {
 			// Restore session not active
 			this.cleanCollections(session.getSessionId());
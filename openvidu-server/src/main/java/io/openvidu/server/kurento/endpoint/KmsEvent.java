@@ -28,13 +28,21 @@ public class KmsEvent {
 
 	long timestamp;
 	long msSinceCreation;
-	Participant participant;
 	String endpoint;
 	RaiseBaseEvent event;
 
+	// Values of the participant, so the event can be serialized in another thread
+	String sessionId;
+	String uniqueSessionId;
+	String user;
+	String connectionId;
+
 	public KmsEvent(RaiseBaseEvent event, Participant participant, String endpointName, long createdAt) {
 		this.event = event;
-		this.participant = participant;
+		this.sessionId = participant.getSessionId();
+		this.uniqueSessionId = participant.getUniqueSessionId();
+		this.user = participant.getFinalUserId();
+		this.connectionId = participant.getParticipantPublicId();
 		this.endpoint = endpointName;
 		this.timestamp = Long.parseLong(event.getTimestampMillis());
 		this.msSinceCreation = this.timestamp - createdAt;
@@ -47,12 +55,12 @@ public class KmsEvent {
 		json.remove("tags");
 		json.remove("timestampMillis");
 		json.addProperty("timestamp", timestamp);
-		json.addProperty("sessionId", participant.getSessionId());
-		json.addProperty("uniqueSessionId", participant.getUniqueSessionId());
-		json.addProperty("user", participant.getFinalUserId());
+		json.addProperty("sessionId", this.sessionId);
+		json.addProperty("uniqueSessionId", this.uniqueSessionId);
+		json.addProperty("user", this.user);
 		// TODO: remove deprecated "connection" when possible
-		json.addProperty("connection", participant.getParticipantPublicId());
-		json.addProperty("connectionId", participant.getParticipantPublicId());
+		json.addProperty("connection", this.connectionId);
+		json.addProperty("connectionId", this.connectionId);
 		json.addProperty("endpoint", this.endpoint);
 		json.addProperty("msSinceEndpointCreation", msSinceCreation);
 		return json;
@@ -62,6 +70,14 @@ public class KmsEvent {
 		return this.timestamp;
 	}
 
+	/**
+	 * @return Type of the KMS event (e.g. "IceComponentStateChange")
+	 */
+	public String getType() {
+		String type = this.event.getClass().getSimpleName();
+		return type.endsWith("Event") ? type.substring(0, type.length() - "Event".length()) : type;
+	}
+
 	private void removeSourceForJsonCompatibility() {
 		// This avoids stack overflow error when transforming RaiseBaseEvent into
 		// JsonObject
@@ -0,0 +1,111 @@
+/*
+ * (C) Copyright 2017-2020 OpenVidu (https://openvidu.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.openvidu.server.kurento.endpoint;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fixed-capacity history of the KMS events of a {@link MediaEndpoint}. Once
+ * full, every new event overwrites the oldest one. Event types with a sampling
+ * rate N only store one of every N events of that type
+ */
+public class KmsEventHistory {
+
+	private final KmsEvent[] events;
+	private final Map<String, Integer> samplingRates;
+	private final Map<String, Integer> eventCounters = new HashMap<>();
+
+	private int head = 0;
+	private int size = 0;
+	private long discardedEvents = 0;
+
+	/**
+	 * @param capacity      Maximum number of events stored. 0 to store none
+	 * @param samplingRates Map of KMS event types (e.g. "IceComponentStateChange")
+	 *                      to the sampling rate N (one of every N events is
+	 *                      stored). Types not present are always stored
+	 */
+	public KmsEventHistory(int capacity, Map<String, Integer> samplingRates) {
+		this.events = new KmsEvent[capacity];
+		this.samplingRates = samplingRates != null ? samplingRates : Collections.emptyMap();
+	}
+
+	/**
+	 * @return true if the event has been stored, false if it has been discarded by
+	 *         sampling
+	 */
+	public synchronized boolean add(KmsEvent event) {
+		if (this.events.length == 0 || !this.isSampled(event)) {
+			this.discardedEvents++;
+			return false;
+		}
+		if (this.size == this.events.length) {
+			this.discardedEvents++;
+		} else {
+			this.size++;
+		}
+		this.events[this.head] = event;
+		this.head = (this.head + 1) % this.events.length;
+		return true;
+	}
+
+	/**
+	 * @return Consistent copy of the stored events, from oldest to newest
+	 */
+	public synchronized List<KmsEvent> snapshot() {
+		List<KmsEvent> snapshot = new ArrayList<>(this.size);
+		int first = (this.head - this.size + this.events.length) % Math.max(this.events.length, 1);
+		for (int i = 0; i < this.size; i++) {
+			snapshot.add(this.events[(first + i) % this.events.length]);
+		}
+		return snapshot;
+	}
+
+	public synchronized int size() {
+		return this.size;
+	}
+
+	public int capacity() {
+		return this.events.length;
+	}
+
+	/**
+	 * @return Number of events discarded by sampling or overwritten by newer ones
+	 */
+	public synchronized long getDiscardedEvents() {
+		return this.discardedEvents;
+	}
+
+	private boolean isSampled(KmsEvent event) {
+		if (this.samplingRates.isEmpty()) {
+			return true;
+		}
+		String type = event.getType();
+		Integer rate = this.samplingRates.get(type);
+		if (rate == null || rate <= 1) {
+			return true;
+		}
+		int counter = this.eventCounters.merge(type, 1, Integer::sum);
+		return (counter - 1) % rate == 0;
+	}
+
+}
@@ -0,0 +1,38 @@
+/*
+ * (C) Copyright 2017-2020 OpenVidu (https://openvidu.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.openvidu.server.kurento.endpoint;
+
+/**
+ * KMS events OpenVidu Server may subscribe to for every media endpoint. Names
+ * match {@link KmsEvent#getType()}
+ */
+public enum KmsEventType {
+
+	// WebRtcEndpoint events
+	IceGatheringDone, NewCandidatePairSelected, IceComponentStateChange, DataChannelOpen, DataChannelClose,
+
+	// PlayerEndpoint events
+	EndOfStream, UriEndpointStateChanged,
+
+	// BaseRtpEndpoint events
+	ConnectionStateChanged, MediaStateChanged,
+
+	// Endpoint events
+	MediaFlowInStateChange, MediaFlowOutStateChange, MediaTranscodingStateChange, Error;
+
+}
@@ -22,11 +22,13 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import org.kurento.client.BaseRtpEndpoint;
 import org.kurento.client.Continuation;
@@ -34,6 +36,7 @@ import org.kurento.client.Endpoint;
 import org.kurento.client.ErrorEvent;
 import org.kurento.client.EventListener;
 import org.kurento.client.IceCandidate;
+import org.kurento.client.IceCandidateFoundEvent;
 import org.kurento.client.ListenerSubscription;
 import org.kurento.client.MediaElement;
 import org.kurento.client.MediaPipeline;
@@ -42,7 +45,6 @@ import org.kurento.client.PlayerEndpoint;
 import org.kurento.client.RtpEndpoint;
 import org.kurento.client.SdpEndpoint;
 import org.kurento.client.WebRtcEndpoint;
-import org.kurento.client.internal.server.KurentoServerException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -51,6 +53,7 @@ import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
 
 import io.openvidu.client.OpenViduException;
 import io.openvidu.client.OpenViduException.Code;
@@ -64,6 +67,7 @@ import io.openvidu.server.core.Participant;
 import io.openvidu.server.kurento.core.KurentoMediaOptions;
 import io.openvidu.server.kurento.core.KurentoParticipant;
 import io.openvidu.server.utils.RemoteOperationUtils;
+import io.openvidu.server.utils.SharedScheduler;
 
 /**
  * {@link Endpoint} wrapper. Can be based on WebRtcEndpoint (that supports
@@ -76,6 +80,9 @@ import io.openvidu.server.utils.RemoteOperationUtils;
  */
 public abstract class MediaEndpoint {
 	private static Logger log;
+
+	private static final int KMS_EVENT_LISTENERS_TIMEOUT = 5; // seconds
+
 	private OpenviduConfig openviduConfig;
 
 	private EndpointType endpointType;
@@ -102,10 +109,20 @@ public abstract class MediaEndpoint {
 	private final List<IceCandidate> receivedCandidateList = Collections.synchronizedList(new ArrayList<>());
 	private final List<IceCandidate> gatheredCandidateList = Collections.synchronizedList(new ArrayList<>());
 	private LinkedList<IceCandidate> candidates = new LinkedList<IceCandidate>();
+	// Gathered candidates waiting to be sent together to the remote peer
+	private final List<IceCandidate> pendingGatheredCandidates = new ArrayList<>();
 
 	public String selectedLocalIceCandidate;
 	public String selectedRemoteIceCandidate;
-	public Queue<KmsEvent> kmsEvents = new ConcurrentLinkedQueue<>();
+	public KmsEventHistory kmsEvents;
+	private volatile CompletableFuture<Void> kmsEventListenersFuture = CompletableFuture.completedFuture(null);
+
+	// SDPs only change upon (re)negotiation. They are cached the first time they
+	// are requested to KMS and discarded in every new negotiation
+	private volatile String localSdp;
+	private volatile String remoteSdp;
+	private long sdpVersion = 0;
+	private final Object sdpLock = new Object();
 
 	public Runnable kmsWebrtcStatsRunnable;
 	public AtomicInteger statsNotFoundErrors = new AtomicInteger(0);
@@ -135,6 +152,8 @@ public abstract class MediaEndpoint {
 		this.setMediaPipeline(pipeline);
 
 		this.openviduConfig = openviduConfig;
+		this.kmsEvents = new KmsEventHistory(this.openviduConfig.getKmsEventsHistorySize(),
+				this.openviduConfig.getKmsEventsSampling());
 
 		KurentoOptions kurentoTokenOptions = this.owner.getToken().getKurentoOptions();
 		if (kurentoTokenOptions != null) {
@@ -222,18 +241,31 @@ public abstract class MediaEndpoint {
 	 * @return the existing endpoint, if any
 	 */
 	public synchronized Endpoint createEndpoint(CountDownLatch endpointLatch) {
+		Endpoint old = this.getEndpoint();
+		this.createEndpointAsync().whenComplete((result, error) -> endpointLatch.countDown());
+		return old;
+	}
+
+	/**
+	 * Same as {@link #createEndpoint(CountDownLatch)} without blocking any thread.
+	 * The returned future completes with the previously existing endpoint (null
+	 * if a new one has been built) or exceptionally if the endpoint couldn't be
+	 * built
+	 */
+	public synchronized CompletableFuture<Endpoint> createEndpointAsync() {
 		Endpoint old = this.getEndpoint();
 		if (old == null) {
-			internalEndpointInitialization(endpointLatch);
+			CompletableFuture<Void> endpointFuture = new CompletableFuture<>();
+			internalEndpointInitialization(endpointFuture);
+			return endpointFuture.thenApply(v -> null);
 		} else {
-			endpointLatch.countDown();
 			if (this.isWeb()) {
 				while (!candidates.isEmpty()) {
 					internalAddIceCandidate(candidates.removeFirst());
 				}
 			}
+			return CompletableFuture.completedFuture(old);
 		}
-		return old;
 	}
 
 	/**
@@ -264,6 +296,16 @@ public abstract class MediaEndpoint {
 		this.endpointName = endpointName;
 	}
 
+	/**
+	 * Sets the name of this endpoint and of its internal endpoint in KMS. The
+	 * remote operation does not block the caller
+	 */
+	public CompletableFuture<Void> setEndpointNameAsync(String endpointName) {
+		this.setEndpointName(endpointName);
+		final Endpoint internalEndpoint = this.getEndpoint();
+		return toFuture(continuation -> internalEndpoint.setName(endpointName, continuation));
+	}
+
 	public String getStreamId() {
 		return streamId;
 	}
@@ -272,6 +314,15 @@ public abstract class MediaEndpoint {
 		this.streamId = streamId;
 	}
 
+	/**
+	 * Sets the future of the asynchronous subscriptions to the KMS events of this
+	 * endpoint. ICE candidates won't be gathered until they are completed, so no
+	 * ICE related event is missed
+	 */
+	public void setKmsEventListenersFuture(CompletableFuture<Void> kmsEventListenersFuture) {
+		this.kmsEventListenersFuture = kmsEventListenersFuture;
+	}
+
 	/**
 	 * Unregisters all error listeners created for media elements owned by this
 	 * instance.
@@ -284,9 +335,10 @@ public abstract class MediaEndpoint {
 	 * Creates the endpoint (RTP or WebRTC) and any other additional elements (if
 	 * needed).
 	 *
-	 * @param endpointLatch
+	 * @param endpointFuture completed when the asynchronous call to build the
+	 *                       endpoint returns
 	 */
-	protected void internalEndpointInitialization(final CountDownLatch endpointLatch) {
+	protected void internalEndpointInitialization(final CompletableFuture<Void> endpointFuture) {
 		if (this.isWeb()) {
 			WebRtcEndpoint.Builder builder = new WebRtcEndpoint.Builder(pipeline);
 			/*
@@ -303,16 +355,19 @@ public abstract class MediaEndpoint {
 						webEndpoint.setStunServerPort(3478);
 					}
 
-					endpointLatch.countDown();
-
-					while (!candidates.isEmpty()) {
-						internalAddIceCandidate(candidates.removeFirst());
+					// Candidates received while building the endpoint
+					synchronized (MediaEndpoint.this) {
+						while (!candidates.isEmpty()) {
+							internalAddIceCandidate(candidates.removeFirst());
+						}
 					}
 
 					log.trace("EP {}: Created a new WebRtcEndpoint", endpointName);
 					endpointSubscription = registerElemErrListener(webEndpoint);
 
-					// This can be done after unlocking latch. Not necessary to wait
+					// Not necessary to wait for the responses. Requests are sent before completing
+					// the future, so they reach KMS before the SDP negotiation of the stages
+					// depending on it
 					webEndpoint.setMaxVideoRecvBandwidth(maxRecvKbps, new Continuation<Void>() {
 						@Override
 						public void onSuccess(Void result) throws Exception {
@@ -357,11 +412,14 @@ public abstract class MediaEndpoint {
 									cause.getMessage());
 						}
 					});
+
+					endpointFuture.complete(null);
 				}
 
 				@Override
 				public void onError(Throwable cause) throws Exception {
-					endpointLatch.countDown();
+					endpointFuture.completeExceptionally(new OpenViduException(Code.MEDIA_WEBRTC_ENDPOINT_ERROR_CODE,
+							"Unable to create WebRtcEndpoint: " + cause.getMessage()));
 					log.error("EP {}: Failed to create a new WebRtcEndpoint", endpointName, cause);
 				}
 			});
@@ -399,12 +457,13 @@ public abstract class MediaEndpoint {
 
 					log.trace("EP {}: Created a new PlayerEndpoint", endpointName);
 					endpointSubscription = registerElemErrListener(playerEndpoint);
-					endpointLatch.countDown();
+					endpointFuture.complete(null);
 				}
 
 				@Override
 				public void onError(Throwable cause) throws Exception {
-					endpointLatch.countDown();
+					endpointFuture.completeExceptionally(new OpenViduException(Code.MEDIA_ENDPOINT_ERROR_CODE,
+							"Unable to create PlayerEndpoint: " + cause.getMessage()));
 					log.error("EP {}: Failed to create a new PlayerEndpoint", endpointName, cause);
 				}
 			});
@@ -413,14 +472,15 @@ public abstract class MediaEndpoint {
 				@Override
 				public void onSuccess(RtpEndpoint result) throws Exception {
 					endpoint = result;
-					endpointLatch.countDown();
 					log.trace("EP {}: Created a new RtpEndpoint", endpointName);
 					endpointSubscription = registerElemErrListener(endpoint);
+					endpointFuture.complete(null);
 				}
 
 				@Override
 				public void onError(Throwable cause) throws Exception {
-					endpointLatch.countDown();
+					endpointFuture.completeExceptionally(new OpenViduException(Code.MEDIA_RTP_ENDPOINT_ERROR_CODE,
+							"Unable to create RtpEndpoint: " + cause.getMessage()));
 					log.error("EP {}: Failed to create a new RtpEndpoint", endpointName, cause);
 				}
 			});
@@ -444,6 +504,26 @@ public abstract class MediaEndpoint {
 		}
 	}
 
+	/**
+	 * Add several {@link IceCandidate}s received at once from the remote peer of
+	 * this {@link WebRtcEndpoint}. Every candidate is sent to the internal endpoint
+	 * without waiting for the answer of the previous one
+	 *
+	 * @param candidates the remote candidates
+	 */
+	public synchronized void addIceCandidates(List<IceCandidate> candidates) throws OpenViduException {
+		if (!this.isWeb()) {
+			throw new OpenViduException(Code.MEDIA_NOT_A_WEB_ENDPOINT_ERROR_CODE, "Operation not supported");
+		}
+		if (webEndpoint == null) {
+			this.candidates.addAll(candidates);
+		} else {
+			for (IceCandidate candidate : candidates) {
+				internalAddIceCandidate(candidate);
+			}
+		}
+	}
+
 	/**
 	 * Registers a listener for when the {@link MediaElement} triggers an
 	 * {@link ErrorEvent}. Notifies the owner with the error.
@@ -486,6 +566,7 @@ public abstract class MediaEndpoint {
 	 * @return the Sdp answer
 	 */
 	protected String processOffer(String offer) throws OpenViduException {
+		this.invalidateSdpCache();
 		if (this.isWeb()) {
 			if (webEndpoint == null) {
 				throw new OpenViduException(Code.MEDIA_WEBRTC_ENDPOINT_ERROR_CODE,
@@ -512,6 +593,7 @@ public abstract class MediaEndpoint {
 	 * @return the updated Sdp offer, based on the received answer
 	 */
 	protected String processAnswer(String answer) throws OpenViduException {
+		this.invalidateSdpCache();
 		if (this.isWeb()) {
 			if (webEndpoint == null) {
 				throw new OpenViduException(Code.MEDIA_WEBRTC_ENDPOINT_ERROR_CODE,
@@ -530,6 +612,7 @@ public abstract class MediaEndpoint {
 	}
 
 	protected String generateOffer(OfferOptions offerOptions) throws OpenViduException {
+		this.invalidateSdpCache();
 		if (this.isWeb()) {
 			if (webEndpoint == null) {
 				throw new OpenViduException(Code.MEDIA_WEBRTC_ENDPOINT_ERROR_CODE,
@@ -547,6 +630,74 @@ public abstract class MediaEndpoint {
 		}
 	}
 
+	/**
+	 * Asynchronous version of {@link #processOffer(String)}. The future completes
+	 * with the Sdp answer when KMS responds
+	 */
+	protected CompletableFuture<String> processOfferAsync(String offer) {
+		this.invalidateSdpCache();
+		if (this.isWeb()) {
+			if (webEndpoint == null) {
+				return CompletableFuture.failedFuture(new OpenViduException(Code.MEDIA_WEBRTC_ENDPOINT_ERROR_CODE,
+						"Can't process offer when WebRtcEndpoint is null (ep: " + endpointName + ")"));
+			}
+			return toFuture(continuation -> webEndpoint.processOffer(offer, continuation));
+		} else if (this.isPlayerEndpoint()) {
+			return CompletableFuture.completedFuture("");
+		} else {
+			if (endpoint == null) {
+				return CompletableFuture.failedFuture(new OpenViduException(Code.MEDIA_RTP_ENDPOINT_ERROR_CODE,
+						"Can't process offer when RtpEndpoint is null (ep: " + endpointName + ")"));
+			}
+			return toFuture(continuation -> endpoint.processOffer(offer, continuation));
+		}
+	}
+
+	/**
+	 * Asynchronous version of {@link #processAnswer(String)}. The future completes
+	 * with the updated Sdp offer when KMS responds
+	 */
+	protected CompletableFuture<String> processAnswerAsync(String answer) {
+		this.invalidateSdpCache();
+		if (this.isWeb()) {
+			if (webEndpoint == null) {
+				return CompletableFuture.failedFuture(new OpenViduException(Code.MEDIA_WEBRTC_ENDPOINT_ERROR_CODE,
+						"Can't process answer when WebRtcEndpoint is null (ep: " + endpointName + ")"));
+			}
+			return toFuture(continuation -> webEndpoint.processAnswer(answer, continuation));
+		} else if (this.isPlayerEndpoint()) {
+			return CompletableFuture.completedFuture("");
+		} else {
+			if (endpoint == null) {
+				return CompletableFuture.failedFuture(new OpenViduException(Code.MEDIA_RTP_ENDPOINT_ERROR_CODE,
+						"Can't process answer when RtpEndpoint is null (ep: " + endpointName + ")"));
+			}
+			return toFuture(continuation -> endpoint.processAnswer(answer, continuation));
+		}
+	}
+
+	/**
+	 * Asynchronous version of {@link #generateOffer(OfferOptions)}
+	 */
+	protected CompletableFuture<String> generateOfferAsync(OfferOptions offerOptions) {
+		this.invalidateSdpCache();
+		if (this.isWeb()) {
+			if (webEndpoint == null) {
+				return CompletableFuture.failedFuture(new OpenViduException(Code.MEDIA_WEBRTC_ENDPOINT_ERROR_CODE,
+						"Can't generate offer when WebRtcEndpoint is null (ep: " + endpointName + ")"));
+			}
+			return toFuture(continuation -> webEndpoint.generateOffer(offerOptions, continuation));
+		} else if (this.isPlayerEndpoint()) {
+			return CompletableFuture.completedFuture("");
+		} else {
+			if (endpoint == null) {
+				return CompletableFuture.failedFuture(new OpenViduException(Code.MEDIA_RTP_ENDPOINT_ERROR_CODE,
+						"Can't generate offer when RtpEndpoint is null (ep: " + endpointName + ")"));
+			}
+			return toFuture(continuation -> endpoint.generateOffer(offerOptions, continuation));
+		}
+	}
+
 	/**
 	 * If supported, it registers a listener for when a new {@link IceCandidate} is
 	 * gathered by the internal endpoint ({@link WebRtcEndpoint}) and sends it to
@@ -565,7 +716,28 @@ public abstract class MediaEndpoint {
 			throw new OpenViduException(Code.MEDIA_WEBRTC_ENDPOINT_ERROR_CODE,
 					"Can't register event listener for null WebRtcEndpoint (ep: " + endpointName + ")");
 		}
-		webEndpoint.addIceCandidateFoundListener(event -> {
+		webEndpoint.addIceCandidateFoundListener(this.iceCandidateFoundListener(senderPublicId));
+	}
+
+	/**
+	 * Asynchronous version of
+	 * {@link #registerOnIceCandidateEventListener(String)}
+	 */
+	protected CompletableFuture<Void> registerOnIceCandidateEventListenerAsync(String senderPublicId) {
+		if (!this.isWeb()) {
+			return CompletableFuture.completedFuture(null);
+		}
+		if (webEndpoint == null) {
+			return CompletableFuture.failedFuture(new OpenViduException(Code.MEDIA_WEBRTC_ENDPOINT_ERROR_CODE,
+					"Can't register event listener for null WebRtcEndpoint (ep: " + endpointName + ")"));
+		}
+		return MediaEndpoint.<ListenerSubscription>toFuture(continuation -> webEndpoint
+				.addIceCandidateFoundListener(this.iceCandidateFoundListener(senderPublicId), continuation))
+				.thenApply(subscription -> null);
+	}
+
+	private EventListener<IceCandidateFoundEvent> iceCandidateFoundListener(String senderPublicId) {
+		return event -> {
 			final IceCandidate candidate = event.getCandidate();
 
 			gatheredCandidateList.add(candidate);
@@ -573,13 +745,45 @@ public abstract class MediaEndpoint {
 					this.getWebrtcDebugOperation(), WebrtcDebugEventType.iceCandidate,
 					gson.toJsonTree(candidate).toString()));
 
-			owner.sendIceCandidate(senderPublicId, endpointName, candidate);
-		});
+			int batchWindow = openviduConfig.getSessionIceCandidatesBatchWindow();
+			if (owner.isBatchedIceCandidates() && batchWindow > 0) {
+				this.queueGatheredCandidate(senderPublicId, candidate, batchWindow);
+			} else {
+				owner.sendIceCandidate(senderPublicId, endpointName, candidate);
+			}
+		};
+	}
+
+	/**
+	 * Candidates are gathered in bursts. The first one of a burst schedules the
+	 * delivery of all the candidates gathered within the next batch window in a
+	 * single notification
+	 */
+	private void queueGatheredCandidate(String senderPublicId, IceCandidate candidate, int batchWindow) {
+		synchronized (pendingGatheredCandidates) {
+			pendingGatheredCandidates.add(candidate);
+			if (pendingGatheredCandidates.size() == 1) {
+				SharedScheduler.schedule(() -> this.flushGatheredCandidates(senderPublicId), batchWindow,
+						TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+
+	private void flushGatheredCandidates(String senderPublicId) {
+		List<IceCandidate> batch;
+		synchronized (pendingGatheredCandidates) {
+			batch = new ArrayList<>(pendingGatheredCandidates);
+			pendingGatheredCandidates.clear();
+		}
+		if (!batch.isEmpty()) {
+			owner.sendIceCandidates(senderPublicId, endpointName, batch);
+		}
 	}
 
 	/**
 	 * If supported, it instructs the internal endpoint to start gathering
-	 * {@link IceCandidate}s.
+	 * {@link IceCandidate}s. The order is sent once the subscriptions to KMS
+	 * events are completed (or after a timeout), without blocking the caller
 	 */
 	protected void gatherCandidates() throws OpenViduException {
 		if (!this.isWeb()) {
@@ -589,17 +793,34 @@ public abstract class MediaEndpoint {
 			throw new OpenViduException(Code.MEDIA_WEBRTC_ENDPOINT_ERROR_CODE,
 					"Can't start gathering ICE candidates on null WebRtcEndpoint (ep: " + endpointName + ")");
 		}
-		webEndpoint.gatherCandidates(new Continuation<Void>() {
-			@Override
-			public void onSuccess(Void result) throws Exception {
-				log.trace("EP {}: Internal endpoint started to gather candidates", endpointName);
-			}
+		final WebRtcEndpoint finalEndpoint = this.webEndpoint;
+		// Dependent copy, so the timeout does not complete the shared future
+		this.kmsEventListenersFuture.thenApply(v -> v).orTimeout(KMS_EVENT_LISTENERS_TIMEOUT, TimeUnit.SECONDS)
+				.whenComplete((result, error) -> {
+					if (error != null) {
+						log.warn("EP {}: KMS event subscriptions not completed before gathering candidates",
+								endpointName);
+					}
+					this.internalGatherCandidates(finalEndpoint);
+				});
+	}
 
-			@Override
-			public void onError(Throwable cause) throws Exception {
-				log.warn("EP {}: Internal endpoint failed to start gathering candidates", endpointName, cause);
-			}
-		});
+	private void internalGatherCandidates(WebRtcEndpoint webEndpoint) {
+		try {
+			webEndpoint.gatherCandidates(new Continuation<Void>() {
+				@Override
+				public void onSuccess(Void result) throws Exception {
+					log.trace("EP {}: Internal endpoint started to gather candidates", endpointName);
+				}
+
+				@Override
+				public void onError(Throwable cause) throws Exception {
+					log.warn("EP {}: Internal endpoint failed to start gathering candidates", endpointName, cause);
+				}
+			});
+		} catch (Exception e) {
+			log.warn("EP {}: Internal endpoint failed to start gathering candidates", endpointName, e);
+		}
 	}
 
 	private void internalAddIceCandidate(IceCandidate candidate) throws OpenViduException {
@@ -627,31 +848,50 @@ public abstract class MediaEndpoint {
 		});
 	}
 
+	/**
+	 * Wraps an asynchronous Kurento operation in a future completed by its
+	 * {@link Continuation}
+	 */
+	protected static <T> CompletableFuture<T> toFuture(Consumer<Continuation<T>> remoteOperation) {
+		final CompletableFuture<T> future = new CompletableFuture<>();
+		try {
+			remoteOperation.accept(new Continuation<T>() {
+				@Override
+				public void onSuccess(T result) throws Exception {
+					future.complete(result);
+				}
+
+				@Override
+				public void onError(Throwable cause) throws Exception {
+					future.completeExceptionally(cause);
+				}
+			});
+		} catch (Exception e) {
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
 	public JsonObject toJson() {
 		JsonObject json = new JsonObject();
 		json.addProperty("createdAt", this.createdAt);
 		return json;
 	}
 
+	/**
+	 * Never calls KMS: SDPs are reported only if they are cached, so
+	 * {@link MediaEndpoint#fetchSessionDescriptors(Semaphore, long)} must be
+	 * called first. SDPs that could not be retrieved are null
+	 */
 	public JsonObject withStatsToJson() {
 		JsonObject json = new JsonObject();
 		json.addProperty("createdAt", this.createdAt);
 		json.addProperty("webrtcEndpointName", this.getEndpointName());
 		if (!this.isPlayerEndpoint()) {
-			try {
-				json.addProperty("remoteSdp", ((SdpEndpoint) this.getEndpoint()).getRemoteSessionDescriptor());
-			} catch (KurentoServerException e) {
-				log.error("Error retrieving remote SDP for endpoint {} of stream {}: {}", this.endpointName,
-						this.streamId, e.getMessage());
-				json.add("remoteSdp", JsonNull.INSTANCE);
-			}
-			try {
-				json.addProperty("localSdp", ((SdpEndpoint) this.getEndpoint()).getLocalSessionDescriptor());
-			} catch (KurentoServerException e) {
-				log.error("Error retrieving local SDP for endpoint {} of stream {}: {}", this.endpointName,
-						this.streamId, e.getMessage());
-				json.add("localSdp", JsonNull.INSTANCE);
-			}
+			String remote = this.remoteSdp;
+			json.add("remoteSdp", remote != null ? new JsonPrimitive(remote) : JsonNull.INSTANCE);
+			String local = this.localSdp;
+			json.add("localSdp", local != null ? new JsonPrimitive(local) : JsonNull.INSTANCE);
 		}
 		JsonArray clientIceCandidates = new JsonArray();
 		Iterator<IceCandidate> it1 = this.receivedCandidateList.iterator();
@@ -669,7 +909,7 @@ public abstract class MediaEndpoint {
 		json.addProperty("remoteCandidate", this.selectedRemoteIceCandidate);
 
 		JsonArray jsonArray = new JsonArray();
-		this.kmsEvents.forEach(ev -> {
+		this.kmsEvents.snapshot().forEach(ev -> {
 			// Remove unwanted properties
 			JsonObject j = ev.toJson();
 			j.remove("sessionId");
@@ -685,6 +925,103 @@ public abstract class MediaEndpoint {
 		return json;
 	}
 
+	/**
+	 * Asynchronously retrieves from KMS the SDPs of this endpoint that are not
+	 * cached yet, so {@link MediaEndpoint#withStatsToJson()} does not need to
+	 * block on them. Every remote call takes one permit from concurrencyLimit
+	 * until its response arrives, bounding the number of requests in flight. If
+	 * no permit is available before the deadline (epoch milliseconds) the SDP is
+	 * not requested, so the caller never waits for the permits beyond it. The
+	 * returned future never completes exceptionally
+	 */
+	public CompletableFuture<Void> fetchSessionDescriptors(Semaphore concurrencyLimit, long deadline) {
+		if (this.isPlayerEndpoint() || this.getEndpoint() == null) {
+			return CompletableFuture.completedFuture(null);
+		}
+		final SdpEndpoint sdpEndpoint = (SdpEndpoint) this.getEndpoint();
+		final long version = this.getSdpVersion();
+		CompletableFuture<Void> remote = this.remoteSdp != null ? CompletableFuture.completedFuture(null)
+				: this.fetchSessionDescriptor(concurrencyLimit, deadline, sdpEndpoint::getRemoteSessionDescriptor,
+						sdp -> this.cacheRemoteSdp(sdp, version), "remote");
+		CompletableFuture<Void> local = this.localSdp != null ? CompletableFuture.completedFuture(null)
+				: this.fetchSessionDescriptor(concurrencyLimit, deadline, sdpEndpoint::getLocalSessionDescriptor,
+						sdp -> this.cacheLocalSdp(sdp, version), "local");
+		return CompletableFuture.allOf(remote, local);
+	}
+
+	private CompletableFuture<Void> fetchSessionDescriptor(Semaphore concurrencyLimit, long deadline,
+			Consumer<Continuation<String>> remoteGetter, Consumer<String> cache, String sdpType) {
+		final CompletableFuture<Void> future = new CompletableFuture<>();
+		try {
+			long timeout = Math.max(0, deadline - System.currentTimeMillis());
+			if (!concurrencyLimit.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+				log.warn("Too many WebRTC stats requests in flight. {} SDP for endpoint {} of stream {} not requested",
+						sdpType, this.endpointName, this.streamId);
+				future.complete(null);
+				return future;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			future.complete(null);
+			return future;
+		}
+		try {
+			remoteGetter.accept(new Continuation<String>() {
+				@Override
+				public void onSuccess(String result) throws Exception {
+					concurrencyLimit.release();
+					cache.accept(result);
+					future.complete(null);
+				}
+
+				@Override
+				public void onError(Throwable cause) throws Exception {
+					concurrencyLimit.release();
+					log.error("Error retrieving {} SDP for endpoint {} of stream {}: {}", sdpType, endpointName,
+							streamId, cause.getMessage());
+					future.complete(null);
+				}
+			});
+		} catch (Exception e) {
+			concurrencyLimit.release();
+			log.error("Error retrieving {} SDP for endpoint {} of stream {}: {}", sdpType, this.endpointName,
+					this.streamId, e.getMessage());
+			future.complete(null);
+		}
+		return future;
+	}
+
+	private long getSdpVersion() {
+		synchronized (this.sdpLock) {
+			return this.sdpVersion;
+		}
+	}
+
+	private void invalidateSdpCache() {
+		synchronized (this.sdpLock) {
+			this.sdpVersion++;
+			this.localSdp = null;
+			this.remoteSdp = null;
+		}
+	}
+
+	private void cacheLocalSdp(String sdp, long version) {
+		synchronized (this.sdpLock) {
+			// Discard the SDP if a negotiation took place while retrieving it
+			if (this.sdpVersion == version) {
+				this.localSdp = sdp;
+			}
+		}
+	}
+
+	private void cacheRemoteSdp(String sdp, long version) {
+		synchronized (this.sdpLock) {
+			if (this.sdpVersion == version) {
+				this.remoteSdp = sdp;
+			}
+		}
+	}
+
 	protected abstract WebrtcDebugEventOperation getWebrtcDebugOperation();
 
 }
@@ -24,8 +24,8 @@ import java.util.LinkedList;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -90,15 +90,56 @@ public class PublisherEndpoint extends MediaEndpoint {
 	 */
 	public ReadWriteLock closingLock = new ReentrantReadWriteLock();
 
+	// Subscriptions to this publisher started under the closing read lock whose
+	// negotiation with KMS has not finished yet
+	private int pendingSubscriptions = 0;
+	private final Object pendingSubscriptionsLock = new Object();
+
 	public PublisherEndpoint(EndpointType endpointType, KurentoParticipant owner, String endpointName,
 			MediaPipeline pipeline, OpenviduConfig openviduConfig, PassThrough passThru) {
 		super(endpointType, owner, endpointName, pipeline, openviduConfig, log);
 		this.passThru = passThru;
 	}
 
+	/**
+	 * Must be called under the closing read lock when a subscription to this
+	 * publisher starts. The read lock can only be released by the thread that
+	 * acquired it, so this keeps track of the subscription until KMS answers it
+	 */
+	public void subscriptionStarted() {
+		synchronized (this.pendingSubscriptionsLock) {
+			this.pendingSubscriptions++;
+		}
+	}
+
+	public void subscriptionFinished() {
+		synchronized (this.pendingSubscriptionsLock) {
+			this.pendingSubscriptions--;
+			this.pendingSubscriptionsLock.notifyAll();
+		}
+	}
+
+	/**
+	 * Waits for the subscriptions in progress. Must be called under the closing
+	 * write lock, so no new subscription can start
+	 * 
+	 * @return true if every subscription finished before the timeout
+	 */
+	public boolean awaitPendingSubscriptions(long timeoutMs) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + timeoutMs;
+		synchronized (this.pendingSubscriptionsLock) {
+			long remaining = timeoutMs;
+			while (this.pendingSubscriptions > 0 && remaining > 0) {
+				this.pendingSubscriptionsLock.wait(remaining);
+				remaining = deadline - System.currentTimeMillis();
+			}
+			return this.pendingSubscriptions == 0;
+		}
+	}
+
 	@Override
-	protected void internalEndpointInitialization(final CountDownLatch endpointLatch) {
-		super.internalEndpointInitialization(endpointLatch);
+	protected void internalEndpointInitialization(final CompletableFuture<Void> endpointFuture) {
+		super.internalEndpointInitialization(endpointFuture);
 		if (this.passThru == null) {
 			passThru = new PassThrough.Builder(getPipeline()).build();
 			passThruSubscription = registerElemErrListener(passThru);
@@ -208,6 +249,19 @@ public class PublisherEndpoint extends MediaEndpoint {
 		this.enableIpCameraIfNecessary();
 	}
 
+	/**
+	 * Same as {@link #connect(MediaElement, boolean)} without blocking. The
+	 * returned future completes when the sink has been connected
+	 */
+	public synchronized CompletableFuture<Void> connectAsync(MediaElement sink) {
+		if (!connected) {
+			innerConnect(false);
+		}
+		final CompletableFuture<Void> future = toFuture(continuation -> passThru.connect(sink, continuation));
+		this.enableIpCameraIfNecessary();
+		return future;
+	}
+
 	public synchronized void connect(MediaElement sink, MediaType type, boolean blocking) {
 		if (!connected) {
 			innerConnect(blocking);
@@ -18,6 +18,7 @@
 package io.openvidu.server.kurento.endpoint;
 
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
 
 import org.kurento.client.MediaPipeline;
 import org.kurento.client.OfferOptions;
@@ -47,35 +48,58 @@ public class SubscriberEndpoint extends MediaEndpoint {
 		super(endpointType, owner, endpointName, pipeline, openviduConfig, log);
 	}
 
-	public synchronized String prepareSubscription(PublisherEndpoint publisher) {
-		registerOnIceCandidateEventListener(publisher.getOwner().getParticipantPublicId());
-		publisher.connect(this.getEndpoint(), true);
-		this.createdAt = System.currentTimeMillis();
-		this.publisherStreamId = publisher.getStreamId();
-
-		OfferOptions offerOptions = new OfferOptions();
-		offerOptions.setOfferToReceiveAudio(publisher.getMediaOptions().hasAudio());
-		offerOptions.setOfferToReceiveVideo(publisher.getMediaOptions().hasVideo());
-		String sdpOffer = generateOffer(offerOptions);
+	/**
+	 * Server initiated negotiation. Registration of the ICE candidate listener,
+	 * connection to the publisher and generation of the offer are sent to KMS at
+	 * the same time. Candidates start being gathered once all of them are done.
+	 * The returned future completes with the Sdp offer
+	 */
+	public CompletableFuture<String> prepareSubscription(PublisherEndpoint publisher) {
+		final CompletableFuture<Void> listener;
+		final CompletableFuture<Void> connection;
+		final CompletableFuture<String> sdpOffer;
+		synchronized (this) {
+			listener = registerOnIceCandidateEventListenerAsync(publisher.getOwner().getParticipantPublicId());
+			connection = publisher.connectAsync(this.getEndpoint());
+			this.createdAt = System.currentTimeMillis();
+			this.publisherStreamId = publisher.getStreamId();
 
-		gatherCandidates();
-		return sdpOffer;
+			OfferOptions offerOptions = new OfferOptions();
+			offerOptions.setOfferToReceiveAudio(publisher.getMediaOptions().hasAudio());
+			offerOptions.setOfferToReceiveVideo(publisher.getMediaOptions().hasVideo());
+			sdpOffer = generateOfferAsync(offerOptions);
+		}
+		return CompletableFuture.allOf(listener, connection, sdpOffer).thenApply(v -> {
+			gatherCandidates();
+			return sdpOffer.join();
+		});
 	}
 
-	public synchronized String subscribe(String sdpString, PublisherEndpoint publisher) {
-		if (this.publisherStreamId == null) {
+	/**
+	 * Client initiated negotiation (sdpString is the offer of the client) or
+	 * second step of a server initiated negotiation (sdpString is the answer of
+	 * the client). The returned future completes with the Sdp answer of KMS in
+	 * the first case
+	 */
+	public CompletableFuture<String> subscribe(String sdpString, PublisherEndpoint publisher) {
+		final CompletableFuture<Void> listener;
+		final CompletableFuture<Void> connection;
+		final CompletableFuture<String> sdpAnswer;
+		synchronized (this) {
+			if (this.publisherStreamId != null) {
+				// Server initiated negotiation
+				return processAnswerAsync(sdpString);
+			}
 			// Client initiated negotiation
-			registerOnIceCandidateEventListener(publisher.getOwner().getParticipantPublicId());
+			listener = registerOnIceCandidateEventListenerAsync(publisher.getOwner().getParticipantPublicId());
 			this.createdAt = System.currentTimeMillis();
-			String realSdpAnswer = processOffer(sdpString);
-			gatherCandidates();
-			publisher.connect(this.getEndpoint(), false);
+			sdpAnswer = processOfferAsync(sdpString);
+			connection = publisher.connectAsync(this.getEndpoint());
 			this.publisherStreamId = publisher.getStreamId();
-			return realSdpAnswer;
-		} else {
-			// Server initiated negotiation
-			return processAnswer(sdpString);
 		}
+		// Candidates can be gathered as soon as the offer is processed
+		CompletableFuture.allOf(listener, sdpAnswer).thenRun(this::gatherCandidates);
+		return CompletableFuture.allOf(listener, connection, sdpAnswer).thenApply(v -> sdpAnswer.join());
 	}
 
 	@Override
@@ -24,4 +24,9 @@ public class DummyLoadManager implements LoadManager {
 		return 1;
 	}
 
+	@Override
+	public boolean allowMoreElements(Kms kms) {
+		return true;
+	}
+
 }
@@ -25,6 +25,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.kurento.client.KurentoClient;
@@ -72,6 +73,7 @@ public class Kms {
 	private Map<String, KurentoSession> kurentoSessions = new ConcurrentHashMap<>();
 	private Map<String, String> activeRecordings = new ConcurrentHashMap<>();
 	private AtomicLong activeComposedRecordings = new AtomicLong();
+	private AtomicInteger sessionReservations = new AtomicInteger(0);
 
 	public Kms(KmsProperties props, LoadManager loadManager, QuarantineKiller quarantineKiller) {
 		this.id = props.getId();
@@ -123,7 +125,7 @@ public class Kms {
 	}
 
 	public boolean allowMoreElements() {
-		return true; // loadManager.allowMoreElements(this);
+		return loadManager.allowMoreElements(this);
 	}
 
 	public boolean isKurentoClientConnected() {
@@ -162,6 +164,27 @@ public class Kms {
 		this.kurentoSessions.remove(sessionId);
 	}
 
+	/**
+	 * Reserves this KMS for a session that is about to be created on it. Pending
+	 * reservations are taken into account when selecting a KMS, so parallel
+	 * session creations are spread among all available KMSs
+	 */
+	public void reserveSession() {
+		this.sessionReservations.incrementAndGet();
+	}
+
+	/**
+	 * Releases a reservation made with {@link Kms#reserveSession()}, once the
+	 * session has been associated to this KMS or its creation has failed
+	 */
+	public void releaseSessionReservation() {
+		this.sessionReservations.decrementAndGet();
+	}
+
+	public int getNumberOfSessionReservations() {
+		return this.sessionReservations.get();
+	}
+
 	public synchronized Set<Entry<String, String>> getActiveRecordings() {
 		return this.activeRecordings.entrySet();
 	}
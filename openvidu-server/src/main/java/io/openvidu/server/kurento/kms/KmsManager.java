@@ -57,17 +57,29 @@ public abstract class KmsManager {
 
 	protected static final Logger log = LoggerFactory.getLogger(KmsManager.class);
 
+	/**
+	 * Held while a Media Node is selected and reserved for a new session and while
+	 * a Media Node is removed, so a node being removed is never reserved
+	 * 
+	 * @deprecated Session creation no longer holds this lock. Selection and
+	 *             reservation of a Media Node are done under it by
+	 *             {@link #reserveLessLoadedConnectedAndRunningKms()}
+	 */
+	@Deprecated
 	public static final Lock selectAndRemoveKmsLock = new ReentrantLock(true);
+
 	public static final int MAX_SECONDS_LOCK_WAIT = 15;
 
 	public class KmsLoad implements Comparable<KmsLoad> {
 
 		private Kms kms;
 		private double load;
+		private int reservations;
 
 		public KmsLoad(Kms kms, double load) {
 			this.kms = kms;
 			this.load = load;
+			this.reservations = kms.getNumberOfSessionReservations();
 		}
 
 		public Kms getKms() {
@@ -80,7 +92,12 @@ public abstract class KmsManager {
 
 		@Override
 		public int compareTo(KmsLoad o) {
-			return Double.compare(this.load, o.load);
+			int comparison = Double.compare(this.load, o.load);
+			if (comparison == 0) {
+				// Same load. Prefer the KMS with less sessions being created on it
+				comparison = Integer.compare(this.reservations, o.reservations);
+			}
+			return comparison;
 		}
 
 		public JsonObject toJson() {
@@ -113,6 +130,11 @@ public abstract class KmsManager {
 
 	final protected Map<String, Kms> kmss = new ConcurrentHashMap<>();
 
+	/**
+	 * Serializes the reservation of Media Nodes with their removal
+	 */
+	private final Lock reservationLock = selectAndRemoveKmsLock;
+
 	protected SessionManager sessionManager;
 
 	public KmsManager(SessionManager sessionManager) {
@@ -121,15 +143,27 @@ public abstract class KmsManager {
 
 	public synchronized void addKms(Kms kms) {
 		this.kmss.put(kms.getId(), kms);
+		this.loadManager.addKms(kms);
 	}
 
 	public synchronized Kms removeKms(String kmsId) {
-		return this.kmss.remove(kmsId);
+		this.reservationLock.lock();
+		try {
+			Kms kms = this.kmss.remove(kmsId);
+			if (kms != null) {
+				this.loadManager.removeKms(kms);
+			}
+			return kms;
+		} finally {
+			this.reservationLock.unlock();
+		}
 	}
 
-	public synchronized Kms getLessLoadedConnectedAndRunningKms() throws NoSuchElementException {
-		List<KmsLoad> kmsLoads = getKmsLoads().stream().filter(kmsLoad -> kmsLoad.kms.isKurentoClientConnected()
-				&& mediaNodeStatusManager.isRunning(kmsLoad.kms.getId())).collect(Collectors.toList());
+	public Kms getLessLoadedConnectedAndRunningKms() throws NoSuchElementException {
+		List<KmsLoad> kmsLoads = getKmsLoads().stream()
+				.filter(kmsLoad -> kmsLoad.kms.isKurentoClientConnected()
+						&& mediaNodeStatusManager.isRunning(kmsLoad.kms.getId()) && kmsLoad.kms.allowMoreElements())
+				.collect(Collectors.toList());
 		if (kmsLoads.isEmpty()) {
 			throw new NoSuchElementException();
 		} else {
@@ -137,6 +171,25 @@ public abstract class KmsManager {
 		}
 	}
 
+	/**
+	 * Selects the less loaded connected and running KMS and reserves it for a new
+	 * session. Selection and reservation are atomic, so concurrent callers always
+	 * see the reservations of each other and spread among equally loaded KMSs.
+	 * Only this short step is serialized, not the creation of the session. The
+	 * caller must always call {@link Kms#releaseSessionReservation()} once the
+	 * session has been associated to the KMS or its creation has failed
+	 */
+	public Kms reserveLessLoadedConnectedAndRunningKms() throws NoSuchElementException {
+		this.reservationLock.lock();
+		try {
+			Kms kms = this.getLessLoadedConnectedAndRunningKms();
+			kms.reserveSession();
+			return kms;
+		} finally {
+			this.reservationLock.unlock();
+		}
+	}
+
 	public synchronized boolean atLeastOneConnectedAndRunningKms() {
 		Optional<Kms> optional = this.kmss.values().stream()
 				.filter(kms -> kms.isKurentoClientConnected() && mediaNodeStatusManager.isRunning(kms.getId()))
@@ -21,4 +21,18 @@ public interface LoadManager {
 
 	public double calculateLoad(Kms kms);
 
+	public boolean allowMoreElements(Kms kms);
+
+	/**
+	 * Called when a Media Node is added to the {@link KmsManager}
+	 */
+	public default void addKms(Kms kms) {
+	}
+
+	/**
+	 * Called when a Media Node is removed from the {@link KmsManager}
+	 */
+	public default void removeKms(Kms kms) {
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+/*
+ * (C) Copyright 2017-2020 OpenVidu (https://openvidu.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.openvidu.server.kurento.kms;
+
+/**
+ * Measures of a Media Node taken into account by {@link WeightedLoadManager}.
+ * Each one of them may be given a weight in the load score of the Media Node
+ * and a capacity limit beyond which no more sessions are allocated to it
+ */
+public enum LoadMetric {
+
+	/**
+	 * Number of WebRTC connections (publishers and subscribers)
+	 */
+	webrtcConnections,
+
+	/**
+	 * Number of active COMPOSED recordings
+	 */
+	composedRecordings,
+
+	/**
+	 * CPU usage in percentage (0-100)
+	 */
+	cpu,
+
+	/**
+	 * Used memory in GiB
+	 */
+	memory
+
+}
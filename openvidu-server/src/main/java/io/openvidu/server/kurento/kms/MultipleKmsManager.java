@@ -0,0 +1,211 @@
+/*
+ * (C) Copyright 2017-2020 OpenVidu (https://openvidu.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.openvidu.server.kurento.kms;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+
+import org.kurento.client.KurentoClient;
+import org.kurento.jsonrpc.client.JsonRpcClientNettyWebSocket;
+import org.kurento.jsonrpc.client.JsonRpcWSConnectionListener;
+
+import io.openvidu.java.client.RecordingProperties;
+import io.openvidu.server.core.Session;
+import io.openvidu.server.core.SessionManager;
+import io.openvidu.server.kurento.core.KurentoSession;
+import io.openvidu.server.utils.SharedScheduler;
+
+/**
+ * KmsManager for a fixed set of Media Nodes: one for each URI configured in
+ * KMS_URIS. All of them are connected in parallel at startup and sessions are
+ * spread among them according to their load. A crashed Media Node is connected
+ * again with the same id as soon as its URI is reachable
+ */
+public class MultipleKmsManager extends KmsManager {
+
+	private static final long RECONNECTION_INTERVAL = 5000; // milliseconds
+
+	public MultipleKmsManager(SessionManager sessionManager) {
+		super(sessionManager);
+	}
+
+	@Override
+	public List<Kms> initializeKurentoClients(List<KmsProperties> kmsProperties, boolean disconnectUponFailure)
+			throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, kmsProperties.size()));
+		List<Kms> successfullyConnectedKmss = new ArrayList<>();
+		List<KmsProperties> failedKmss = new ArrayList<>();
+		try {
+			List<CompletableFuture<Kms>> futures = kmsProperties.stream()
+					.map(props -> CompletableFuture.supplyAsync(() -> this.connectKms(props), executor))
+					.collect(Collectors.toList());
+			for (int i = 0; i < futures.size(); i++) {
+				Kms kms = futures.get(i).join();
+				if (kms != null) {
+					successfullyConnectedKmss.add(kms);
+				} else {
+					failedKmss.add(kmsProperties.get(i));
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		if (!failedKmss.isEmpty() && disconnectUponFailure) {
+			successfullyConnectedKmss.forEach(kms -> {
+				this.removeKms(kms.getId());
+				kms.getKurentoClient().destroy();
+			});
+			throw new Exception("KMSs " + failedKmss.stream().map(KmsProperties::getUri).collect(Collectors.toList())
+					+ " are not reachable by OpenVidu Server");
+		}
+		return successfullyConnectedKmss;
+	}
+
+	/**
+	 * @return the connected Kms, or null if it was not reachable
+	 */
+	private Kms connectKms(KmsProperties props) {
+		KurentoClient kClient = null;
+		Kms kms = new Kms(props, loadManager, quarantineKiller);
+		try {
+			JsonRpcWSConnectionListener listener = this.generateKurentoConnectionListener(kms.getId());
+			// Listener may be fired as soon as the client is created
+			this.addKms(kms);
+			kClient = this.createKurentoClient(props, listener);
+			kms.setKurentoClient(kClient);
+
+			// TODO: This should be done in KurentoClient connected event
+			kms.setKurentoClientConnected(true);
+			kms.setTimeOfKurentoClientConnection(System.currentTimeMillis());
+			log.info("KMS in {} connected with id {}", props.getUri(), kms.getId());
+			return kms;
+		} catch (Exception e) {
+			log.error("KMS in {} is not reachable by OpenVidu Server: {}", props.getUri(), e.getMessage());
+			this.removeKms(kms.getId());
+			if (kClient != null) {
+				kClient.destroy();
+			}
+			return null;
+		}
+	}
+
+	protected KurentoClient createKurentoClient(KmsProperties props, JsonRpcWSConnectionListener listener) {
+		JsonRpcClientNettyWebSocket client = new JsonRpcClientNettyWebSocket(props.getUri(), listener);
+		client.setTryReconnectingMaxTime(0);
+		client.setTryReconnectingForever(false);
+		return KurentoClient.createFromJsonRpcClient(client);
+	}
+
+	@Override
+	public void incrementActiveRecordings(RecordingProperties properties, String recordingId, Session session) {
+		Kms kms = this.getKmsOfSession(session);
+		if (kms != null) {
+			kms.incrementActiveRecordings(session.getSessionId(), recordingId, properties);
+		} else {
+			log.error("There is no KMS hosting session {} when incrementing active recordings",
+					session.getSessionId());
+		}
+	}
+
+	@Override
+	public void decrementActiveRecordings(RecordingProperties properties, String recordingId, Session session) {
+		// The recording is looked up in every KMS: the session may be already closed
+		Optional<Kms> kms = this.kmss.values().stream().filter(k -> k.getActiveRecordings().stream()
+				.map(Entry::getKey).anyMatch(id -> id.equals(recordingId))).findFirst();
+		if (kms.isPresent()) {
+			kms.get().decrementActiveRecordings(recordingId, properties);
+		} else {
+			log.error("There is no KMS hosting recording {} when decrementing active recordings", recordingId);
+		}
+	}
+
+	private Kms getKmsOfSession(Session session) {
+		if (session instanceof KurentoSession && ((KurentoSession) session).getKms() != null) {
+			return ((KurentoSession) session).getKms();
+		}
+		return this.kmss.values().stream().filter(kms -> kms.getKurentoSessions().stream()
+				.anyMatch(kSession -> kSession.getSessionId().equals(session.getSessionId()))).findFirst()
+				.orElse(null);
+	}
+
+	@Override
+	protected void removeMediaNodeUponCrash(String mediaNodeId) {
+		Kms kms = this.removeKms(mediaNodeId);
+		if (kms == null) {
+			log.warn("Media Node {} was already removed", mediaNodeId);
+			return;
+		}
+		if (kms.getKurentoClientReconnectTimer() != null) {
+			kms.getKurentoClientReconnectTimer().cancelTimer();
+		}
+		if (kms.getKurentoClient() != null) {
+			kms.getKurentoClient().destroy();
+		}
+		log.info("Media Node {} with uri {} removed. {} Media Nodes remaining", mediaNodeId, kms.getUri(),
+				this.kmss.size());
+
+		// Media Nodes are configured in KMS_URIS: they must join again once restarted
+		this.scheduleReconnection(new KmsProperties(mediaNodeId, kms.getUri()));
+	}
+
+	protected long getReconnectionInterval() {
+		return RECONNECTION_INTERVAL;
+	}
+
+	private void scheduleReconnection(KmsProperties props) {
+		SharedScheduler.schedule(() -> {
+			if (this.kmsWithUriExists(props.getUri())) {
+				return;
+			}
+			if (this.connectKms(props) != null) {
+				log.info("Media Node {} with uri {} connected again after crash", props.getId(), props.getUri());
+			} else {
+				this.scheduleReconnection(props);
+			}
+		}, this.getReconnectionInterval(), TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	@PostConstruct
+	protected void postConstructInitKurentoClients() {
+		try {
+			List<KmsProperties> kmsProps = new ArrayList<>();
+			for (String kmsUri : this.openviduConfig.getKmsUris()) {
+				String kmsId = KmsManager.generateKmsId();
+				kmsProps.add(new KmsProperties(kmsId, kmsUri));
+			}
+			this.initializeKurentoClients(kmsProps, true);
+		} catch (Exception e) {
+			// Some KMS wasn't reachable
+			log.error(e.getMessage());
+			log.error("Shutting down OpenVidu Server");
+			System.exit(1);
+		}
+	}
+
+}
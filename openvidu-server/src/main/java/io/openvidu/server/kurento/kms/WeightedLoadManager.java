@@ -0,0 +1,225 @@
+/*
+ * (C) Copyright 2017-2020 OpenVidu (https://openvidu.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.openvidu.server.kurento.kms;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.kurento.client.Continuation;
+import org.kurento.client.ServerManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import io.openvidu.server.config.OpenviduConfig;
+import io.openvidu.server.utils.UpdatableTimerTask;
+
+/**
+ * LoadManager that scores each Media Node as a weighted sum of its
+ * {@link LoadMetric}s (property OPENVIDU_MEDIA_NODE_LOAD_WEIGHTS) and refuses
+ * new sessions in Media Nodes that have reached any of their capacity limits
+ * (property OPENVIDU_MEDIA_NODE_CAPACITY).
+ * 
+ * Local metrics (WebRTC connections and COMPOSED recordings) are read live
+ * every time a Media Node is scored, so a burst of new sessions sees the
+ * sessions created just before. CPU and memory are requested asynchronously to
+ * KMS every OPENVIDU_MEDIA_NODE_LOAD_SAMPLING_INTERVAL seconds, so neither the
+ * sampling timer nor the selection of a Media Node ever wait for a remote
+ * operation. Media Nodes are sampled since they are added to the
+ * {@link KmsManager} until they are removed from it
+ */
+public class WeightedLoadManager implements LoadManager {
+
+	private static final Logger log = LoggerFactory.getLogger(WeightedLoadManager.class);
+
+	/**
+	 * Milliseconds over which KMS averages its CPU usage when sampled
+	 */
+	private static final int CPU_SAMPLING_INTERVAL = 1000;
+
+	private static final double KIB_PER_GIB = 1024 * 1024;
+
+	/**
+	 * Last values of the remote metrics of a Media Node
+	 */
+	private static class RemoteSample {
+
+		private final Kms kms;
+		private volatile double cpu;
+		private volatile double memory;
+
+		private RemoteSample(Kms kms) {
+			this.kms = kms;
+		}
+	}
+
+	@Autowired
+	protected OpenviduConfig openviduConfig;
+
+	private Map<LoadMetric, Double> weights;
+
+	private Map<LoadMetric, Double> capacity;
+
+	private final Map<String, RemoteSample> samples = new ConcurrentHashMap<>();
+
+	private UpdatableTimerTask samplingTimer;
+
+	@Override
+	public double calculateLoad(Kms kms) {
+		RemoteSample sample = this.getSample(kms);
+		double score = 0;
+		for (Entry<LoadMetric, Double> weight : weights.entrySet()) {
+			score += weight.getValue() * this.get(weight.getKey(), kms, sample);
+		}
+		return score;
+	}
+
+	@Override
+	public boolean allowMoreElements(Kms kms) {
+		RemoteSample sample = this.getSample(kms);
+		for (Entry<LoadMetric, Double> limit : capacity.entrySet()) {
+			if (limit.getValue() > 0) {
+				double value = this.get(limit.getKey(), kms, sample);
+				if (value >= limit.getValue()) {
+					log.debug("Media Node {} has reached its capacity limit for {} ({} >= {})", kms.getId(),
+							limit.getKey(), value, limit.getValue());
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public void addKms(Kms kms) {
+		RemoteSample sample = new RemoteSample(kms);
+		this.samples.put(kms.getId(), sample);
+		if (this.samplingTimer != null && kms.isKurentoClientConnected()) {
+			// Do not wait for the next round of the timer
+			this.sampleRemoteMetrics(sample);
+		}
+	}
+
+	@Override
+	public void removeKms(Kms kms) {
+		this.samples.remove(kms.getId());
+	}
+
+	@PostConstruct
+	protected void startSampling() {
+		this.weights = openviduConfig.getMediaNodeLoadWeights();
+		this.capacity = openviduConfig.getMediaNodeCapacity();
+
+		if (!this.usesRemoteMetrics()) {
+			log.info("Media Node load calculated with weights {} and capacity {}. No remote metric to sample",
+					weights, capacity);
+			return;
+		}
+
+		final int interval = openviduConfig.getMediaNodeLoadSamplingInterval();
+		this.samplingTimer = new UpdatableTimerTask(() -> {
+			for (RemoteSample sample : this.samples.values()) {
+				if (sample.kms.isKurentoClientConnected()) {
+					this.sampleRemoteMetrics(sample);
+				}
+			}
+		}, () -> Long.valueOf(interval * 1000));
+		this.samplingTimer.updateTimer();
+
+		log.info(
+				"Media Node load sampling initialized. Running every {} seconds with weights {} and capacity {}",
+				interval, weights, capacity);
+	}
+
+	@PreDestroy
+	protected void stopSampling() {
+		if (this.samplingTimer != null) {
+			this.samplingTimer.cancelTimer();
+		}
+	}
+
+	private double get(LoadMetric metric, Kms kms, RemoteSample sample) {
+		switch (metric) {
+		case webrtcConnections:
+			return kms.getNumberOfWebrtcConnections();
+		case composedRecordings:
+			return kms.getNumberOfComposedRecordings();
+		case cpu:
+			return sample.cpu;
+		case memory:
+			return sample.memory;
+		default:
+			return 0;
+		}
+	}
+
+	private RemoteSample getSample(Kms kms) {
+		RemoteSample sample = this.samples.get(kms.getId());
+		// Media Node not added to the KmsManager: only local metrics are available
+		return sample != null ? sample : new RemoteSample(kms);
+	}
+
+	private boolean usesRemoteMetrics() {
+		return weights.containsKey(LoadMetric.cpu) || capacity.containsKey(LoadMetric.cpu)
+				|| weights.containsKey(LoadMetric.memory) || capacity.containsKey(LoadMetric.memory);
+	}
+
+	private void sampleRemoteMetrics(RemoteSample sample) {
+		final Kms kms = sample.kms;
+		final ServerManager serverManager;
+		try {
+			serverManager = kms.getKurentoClient().getServerManager();
+		} catch (Exception e) {
+			log.warn("Cannot sample CPU and memory of Media Node {}: {}", kms.getId(), e.getMessage());
+			return;
+		}
+		if (weights.containsKey(LoadMetric.cpu) || capacity.containsKey(LoadMetric.cpu)) {
+			serverManager.getUsedCpu(CPU_SAMPLING_INTERVAL, new Continuation<Float>() {
+				@Override
+				public void onSuccess(Float result) throws Exception {
+					sample.cpu = result;
+					log.trace("Media Node {} CPU sample: {}%", kms.getId(), result);
+				}
+
+				@Override
+				public void onError(Throwable cause) throws Exception {
+					log.warn("Error sampling CPU of Media Node {}: {}", kms.getId(), cause.getMessage());
+				}
+			});
+		}
+		if (weights.containsKey(LoadMetric.memory) || capacity.containsKey(LoadMetric.memory)) {
+			serverManager.getUsedMemory(new Continuation<Long>() {
+				@Override
+				public void onSuccess(Long result) throws Exception {
+					sample.memory = result / KIB_PER_GIB;
+					log.trace("Media Node {} memory sample: {} GiB", kms.getId(), sample.memory);
+				}
+
+				@Override
+				public void onError(Throwable cause) throws Exception {
+					log.warn("Error sampling memory of Media Node {}: {}", kms.getId(), cause.getMessage());
+				}
+			});
+		}
+	}
+
+}
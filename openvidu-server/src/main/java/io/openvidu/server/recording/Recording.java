@@ -49,6 +49,21 @@ public class Recording {
 		this.recordingProperties = recordingProperties;
 	}
 
+	/**
+	 * Copy of the current state of the recording
+	 */
+	public Recording(Recording recording) {
+		this.status = recording.status;
+		this.id = recording.id;
+		this.sessionId = recording.sessionId;
+		this.uniqueSessionId = recording.uniqueSessionId;
+		this.createdAt = recording.createdAt;
+		this.size = recording.size;
+		this.duration = recording.duration;
+		this.url = recording.url;
+		this.recordingProperties = recording.recordingProperties;
+	}
+
 	public Recording(JsonObject json) {
 		this.id = json.get("id").getAsString();
 		this.sessionId = json.get("sessionId").getAsString();
@@ -0,0 +1,412 @@
+/*
+ * (C) Copyright 2017-2020 OpenVidu (https://openvidu.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.openvidu.server.recording.service;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.JsonObject;
+
+import io.openvidu.server.utils.JsonUtils;
+
+/**
+ * In-memory index of the recording entity files (".recording.RECORDING_ID")
+ * stored in the local recording path. It is loaded once at startup, updated by
+ * the recording services every time they write an entity file and reconciled
+ * with the file system through a {@link WatchService}, so no directory scan is
+ * needed to retrieve recordings or to allocate a new recording identifier.
+ *
+ * Entity files are indexed as the raw {@link JsonObject} stored in disk. Stored
+ * objects must not be modified.
+ */
+public class RecordingCatalogue {
+
+	private static final Logger log = LoggerFactory.getLogger(RecordingCatalogue.class);
+
+	private static final long CLOSE_TIMEOUT = 5000;
+
+	private final Path recordingPath;
+	private final JsonUtils jsonUtils = new JsonUtils();
+
+	// recordingId -> entity file content
+	private final Map<String, JsonObject> recordings = new ConcurrentHashMap<>();
+	// sessionId -> recordingIds
+	private final Map<String, Set<String>> recordingsBySession = new ConcurrentHashMap<>();
+	// recordingId -> sessionId
+	private final Map<String, String> sessionOfRecording = new ConcurrentHashMap<>();
+	// base recording id -> lowest number tag that may be free
+	private final Map<String, Integer> freeIdHints = new ConcurrentHashMap<>();
+
+	// Recordings added or removed while a reload lists the recording path. Their
+	// state in memory is newer than the one found in disk. Guarded by reloadLock
+	private Set<String> changedDuringReload;
+	private final ReadWriteLock reloadLock = new ReentrantReadWriteLock();
+
+	private WatchService watchService;
+	private Thread watcher;
+	private final Map<WatchKey, Path> pendingFolders = new ConcurrentHashMap<>();
+
+	public RecordingCatalogue(String recordingPath) {
+		this.recordingPath = Paths.get(recordingPath);
+	}
+
+	/**
+	 * Loads every entity file of the recording path in parallel and starts
+	 * watching it for folders created or deleted by external processes
+	 */
+	public void init() {
+		long start = System.currentTimeMillis();
+		this.reload();
+		log.info("Recording catalogue loaded with {} recordings from {} in {} ms", this.recordings.size(),
+				this.recordingPath, System.currentTimeMillis() - start);
+		try {
+			this.watchService = this.recordingPath.getFileSystem().newWatchService();
+			this.recordingPath.register(this.watchService, ENTRY_CREATE, ENTRY_DELETE);
+			this.watcher = new Thread(this::watch, "recording-catalogue-watcher");
+			this.watcher.setDaemon(true);
+			this.watcher.start();
+		} catch (IOException e) {
+			log.error("Cannot watch recording path {}. Recordings added externally won't be indexed: {}",
+					this.recordingPath, e.getMessage());
+		}
+	}
+
+	/**
+	 * Closes the watch service and waits for the watcher thread to finish
+	 */
+	public void close() {
+		if (this.watchService != null) {
+			try {
+				this.watchService.close();
+			} catch (IOException e) {
+				log.warn("Error closing recording catalogue watch service: {}", e.getMessage());
+			}
+		}
+		if (this.watcher != null) {
+			this.watcher.interrupt();
+			try {
+				this.watcher.join(CLOSE_TIMEOUT);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	public JsonObject getRecording(String recordingId) {
+		JsonObject json = this.recordings.get(recordingId);
+		if (json == null) {
+			// The entity file may have been written by an external process that has not
+			// been notified yet by the watch service
+			json = this.readEntityFile(this.recordingPath.resolve(recordingId));
+			if (json != null) {
+				this.addRecording(json);
+			}
+		}
+		return json;
+	}
+
+	public Collection<JsonObject> getAllRecordings() {
+		return Collections.unmodifiableCollection(this.recordings.values());
+	}
+
+	public Collection<JsonObject> getRecordingsOfSession(String sessionId) {
+		Set<String> recordingIds = this.recordingsBySession.get(sessionId);
+		if (recordingIds == null) {
+			return Collections.emptyList();
+		}
+		return recordingIds.stream().map(this.recordings::get).filter(json -> json != null)
+				.collect(Collectors.toList());
+	}
+
+	public Set<String> getAllRecordingIds() {
+		return Collections.unmodifiableSet(this.recordings.keySet());
+	}
+
+	public boolean containsRecording(String recordingId) {
+		return this.recordings.containsKey(recordingId);
+	}
+
+	/**
+	 * Returns the first available recording identifier for a session: sessionId,
+	 * sessionId-1, sessionId-2... Every base identifier remembers the lowest number
+	 * tag that may be free, so consecutive recordings of the same session do not
+	 * check all of their previous identifiers
+	 */
+	public String getFreeRecordingId(String sessionId) {
+		synchronized (this.freeIdHints) {
+			int i = this.freeIdHints.getOrDefault(sessionId, 0);
+			String recordingId = getRecordingId(sessionId, i);
+			while (this.recordings.containsKey(recordingId)) {
+				i++;
+				recordingId = getRecordingId(sessionId, i);
+			}
+			this.freeIdHints.put(sessionId, i);
+			return recordingId;
+		}
+	}
+
+	public void addRecording(JsonObject json) {
+		String recordingId = json.get("id").getAsString();
+		String sessionId = json.get("sessionId").getAsString();
+		this.reloadLock.readLock().lock();
+		try {
+			this.markChanged(recordingId);
+			this.putRecording(recordingId, sessionId, json);
+		} finally {
+			this.reloadLock.readLock().unlock();
+		}
+	}
+
+	public void removeRecording(String recordingId) {
+		this.reloadLock.readLock().lock();
+		try {
+			this.markChanged(recordingId);
+			this.deleteRecording(recordingId);
+		} finally {
+			this.reloadLock.readLock().unlock();
+		}
+	}
+
+	private void putRecording(String recordingId, String sessionId, JsonObject json) {
+		this.recordings.put(recordingId, json);
+		String previousSessionId = this.sessionOfRecording.put(recordingId, sessionId);
+		if (previousSessionId != null && !previousSessionId.equals(sessionId)) {
+			this.removeFromSession(previousSessionId, recordingId);
+		}
+		this.recordingsBySession.compute(sessionId, (s, recordingIds) -> {
+			if (recordingIds == null) {
+				recordingIds = ConcurrentHashMap.newKeySet();
+			}
+			recordingIds.add(recordingId);
+			return recordingIds;
+		});
+	}
+
+	private void deleteRecording(String recordingId) {
+		if (this.recordings.remove(recordingId) == null) {
+			return;
+		}
+		String sessionId = this.sessionOfRecording.remove(recordingId);
+		if (sessionId != null) {
+			this.removeFromSession(sessionId, recordingId);
+		}
+		synchronized (this.freeIdHints) {
+			// The identifier may be reused either as a base identifier or as a tagged one
+			this.freeIdHints.remove(recordingId);
+			int separator = recordingId.lastIndexOf('-');
+			if (separator > 0) {
+				try {
+					int tag = Integer.parseInt(recordingId.substring(separator + 1));
+					this.freeIdHints.computeIfPresent(recordingId.substring(0, separator),
+							(base, hint) -> Math.min(hint, tag));
+				} catch (NumberFormatException e) {
+					// Not a tagged identifier
+				}
+			}
+		}
+	}
+
+	/**
+	 * Scans the whole recording path and replaces the content of the catalogue
+	 * with the entity files found in it. Recordings added or removed while the
+	 * scan takes place keep their state in memory, as the listing may be older
+	 */
+	public synchronized void reload() {
+		this.reloadLock.writeLock().lock();
+		try {
+			this.changedDuringReload = ConcurrentHashMap.newKeySet();
+		} finally {
+			this.reloadLock.writeLock().unlock();
+		}
+
+		Map<String, JsonObject> found;
+		try {
+			found = this.scanRecordingPath();
+		} catch (IOException e) {
+			log.error("Error listing recording path {}: {}", this.recordingPath, e.getMessage());
+			found = null;
+		}
+
+		this.reloadLock.writeLock().lock();
+		try {
+			Set<String> changed = this.changedDuringReload;
+			this.changedDuringReload = null;
+			if (found == null) {
+				return;
+			}
+			Set<String> removed = new HashSet<>(this.recordings.keySet());
+			removed.removeAll(found.keySet());
+			removed.removeAll(changed);
+			removed.forEach(this::deleteRecording);
+			found.forEach((recordingId, json) -> {
+				if (!changed.contains(recordingId)) {
+					this.putRecording(recordingId, json.get("sessionId").getAsString(), json);
+				}
+			});
+		} finally {
+			this.reloadLock.writeLock().unlock();
+		}
+	}
+
+	private Map<String, JsonObject> scanRecordingPath() throws IOException {
+		List<Path> folders = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.recordingPath, Files::isDirectory)) {
+			stream.forEach(folders::add);
+		}
+
+		Map<String, JsonObject> found = new HashMap<>();
+		int parallelism = Math.min(Math.max(1, folders.size()), Runtime.getRuntime().availableProcessors() * 2);
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+		try {
+			List<CompletableFuture<List<JsonObject>>> futures = new ArrayList<>();
+			int chunkSize = (folders.size() + parallelism - 1) / parallelism;
+			for (int i = 0; i < folders.size(); i += chunkSize) {
+				List<Path> chunk = folders.subList(i, Math.min(i + chunkSize, folders.size()));
+				futures.add(CompletableFuture.supplyAsync(() -> chunk.stream().map(this::readEntityFile)
+						.filter(json -> json != null).collect(Collectors.toList()), executor));
+			}
+			futures.forEach(future -> future.join().forEach(json -> found.put(json.get("id").getAsString(), json)));
+		} finally {
+			executor.shutdown();
+		}
+		return found;
+	}
+
+	private void watch() {
+		while (true) {
+			WatchKey key;
+			try {
+				key = this.watchService.take();
+			} catch (InterruptedException | ClosedWatchServiceException e) {
+				return;
+			}
+			Path folder = this.pendingFolders.get(key);
+			for (WatchEvent<?> event : key.pollEvents()) {
+				try {
+					if (OVERFLOW.equals(event.kind())) {
+						log.warn("Recording catalogue watch service overflowed. Reloading recording path {}",
+								this.recordingPath);
+						this.reload();
+					} else if (folder == null) {
+						this.onRecordingFolderEvent(event.kind(), this.recordingPath.resolve((Path) event.context()));
+					} else if (this.readAndAddEntityFile(folder)) {
+						// Entity file of a new folder is available. Stop watching the folder
+						this.pendingFolders.remove(key);
+						key.cancel();
+					}
+				} catch (Exception e) {
+					log.error("Error processing recording path event {}: {}", event.context(), e.getMessage());
+				}
+			}
+			if (!key.reset()) {
+				this.pendingFolders.remove(key);
+				if (folder == null) {
+					log.error("Recording path {} is no longer accessible. Stopping recording catalogue watcher",
+							this.recordingPath);
+					return;
+				}
+			}
+		}
+	}
+
+	private void onRecordingFolderEvent(WatchEvent.Kind<?> kind, Path folder) throws IOException {
+		if (ENTRY_DELETE.equals(kind)) {
+			this.removeRecording(folder.getFileName().toString());
+		} else if (ENTRY_CREATE.equals(kind) && Files.isDirectory(folder)) {
+			// Entity file may not be written yet. Watch the folder until it is
+			WatchKey folderKey = folder.register(this.watchService, ENTRY_CREATE, ENTRY_MODIFY);
+			this.pendingFolders.put(folderKey, folder);
+			if (this.readAndAddEntityFile(folder)) {
+				this.pendingFolders.remove(folderKey);
+				folderKey.cancel();
+			}
+		}
+	}
+
+	private boolean readAndAddEntityFile(Path folder) {
+		JsonObject json = this.readEntityFile(folder);
+		if (json != null) {
+			this.addRecording(json);
+			return true;
+		}
+		return false;
+	}
+
+	private JsonObject readEntityFile(Path folder) {
+		String folderName = folder.getFileName().toString();
+		Path entityFile = folder.resolve(RecordingService.RECORDING_ENTITY_FILE + folderName);
+		if (!Files.isRegularFile(entityFile)) {
+			return null;
+		}
+		try {
+			return this.jsonUtils.fromFileToJsonObject(entityFile.toString());
+		} catch (Exception e) {
+			// Entity file may be being written at this moment
+			log.debug("Error reading recording entity file {}: {}", entityFile, e.getMessage());
+			return null;
+		}
+	}
+
+	private void markChanged(String recordingId) {
+		if (this.changedDuringReload != null) {
+			this.changedDuringReload.add(recordingId);
+		}
+	}
+
+	private void removeFromSession(String sessionId, String recordingId) {
+		this.recordingsBySession.computeIfPresent(sessionId, (s, recordingIds) -> {
+			recordingIds.remove(recordingId);
+			return recordingIds.isEmpty() ? null : recordingIds;
+		});
+	}
+
+	private static String getRecordingId(String sessionId, int tag) {
+		return tag == 0 ? sessionId : sessionId + "-" + tag;
+	}
+
+}
@@ -24,21 +24,19 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import org.apache.commons.io.FileUtils;
 import org.kurento.client.ErrorEvent;
@@ -82,6 +80,7 @@ import io.openvidu.server.utils.LocalCustomFileManager;
 import io.openvidu.server.utils.LocalDockerManager;
 import io.openvidu.server.utils.RecordingUtils;
 import io.openvidu.server.utils.RemoteOperationUtils;
+import io.openvidu.server.utils.SharedScheduler;
 
 public class RecordingManager {
 
@@ -92,6 +91,7 @@ public class RecordingManager {
 	private SingleStreamRecordingService singleStreamRecordingService;
 	private DockerManager dockerManager;
 	private CustomFileManager fileManager;
+	private RecordingCatalogue recordingCatalogue;
 
 	@Autowired
 	protected SessionEventsHandler sessionHandler;
@@ -125,9 +125,6 @@ public class RecordingManager {
 
 	private JsonUtils jsonUtils = new JsonUtils();
 
-	private ScheduledExecutorService automaticRecordingStopExecutor = Executors
-			.newScheduledThreadPool(Runtime.getRuntime().availableProcessors());
-
 	public static final String IMAGE_NAME = "openvidu/openvidu-recording";
 
 	private static final List<EndReason> LAST_PARTICIPANT_LEFT_REASONS = Arrays
@@ -166,6 +163,16 @@ public class RecordingManager {
 		}
 	}
 
+	@PreDestroy
+	public void close() {
+		if (this.singleStreamRecordingService != null) {
+			this.singleStreamRecordingService.close();
+		}
+		if (this.recordingCatalogue != null) {
+			this.recordingCatalogue.close();
+		}
+	}
+
 	public void initializeRecordingManager() throws OpenViduException {
 
 		this.dockerManager.init();
@@ -180,6 +187,9 @@ public class RecordingManager {
 		this.checkRecordingRequirements(this.openviduConfig.getOpenViduRecordingPath(),
 				this.openviduConfig.getOpenviduRecordingCustomLayout());
 
+		this.recordingCatalogue = new RecordingCatalogue(this.openviduConfig.getOpenViduRecordingPath());
+		this.recordingCatalogue.init();
+
 		LocalDockerManager dockMng = new LocalDockerManager(true);
 
 		if (!openviduConfig.isRecordingComposedExternal()) {
@@ -514,6 +524,10 @@ public class RecordingManager {
 		return recordingManagerUtils.getAllRecordingsFromStorage();
 	}
 
+	public Collection<Recording> getAllRecordingsOfSession(String sessionId) {
+		return recordingManagerUtils.getAllRecordingsOfSessionFromStorage(sessionId);
+	}
+
 	public String getFreeRecordingId(String sessionId) {
 		log.info("Getting free recording id for session {}", sessionId);
 		String recordingId = recordingManagerUtils.getFreeRecordingId(sessionId);
@@ -544,43 +558,29 @@ public class RecordingManager {
 		return recordingManagerUtils.deleteRecordingFromStorage(recordingId);
 	}
 
+	public RecordingCatalogue getRecordingCatalogue() {
+		return this.recordingCatalogue;
+	}
+
 	public Set<String> getAllRecordingIdsFromLocalStorage() {
-		File folder = new File(openviduConfig.getOpenViduRecordingPath());
-		File[] files = folder.listFiles();
-
-		Set<String> fileNamesNoExtension = new HashSet<>();
-		for (int i = 0; i < files.length; i++) {
-			if (files[i].isDirectory()) {
-				File[] innerFiles = files[i].listFiles();
-				for (int j = 0; j < innerFiles.length; j++) {
-					if (innerFiles[j].isFile()
-							&& innerFiles[j].getName().startsWith(RecordingService.RECORDING_ENTITY_FILE)) {
-						fileNamesNoExtension
-								.add(innerFiles[j].getName().replaceFirst(RecordingService.RECORDING_ENTITY_FILE, ""));
-						break;
-					}
-				}
-			}
-		}
-		return fileNamesNoExtension;
+		return this.recordingCatalogue.getAllRecordingIds();
 	}
 
 	public HttpStatus deleteRecordingFromLocalStorage(String recordingId) {
-		File folder = new File(openviduConfig.getOpenViduRecordingPath());
-		File[] files = folder.listFiles();
-		for (int i = 0; i < files.length; i++) {
-			if (files[i].isDirectory() && files[i].getName().equals(recordingId)) {
-				// Correct folder. Delete it
-				try {
-					FileUtils.deleteDirectory(files[i]);
-					return HttpStatus.NO_CONTENT;
-				} catch (IOException e) {
-					log.error("Couldn't delete folder {}", files[i].getAbsolutePath());
-					return HttpStatus.INTERNAL_SERVER_ERROR;
-				}
-			}
+		File folder = new File(openviduConfig.getOpenViduRecordingPath() + recordingId);
+		if (!folder.isDirectory()) {
+			this.recordingCatalogue.removeRecording(recordingId);
+			return HttpStatus.NOT_FOUND;
+		}
+		// Correct folder. Delete it
+		try {
+			FileUtils.deleteDirectory(folder);
+			this.recordingCatalogue.removeRecording(recordingId);
+			return HttpStatus.NO_CONTENT;
+		} catch (IOException e) {
+			log.error("Couldn't delete folder {}", folder.getAbsolutePath());
+			return HttpStatus.INTERNAL_SERVER_ERROR;
 		}
-		return HttpStatus.NOT_FOUND;
 	}
 
 	public File getRecordingEntityFileFromLocalStorage(String recordingId) {
@@ -589,22 +589,19 @@ public class RecordingManager {
 		return new File(metadataFilePath);
 	}
 
+	public Recording getRecordingFromLocalStorage(String recordingId) {
+		JsonObject json = this.recordingCatalogue.getRecording(recordingId);
+		return json != null ? getRecordingFromJson(json) : null;
+	}
+
 	public Set<Recording> getAllRecordingsFromLocalStorage() {
-		File folder = new File(openviduConfig.getOpenViduRecordingPath());
-		File[] files = folder.listFiles();
-		Set<Recording> recordingEntities = new HashSet<>();
-		for (int i = 0; i < files.length; i++) {
-			if (files[i].isDirectory()) {
-				File[] innerFiles = files[i].listFiles();
-				for (int j = 0; j < innerFiles.length; j++) {
-					Recording recording = getRecordingFromEntityFile(innerFiles[j]);
-					if (recording != null) {
-						recordingEntities.add(recording);
-					}
-				}
-			}
-		}
-		return recordingEntities;
+		return this.recordingCatalogue.getAllRecordings().stream().map(this::getRecordingFromJson)
+				.collect(Collectors.toSet());
+	}
+
+	public Set<Recording> getAllRecordingsOfSessionFromLocalStorage(String sessionId) {
+		return this.recordingCatalogue.getRecordingsOfSession(sessionId).stream().map(this::getRecordingFromJson)
+				.collect(Collectors.toSet());
 	}
 
 	public Recording getRecordingFromEntityFile(File file) {
@@ -643,7 +640,7 @@ public class RecordingManager {
 
 		this.automaticRecordingStopThreads.computeIfAbsent(session.getSessionId(), f -> {
 
-			ScheduledFuture<?> future = this.automaticRecordingStopExecutor.schedule(() -> {
+			ScheduledFuture<?> future = SharedScheduler.schedule(() -> {
 				log.info("Stopping recording {} after {} seconds wait (no publisher published before timeout)",
 						recordingId, this.openviduConfig.getOpenviduRecordingAutostopTimeout());
 
@@ -1,6 +1,7 @@
 package io.openvidu.server.recording.service;
 
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.springframework.http.HttpStatus;
 
@@ -25,6 +26,11 @@ public abstract class RecordingManagerUtils {
 
 	public abstract Set<Recording> getAllRecordingsFromStorage();
 
+	public Set<Recording> getAllRecordingsOfSessionFromStorage(String sessionId) {
+		return getAllRecordingsFromStorage().stream().filter(recording -> sessionId.equals(recording.getSessionId()))
+				.collect(Collectors.toSet());
+	}
+
 	public abstract HttpStatus deleteRecordingFromStorage(String recordingId);
 
 	protected abstract String getRecordingUrl(Recording recording);
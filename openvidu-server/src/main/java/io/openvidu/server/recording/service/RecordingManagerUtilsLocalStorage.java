@@ -1,7 +1,5 @@
 package io.openvidu.server.recording.service;
 
-import java.io.File;
-import java.util.HashSet;
 import java.util.Set;
 
 import org.springframework.http.HttpStatus;
@@ -18,8 +16,7 @@ public class RecordingManagerUtilsLocalStorage extends RecordingManagerUtils {
 
 	@Override
 	public Recording getRecordingFromStorage(String recordingId) {
-		File file = recordingManager.getRecordingEntityFileFromLocalStorage(recordingId);
-		return recordingManager.getRecordingFromEntityFile(file);
+		return recordingManager.getRecordingFromLocalStorage(recordingId);
 	}
 
 	@Override
@@ -27,6 +24,11 @@ public class RecordingManagerUtilsLocalStorage extends RecordingManagerUtils {
 		return recordingManager.getAllRecordingsFromLocalStorage();
 	}
 
+	@Override
+	public Set<Recording> getAllRecordingsOfSessionFromStorage(String sessionId) {
+		return recordingManager.getAllRecordingsOfSessionFromLocalStorage(sessionId);
+	}
+
 	@Override
 	public HttpStatus deleteRecordingFromStorage(String recordingId) {
 		return recordingManager.deleteRecordingFromLocalStorage(recordingId);
@@ -40,25 +42,13 @@ public class RecordingManagerUtilsLocalStorage extends RecordingManagerUtils {
 	}
 
 	@Override
-	protected Set<String> getAllRecordingIdsFromStorage(String sessionIdPrefix) {
-		File folder = new File(openviduConfig.getOpenViduRecordingPath());
-		File[] files = folder.listFiles();
+	public String getFreeRecordingId(String sessionId) {
+		return recordingManager.getRecordingCatalogue().getFreeRecordingId(sessionId);
+	}
 
-		Set<String> fileNamesNoExtension = new HashSet<>();
-		for (int i = 0; i < files.length; i++) {
-			if (files[i].isDirectory()) {
-				File[] innerFiles = files[i].listFiles();
-				for (int j = 0; j < innerFiles.length; j++) {
-					if (innerFiles[j].isFile()
-							&& innerFiles[j].getName().startsWith(RecordingService.RECORDING_ENTITY_FILE)) {
-						fileNamesNoExtension
-								.add(innerFiles[j].getName().replaceFirst(RecordingService.RECORDING_ENTITY_FILE, ""));
-						break;
-					}
-				}
-			}
-		}
-		return fileNamesNoExtension;
+	@Override
+	protected Set<String> getAllRecordingIdsFromStorage(String sessionIdPrefix) {
+		return recordingManager.getAllRecordingIdsFromLocalStorage();
 	}
 
 }
@@ -22,6 +22,8 @@ import java.io.IOException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.gson.JsonObject;
+
 import io.openvidu.client.OpenViduException;
 import io.openvidu.client.OpenViduException.Code;
 import io.openvidu.java.client.Recording.OutputMode;
@@ -93,6 +95,7 @@ public abstract class RecordingService {
 				+ RecordingService.RECORDING_ENTITY_FILE + recording.getId();
 		String text = recording.toJson(true).toString();
 		this.fileManager.createAndWriteFile(filePath, text);
+		this.recordingManager.getRecordingCatalogue().addRecording(recording.toJson(true));
 		log.info("Generated recording metadata file at {}", filePath);
 	}
 
@@ -140,7 +143,9 @@ public abstract class RecordingService {
 		recording.setSize(size); // Size in bytes
 		recording.setDuration(duration > 0 ? duration : 0); // Duration in seconds
 
-		if (this.fileManager.overwriteFile(metadataFilePath, recording.toJson(true).toString())) {
+		JsonObject json = recording.toJson(true);
+		if (this.fileManager.overwriteFile(metadataFilePath, json.toString())) {
+			this.recordingManager.getRecordingCatalogue().addRecording(json);
 			log.info("Sealed recording metadata file at {} with status [{}]", metadataFilePath, status.name());
 		}
 
@@ -17,23 +17,28 @@
 
 package io.openvidu.server.recording.service;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.io.FilenameUtils;
 import org.kurento.client.ErrorEvent;
@@ -69,11 +74,29 @@ import io.openvidu.server.recording.RecordingDownloader;
 import io.openvidu.server.recording.RecordingUploader;
 import io.openvidu.server.utils.CustomFileManager;
 import io.openvidu.server.utils.RemoteOperationUtils;
+import io.openvidu.server.utils.ZipUtils;
 
 public class SingleStreamRecordingService extends RecordingService {
 
 	private static final Logger log = LoggerFactory.getLogger(SingleStreamRecordingService.class);
 
+	public static final Set<String> ZIP_STORED_EXTENSIONS = Collections
+			.singleton(RecordingService.INDIVIDUAL_RECORDING_EXTENSION.substring(1));
+
+	private static final long PACKAGING_THREAD_KEEP_ALIVE = 60; // seconds
+	private static final long CLOSE_TIMEOUT = 5000; // milliseconds
+	private static final long STREAMED_FOLDER_WAIT_TIMEOUT = 30000; // milliseconds
+
+	// Recording folder -> number of ZIP files being streamed on the fly from its
+	// files. Guarded by itself
+	private static final Map<String, Integer> streamedFolders = new HashMap<>();
+	// Recording folder -> its ZIP file, for folders packaged while still being
+	// streamed. They are cleaned once the last download finishes. Guarded by
+	// streamedFolders
+	private static final Map<String, File> pendingCleanups = new HashMap<>();
+
+	private final ThreadPoolExecutor packagingExecutor;
+
 	// One recorder endpoint active at a time per stream
 	private Map<String, Map<String, RecorderEndpointWrapper>> activeRecorders = new ConcurrentHashMap<>();
 	// Multiple recorder endpoints per stream during a recording
@@ -83,6 +106,31 @@ public class SingleStreamRecordingService extends RecordingService {
 			RecordingUploader recordingUploader, KmsManager kmsManager, CustomFileManager fileManager,
 			OpenviduConfig openviduConfig, CallDetailRecord cdr) {
 		super(recordingManager, recordingDownloader, recordingUploader, kmsManager, fileManager, openviduConfig, cdr);
+		int threads = Runtime.getRuntime().availableProcessors();
+		AtomicInteger counter = new AtomicInteger(0);
+		this.packagingExecutor = new ThreadPoolExecutor(threads, threads, PACKAGING_THREAD_KEEP_ALIVE,
+				TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+					Thread thread = new Thread(runnable, "recording-packaging-" + counter.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		this.packagingExecutor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Stops accepting new recordings to package and waits a little for the ones
+	 * being packaged
+	 */
+	public void close() {
+		this.packagingExecutor.shutdown();
+		try {
+			if (!this.packagingExecutor.awaitTermination(CLOSE_TIMEOUT, TimeUnit.MILLISECONDS)) {
+				log.warn("{} INDIVIDUAL recordings still being packaged on shutdown",
+						this.packagingExecutor.getActiveCount() + this.packagingExecutor.getQueue().size());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
 	}
 
 	@Override
@@ -185,19 +233,25 @@ public class SingleStreamRecordingService extends RecordingService {
 						updateIndividualMetadataFile(wrapper);
 					}
 				}
-				finalRecordingArray[0] = this.sealMetadataFiles(finalRecordingArray[0]);
 
-				cleanRecordingWrappers(finalRecordingArray[0]);
+				// Packaging may take minutes for long recordings with many streams. Recording
+				// remains in "stopped" status until it finishes, and then transitions to
+				// "ready" (or "failed") through "recordingStatusChanged" event
+				final Recording recordingToPackage = finalRecordingArray[0];
+				packagingExecutor.execute(() -> {
+					Recording sealedRecording = this.sealMetadataFiles(recordingToPackage);
 
-				// Decrement active recordings once it is downloaded. This method will also drop
-				// the Media Node if no more sessions or recordings and status is
-				// waiting-idle-to-terminate
-				kmsManager.decrementActiveRecordings(finalRecordingArray[0].getRecordingProperties(),
-						finalRecordingArray[0].getId(), session);
+					cleanRecordingWrappers(sealedRecording);
 
-				// Upload if necessary
-				this.uploadRecording(finalRecordingArray[0], reason);
+					// Decrement active recordings once it is downloaded. This method will also drop
+					// the Media Node if no more sessions or recordings and status is
+					// waiting-idle-to-terminate
+					kmsManager.decrementActiveRecordings(sealedRecording.getRecordingProperties(),
+							sealedRecording.getId(), session);
 
+					// Upload if necessary
+					this.uploadRecording(sealedRecording, reason);
+				});
 			});
 		} catch (IOException e) {
 			log.error("Error while downloading recording {}", finalRecordingArray[0].getName());
@@ -499,8 +553,13 @@ public class SingleStreamRecordingService extends RecordingService {
 
 		json.add("files", jsonArrayFiles);
 		this.fileManager.createAndWriteFile(syncFilePath, new GsonBuilder().setPrettyPrinting().create().toJson(json));
-		this.generateZipFileAndCleanFolder(folderPath,
-				recording.getName() + RecordingService.INDIVIDUAL_RECORDING_COMPRESSED_EXTENSION);
+		if (this.openviduConfig.isOpenviduRecordingIndividualZipOnDownload()) {
+			// ZIP file will be generated on the fly when downloaded
+			this.updateFilePermissions(folderPath);
+		} else if (!this.generateZipFileAndCleanFolder(folderPath,
+				recording.getName() + RecordingService.INDIVIDUAL_RECORDING_COMPRESSED_EXTENSION)) {
+			recording.setStatus(io.openvidu.java.client.Recording.Status.failed);
+		}
 
 		double duration = (double) (maxEndTime - minStartTime) / 1000;
 		duration = duration > 0 ? duration : 0;
@@ -510,49 +569,127 @@ public class SingleStreamRecordingService extends RecordingService {
 		return recording;
 	}
 
-	private void generateZipFileAndCleanFolder(String folder, String fileName) {
-		FileOutputStream fos = null;
-		ZipOutputStream zipOut = null;
-
-		final File[] files = new File(folder).listFiles();
+	/**
+	 * Returns the files of an INDIVIDUAL recording folder that must be included in
+	 * its ZIP file: video files and json sync metadata file
+	 */
+	public static List<File> getFilesToZip(File folder) {
+		List<File> filesToZip = new ArrayList<>();
+		File[] files = folder.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				String fileExtension = FilenameUtils.getExtension(file.getName());
+				if (file.isFile() && (fileExtension.equals("json")
+						|| RecordingService.INDIVIDUAL_RECORDING_EXTENSION.equals("." + fileExtension))) {
+					filesToZip.add(file);
+				}
+			}
+		}
+		return filesToZip;
+	}
 
-		try {
-			fos = new FileOutputStream(folder + fileName);
-			zipOut = new ZipOutputStream(fos);
+	/**
+	 * Prevents the files of an INDIVIDUAL recording folder from being cleaned while
+	 * its ZIP file is generated on the fly. Must be followed by a call to
+	 * {@link #releaseFilesToZip(File)} once the ZIP file has been streamed
+	 * 
+	 * @return false if the folder has already been packaged into the given ZIP
+	 *         file, which must be served instead
+	 */
+	public static boolean retainFilesToZip(File folder, File zipFile) {
+		synchronized (streamedFolders) {
+			if (zipFile.exists()) {
+				return false;
+			}
+			streamedFolders.merge(folderKey(folder), 1, Integer::sum);
+			return true;
+		}
+	}
 
-			for (int i = 0; i < files.length; i++) {
-				String fileExtension = FilenameUtils.getExtension(files[i].getName());
+	public static void releaseFilesToZip(File folder) {
+		File zipFile = null;
+		synchronized (streamedFolders) {
+			String key = folderKey(folder);
+			if (streamedFolders.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null) == null) {
+				zipFile = pendingCleanups.remove(key);
+			}
+			streamedFolders.notifyAll();
+		}
+		if (zipFile != null) {
+			log.info("Last download of {} finished. Cleaning its files", folder.getAbsolutePath());
+			cleanFolder(folder, zipFile);
+		}
+	}
 
-				if (files[i].isFile() && (fileExtension.equals("json")
-						|| RecordingService.INDIVIDUAL_RECORDING_EXTENSION.equals("." + fileExtension))) {
+	private static String folderKey(File folder) {
+		return folder.toPath().toAbsolutePath().normalize().toString();
+	}
 
-					// Zip video files and json sync metadata file
-					FileInputStream fis = new FileInputStream(files[i]);
-					ZipEntry zipEntry = new ZipEntry(files[i].getName());
-					zipOut.putNextEntry(zipEntry);
-					byte[] bytes = new byte[1024];
-					int length;
-					while ((length = fis.read(bytes)) >= 0) {
-						zipOut.write(bytes, 0, length);
-					}
-					fis.close();
+	private boolean generateZipFileAndCleanFolder(String folder, String fileName) {
+		final File zipFile = new File(folder + fileName);
+		final File tmpZipFile = new File(folder + fileName + ".tmp");
+		final List<File> filesToZip = getFilesToZip(new File(folder));
+		final long start = System.currentTimeMillis();
 
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tmpZipFile), 64 * 1024)) {
+			// Media files are already compressed: store them as they are
+			ZipUtils.zipFiles(filesToZip, ZIP_STORED_EXTENSIONS, out);
+		} catch (IOException e) {
+			log.error("Error generating ZIP file {}. Error: {}", zipFile.getAbsolutePath(), e.getMessage());
+			tmpZipFile.delete();
+			this.updateFilePermissions(folder);
+			return false;
+		}
+		synchronized (streamedFolders) {
+			// Once renamed, downloads are served from the ZIP file. Downloads already
+			// generating it on the fly still need the files of the folder
+			if (!tmpZipFile.renameTo(zipFile)) {
+				log.error("Error renaming ZIP file {} to {}", tmpZipFile.getAbsolutePath(),
+						zipFile.getAbsolutePath());
+				tmpZipFile.delete();
+				this.updateFilePermissions(folder);
+				return false;
+			}
+			log.info("ZIP file {} generated in {} ms", zipFile.getAbsolutePath(),
+					System.currentTimeMillis() - start);
+			String key = folderKey(new File(folder));
+			final long deadline = System.currentTimeMillis() + STREAMED_FOLDER_WAIT_TIMEOUT;
+			while (streamedFolders.containsKey(key)) {
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0) {
+					// The last download will clean the folder
+					log.warn("Downloads of {} still in progress after {} ms. Files are kept until they finish", folder,
+							STREAMED_FOLDER_WAIT_TIMEOUT);
+					pendingCleanups.put(key, zipFile);
+					this.updateFilePermissions(folder);
+					return true;
 				}
-				if (!files[i].getName().startsWith(RecordingService.RECORDING_ENTITY_FILE)) {
-					// Clean inspected file if it is not
-					files[i].delete();
+				try {
+					streamedFolders.wait(remaining);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					log.warn("Interrupted waiting for downloads of {}. Files of the folder are kept", folder);
+					this.updateFilePermissions(folder);
+					return true;
 				}
 			}
-		} catch (IOException e) {
-			log.error("Error generating ZIP file {}. Error: {}", folder + fileName, e.getMessage());
-		} finally {
-			try {
-				zipOut.close();
-				fos.close();
-				this.updateFilePermissions(folder);
-			} catch (IOException e) {
-				log.error("Error closing FileOutputStream or ZipOutputStream. Error: {}", e.getMessage());
-				e.printStackTrace();
+		}
+
+		cleanFolder(new File(folder), zipFile);
+		this.updateFilePermissions(folder);
+		return true;
+	}
+
+	/**
+	 * Cleans every file but the ZIP file and the recording entity file
+	 */
+	private static void cleanFolder(File folder, File zipFile) {
+		File[] files = folder.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				if (!file.equals(zipFile) && !file.getName().startsWith(RecordingService.RECORDING_ENTITY_FILE)) {
+					file.delete();
+				}
 			}
 		}
 	}
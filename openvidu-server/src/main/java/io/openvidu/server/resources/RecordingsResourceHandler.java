@@ -17,17 +17,33 @@
 
 package io.openvidu.server.resources;
 
+import java.io.File;
+import java.io.IOException;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.io.FilenameUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.util.UrlPathHelper;
 
 import io.openvidu.server.config.OpenviduConfig;
+import io.openvidu.server.recording.service.SingleStreamRecordingService;
 import io.openvidu.server.rest.RequestMappings;
+import io.openvidu.server.utils.ZipUtils;
 
 /**
  * This class serves recording files from host folder indicated in configuration
- * property OPENVIDU_RECORDING_PATH
+ * property OPENVIDU_RECORDING_PATH. ZIP files of INDIVIDUAL recordings not
+ * packaged yet (or never packaged if OPENVIDU_RECORDING_INDIVIDUAL_ZIP_ON_DOWNLOAD
+ * is true) are generated on the fly
  * 
  * @author Pablo Fuente (pablofuenteperez@gmail.com)
  */
@@ -43,4 +59,52 @@ public class RecordingsResourceHandler implements WebMvcConfigurer {
 		registry.addResourceHandler(RequestMappings.RECORDINGS + "/**").addResourceLocations("file:" + recordingsPath);
 	}
 
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new IndividualRecordingZipInterceptor())
+				.addPathPatterns(RequestMappings.RECORDINGS + "/*/*.zip");
+	}
+
+	private class IndividualRecordingZipInterceptor implements HandlerInterceptor {
+
+		private final Logger log = LoggerFactory.getLogger(IndividualRecordingZipInterceptor.class);
+		private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+		@Override
+		public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+				throws IOException {
+			if (!"GET".equals(request.getMethod())) {
+				return true;
+			}
+			String path = urlPathHelper.getPathWithinApplication(request)
+					.substring(RequestMappings.RECORDINGS.length() + 1);
+			String[] segments = path.split("/");
+			if (segments.length != 2 || segments[0].isEmpty() || segments[0].startsWith(".")
+					|| segments[1].startsWith(".")) {
+				return true;
+			}
+			File folder = new File(openviduConfig.getOpenViduRecordingPath(), segments[0]);
+			File zipFile = new File(folder, segments[1]);
+			File syncFile = new File(folder, FilenameUtils.getBaseName(segments[1]) + ".json");
+			if (zipFile.exists() || !syncFile.isFile()) {
+				// Let the resource handler serve the file or respond 404
+				return true;
+			}
+			if (!SingleStreamRecordingService.retainFilesToZip(folder, zipFile)) {
+				// Packaged in the meantime
+				return true;
+			}
+			try {
+				log.info("Streaming on the fly ZIP file of INDIVIDUAL recording {}", segments[0]);
+				response.setContentType("application/zip");
+				ZipUtils.zipFiles(SingleStreamRecordingService.getFilesToZip(folder),
+						SingleStreamRecordingService.ZIP_STORED_EXTENSIONS, response.getOutputStream());
+				response.flushBuffer();
+			} finally {
+				SingleStreamRecordingService.releaseFilesToZip(folder);
+			}
+			return false;
+		}
+	}
+
 }
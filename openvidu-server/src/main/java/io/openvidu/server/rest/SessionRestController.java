@@ -17,15 +17,22 @@
 
 package io.openvidu.server.rest;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.net.MalformedURLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
+import javax.servlet.http.HttpServletResponse;
+
 import org.apache.commons.lang3.RandomStringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -75,6 +82,7 @@ import io.openvidu.server.recording.Recording;
 import io.openvidu.server.recording.service.RecordingManager;
 import io.openvidu.server.utils.RecordingUtils;
 import io.openvidu.server.utils.RestUtils;
+import io.openvidu.server.utils.SharedScheduler;
 
 /**
  *
@@ -97,6 +105,75 @@ public class SessionRestController {
 	@Autowired
 	protected OpenviduConfig openviduConfig;
 
+	/**
+	 * Responses of GET /sessions with WebRTC stats bigger than this (in chars) are
+	 * not kept in {@link #webrtcStatsSnapshot}
+	 */
+	private static final int WEBRTC_STATS_SNAPSHOT_MAX_SIZE = 1024 * 1024;
+
+	/**
+	 * Last response of GET /sessions with WebRTC stats. Monitoring systems usually
+	 * poll this resource, and building it requires requests to every endpoint. It
+	 * is discarded as soon as it expires
+	 */
+	private final AtomicReference<WebrtcStatsSnapshot> webrtcStatsSnapshot = new AtomicReference<>();
+
+	private static class WebrtcStatsSnapshot {
+		final String key;
+		final long timestamp;
+		final String body;
+
+		WebrtcStatsSnapshot(String key, long timestamp, String body) {
+			this.key = key;
+			this.timestamp = timestamp;
+			this.body = body;
+		}
+	}
+
+	/**
+	 * Writes to the response and keeps a copy of what has been written, unless it
+	 * grows bigger than maxSize
+	 */
+	private static class SnapshotWriter extends Writer {
+		private final Writer writer;
+		private final int maxSize;
+		private StringBuilder copy = new StringBuilder();
+
+		SnapshotWriter(Writer writer, int maxSize) {
+			this.writer = writer;
+			this.maxSize = maxSize;
+		}
+
+		@Override
+		public void write(char[] cbuf, int off, int len) throws IOException {
+			this.writer.write(cbuf, off, len);
+			if (this.copy != null) {
+				if (this.copy.length() + len > this.maxSize) {
+					this.copy = null;
+				} else {
+					this.copy.append(cbuf, off, len);
+				}
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			this.writer.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.writer.close();
+		}
+
+		/**
+		 * @return What has been written, or null if it is bigger than maxSize
+		 */
+		String getCopy() {
+			return this.copy != null ? this.copy.toString() : null;
+		}
+	}
+
 	@RequestMapping(value = "/sessions", method = RequestMethod.POST)
 	public ResponseEntity<?> initializeSession(@RequestBody(required = false) Map<?, ?> params) {
 
@@ -137,6 +214,9 @@ public class SessionRestController {
 
 		Session session = this.sessionManager.getSession(sessionId);
 		if (session != null) {
+			if (webRtcStats) {
+				this.sessionManager.fetchWebrtcStats(Arrays.asList(session));
+			}
 			JsonObject response = session.toJson(pendingConnections, webRtcStats);
 			return new ResponseEntity<>(response.toString(), RestUtils.getResponseHeaders(), HttpStatus.OK);
 		} else {
@@ -153,20 +233,63 @@ public class SessionRestController {
 	@RequestMapping(value = "/sessions", method = RequestMethod.GET)
 	public ResponseEntity<?> listSessions(
 			@RequestParam(value = "pendingConnections", defaultValue = "false", required = false) boolean pendingConnections,
-			@RequestParam(value = "webRtcStats", defaultValue = "false", required = false) boolean webRtcStats) {
+			@RequestParam(value = "webRtcStats", defaultValue = "false", required = false) boolean webRtcStats,
+			@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "after", required = false) String after,
+			@RequestParam(value = "mediaNode", required = false) String mediaNodeId, HttpServletResponse response)
+			throws IOException {
 
 		log.info("REST API: GET {}/sessions", RequestMappings.API);
 
+		if (limit != null && limit <= 0) {
+			return this.generateErrorResponse("Parameter 'limit' must be a positive integer", "/sessions",
+					HttpStatus.BAD_REQUEST);
+		}
+
+		final int cacheTtl = this.openviduConfig.getSessionWebrtcStatsCacheTtl();
+		final String snapshotKey = pendingConnections + "|" + limit + "|" + after + "|" + mediaNodeId;
+		if (webRtcStats && cacheTtl > 0) {
+			WebrtcStatsSnapshot snapshot = this.webrtcStatsSnapshot.get();
+			if (snapshot != null && snapshot.key.equals(snapshotKey)
+					&& (System.currentTimeMillis() - snapshot.timestamp) < cacheTtl) {
+				return new ResponseEntity<>(snapshot.body, RestUtils.getResponseHeaders(), HttpStatus.OK);
+			}
+		}
+
 		Collection<Session> sessions = this.sessionManager.getSessionsWithNotActive();
-		JsonObject json = new JsonObject();
-		JsonArray jsonArray = new JsonArray();
-		sessions.forEach(session -> {
-			JsonObject sessionJson = session.toJson(pendingConnections, webRtcStats);
-			jsonArray.add(sessionJson);
-		});
-		json.addProperty("numberOfElements", sessions.size());
-		json.add("content", jsonArray);
-		return new ResponseEntity<>(json.toString(), RestUtils.getResponseHeaders(), HttpStatus.OK);
+		if (mediaNodeId != null) {
+			sessions = sessions.stream().filter(session -> mediaNodeId.equals(session.getMediaNodeId()))
+					.collect(Collectors.toList());
+		}
+		List<Session> page = RestUtils.getPage(sessions, Session::getSessionId, after, limit);
+		if (webRtcStats) {
+			// The page includes the first session of the next one, if any
+			this.sessionManager.fetchWebrtcStats(limit != null && page.size() > limit ? page.subList(0, limit) : page);
+		}
+
+		Writer writer = RestUtils.getJsonResponseWriter(response);
+		SnapshotWriter snapshotWriter = null;
+		if (webRtcStats && cacheTtl > 0) {
+			snapshotWriter = new SnapshotWriter(writer, WEBRTC_STATS_SNAPSHOT_MAX_SIZE);
+			writer = snapshotWriter;
+		}
+		RestUtils.writeJsonPage(writer, "numberOfElements", "content", page, limit, Session::getSessionId,
+				session -> session.toJson(pendingConnections, webRtcStats));
+		if (snapshotWriter != null) {
+			String body = snapshotWriter.getCopy();
+			if (body != null) {
+				WebrtcStatsSnapshot snapshot = new WebrtcStatsSnapshot(snapshotKey, System.currentTimeMillis(), body);
+				this.webrtcStatsSnapshot.set(snapshot);
+				SharedScheduler.schedule(() -> this.webrtcStatsSnapshot.compareAndSet(snapshot, null), cacheTtl,
+						TimeUnit.MILLISECONDS);
+			} else {
+				log.debug("Response of GET /sessions with WebRTC stats too big to be kept (more than {} chars)",
+						WEBRTC_STATS_SNAPSHOT_MAX_SIZE);
+				this.webrtcStatsSnapshot.set(null);
+			}
+		}
+		// Response already written
+		return null;
 	}
 
 	@RequestMapping(value = "/sessions/{sessionId}", method = RequestMethod.DELETE)
@@ -277,6 +400,9 @@ public class SessionRestController {
 		Session session = this.sessionManager.getSessionWithNotActive(sessionId);
 
 		if (session != null) {
+			if (webRtcStats) {
+				this.sessionManager.fetchWebrtcStats(Arrays.asList(session));
+			}
 			JsonObject json = new JsonObject();
 			JsonArray jsonArray = session.getSnapshotOfConnectionsAsJsonArray(pendingConnections, webRtcStats);
 			json.addProperty("numberOfElements", jsonArray.size());
@@ -460,7 +586,11 @@ public class SessionRestController {
 	}
 
 	@RequestMapping(value = "/recordings", method = RequestMethod.GET)
-	public ResponseEntity<?> listRecordings() {
+	public ResponseEntity<?> listRecordings(@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "after", required = false) String after,
+			@RequestParam(value = "status", required = false) String status,
+			@RequestParam(value = "sessionId", required = false) String sessionId, HttpServletResponse response)
+			throws IOException {
 
 		log.info("REST API: GET {}/recordings", RequestMappings.API);
 
@@ -469,19 +599,40 @@ public class SessionRestController {
 			return new ResponseEntity<>(HttpStatus.NOT_IMPLEMENTED);
 		}
 
-		Collection<Recording> recordings = this.recordingManager.getAllRecordings();
-		JsonObject json = new JsonObject();
-		JsonArray jsonArray = new JsonArray();
+		if (limit != null && limit <= 0) {
+			return this.generateErrorResponse("Parameter 'limit' must be a positive integer", "/recordings",
+					HttpStatus.BAD_REQUEST);
+		}
+		io.openvidu.java.client.Recording.Status statusFilter = null;
+		if (status != null) {
+			try {
+				statusFilter = io.openvidu.java.client.Recording.Status.valueOf(status);
+			} catch (IllegalArgumentException e) {
+				return this.generateErrorResponse("Parameter 'status' must be one of "
+						+ Arrays.toString(io.openvidu.java.client.Recording.Status.values()), "/recordings",
+						HttpStatus.BAD_REQUEST);
+			}
+		}
+
+		Collection<Recording> recordings = sessionId != null ? this.recordingManager.getAllRecordingsOfSession(sessionId)
+				: this.recordingManager.getAllRecordings();
 		recordings.forEach(rec -> {
 			if (io.openvidu.java.client.Recording.Status.started.equals(rec.getStatus())
 					&& recordingManager.getStartingRecording(rec.getId()) != null) {
 				rec.setStatus(io.openvidu.java.client.Recording.Status.starting);
 			}
-			jsonArray.add(rec.toJson(false));
 		});
-		json.addProperty("count", recordings.size());
-		json.add("items", jsonArray);
-		return new ResponseEntity<>(json.toString(), RestUtils.getResponseHeaders(), HttpStatus.OK);
+		final io.openvidu.java.client.Recording.Status finalStatusFilter = statusFilter;
+		recordings = recordings.stream()
+				.filter(rec -> (finalStatusFilter == null || finalStatusFilter.equals(rec.getStatus()))
+						&& (sessionId == null || sessionId.equals(rec.getSessionId())))
+				.collect(Collectors.toList());
+		List<Recording> page = RestUtils.getPage(recordings, Recording::getId, after, limit);
+
+		RestUtils.writeJsonPage(RestUtils.getJsonResponseWriter(response), "count", "items", page, limit,
+				Recording::getId, rec -> rec.toJson(false));
+		// Response already written
+		return null;
 	}
 
 	@RequestMapping(value = "/recordings/{recordingId}", method = RequestMethod.DELETE)
@@ -19,24 +19,30 @@ package io.openvidu.server.rpc;
 
 import java.io.IOException;
 import java.net.InetAddress;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.servlet.http.HttpSession;
 
 import org.apache.commons.lang3.RandomStringUtils;
+import org.kurento.client.IceCandidate;
 import org.kurento.jsonrpc.DefaultJsonRpcHandler;
 import org.kurento.jsonrpc.Session;
 import org.kurento.jsonrpc.Transaction;
-import org.kurento.jsonrpc.internal.ws.WebSocketServerSession;
 import org.kurento.jsonrpc.message.Request;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.WebSocketSession;
 
+import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
@@ -55,6 +61,7 @@ import io.openvidu.server.core.SessionManager;
 import io.openvidu.server.core.Token;
 import io.openvidu.server.utils.GeoLocation;
 import io.openvidu.server.utils.GeoLocationByIp;
+import io.openvidu.server.utils.GeoLocationByIpCache;
 
 public class RpcHandler extends DefaultJsonRpcHandler<JsonObject> {
 
@@ -74,6 +81,27 @@ public class RpcHandler extends DefaultJsonRpcHandler<JsonObject> {
 
 	private ConcurrentMap<String, Boolean> webSocketEOFTransportError = new ConcurrentHashMap<>();
 
+	private RpcRequestExecutor rpcRequestExecutor;
+
+	private GeoLocationByIpCache geoLocationCache;
+
+	@PostConstruct
+	public void init() {
+		this.rpcRequestExecutor = new RpcRequestExecutor(openviduConfig.getSessionRpcThreads());
+		this.geoLocationCache = new GeoLocationByIpCache(this.geoLocationByIp,
+				openviduConfig.getSessionGeolocationCacheSize(), openviduConfig.getSessionGeolocationCacheTtl());
+	}
+
+	@PreDestroy
+	public void close() {
+		this.rpcRequestExecutor.close();
+		this.geoLocationCache.close();
+	}
+
+	public RpcRequestExecutor getRpcRequestExecutor() {
+		return this.rpcRequestExecutor;
+	}
+
 	@Override
 	public void handleRequest(Transaction transaction, Request<JsonObject> request) throws Exception {
 
@@ -114,6 +142,26 @@ public class RpcHandler extends DefaultJsonRpcHandler<JsonObject> {
 
 		transaction.startAsync();
 
+		// Methods may wait for the Media Node, so they are run out of the WebSocket
+		// thread. Requests of the same connection keep their order
+		final RpcConnection connection = rpcConnection;
+		this.rpcRequestExecutor.execute(participantPrivateId, () -> {
+			try {
+				this.dispatchRequest(connection, request);
+			} catch (Exception e) {
+				log.error("Error executing method '{}' for participant with privateId {}: {}", request.getMethod(),
+						connection.getParticipantPrivateId(), e.getMessage());
+				try {
+					transaction.sendError(e);
+				} catch (Exception e2) {
+					log.error("Exception sending error response to participant ({})",
+							connection.getParticipantPrivateId(), e2);
+				}
+			}
+		});
+	}
+
+	private void dispatchRequest(RpcConnection rpcConnection, Request<JsonObject> request) {
 		switch (request.getMethod()) {
 		case ProtocolElements.JOINROOM_METHOD:
 			joinRoom(rpcConnection, request);
@@ -127,6 +175,9 @@ public class RpcHandler extends DefaultJsonRpcHandler<JsonObject> {
 		case ProtocolElements.ONICECANDIDATE_METHOD:
 			onIceCandidate(rpcConnection, request);
 			break;
+		case ProtocolElements.ONICECANDIDATES_METHOD:
+			onIceCandidates(rpcConnection, request);
+			break;
 		case ProtocolElements.PREPARERECEIVEVIDEO_METHOD:
 			prepareReceiveVideoFrom(rpcConnection, request);
 			break;
@@ -198,18 +249,26 @@ public class RpcHandler extends DefaultJsonRpcHandler<JsonObject> {
 
 		InetAddress remoteAddress = null;
 		GeoLocation location = null;
+		CompletableFuture<GeoLocation> locationLookup = null;
 		Object obj = rpcConnection.getSession().getAttributes().get("remoteAddress");
 		if (obj != null && obj instanceof InetAddress) {
 			remoteAddress = (InetAddress) obj;
-			try {
-				location = this.geoLocationByIp.getLocationByIp(remoteAddress);
-			} catch (IOException e) {
-				e.printStackTrace();
-				location = null;
-			} catch (Exception e) {
-				log.warn("Couldn't locate IP address {} in geolocation database: {}", remoteAddress.getHostAddress(),
-						e.getMessage());
-				location = null;
+			if (openviduConfig.isSessionGeolocationAsync()) {
+				// Participant joins without location if its IP is not cached. It is set
+				// once the lookup finishes
+				locationLookup = this.geoLocationCache.getLocationByIpAsync(remoteAddress);
+				location = locationLookup.getNow(null);
+			} else {
+				try {
+					location = this.geoLocationCache.getLocationByIp(remoteAddress);
+				} catch (IOException e) {
+					e.printStackTrace();
+					location = null;
+				} catch (Exception e) {
+					log.warn("Couldn't locate IP address {} in geolocation database: {}",
+							remoteAddress.getHostAddress(), e.getMessage());
+					location = null;
+				}
 			}
 		}
 
@@ -249,6 +308,14 @@ public class RpcHandler extends DefaultJsonRpcHandler<JsonObject> {
 			// Nothing happens. 'recorder' param to false
 		}
 
+		boolean batchedIceCandidates = false;
+
+		try {
+			batchedIceCandidates = getBooleanParam(request, ProtocolElements.JOINROOM_BATCHEDICECANDIDATES_PARAM);
+		} catch (RuntimeException e) {
+			// Nothing happens. Client only understands single ICE candidate notifications
+		}
+
 		boolean generateRecorderParticipant = false;
 
 		if (openviduConfig.isOpenViduSecret(secret)) {
@@ -291,10 +358,16 @@ public class RpcHandler extends DefaultJsonRpcHandler<JsonObject> {
 									participant.getParticipantPublicId(), sessionId, remoteAddress.getHostAddress(),
 									participant.getPlatform());
 						}
+						participant.setBatchedIceCandidates(batchedIceCandidates);
 
 						rpcConnection.setSessionId(sessionId);
 						sessionManager.joinRoom(participant, sessionId, request.getId());
 
+						if (location == null && locationLookup != null) {
+							// Runs right away if the lookup finished after reading it
+							locationLookup.thenAccept(resolved -> this.setLocation(participant, resolved));
+						}
+
 					} finally {
 						session.closingLock.readLock().unlock();
 					}
@@ -317,6 +390,22 @@ public class RpcHandler extends DefaultJsonRpcHandler<JsonObject> {
 		}
 	}
 
+	/**
+	 * Sets the location resolved after the participant joined its session, both
+	 * to the participant created on join and to the one stored in the session
+	 */
+	private void setLocation(Participant participant, GeoLocation location) {
+		if (location == null) {
+			return;
+		}
+		participant.setLocation(location);
+		try {
+			sessionManager.getParticipant(participant.getParticipantPrivateId()).setLocation(location);
+		} catch (OpenViduException e) {
+			log.debug("Participant {} left before locating its IP address", participant.getParticipantPublicId());
+		}
+	}
+
 	private void leaveRoom(RpcConnection rpcConnection, Request<JsonObject> request) {
 		Participant participant;
 		try {
@@ -417,6 +506,33 @@ public class RpcHandler extends DefaultJsonRpcHandler<JsonObject> {
 		sessionManager.onIceCandidate(participant, endpointName, candidate, sdpMLineIndex, sdpMid, request.getId());
 	}
 
+	private void onIceCandidates(RpcConnection rpcConnection, Request<JsonObject> request) {
+		Participant participant;
+		try {
+			participant = sanityCheckOfSession(rpcConnection, "onIceCandidates");
+		} catch (OpenViduException e) {
+			return;
+		}
+
+		String endpointName = getStringParam(request, ProtocolElements.ONICECANDIDATES_EPNAME_PARAM);
+		JsonArray jsonCandidates = getParam(request, ProtocolElements.ONICECANDIDATES_CANDIDATES_PARAM)
+				.getAsJsonArray();
+
+		List<IceCandidate> candidates = new ArrayList<>(jsonCandidates.size());
+		for (JsonElement jsonCandidate : jsonCandidates) {
+			JsonObject candidateObj = jsonCandidate.getAsJsonObject();
+			candidates.add(
+					new IceCandidate(candidateObj.get(ProtocolElements.ONICECANDIDATE_CANDIDATE_PARAM).getAsString(),
+							candidateObj.get(ProtocolElements.ONICECANDIDATE_SDPMIDPARAM).getAsString(),
+							candidateObj.get(ProtocolElements.ONICECANDIDATE_SDPMLINEINDEX_PARAM).getAsInt()));
+		}
+
+		log.info("{} new candidates received from participant {}: {connectionId: \"{}\"}", candidates.size(),
+				participant.getParticipantPublicId(), endpointName);
+
+		sessionManager.onIceCandidates(participant, endpointName, candidates, request.getId());
+	}
+
 	private void sendMessage(RpcConnection rpcConnection, Request<JsonObject> request) {
 		Participant participant;
 		try {
@@ -702,18 +818,18 @@ public class RpcHandler extends DefaultJsonRpcHandler<JsonObject> {
 	@Override
 	public void afterConnectionEstablished(Session rpcSession) throws Exception {
 		log.info("After connection established for WebSocket session: {}", rpcSession.getSessionId());
-		if (rpcSession instanceof WebSocketServerSession) {
+		WebSocketSession wsSession = WebSocketSessionAdapter.getWebSocketSession(rpcSession);
+		if (wsSession != null) {
 			InetAddress address;
-			HttpHeaders headers = ((WebSocketServerSession) rpcSession).getWebSocketSession().getHandshakeHeaders();
+			HttpHeaders headers = wsSession.getHandshakeHeaders();
 			if (headers.containsKey("x-real-ip")) {
 				address = InetAddress.getByName(headers.get("x-real-ip").get(0));
 			} else {
-				address = ((WebSocketServerSession) rpcSession).getWebSocketSession().getRemoteAddress().getAddress();
+				address = wsSession.getRemoteAddress().getAddress();
 			}
 			rpcSession.getAttributes().put("remoteAddress", address);
 
-			HttpSession httpSession = (HttpSession) ((WebSocketServerSession) rpcSession).getWebSocketSession()
-					.getAttributes().get("httpSession");
+			HttpSession httpSession = (HttpSession) wsSession.getAttributes().get("httpSession");
 			rpcSession.getAttributes().put("httpSession", httpSession);
 		}
 	}
@@ -722,6 +838,13 @@ public class RpcHandler extends DefaultJsonRpcHandler<JsonObject> {
 	public void afterConnectionClosed(Session rpcSession, String status) throws Exception {
 		log.info("After connection closed for WebSocket session: {} - Status: {}", rpcSession.getSessionId(), status);
 
+		String rpcSessionId = rpcSession.getSessionId();
+		// Evict the participant after the requests it sent before closing the
+		// connection
+		this.rpcRequestExecutor.executeLast(rpcSessionId, () -> this.evictAfterConnectionClosed(rpcSession, status));
+	}
+
+	private void evictAfterConnectionClosed(Session rpcSession, String status) {
 		String rpcSessionId = rpcSession.getSessionId();
 		String message = "";
 
@@ -18,10 +18,9 @@
 package io.openvidu.server.rpc;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import org.kurento.jsonrpc.Session;
@@ -29,11 +28,14 @@ import org.kurento.jsonrpc.Transaction;
 import org.kurento.jsonrpc.message.Request;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
 
 import com.google.gson.JsonObject;
 
 import io.openvidu.client.OpenViduException;
 import io.openvidu.server.core.IdentifierPrefixes;
+import io.openvidu.server.utils.SharedScheduler;
 
 public class RpcNotificationService {
 
@@ -41,9 +43,6 @@ public class RpcNotificationService {
 
 	private ConcurrentMap<String, RpcConnection> rpcConnections = new ConcurrentHashMap<>();
 
-	private ScheduledExecutorService closeWsScheduler = Executors
-			.newScheduledThreadPool(Runtime.getRuntime().availableProcessors());
-
 	public RpcConnection newRpcConnection(Transaction t, Request<JsonObject> request) {
 		String participantPrivateId = t.getSession().getSessionId();
 		RpcConnection connection = new RpcConnection(t.getSession());
@@ -115,6 +114,41 @@ public class RpcNotificationService {
 		}
 	}
 
+	/**
+	 * Sends the same notification to a group of participants. The JSON-RPC frame
+	 * is serialized only once and the very same message is written to the
+	 * WebSocket of every participant. Participants whose connection is not an open
+	 * WebSocket fall back to {@link #sendNotification(String, String, Object)}
+	 */
+	public void broadcastNotification(final Collection<String> participantPrivateIds, final String method,
+			final Object params) {
+		TextMessage message = null;
+		for (String participantPrivateId : participantPrivateIds) {
+			RpcConnection rpcSession = rpcConnections.get(participantPrivateId);
+			if (rpcSession == null || rpcSession.getSession() == null) {
+				if (!isIpcamParticipant(participantPrivateId)) {
+					log.error("No rpc session found for private id {}, unable to send notification {}: {}",
+							participantPrivateId, method, params);
+				}
+				continue;
+			}
+			WebSocketSession wsSession = WebSocketSessionAdapter.getOpenWebSocketSession(rpcSession.getSession());
+			if (wsSession == null) {
+				this.sendNotification(participantPrivateId, method, params);
+				continue;
+			}
+			if (message == null) {
+				message = WebSocketSessionAdapter.notificationMessage(rpcSession.getSession(), method, params);
+			}
+			try {
+				WebSocketSessionAdapter.send(wsSession, message);
+			} catch (Exception e) {
+				log.error("Exception sending notification '{}': {} to participant with private id {}", method, params,
+						participantPrivateId, e);
+			}
+		}
+	}
+
 	public RpcConnection immediatelyCloseRpcSession(String participantPrivateId) {
 		RpcConnection rpcSession = rpcConnections.remove(participantPrivateId);
 		if (rpcSession == null || rpcSession.getSession() == null) {
@@ -137,7 +171,7 @@ public class RpcNotificationService {
 	}
 
 	public void scheduleCloseRpcSession(String participantPrivateId, int timeoutMs) {
-		closeWsScheduler.schedule(() -> immediatelyCloseRpcSession(participantPrivateId), timeoutMs,
+		SharedScheduler.schedule(() -> immediatelyCloseRpcSession(participantPrivateId), timeoutMs,
 				TimeUnit.MILLISECONDS);
 	}
 
@@ -0,0 +1,235 @@
+/*
+ * (C) Copyright 2017-2020 OpenVidu (https://openvidu.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.openvidu.server.rpc;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.openvidu.server.utils.UpdatableTimerTask;
+
+/**
+ * Runs the requests of the clients out of the WebSocket container threads.
+ * Every connection has its own serial queue, so its requests are processed one
+ * after another in the order they arrived, while requests of different
+ * connections run in parallel on a bounded pool of threads. A connection
+ * waiting for a slow Media Node only holds one thread of the pool, and never a
+ * thread of the WebSocket container. Queue metrics are logged periodically
+ */
+public class RpcRequestExecutor {
+
+	private static final Logger log = LoggerFactory.getLogger(RpcRequestExecutor.class);
+
+	private static final long THREAD_KEEP_ALIVE = 60; // seconds
+	private static final long METRICS_LOG_INTERVAL = 60000; // milliseconds
+
+	// Tasks run in a row for the same connection before letting others use the
+	// thread (for example, a burst of ICE candidates)
+	private static final int MAX_TASKS_PER_RUN = 32;
+
+	private final ThreadPoolExecutor pool;
+
+	private final ConcurrentMap<String, SerialQueue> queues = new ConcurrentHashMap<>();
+
+	private final AtomicLong executedTasks = new AtomicLong(0);
+
+	private final UpdatableTimerTask metricsTimer;
+
+	public RpcRequestExecutor(int threads) {
+		AtomicInteger counter = new AtomicInteger(0);
+		// A queue can only be waiting once in the pool, so the pending tasks of the
+		// pool are bounded by the number of connections
+		this.pool = new ThreadPoolExecutor(threads, threads, THREAD_KEEP_ALIVE, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), runnable -> {
+					Thread thread = new Thread(runnable, "rpc-executor-" + counter.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		this.pool.allowCoreThreadTimeOut(true);
+		this.metricsTimer = new UpdatableTimerTask(this::logMetrics, () -> METRICS_LOG_INTERVAL);
+		this.metricsTimer.updateTimer();
+	}
+
+	/**
+	 * Queues the task after every other task previously queued for the same
+	 * connection
+	 */
+	public void execute(String participantPrivateId, Runnable task) {
+		this.queues.compute(participantPrivateId, (id, queue) -> {
+			if (queue == null) {
+				queue = new SerialQueue(id);
+			}
+			if (queue.closed) {
+				log.warn("Discarding request of connection {} received after closing it", id);
+			} else {
+				queue.add(task);
+			}
+			return queue;
+		});
+	}
+
+	/**
+	 * Queues the task after every other task previously queued for the same
+	 * connection and closes its queue: tasks queued afterwards for the connection
+	 * are discarded until this one has been run, and the queue is removed once it
+	 * is empty. Should be called when the connection is closed
+	 */
+	public void executeLast(String participantPrivateId, Runnable task) {
+		this.queues.compute(participantPrivateId, (id, queue) -> {
+			if (queue == null) {
+				queue = new SerialQueue(id);
+			}
+			queue.add(task);
+			queue.closed = true;
+			return queue;
+		});
+	}
+
+	/**
+	 * @return Number of tasks waiting to be run for the connection, not including
+	 *         the one being run right now
+	 */
+	public int getQueueDepth(String participantPrivateId) {
+		SerialQueue queue = this.queues.get(participantPrivateId);
+		return queue != null ? queue.depth.get() : 0;
+	}
+
+	/**
+	 * @return Number of tasks waiting to be run for all connections
+	 */
+	public int getQueueDepth() {
+		return this.queues.values().stream().mapToInt(queue -> queue.depth.get()).sum();
+	}
+
+	/**
+	 * @return Highest number of tasks waiting to be run for a single connection
+	 */
+	public int getMaxQueueDepth() {
+		return this.queues.values().stream().mapToInt(queue -> queue.depth.get()).max().orElse(0);
+	}
+
+	/**
+	 * @return Number of connections with tasks waiting for a free thread
+	 */
+	public int getWaitingConnections() {
+		return this.pool.getQueue().size();
+	}
+
+	/**
+	 * @return Number of tasks being run right now
+	 */
+	public int getActiveTasks() {
+		return this.pool.getActiveCount();
+	}
+
+	public long getExecutedTasks() {
+		return this.executedTasks.get();
+	}
+
+	public void close() {
+		this.metricsTimer.cancelTimer();
+		this.pool.shutdownNow();
+		this.queues.clear();
+	}
+
+	private void logMetrics() {
+		int queueDepth = this.getQueueDepth();
+		int waitingConnections = this.getWaitingConnections();
+		if (queueDepth > 0 || waitingConnections > 0 || log.isDebugEnabled()) {
+			String message = "RPC requests: {} queued (up to {} for a single connection), {} connections waiting for a thread, {} running, {} executed";
+			Object[] args = new Object[] { queueDepth, this.getMaxQueueDepth(), waitingConnections,
+					this.getActiveTasks(), this.getExecutedTasks() };
+			if (queueDepth > 0 || waitingConnections > 0) {
+				log.info(message, args);
+			} else {
+				log.debug(message, args);
+			}
+		}
+	}
+
+	private class SerialQueue implements Runnable {
+
+		private final String participantPrivateId;
+		private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+		private final AtomicInteger depth = new AtomicInteger(0);
+		private final AtomicBoolean scheduled = new AtomicBoolean(false);
+		// Set once the last task of the connection has been queued
+		private volatile boolean closed = false;
+
+		SerialQueue(String participantPrivateId) {
+			this.participantPrivateId = participantPrivateId;
+		}
+
+		void add(Runnable task) {
+			this.depth.incrementAndGet();
+			this.tasks.add(task);
+			this.schedule();
+		}
+
+		private void schedule() {
+			if (!this.tasks.isEmpty() && this.scheduled.compareAndSet(false, true)) {
+				try {
+					pool.execute(this);
+				} catch (RejectedExecutionException e) {
+					log.error("Requests of connection {} could not be executed: {}", this.participantPrivateId,
+							e.getMessage());
+					this.depth.set(0);
+					this.tasks.clear();
+					this.scheduled.set(false);
+				}
+			}
+		}
+
+		@Override
+		public void run() {
+			Runnable task;
+			int count = 0;
+			while (count++ < MAX_TASKS_PER_RUN && (task = this.tasks.poll()) != null) {
+				this.depth.decrementAndGet();
+				try {
+					task.run();
+				} catch (Throwable t) {
+					log.error("Exception running request of connection {}: {}", this.participantPrivateId,
+							t.getMessage(), t);
+				}
+				executedTasks.incrementAndGet();
+			}
+			this.scheduled.set(false);
+			if (this.closed && this.tasks.isEmpty()) {
+				// No task can be added to a closed queue
+				queues.remove(this.participantPrivateId, this);
+				return;
+			}
+			// Pending tasks go to the end of the pool queue. A task may also have been
+			// added after the last poll and before releasing the queue
+			this.schedule();
+		}
+	}
+
+}
@@ -0,0 +1,85 @@
+/*
+ * (C) Copyright 2017-2020 OpenVidu (https://openvidu.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.openvidu.server.rpc;
+
+import java.io.IOException;
+
+import org.kurento.jsonrpc.JsonUtils;
+import org.kurento.jsonrpc.Session;
+import org.kurento.jsonrpc.internal.ws.WebSocketServerSession;
+import org.kurento.jsonrpc.message.Request;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * Single point of access to the WebSocket underlying a Kurento JSON-RPC
+ * {@link Session}. Kurento does not expose it through its public API, so this
+ * class is the only one allowed to depend on its internal
+ * {@link WebSocketServerSession}. If a new version of kurento-jsonrpc changes
+ * it, this class (and its test) are the only ones to update
+ */
+final class WebSocketSessionAdapter {
+
+	private WebSocketSessionAdapter() {
+	}
+
+	/**
+	 * @return the WebSocket of the session, or null if the session is not backed
+	 *         by a WebSocket
+	 */
+	static WebSocketSession getWebSocketSession(Session session) {
+		if (session instanceof WebSocketServerSession) {
+			return ((WebSocketServerSession) session).getWebSocketSession();
+		}
+		return null;
+	}
+
+	/**
+	 * @return the WebSocket of the session, or null if the session is not backed
+	 *         by a WebSocket or it is already closed
+	 */
+	static WebSocketSession getOpenWebSocketSession(Session session) {
+		WebSocketSession wsSession = getWebSocketSession(session);
+		return (wsSession != null && wsSession.isOpen()) ? wsSession : null;
+	}
+
+	/**
+	 * Builds the JSON-RPC notification frame exactly as
+	 * {@link Session#sendNotification(String, Object)} does for the session. The
+	 * session id of a Kurento message is never serialized, so the frame can also
+	 * be written to the WebSockets of other sessions with
+	 * {@link #send(WebSocketSession, TextMessage)}
+	 */
+	static TextMessage notificationMessage(Session session, String method, Object params) {
+		Request<Object> request = new Request<>(null, method, params);
+		request.setSessionId(session.getSessionId());
+		return new TextMessage(JsonUtils.toJson(request));
+	}
+
+	/**
+	 * Writes a message to a WebSocket holding the same lock Kurento's
+	 * {@link WebSocketServerSession} holds, so it never interleaves with the
+	 * messages sent through the {@link Session}
+	 */
+	static void send(WebSocketSession wsSession, TextMessage message) throws IOException {
+		synchronized (wsSession) {
+			wsSession.sendMessage(message);
+		}
+	}
+
+}
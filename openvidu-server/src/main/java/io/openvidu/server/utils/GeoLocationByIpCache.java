@@ -0,0 +1,209 @@
+/*
+ * (C) Copyright 2017-2020 OpenVidu (https://openvidu.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.openvidu.server.utils;
+
+import java.net.InetAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caching decorator of any {@link GeoLocationByIp}. Locations are kept in a
+ * bounded LRU for a configurable time, so all the participants connecting from
+ * the same public IP (e.g. behind a corporate NAT) cost a single lookup. IPs
+ * that could not be located are cached too, for a shorter time. Lookups can
+ * also be run in a small background pool, sharing the same resolution between
+ * concurrent callers asking for the same IP
+ */
+public class GeoLocationByIpCache implements GeoLocationByIp {
+
+	private static final Logger log = LoggerFactory.getLogger(GeoLocationByIpCache.class);
+
+	private static final long MAX_NEGATIVE_TTL = 60; // seconds
+	private static final int LOOKUP_THREADS = 4;
+	private static final long THREAD_KEEP_ALIVE = 60; // seconds
+
+	private final GeoLocationByIp delegate;
+	private final int maxSize;
+	private final long ttl; // milliseconds
+	private final long negativeTtl; // milliseconds
+
+	// Access ordered, so the eldest entry is the least recently used one
+	private final Map<InetAddress, CachedLocation> cache;
+	private final ConcurrentMap<InetAddress, CompletableFuture<GeoLocation>> lookups = new ConcurrentHashMap<>();
+	private final ThreadPoolExecutor pool;
+
+	private final AtomicLong hits = new AtomicLong(0);
+	private final AtomicLong misses = new AtomicLong(0);
+
+	/**
+	 * @param delegate   the actual {@link GeoLocationByIp} implementation
+	 * @param maxSize    maximum number of IPs cached. 0 disables the cache
+	 * @param ttlSeconds seconds a location is cached
+	 */
+	public GeoLocationByIpCache(GeoLocationByIp delegate, int maxSize, int ttlSeconds) {
+		this.delegate = delegate;
+		this.maxSize = maxSize;
+		this.ttl = TimeUnit.SECONDS.toMillis(ttlSeconds);
+		this.negativeTtl = Math.min(this.ttl, TimeUnit.SECONDS.toMillis(MAX_NEGATIVE_TTL));
+		this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<InetAddress, CachedLocation> eldest) {
+				return size() > GeoLocationByIpCache.this.maxSize;
+			}
+		};
+		AtomicInteger counter = new AtomicInteger(0);
+		this.pool = new ThreadPoolExecutor(LOOKUP_THREADS, LOOKUP_THREADS, THREAD_KEEP_ALIVE, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), runnable -> {
+					Thread thread = new Thread(runnable, "geolocation-" + counter.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		this.pool.allowCoreThreadTimeOut(true);
+	}
+
+	@Override
+	public GeoLocation getLocationByIp(InetAddress ipAddress) throws Exception {
+		CachedLocation cached = this.getCached(ipAddress);
+		if (cached != null) {
+			return cached.location;
+		}
+		return this.lookup(ipAddress);
+	}
+
+	/**
+	 * Same as {@link #getLocationByIp(InetAddress)}, but the lookup of an IP not
+	 * present in the cache is run in the background. The returned future is
+	 * already completed if the IP was cached, and it is completed with null if
+	 * the IP could not be located
+	 */
+	public CompletableFuture<GeoLocation> getLocationByIpAsync(InetAddress ipAddress) {
+		CachedLocation cached = this.getCached(ipAddress);
+		if (cached != null) {
+			return CompletableFuture.completedFuture(cached.location);
+		}
+		CompletableFuture<GeoLocation> newLookup = new CompletableFuture<>();
+		CompletableFuture<GeoLocation> lookup = this.lookups.putIfAbsent(ipAddress, newLookup);
+		if (lookup != null) {
+			// Other caller is already looking up the same IP
+			return lookup;
+		}
+		try {
+			this.pool.execute(() -> {
+				try {
+					newLookup.complete(this.lookup(ipAddress));
+				} catch (Exception e) {
+					log.warn("Couldn't locate IP address {} in geolocation database: {}", ipAddress.getHostAddress(),
+							e.getMessage());
+					newLookup.complete(null);
+				} finally {
+					this.lookups.remove(ipAddress, newLookup);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			this.lookups.remove(ipAddress, newLookup);
+			newLookup.complete(null);
+		}
+		return newLookup;
+	}
+
+	public int getSize() {
+		synchronized (this.cache) {
+			return this.cache.size();
+		}
+	}
+
+	public long getHits() {
+		return this.hits.get();
+	}
+
+	public long getMisses() {
+		return this.misses.get();
+	}
+
+	public void close() {
+		this.pool.shutdownNow();
+		this.lookups.clear();
+		synchronized (this.cache) {
+			this.cache.clear();
+		}
+	}
+
+	private GeoLocation lookup(InetAddress ipAddress) throws Exception {
+		GeoLocation location;
+		try {
+			location = this.delegate.getLocationByIp(ipAddress);
+		} catch (Exception e) {
+			this.put(ipAddress, null);
+			throw e;
+		}
+		this.put(ipAddress, location);
+		return location;
+	}
+
+	private CachedLocation getCached(InetAddress ipAddress) {
+		synchronized (this.cache) {
+			CachedLocation cached = this.cache.get(ipAddress);
+			if (cached != null && cached.expiresAt < System.currentTimeMillis()) {
+				this.cache.remove(ipAddress);
+				cached = null;
+			}
+			if (cached != null) {
+				this.hits.incrementAndGet();
+			} else {
+				this.misses.incrementAndGet();
+			}
+			return cached;
+		}
+	}
+
+	private void put(InetAddress ipAddress, GeoLocation location) {
+		if (this.maxSize == 0) {
+			return;
+		}
+		long expiresAt = System.currentTimeMillis() + (location != null ? this.ttl : this.negativeTtl);
+		synchronized (this.cache) {
+			this.cache.put(ipAddress, new CachedLocation(location, expiresAt));
+		}
+	}
+
+	private static class CachedLocation {
+
+		private final GeoLocation location; // null if the IP could not be located
+		private final long expiresAt;
+
+		CachedLocation(GeoLocation location, long expiresAt) {
+			this.location = location;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+}
@@ -1,5 +1,15 @@
 package io.openvidu.server.utils;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.servlet.http.HttpServletResponse;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpHeaders;
@@ -7,10 +17,18 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonWriter;
+
 public class RestUtils {
 
 	private static final Logger log = LoggerFactory.getLogger(RestUtils.class);
 
+	// Same output as JsonElement#toString
+	private static final Gson gson = new GsonBuilder().serializeNulls().disableHtmlEscaping().create();
+
 	public static HttpHeaders getResponseHeaders() {
 		HttpHeaders responseHeaders = new HttpHeaders();
 		responseHeaders.setContentType(MediaType.APPLICATION_JSON);
@@ -26,4 +44,48 @@ public class RestUtils {
 		return new ResponseEntity<>(message, responseHeaders, status);
 	}
 
+	/**
+	 * Sorts the elements by id and returns the ones after the cursor. At most
+	 * limit + 1 elements are returned, so the caller knows if there are more
+	 * elements after the page. A null limit returns all the elements
+	 */
+	public static <T> List<T> getPage(Collection<T> elements, Function<T, String> getId, String after,
+			Integer limit) {
+		return elements.stream().filter(element -> after == null || getId.apply(element).compareTo(after) > 0)
+				.sorted(Comparator.comparing(getId)).limit(limit != null ? limit + 1 : Long.MAX_VALUE)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Writes a page obtained with {@link RestUtils#getPage} as a JSON object. The
+	 * elements are serialized one at a time straight to the writer, so the whole
+	 * response is never held in memory. If there are more elements after the page,
+	 * property "next" holds the cursor to request the next one
+	 */
+	public static <T> void writeJsonPage(Writer writer, String countProperty, String itemsProperty, List<T> page,
+			Integer limit, Function<T, String> getId, Function<T, JsonElement> toJson) throws IOException {
+		boolean hasMore = limit != null && page.size() > limit;
+		List<T> elements = hasMore ? page.subList(0, limit) : page;
+		JsonWriter jsonWriter = new JsonWriter(writer);
+		jsonWriter.beginObject();
+		jsonWriter.name(countProperty).value(elements.size());
+		jsonWriter.name(itemsProperty).beginArray();
+		for (T element : elements) {
+			gson.toJson(toJson.apply(element), jsonWriter);
+		}
+		jsonWriter.endArray();
+		if (hasMore) {
+			jsonWriter.name("next").value(getId.apply(elements.get(elements.size() - 1)));
+		}
+		jsonWriter.endObject();
+		jsonWriter.flush();
+	}
+
+	public static Writer getJsonResponseWriter(HttpServletResponse response) throws IOException {
+		response.setStatus(HttpStatus.OK.value());
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		response.setCharacterEncoding("UTF-8");
+		return response.getWriter();
+	}
+
 }
@@ -18,7 +18,6 @@ package io.openvidu.server.utils;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -37,23 +36,26 @@ public class SDPMunging {
 
 	private static final Logger log = LoggerFactory.getLogger(SDPMunging.class);
 
-	private Set<VideoCodec> supportedVideoCodecs = new HashSet<>(Arrays.asList(VideoCodec.VP8, VideoCodec.H264));
+	// Patterns are compiled once and applied line by line
+	private static final Pattern RTPMAP_PATTERN = Pattern.compile("^a=rtpmap:(\\d+) ([^/\\s]+)/90000");
+	private static final Pattern APT_PATTERN = Pattern.compile("^a=fmtp:(\\d+) (?:.*;\\s*)?apt=(\\d+)");
+	// Attributes removed along with the PayloadTypes removed from the m= line
+	private static final Pattern PT_ATTRIBUTE_PATTERN = Pattern
+			.compile("^a=(?:extmap|rtpmap|fmtp|rtcp-fb):(\\S+) .");
 
-	private final String PT_PATTERN = "a=rtpmap:(\\d+) %s/90000";
-	private final String EXTRA_PT_PATTERN = "a=fmtp:(\\d+) apt=%s";
-	private final List<String> PATTERNS = Collections.unmodifiableList(
-			Arrays.asList("^a=extmap:%s .+$", "^a=rtpmap:%s .+$", "^a=fmtp:%s .+$", "^a=rtcp-fb:%s .+$"));
+	private Set<VideoCodec> supportedVideoCodecs = new HashSet<>(Arrays.asList(VideoCodec.VP8, VideoCodec.H264));
 
 	/**
 	 * `codec` is a uppercase SDP-style codec name: "VP8", "H264".
 	 *
 	 * This looks for all video m-sections (lines starting with "m=video"), then
 	 * searches all of its related PayloadTypes trying to find those which
-	 * correspond to the preferred codec. If any is found, they are moved to the
-	 * front of the PayloadTypes list in the m= line, without removing the other
-	 * codecs that might be present.
+	 * correspond to the preferred codec (and their RTX PayloadTypes). If any is
+	 * found, the m= line is rewritten to list only them, and the attributes of the
+	 * other PayloadTypes of the m-section (rtpmap, fmtp, rtcp-fb) are removed.
 	 *
-	 * If our preferred codec is not found, the m= line is left without changes.
+	 * If our preferred codec is not found in a video m-section, an exception is
+	 * thrown.
 	 *
 	 * This works based on the basis that RFC 3264 "Offer/Answer Model SDP" section
 	 * 6.1 "Unicast Streams" allows the answerer to list media formats in a
@@ -67,98 +69,120 @@ public class SDPMunging {
 	 * Here we have a specific reason, thus we use this allowance to change the
 	 * ordering of formats. Browsers (tested with Chrome 84) honor this change and
 	 * use the first codec provided in the answer, so this operation actually works.
+	 *
+	 * The SDP is processed in a single pass: lines are tokenized one by one, and
+	 * every video m-section is rewritten as soon as its last line is read
 	 */
 	public String setCodecPreference(VideoCodec codec, String sdp) throws OpenViduException {
 		String codecStr = codec.name();
 		log.info("[setCodecPreference] codec: {}", codecStr);
 
-		List<String> usedCodecPts = new ArrayList<String>();
-		List<String> unusedCodecPts = new ArrayList<String>();
-		String[] lines = sdp.split("\\R+");
-		Pattern ptRegex = Pattern.compile(String.format(PT_PATTERN, codecStr));
+		StringBuilder mungedSdp = new StringBuilder(sdp.length());
+		List<String> videoSection = new ArrayList<>();
+		boolean inVideoSection = false;
 
-		for (int sl = 0; sl < lines.length; sl++) {
-			String sdpLine = lines[sl];
-
-			if (!sdpLine.startsWith("m=video")) {
-				continue;
+		int length = sdp.length();
+		int lineStart = 0;
+		while (lineStart < length) {
+			int lineEnd = lineStart;
+			while (lineEnd < length && sdp.charAt(lineEnd) != '\r' && sdp.charAt(lineEnd) != '\n') {
+				lineEnd++;
 			}
+			if (lineEnd > lineStart) {
+				String line = sdp.substring(lineStart, lineEnd);
+				if (line.startsWith("m=")) {
+					if (inVideoSection) {
+						mungeVideoSection(codecStr, videoSection, mungedSdp);
+						videoSection.clear();
+					}
+					inVideoSection = line.startsWith("m=video");
+				}
+				if (inVideoSection) {
+					videoSection.add(line);
+				} else {
+					mungedSdp.append(line).append("\r\n");
+				}
+			}
+			// Skip the line break, including empty lines
+			lineStart = lineEnd + 1;
+		}
+		if (inVideoSection) {
+			mungeVideoSection(codecStr, videoSection, mungedSdp);
+		}
 
-			// m-section found. Prepare an array to store PayloadTypes
-			usedCodecPts.clear();
-
-			// Search the m-section to find our codec's PayloadType, if any
-			for (int ml = sl + 1; ml < lines.length; ml++) {
-				String mediaLine = lines[ml];
+		return mungedSdp.toString();
+	}
 
-				// Abort if we reach the next m-section.
-				if (mediaLine.startsWith("m=")) {
-					break;
+	/**
+	 * Appends to `mungedSdp` the video m-section whose lines are `section`
+	 * (starting with its m= line), keeping only the PayloadTypes of `codec`
+	 */
+	private void mungeVideoSection(String codec, List<String> section, StringBuilder mungedSdp)
+			throws OpenViduException {
+
+		// PayloadTypes of the codec and RTX PayloadTypes with their associated one
+		List<String> codecPts = new ArrayList<>();
+		List<String[]> rtxPts = new ArrayList<>();
+		for (int i = 1; i < section.size(); i++) {
+			String line = section.get(i);
+			if (line.startsWith("a=rtpmap:")) {
+				Matcher rtpmap = RTPMAP_PATTERN.matcher(line);
+				if (rtpmap.find() && rtpmap.group(2).equalsIgnoreCase(codec)) {
+					codecPts.add(rtpmap.group(1));
 				}
-
-				Matcher ptMatch = ptRegex.matcher(mediaLine);
-				if (ptMatch.find()) {
-					// PayloadType found
-					String pt = ptMatch.group(1);
-					usedCodecPts.add(pt);
-
-					// Search the m-section to find the APT subtype, if any
-					Pattern aptRegex = Pattern.compile(String.format(EXTRA_PT_PATTERN, pt));
-
-					for (int al = sl + 1; al < lines.length; al++) {
-						String aptLine = lines[al];
-
-						// Abort if we reach the next m-section
-						if (aptLine.startsWith("m=")) {
-							break;
-						}
-
-						Matcher aptMatch = aptRegex.matcher(aptLine);
-						if (aptMatch.find()) {
-							// APT found
-							String apt = aptMatch.group(1);
-							usedCodecPts.add(apt);
-						}
-					}
+			} else if (line.startsWith("a=fmtp:")) {
+				Matcher apt = APT_PATTERN.matcher(line);
+				if (apt.find()) {
+					rtxPts.add(new String[] { apt.group(1), apt.group(2) });
 				}
 			}
+		}
 
-			if (usedCodecPts.isEmpty()) {
-				throw new OpenViduException(Code.FORCED_CODEC_NOT_FOUND_IN_SDPOFFER,
-						"The specified forced codec " + codecStr + " is not present in the SDP");
+		List<String> usedCodecPts = new ArrayList<>();
+		for (String pt : codecPts) {
+			usedCodecPts.add(pt);
+			for (String[] rtxPt : rtxPts) {
+				if (rtxPt[1].equals(pt)) {
+					usedCodecPts.add(rtxPt[0]);
+				}
 			}
+		}
 
-			// Build a new m= line where any PayloadTypes found have been moved
-			// to the front of the PT list
-			StringBuilder newLine = new StringBuilder(sdpLine.length());
-			List<String> lineParts = new ArrayList<String>(Arrays.asList(sdpLine.split(" ")));
-
-			if (lineParts.size() < 4) {
-				log.error("[setCodecPreference] BUG in m= line: Expects at least 4 fields: '{}'", sdpLine);
-				continue;
-			}
+		if (usedCodecPts.isEmpty()) {
+			throw new OpenViduException(Code.FORCED_CODEC_NOT_FOUND_IN_SDPOFFER,
+					"The specified forced codec " + codec + " is not present in the SDP");
+		}
 
-			// Add "m=video", Port, and Protocol
-			for (int i = 0; i < 3; i++) {
-				newLine.append(lineParts.remove(0) + " ");
+		String mLine = section.get(0);
+		String[] lineParts = mLine.split(" ");
+		if (lineParts.length < 4) {
+			log.error("[setCodecPreference] BUG in m= line: Expects at least 4 fields: '{}'", mLine);
+			for (String line : section) {
+				mungedSdp.append(line).append("\r\n");
 			}
+			return;
+		}
 
-			// Add the PayloadTypes that correspond to our preferred codec
-			for (String pt : usedCodecPts) {
-				lineParts.remove(pt);
-				newLine.append(pt + " ");
+		// Build a new m= line with "m=video", Port, Protocol and the PayloadTypes
+		// that correspond to our preferred codec. The rest of them are removed
+		Set<String> unusedCodecPts = new HashSet<>(Arrays.asList(lineParts).subList(3, lineParts.length));
+		unusedCodecPts.removeAll(usedCodecPts);
+		mungedSdp.append(lineParts[0]).append(' ').append(lineParts[1]).append(' ').append(lineParts[2]);
+		for (String pt : usedCodecPts) {
+			mungedSdp.append(' ').append(pt);
+		}
+		mungedSdp.append("\r\n");
+
+		for (int i = 1; i < section.size(); i++) {
+			String line = section.get(i);
+			if (!unusedCodecPts.isEmpty() && line.startsWith("a=")) {
+				Matcher attribute = PT_ATTRIBUTE_PATTERN.matcher(line);
+				if (attribute.find() && unusedCodecPts.contains(attribute.group(1))) {
+					continue;
+				}
 			}
-
-			// Collect all codecs to remove
-			unusedCodecPts.addAll(lineParts);
-
-			// Replace the original m= line with the one we just built
-			lines[sl] = newLine.toString().trim();
+			mungedSdp.append(line).append("\r\n");
 		}
-
-		lines = cleanLinesWithRemovedCodecs(unusedCodecPts, lines);
-
-		return String.join("\r\n", lines) + "\r\n";
 	}
 
 	/**
@@ -211,15 +235,4 @@ public class SDPMunging {
 		}
 	}
 
-	private String[] cleanLinesWithRemovedCodecs(List<String> removedCodecs, String[] lines) {
-		List<String> listOfLines = new ArrayList<>(Arrays.asList(lines));
-		removedCodecs.forEach(unusedPt -> {
-			for (String pattern : PATTERNS) {
-				listOfLines.removeIf(Pattern.compile(String.format(pattern, unusedPt)).asPredicate());
-			}
-		});
-		lines = listOfLines.toArray(new String[0]);
-		return lines;
-	}
-
 }
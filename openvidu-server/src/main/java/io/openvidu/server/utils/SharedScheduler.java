@@ -0,0 +1,109 @@
+/*
+ * (C) Copyright 2017-2020 OpenVidu (https://openvidu.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.openvidu.server.utils;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Process-wide scheduler for every timer of OpenVidu Server. A single thread
+ * keeps track of all pending delays and, when one of them expires, hands the
+ * task over to a bounded pool of worker threads that are only created on
+ * demand and are discarded after being idle for a while. This way an idle
+ * server does not keep one thread per timer, and a slow task (for example
+ * closing all the sessions of a crashed Media Node) does not delay the rest of
+ * timers. Expired tasks wait in a queue when every worker is busy.
+ */
+public final class SharedScheduler {
+
+	private static final Logger log = LoggerFactory.getLogger(SharedScheduler.class);
+
+	private static final int WORKER_THREADS = Math.max(8, Runtime.getRuntime().availableProcessors() * 2);
+	private static final long WORKER_KEEP_ALIVE = 60; // seconds
+
+	private static final ScheduledThreadPoolExecutor timer;
+	private static final ThreadPoolExecutor workers;
+
+	static {
+		timer = new ScheduledThreadPoolExecutor(1, daemonThreadFactory("openvidu-scheduler"));
+		// Cancelled timers (e.g. automatic recording stop) must not stay in the queue
+		timer.setRemoveOnCancelPolicy(true);
+		timer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+		workers = new ThreadPoolExecutor(WORKER_THREADS, WORKER_THREADS, WORKER_KEEP_ALIVE, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), daemonThreadFactory("openvidu-scheduler-worker"));
+		workers.allowCoreThreadTimeOut(true);
+	}
+
+	private SharedScheduler() {
+	}
+
+	/**
+	 * Runs the task once after the given delay. Cancelling the returned future
+	 * prevents the execution of the task if it has not started yet
+	 */
+	public static ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+		return timer.schedule(() -> dispatch(task), delay, unit);
+	}
+
+	/**
+	 * @return Number of timers waiting for their delay to expire
+	 */
+	public static int getPendingTasks() {
+		return timer.getQueue().size();
+	}
+
+	/**
+	 * @return Number of tasks being executed right now
+	 */
+	public static int getActiveTasks() {
+		return workers.getActiveCount();
+	}
+
+	private static void dispatch(Runnable task) {
+		try {
+			workers.execute(() -> {
+				try {
+					task.run();
+				} catch (Throwable t) {
+					log.error("Exception running scheduled task: {}", t.getMessage(), t);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			log.error("Scheduled task could not be executed: {}", e.getMessage());
+		}
+	}
+
+	private static ThreadFactory daemonThreadFactory(String name) {
+		AtomicInteger counter = new AtomicInteger(0);
+		return runnable -> {
+			Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+}
@@ -1,21 +1,30 @@
 package io.openvidu.server.utils;
 
 import java.util.Objects;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class UpdatableTimerTask extends TimerTask {
+/**
+ * Periodic task whose period may change between executions. Executions are
+ * scheduled in the {@link SharedScheduler}, so no thread is dedicated to the
+ * timer while it is waiting.
+ */
+public class UpdatableTimerTask {
 
 	private static final Logger log = LoggerFactory.getLogger(UpdatableTimerTask.class);
 
-	private Runnable task;
-	private Supplier<Long> period;
+	private final Runnable task;
+	private final Supplier<Long> period;
+
 	private Long oldP;
-	private Timer timer;
+	private ScheduledFuture<?> nextExecution;
+	// Increased every time the timer is rescheduled or cancelled, so executions
+	// belonging to a previous schedule do not schedule the following ones
+	private long generation = 0;
 
 	/**
 	 * @param task   The task to run periodically.
@@ -34,42 +43,49 @@ public class UpdatableTimerTask extends TimerTask {
 		this.period = period;
 	}
 
-	private UpdatableTimerTask(Runnable task, Supplier<Long> period, Long oldP) {
-		this(task, period);
-		this.oldP = oldP;
-	}
-
-	public final void updateTimer() {
+	public final synchronized void updateTimer() {
 		Long p = period.get();
 		Objects.requireNonNull(p);
-		if (oldP == null || !oldP.equals(p)) {
-			cancel();
-			if (timer == null) {
-				timer = new Timer();
-			} else {
-				timer.cancel();
-				timer.purge();
-			}
-			timer.schedule(new UpdatableTimerTask(task, period, p), p, p);
+		if (oldP == null || !oldP.equals(p) || nextExecution == null) {
+			cancelNextExecution();
+			generation++;
+			scheduleNextExecution(p);
 		}
 	}
 
-	public final void cancelTimer() {
-		cancel();
-		timer.cancel();
-		timer.purge();
+	public final synchronized void cancelTimer() {
+		cancelNextExecution();
+		generation++;
 	}
 
-	@Override
-	public void run() {
+	private void run(long executionGeneration) {
 		// Protect the inner run method so if any exception is thrown, the following
-		// scheduled TimerTask doesn't get cancelled
+		// execution doesn't get cancelled
 		try {
 			task.run();
 		} catch (Exception e) {
 			log.error("Exception running UpdatableTimerTask: {} - {}", e.getMessage(), e.getStackTrace());
 		}
-		updateTimer();
+		synchronized (this) {
+			if (executionGeneration == generation) {
+				Long p = period.get();
+				Objects.requireNonNull(p);
+				scheduleNextExecution(p);
+			}
+		}
+	}
+
+	private void scheduleNextExecution(long p) {
+		final long executionGeneration = generation;
+		oldP = p;
+		nextExecution = SharedScheduler.schedule(() -> run(executionGeneration), p, TimeUnit.MILLISECONDS);
+	}
+
+	private void cancelNextExecution() {
+		if (nextExecution != null) {
+			nextExecution.cancel(false);
+			nextExecution = null;
+		}
 	}
 
 }
@@ -0,0 +1,84 @@
+/*
+ * (C) Copyright 2017-2020 OpenVidu (https://openvidu.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.openvidu.server.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FilenameUtils;
+
+public class ZipUtils {
+
+	private static final int BUFFER_SIZE = 1024 * 1024;
+
+	/**
+	 * Writes a ZIP archive with the given files to the output stream, which is not
+	 * closed. Files with an extension contained in storedExtensions (media that is
+	 * already compressed) are stored without compression, so they are only read
+	 * to calculate their checksum and then copied. The rest of files are deflated
+	 */
+	public static void zipFiles(Collection<File> files, Set<String> storedExtensions, OutputStream outputStream)
+			throws IOException {
+		ZipOutputStream zipOut = new ZipOutputStream(outputStream);
+		ByteBuffer crcBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		byte[] buffer = new byte[BUFFER_SIZE];
+		for (File file : files) {
+			ZipEntry entry = new ZipEntry(file.getName());
+			if (storedExtensions.contains(FilenameUtils.getExtension(file.getName()))) {
+				entry.setMethod(ZipEntry.STORED);
+				entry.setSize(file.length());
+				entry.setCompressedSize(file.length());
+				entry.setCrc(crc32(file, crcBuffer));
+			}
+			zipOut.putNextEntry(entry);
+			try (InputStream fis = new FileInputStream(file)) {
+				int length;
+				while ((length = fis.read(buffer)) >= 0) {
+					zipOut.write(buffer, 0, length);
+				}
+			}
+			zipOut.closeEntry();
+		}
+		zipOut.finish();
+	}
+
+	private static long crc32(File file, ByteBuffer buffer) throws IOException {
+		CRC32 crc = new CRC32();
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			buffer.clear();
+			while (channel.read(buffer) >= 0) {
+				buffer.flip();
+				crc.update(buffer);
+				buffer.clear();
+			}
+		}
+		return crc.getValue();
+	}
+
+}
@@ -32,8 +32,10 @@ public class CDRLoggerWebhook implements CDRLogger {
 
 	private HttpWebhookSender webhookSender;
 
-	public CDRLoggerWebhook(String webhookEndpoint, List<Header> webhookHeaders, List<CDREventName> webhookEvents) {
-		this.webhookSender = new HttpWebhookSender(webhookEndpoint, webhookHeaders, webhookEvents);
+	public CDRLoggerWebhook(String webhookEndpoint, List<Header> webhookHeaders, List<CDREventName> webhookEvents,
+			int queueSize, int batchSize, int batchTimeout, int workers, int maxRetries, String spoolPath) {
+		this.webhookSender = new HttpWebhookSender(webhookEndpoint, webhookHeaders, webhookEvents, queueSize, batchSize,
+				batchTimeout, workers, maxRetries, spoolPath);
 	}
 
 	@Override
@@ -53,4 +55,18 @@ public class CDRLoggerWebhook implements CDRLogger {
 	public void log(SessionSummary sessionSummary) {
 	}
 
+	/**
+	 * Events are queued by {@link HttpWebhookSender} and serialized by its own
+	 * threads
+	 */
+	@Override
+	public boolean isAsync() {
+		return true;
+	}
+
+	@Override
+	public void close() {
+		this.webhookSender.close();
+	}
+
 }
@@ -24,10 +24,19 @@ import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLContext;
@@ -38,7 +47,6 @@ import org.apache.http.HttpHeaders;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.HttpClient;
-import org.apache.http.client.HttpRequestRetryHandler;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.config.Registry;
@@ -51,14 +59,13 @@ import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.message.BasicHeader;
-import org.apache.http.protocol.HttpContext;
 import org.apache.http.ssl.SSLContextBuilder;
 import org.apache.http.ssl.TrustStrategy;
 import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.gson.JsonObject;
+import com.google.gson.JsonArray;
 
 import io.openvidu.server.cdr.CDREvent;
 import io.openvidu.server.cdr.CDREventName;
@@ -67,16 +74,76 @@ public class HttpWebhookSender {
 
 	private static final Logger log = LoggerFactory.getLogger(HttpWebhookSender.class);
 
+	private static final long INITIAL_RETRY_BACKOFF = 500;
+	private static final long MAX_RETRY_BACKOFF = 30000;
+	private static final long SPOOL_DRAIN_INTERVAL = 1000;
+	private static final int SPOOL_READ_CHUNK = 1000;
+	private static final int SPOOL_WRITE_BATCH = 1000;
+	private static final long CLOSE_TIMEOUT = 5000;
+
 	private HttpClient httpClient;
 	private String httpEndpoint;
 	private List<Header> customHeaders;
 	private List<CDREventName> events;
 
-	private ExecutorService executor = Executors.newSingleThreadExecutor();
+	private final int batchSize;
+	private final int batchTimeout;
+	private final int maxRetries;
+
+	/**
+	 * One bounded queue per worker. All the events of the same session are
+	 * always handled by the same worker, so they are delivered in order
+	 */
+	private final List<BlockingQueue<WebhookEvent>> queues = new ArrayList<>();
+	private final List<Thread> workers = new ArrayList<>();
+	private volatile boolean running = true;
+
+	private WebhookSpool spool;
+	private ScheduledExecutorService spoolDrainer;
+
+	/**
+	 * Number of events of each session stored in the spool or waiting to be
+	 * written to it. While a session has events in the spool its new events are
+	 * spooled too, so they are never delivered before the older ones. Events to be
+	 * spooled are only kept in memory by the threads producing them, and written
+	 * to disk by the spool drainer. Both are guarded by spoolLock, which is also
+	 * held to put events in the queues when there is a spool. No file is accessed
+	 * holding it
+	 */
+	private final Map<String, Integer> spooledEventsBySession = new HashMap<>();
+	private List<WebhookEvent> eventsToSpool = new ArrayList<>();
+	private final Object spoolLock = new Object();
 
-	public HttpWebhookSender(String httpEndpoint, List<Header> headers, List<CDREventName> events) {
+	/**
+	 * Held to write to the spool, so events are written in the same order they
+	 * were spooled
+	 */
+	private final Object spoolWriteLock = new Object();
+
+	private final AtomicLong discardedEvents = new AtomicLong(0);
+
+	/**
+	 * @param queueSize    Maximum number of events waiting to be delivered. It is
+	 *                     evenly split among all workers
+	 * @param batchSize    Maximum number of events posted in the same request. If
+	 *                     1 every event is posted as a JSON object. If greater
+	 *                     than 1 events are always posted as a JSON array
+	 * @param batchTimeout Maximum milliseconds to wait for a batch to be filled
+	 *                     before posting it
+	 * @param workers      Number of events posted in parallel
+	 * @param maxRetries   Maximum number of retries of a failed request, with
+	 *                     exponential backoff between them
+	 * @param spoolPath    Folder where to store the events that do not fit in the
+	 *                     queue or that could not be posted after all the
+	 *                     retries. If null those events are discarded
+	 */
+	public HttpWebhookSender(String httpEndpoint, List<Header> headers, List<CDREventName> events, int queueSize,
+			int batchSize, int batchTimeout, int workers, int maxRetries, String spoolPath) {
 		this.httpEndpoint = httpEndpoint;
 		this.events = events;
+		this.batchSize = batchSize;
+		this.batchTimeout = batchTimeout;
+		this.maxRetries = maxRetries;
 
 		this.customHeaders = new ArrayList<>();
 		boolean contentTypeHeaderAdded = false;
@@ -91,14 +158,6 @@ public class HttpWebhookSender {
 			this.customHeaders.add(new BasicHeader(HttpHeaders.CONTENT_TYPE, "application/json"));
 		}
 
-		// Retry request a minimum of 5 times
-		HttpRequestRetryHandler requestRetryHandler = new HttpRequestRetryHandler() {
-			@Override
-			public boolean retryRequest(IOException exception, int executionCount, HttpContext context) {
-				return executionCount < 5;
-			}
-		};
-
 		// Accept insecure certificates
 		SSLContext sslContext;
 		try {
@@ -121,27 +180,312 @@ public class HttpWebhookSender {
 		Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory>create()
 				.register("http", new PlainConnectionSocketFactory()).register("https", sslsf).build();
 
-		// Close after 3 seconds of inactivity
+		// Close after 3 seconds of inactivity. One connection per worker
 		PoolingHttpClientConnectionManager cm = new PoolingHttpClientConnectionManager(socketFactoryRegistry);
 		cm.setValidateAfterInactivity(3000);
+		cm.setMaxTotal(workers);
+		cm.setDefaultMaxPerRoute(workers);
 
 		// Socket 10 seconds timeout
 		RequestConfig.Builder requestConfigBuilder = RequestConfig.custom().setConnectTimeout(10000)
 				.setSocketTimeout(10000);
 
+		// Failed requests are retried by the workers with exponential backoff
 		this.httpClient = HttpClientBuilder.create().setDefaultRequestConfig(requestConfigBuilder.build())
 				.setConnectionTimeToLive(30, TimeUnit.SECONDS).setSSLHostnameVerifier(NoopHostnameVerifier.INSTANCE)
-				.setConnectionManager(cm).setRetryHandler(requestRetryHandler).build();
+				.setConnectionManager(cm).disableAutomaticRetries().build();
+
+		for (int i = 0; i < workers; i++) {
+			final BlockingQueue<WebhookEvent> queue = new ArrayBlockingQueue<>(Math.max(1, queueSize / workers));
+			this.queues.add(queue);
+			Thread worker = new Thread(() -> this.runWorker(queue), "webhook-worker-" + i);
+			// close() waits for the queued events, so workers do not keep the JVM alive
+			worker.setDaemon(true);
+			this.workers.add(worker);
+			worker.start();
+		}
+
+		if (spoolPath != null) {
+			this.spool = new WebhookSpool(spoolPath);
+			this.spoolDrainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "webhook-spool-drainer");
+				thread.setDaemon(true);
+				return thread;
+			});
+			this.spoolDrainer.scheduleWithFixedDelay(() -> this.drainSpool(), 0, SPOOL_DRAIN_INTERVAL,
+					TimeUnit.MILLISECONDS);
+		}
 	}
 
 	public void sendHttpPostCallbackAsync(CDREvent event) {
-		executor.execute(() -> {
+		if (!this.events.contains(event.getEventName())) {
+			return;
+		}
+		WebhookEvent webhookEvent = new WebhookEvent(event.snapshot());
+		if (!this.running) {
+			synchronized (this.spoolLock) {
+				this.spoolOrDiscard(webhookEvent, "Webhook sender is closed");
+			}
+			this.writeSpool();
+			return;
+		}
+		if (this.spool == null) {
+			if (!this.getQueue(webhookEvent).offer(webhookEvent)) {
+				log.error("Webhook queue is full. Event {} discarded ({} events discarded so far)",
+						event.getEventName().name(), this.discardedEvents.incrementAndGet());
+			}
+			return;
+		}
+		synchronized (this.spoolLock) {
+			if (this.spooledEventsBySession.containsKey(webhookEvent.getSessionId())) {
+				this.spoolOrDiscard(webhookEvent, "Older events of the same session are in the spool");
+			} else if (!this.getQueue(webhookEvent).offer(webhookEvent)) {
+				this.spoolOrDiscard(webhookEvent, "Webhook queue is full");
+			}
+		}
+	}
+
+	public int getNumberOfQueuedEvents() {
+		return this.queues.stream().mapToInt(BlockingQueue::size).sum();
+	}
+
+	public long getNumberOfDiscardedEvents() {
+		return this.discardedEvents.get();
+	}
+
+	/**
+	 * Stops accepting events and waits for the queued ones to be delivered for a
+	 * while. Events not delivered by then are stored in the spool, or discarded if
+	 * there is no spool
+	 */
+	public void close() {
+		if (!this.running) {
+			return;
+		}
+		if (this.spoolDrainer != null) {
+			this.spoolDrainer.shutdown();
+		}
+		this.running = false;
+
+		final long deadline = System.currentTimeMillis() + CLOSE_TIMEOUT;
+		try {
+			if (this.spoolDrainer != null) {
+				this.spoolDrainer.awaitTermination(CLOSE_TIMEOUT, TimeUnit.MILLISECONDS);
+			}
+			for (Thread worker : this.workers) {
+				worker.join(Math.max(1, deadline - System.currentTimeMillis()));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		// Workers still delivering events store their batch before stopping
+		for (Thread worker : this.workers) {
+			if (worker.isAlive()) {
+				worker.interrupt();
+				try {
+					worker.join(1000);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+
+		int pending = 0;
+		synchronized (this.spoolLock) {
+			for (BlockingQueue<WebhookEvent> queue : this.queues) {
+				List<WebhookEvent> webhookEvents = new ArrayList<>();
+				queue.drainTo(webhookEvents);
+				pending += webhookEvents.size();
+				webhookEvents.forEach(webhookEvent -> this.spoolOrDiscard(webhookEvent, "Webhook sender is closed"));
+			}
+		}
+		if (pending > 0) {
+			log.warn("{} webhook events not delivered before closing", pending);
+		}
+		if (this.spool != null) {
+			this.writeSpool();
+			this.spool.close();
+		}
+	}
+
+	private BlockingQueue<WebhookEvent> getQueue(WebhookEvent webhookEvent) {
+		return this.queues.get(Math.floorMod(webhookEvent.getSessionId().hashCode(), this.queues.size()));
+	}
+
+	private void runWorker(BlockingQueue<WebhookEvent> queue) {
+		List<WebhookEvent> batch = new ArrayList<>(this.batchSize);
+		while (this.running || !queue.isEmpty()) {
+			try {
+				WebhookEvent first = queue.poll(500, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				if (this.batchSize > 1) {
+					final long deadline = System.currentTimeMillis() + this.batchTimeout;
+					while (batch.size() < this.batchSize) {
+						long remaining = deadline - System.currentTimeMillis();
+						WebhookEvent next = remaining > 0 ? queue.poll(remaining, TimeUnit.MILLISECONDS) : queue.poll();
+						if (next == null) {
+							break;
+						}
+						batch.add(next);
+					}
+				}
+				this.deliver(queue, batch);
+			} catch (InterruptedException e) {
+				synchronized (this.spoolLock) {
+					batch.forEach(webhookEvent -> this.spoolOrDiscard(webhookEvent, "Webhook sender is closed"));
+				}
+				Thread.currentThread().interrupt();
+				return;
+			} finally {
+				batch.clear();
+			}
+		}
+	}
+
+	private void deliver(BlockingQueue<WebhookEvent> queue, List<WebhookEvent> batch) throws InterruptedException {
+		String body;
+		if (this.batchSize == 1) {
+			body = batch.get(0).toJson().toString();
+		} else {
+			JsonArray jsonArray = new JsonArray(batch.size());
+			batch.forEach(webhookEvent -> jsonArray.add(webhookEvent.toJson()));
+			body = jsonArray.toString();
+		}
+		String eventNames = batch.stream().map(WebhookEvent::getEventName)
+				.collect(Collectors.joining(","));
+
+		long backoff = INITIAL_RETRY_BACKOFF;
+		for (int retry = 0;; retry++) {
 			try {
-				this.sendHttpPostCallbackBlocking(event);
+				this.sendHttpPostCallbackBlocking(body, eventNames);
+				return;
 			} catch (IOException e) {
-				log.error("Error sending webhook event: {}", e.getMessage());
+				if (retry >= this.maxRetries) {
+					this.giveUp(queue, batch, eventNames, retry);
+					return;
+				}
+				log.warn("Retrying to post event(s) [{}] in {} ms", eventNames, backoff);
+				Thread.sleep(backoff);
+				backoff = Math.min(backoff * 2, MAX_RETRY_BACKOFF);
 			}
-		});
+		}
+	}
+
+	/**
+	 * Spools the events that could not be posted after all the retries. The
+	 * events of the same sessions waiting in the queue are moved to the spool
+	 * after them, so they are not delivered out of order
+	 */
+	private void giveUp(BlockingQueue<WebhookEvent> queue, List<WebhookEvent> batch, String eventNames, int retries) {
+		if (this.spool == null) {
+			log.error("Event(s) [{}] discarded after {} retries", eventNames, retries);
+			this.discardedEvents.addAndGet(batch.size());
+			return;
+		}
+		log.warn("Event(s) [{}] not posted after {} retries. Storing them in spool {}", eventNames, retries,
+				this.spool.getPath());
+		Set<String> sessionIds = new HashSet<>();
+		synchronized (this.spoolLock) {
+			for (WebhookEvent webhookEvent : batch) {
+				sessionIds.add(webhookEvent.getSessionId());
+				this.spoolOrDiscard(webhookEvent, "Webhook endpoint unavailable");
+			}
+			// This worker is the only consumer of its queue, and producers hold the lock
+			for (WebhookEvent webhookEvent : new ArrayList<>(queue)) {
+				if (sessionIds.contains(webhookEvent.getSessionId())) {
+					queue.remove(webhookEvent);
+					this.spoolOrDiscard(webhookEvent, "Webhook endpoint unavailable");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Moves the oldest spooled events to the queues, in bounded chunks and only as
+	 * far as there is plenty of room for them. Events are moved in order, so once
+	 * one of them does not fit in its queue all the next ones stay in the spool
+	 */
+	private void drainSpool() {
+		this.writeSpool();
+		List<WebhookEvent> spooledEvents;
+		int moved;
+		do {
+			int room = this.queues.stream().mapToInt(queue -> Math.max(0, queue.remainingCapacity() - queue.size()))
+					.sum();
+			spooledEvents = this.spool.read(Math.min(room, SPOOL_READ_CHUNK)).stream().map(WebhookEvent::new)
+					.collect(Collectors.toList());
+			moved = 0;
+			synchronized (this.spoolLock) {
+				for (WebhookEvent webhookEvent : spooledEvents) {
+					if (!this.getQueue(webhookEvent).offer(webhookEvent)) {
+						break;
+					}
+					this.spooledEventsBySession.computeIfPresent(webhookEvent.getSessionId(),
+							(sessionId, count) -> count > 1 ? count - 1 : null);
+					moved++;
+				}
+			}
+			this.spool.consume(moved);
+			if (moved > 0) {
+				log.info("Recovered {} webhook events from spool {}", moved, this.spool.getPath());
+			}
+		} while (moved > 0 && moved == spooledEvents.size());
+	}
+
+	/**
+	 * Writes to disk the events spooled since the last call
+	 */
+	private void writeSpool() {
+		synchronized (this.spoolWriteLock) {
+			List<WebhookEvent> webhookEvents;
+			synchronized (this.spoolLock) {
+				if (this.eventsToSpool.isEmpty()) {
+					return;
+				}
+				webhookEvents = this.eventsToSpool;
+				this.eventsToSpool = new ArrayList<>();
+			}
+			try {
+				this.spool.append(webhookEvents.stream().map(WebhookEvent::toJson).collect(Collectors.toList()));
+			} catch (IOException e) {
+				synchronized (this.spoolLock) {
+					for (WebhookEvent webhookEvent : webhookEvents) {
+						this.spooledEventsBySession.computeIfPresent(webhookEvent.getSessionId(),
+								(sessionId, count) -> count > 1 ? count - 1 : null);
+					}
+				}
+				log.error("Error storing webhook events in spool {}: {}. {} events discarded ({} events discarded so far)",
+						this.spool.getPath(), e.getMessage(), webhookEvents.size(),
+						this.discardedEvents.addAndGet(webhookEvents.size()));
+			}
+		}
+	}
+
+	/**
+	 * Must be called holding spoolLock. Spooled events are written to disk later
+	 * by {@link #writeSpool()}
+	 */
+	private void spoolOrDiscard(WebhookEvent webhookEvent, String reason) {
+		String eventName = webhookEvent.getEventName();
+		if (this.spool != null) {
+			this.eventsToSpool.add(webhookEvent);
+			this.spooledEventsBySession.merge(webhookEvent.getSessionId(), 1, Integer::sum);
+			log.warn("{}. Event {} stored in spool {}", reason, eventName, this.spool.getPath());
+			if (this.eventsToSpool.size() == SPOOL_WRITE_BATCH && this.running) {
+				// Do not wait for the next drain to write a large batch
+				try {
+					this.spoolDrainer.execute(this::writeSpool);
+				} catch (RejectedExecutionException e) {
+					// Closing. Events are written by close()
+				}
+			}
+		} else {
+			log.error("{}. Event {} discarded ({} events discarded so far)", reason, eventName,
+					this.discardedEvents.incrementAndGet());
+		}
 	}
 
 	/**
@@ -149,18 +493,11 @@ public class HttpWebhookSender {
 	 *                     endpoint B) The response received from the endpoint is
 	 *                     not 200
 	 */
-	private void sendHttpPostCallbackBlocking(CDREvent event) throws IOException {
-
-		if (!this.events.contains(event.getEventName())) {
-			return;
-		}
+	private void sendHttpPostCallbackBlocking(String body, String eventNames) throws IOException {
 
 		HttpPost request = new HttpPost(httpEndpoint);
 
-		StringEntity params = null;
-		JsonObject jsonEvent = event.toJson();
-		jsonEvent.addProperty("event", event.getEventName().name());
-		params = new StringEntity(jsonEvent.toString(), "UTF-8");
+		StringEntity params = new StringEntity(body, "UTF-8");
 
 		for (Header header : this.customHeaders) {
 			request.setHeader(header);
@@ -172,20 +509,20 @@ public class HttpWebhookSender {
 			response = this.httpClient.execute(request);
 			int statusCode = response.getStatusLine().getStatusCode();
 			if ((statusCode == org.apache.http.HttpStatus.SC_OK)) {
-				log.info("Event {} successfully posted to uri {}", event.getEventName().name(), this.httpEndpoint);
+				log.info("Event(s) [{}] successfully posted to uri {}", eventNames, this.httpEndpoint);
 			} else {
 				log.error("Unexpected HTTP status from callback endpoint {}: expected 200, received {}", httpEndpoint,
 						statusCode);
 				throw new IOException("Unexpected HTTP status " + statusCode);
 			}
 		} catch (ClientProtocolException e) {
-			String message = "ClientProtocolException posting event [" + event.getEventName().name() + "] to endpoint "
+			String message = "ClientProtocolException posting event(s) [" + eventNames + "] to endpoint "
 					+ httpEndpoint + ": " + e.getMessage();
 			log.error(message);
 			throw new ClientProtocolException(message);
 		} catch (IOException e) {
-			String message = "IOException posting event [" + event.getEventName().name() + "] to endpoint "
-					+ httpEndpoint + ": " + e.getMessage();
+			String message = "IOException posting event(s) [" + eventNames + "] to endpoint " + httpEndpoint + ": "
+					+ e.getMessage();
 			log.error(message);
 			throw new IOException(message);
 		} finally {
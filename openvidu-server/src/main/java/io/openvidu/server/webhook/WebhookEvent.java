@@ -0,0 +1,71 @@
+/*
+ * (C) Copyright 2017-2020 OpenVidu (https://openvidu.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.openvidu.server.webhook;
+
+import com.google.gson.JsonObject;
+
+import io.openvidu.server.cdr.CDREvent;
+
+/**
+ * Event waiting to be posted by {@link HttpWebhookSender}. The JSON of the
+ * event is built the first time it is needed, by the thread posting or spooling
+ * it, never by the thread generating it
+ */
+final class WebhookEvent {
+
+	private final String sessionId;
+	private final String eventName;
+	private CDREvent event;
+	private JsonObject json;
+
+	/**
+	 * @param event Snapshot of the event ({@link CDREvent#snapshot()})
+	 */
+	WebhookEvent(CDREvent event) {
+		this.sessionId = event.getSessionId() != null ? event.getSessionId() : "";
+		this.eventName = event.getEventName().name();
+		this.event = event;
+	}
+
+	/**
+	 * @param json Event already serialized, as stored in the spool
+	 */
+	WebhookEvent(JsonObject json) {
+		this.sessionId = json.has("sessionId") ? json.get("sessionId").getAsString() : "";
+		this.eventName = json.get("event").getAsString();
+		this.json = json;
+	}
+
+	String getSessionId() {
+		return this.sessionId;
+	}
+
+	String getEventName() {
+		return this.eventName;
+	}
+
+	JsonObject toJson() {
+		if (this.json == null) {
+			this.json = this.event.toJson();
+			this.json.addProperty("event", this.eventName);
+			this.event = null;
+		}
+		return this.json;
+	}
+
+}
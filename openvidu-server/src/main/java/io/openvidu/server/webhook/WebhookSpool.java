@@ -0,0 +1,212 @@
+/*
+ * (C) Copyright 2017-2020 OpenVidu (https://openvidu.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.openvidu.server.webhook;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+/**
+ * Local disk storage for the webhook events that do not fit in the delivery
+ * queue of {@link HttpWebhookSender}. Events are stored one per line and read
+ * back in bounded chunks from the position of the oldest event not consumed
+ * yet, which is persisted next to the spool. Events spooled and not consumed
+ * before a restart of OpenVidu Server are delivered after it. The file is
+ * emptied every time all its events have been consumed
+ */
+public class WebhookSpool {
+
+	private static final Logger log = LoggerFactory.getLogger(WebhookSpool.class);
+
+	private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+	private final Path spoolFile;
+	private final Path offsetFile;
+
+	private FileChannel writeChannel;
+	private BufferedWriter writer;
+	private FileChannel readChannel;
+
+	/**
+	 * Position in the spool file of the oldest event not consumed yet
+	 */
+	private long offset = 0;
+
+	/**
+	 * Position in the spool file of the first event returned by the last read, and
+	 * of the end of every event returned by it
+	 */
+	private long readStart;
+	private final List<Long> readEnds = new ArrayList<>();
+
+	public WebhookSpool(String spoolPath) {
+		this.spoolFile = Paths.get(spoolPath, "webhook-spool.jsonl");
+		this.offsetFile = Paths.get(spoolPath, "webhook-spool.offset");
+		try {
+			if (Files.exists(this.offsetFile)) {
+				long storedOffset = Long.parseLong(Files.readString(this.offsetFile, StandardCharsets.UTF_8).trim());
+				if (Files.exists(this.spoolFile) && storedOffset <= Files.size(this.spoolFile)) {
+					this.offset = storedOffset;
+				}
+			}
+		} catch (IOException | NumberFormatException e) {
+			log.error("Error reading webhook spool offset {}. Reading spool {} from the beginning: {}", this.offsetFile,
+					this.spoolFile, e.getMessage());
+		}
+	}
+
+	public Path getPath() {
+		return this.spoolFile;
+	}
+
+	/**
+	 * Stores the events at the end of the spool, in the same order
+	 */
+	public synchronized void append(List<JsonObject> jsonEvents) throws IOException {
+		this.openWriter();
+		for (JsonObject jsonEvent : jsonEvents) {
+			this.writer.write(jsonEvent.toString());
+			this.writer.newLine();
+		}
+		this.writer.flush();
+	}
+
+	/**
+	 * Returns up to maxEvents of the oldest events of the spool, in the same order
+	 * they were stored. Events are not removed from the spool until they are
+	 * consumed with {@link #consume(int)}
+	 */
+	public synchronized List<JsonObject> read(int maxEvents) {
+		List<JsonObject> jsonEvents = new ArrayList<>();
+		this.readStart = this.offset;
+		this.readEnds.clear();
+		if (maxEvents <= 0 || !Files.exists(this.spoolFile)) {
+			return jsonEvents;
+		}
+		try {
+			if (this.readChannel == null) {
+				this.readChannel = FileChannel.open(this.spoolFile, StandardOpenOption.READ);
+			}
+			ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+			ByteArrayOutputStream line = new ByteArrayOutputStream();
+			long position = this.offset;
+			while (jsonEvents.size() < maxEvents) {
+				buffer.clear();
+				if (this.readChannel.read(buffer, position) <= 0) {
+					// A line without end of line is still being written
+					break;
+				}
+				buffer.flip();
+				while (buffer.hasRemaining() && jsonEvents.size() < maxEvents) {
+					byte b = buffer.get();
+					position++;
+					if (b != '\n') {
+						line.write(b);
+						continue;
+					}
+					String text = line.toString(StandardCharsets.UTF_8);
+					line.reset();
+					JsonObject jsonEvent = null;
+					if (!text.isBlank()) {
+						try {
+							jsonEvent = JsonParser.parseString(text).getAsJsonObject();
+						} catch (JsonParseException | IllegalStateException e) {
+							log.error("Discarding malformed webhook event from spool: {}", text);
+						}
+					}
+					if (jsonEvent != null) {
+						jsonEvents.add(jsonEvent);
+						this.readEnds.add(position);
+					} else if (jsonEvents.isEmpty()) {
+						// Blank and malformed lines before the first event are consumed with it
+						this.readStart = position;
+					}
+				}
+			}
+		} catch (IOException e) {
+			log.error("Error reading webhook events from spool {}: {}", this.spoolFile, e.getMessage());
+		}
+		return jsonEvents;
+	}
+
+	/**
+	 * Removes from the spool the first events returned by the last call to
+	 * {@link #read(int)}
+	 */
+	public synchronized void consume(int events) {
+		long newOffset = events > 0 ? this.readEnds.get(events - 1) : this.readStart;
+		this.readEnds.clear();
+		if (newOffset == this.offset) {
+			return;
+		}
+		this.offset = newOffset;
+		try {
+			this.openWriter();
+			if (this.offset >= this.writeChannel.size()) {
+				// Every event has been consumed. Start over with an empty spool
+				this.writeChannel.truncate(0);
+				this.offset = 0;
+			}
+			Files.writeString(this.offsetFile, Long.toString(this.offset), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			log.error("Error storing webhook spool offset {}: {}", this.offsetFile, e.getMessage());
+		}
+	}
+
+	private void openWriter() throws IOException {
+		if (this.writer == null) {
+			this.writeChannel = FileChannel.open(this.spoolFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.APPEND);
+			this.writer = new BufferedWriter(Channels.newWriter(this.writeChannel, StandardCharsets.UTF_8));
+		}
+	}
+
+	public synchronized void close() {
+		try {
+			if (this.writer != null) {
+				this.writer.close();
+				this.writer = null;
+				this.writeChannel = null;
+			}
+			if (this.readChannel != null) {
+				this.readChannel.close();
+				this.readChannel = null;
+			}
+		} catch (IOException e) {
+			log.error("Error closing webhook spool {}: {}", this.spoolFile, e.getMessage());
+		}
+	}
+
+}
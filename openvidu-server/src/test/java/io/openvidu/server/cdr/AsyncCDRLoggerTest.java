@@ -0,0 +1,159 @@
+package io.openvidu.server.cdr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.JsonObject;
+
+import io.openvidu.java.client.ConnectionProperties;
+import io.openvidu.java.client.Recording.Status;
+import io.openvidu.java.client.RecordingProperties;
+import io.openvidu.server.core.Participant;
+import io.openvidu.server.core.Token;
+import io.openvidu.server.kurento.endpoint.EndpointType;
+import io.openvidu.server.kurento.endpoint.KmsEvent;
+import io.openvidu.server.recording.Recording;
+import io.openvidu.server.summary.SessionSummary;
+import io.openvidu.server.utils.GeoLocation;
+
+public class AsyncCDRLoggerTest {
+
+	private class BlockingLogger implements CDRLogger {
+
+		private final CountDownLatch unblock = new CountDownLatch(1);
+		private final List<Long> timestamps = new ArrayList<>();
+		private final List<Integer> batchSizes = new ArrayList<>();
+		private final List<String> logged = new ArrayList<>();
+
+		@Override
+		public void log(CDREvent event) {
+			this.log(List.of(event));
+		}
+
+		@Override
+		public void log(List<CDREvent> events) {
+			try {
+				unblock.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			synchronized (this) {
+				batchSizes.add(events.size());
+				events.forEach(event -> {
+					timestamps.add(event.getTimestamp());
+					logged.add(event.toString());
+				});
+			}
+		}
+
+		@Override
+		public void log(KmsEvent event) {
+		}
+
+		@Override
+		public void log(WebrtcDebugEvent event) {
+		}
+
+		@Override
+		public void log(SessionSummary sessionSummary) {
+		}
+	}
+
+	private class ThreadRecordingEvent extends CDREvent {
+
+		private volatile String serializedBy;
+
+		private ThreadRecordingEvent() {
+			super(CDREventName.signalSent, "session", "session_0", 0L);
+		}
+
+		@Override
+		public JsonObject toJson() {
+			this.serializedBy = Thread.currentThread().getName();
+			return super.toJson();
+		}
+	}
+
+	@Test
+	@DisplayName("Events are logged in order and in batches without blocking the caller")
+	void asyncLoggingTest() {
+		BlockingLogger blockingLogger = new BlockingLogger();
+		AsyncCDRLogger asyncLogger = new AsyncCDRLogger(blockingLogger, 50);
+
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < 100; i++) {
+			asyncLogger.log(new CDREvent(CDREventName.signalSent, "session", "session_0", (long) i));
+		}
+		assertTrue(System.currentTimeMillis() - start < 1000, "Logging should not wait for the logger");
+		assertTrue(asyncLogger.getDroppedEvents() > 0, "Events not fitting in the queue should be dropped");
+
+		blockingLogger.unblock.countDown();
+		asyncLogger.close(5000);
+
+		synchronized (blockingLogger) {
+			assertEquals(0, asyncLogger.getQueueDepth());
+			assertEquals(100, blockingLogger.timestamps.size() + asyncLogger.getDroppedEvents());
+			for (int i = 1; i < blockingLogger.timestamps.size(); i++) {
+				assertTrue(blockingLogger.timestamps.get(i - 1) < blockingLogger.timestamps.get(i));
+			}
+			assertTrue(blockingLogger.batchSizes.stream().anyMatch(size -> size > 1),
+					"Queued events should be logged in batches");
+		}
+	}
+
+	@Test
+	@DisplayName("Events are logged as they were when recorded")
+	void snapshotTest() {
+		BlockingLogger blockingLogger = new BlockingLogger();
+		AsyncCDRLogger asyncLogger = new AsyncCDRLogger(blockingLogger, 10);
+
+		Recording recording = new Recording("session", "session_0", "session~1",
+				new RecordingProperties.Builder().name("recording").build());
+		CDREventRecordingStatus recordingEvent = new CDREventRecordingStatus(recording, 0L, null, 1000L,
+				Status.started);
+		Token token = new Token("token", "session", new ConnectionProperties.Builder().build(), null);
+		Participant participant = new Participant("user", "privateId", token.getConnectionId(), "session",
+				"session_0", token, "clientData", null, "platform", EndpointType.WEBRTC_ENDPOINT, 0L);
+		CDREventParticipant participantEvent = new CDREventParticipant(participant);
+
+		List<String> expected = List.of(recordingEvent.toString(), participantEvent.toString());
+		asyncLogger.log(recordingEvent);
+		asyncLogger.log(participantEvent);
+		recording.setSize(1024);
+		recording.setDuration(10);
+		participant.setLocation(new GeoLocation("127.0.0.1", "Spain", "Madrid", null, null, null));
+
+		blockingLogger.unblock.countDown();
+		asyncLogger.close(5000);
+
+		synchronized (blockingLogger) {
+			assertEquals(expected, blockingLogger.logged);
+		}
+	}
+
+	@Test
+	@DisplayName("Events are serialized by the consumer thread")
+	void serializationThreadTest() {
+		BlockingLogger blockingLogger = new BlockingLogger();
+		AsyncCDRLogger asyncLogger = new AsyncCDRLogger(blockingLogger, 10);
+
+		ThreadRecordingEvent event = new ThreadRecordingEvent();
+		asyncLogger.log(event);
+		assertNull(event.serializedBy, "Events should not be serialized by the caller");
+
+		blockingLogger.unblock.countDown();
+		asyncLogger.close(5000);
+
+		assertEquals("cdr-" + BlockingLogger.class.getSimpleName(), event.serializedBy);
+	}
+
+}
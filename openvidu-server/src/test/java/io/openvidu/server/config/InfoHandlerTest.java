@@ -0,0 +1,74 @@
+package io.openvidu.server.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+public class InfoHandlerTest {
+
+	@Test
+	@DisplayName("Messages are only built when there are subscribers")
+	void lazyMessageTest() {
+		InfoHandler infoHandler = new InfoHandler();
+		AtomicBoolean built = new AtomicBoolean(false);
+		infoHandler.sendInfo(() -> {
+			built.set(true);
+			return "info";
+		});
+		assertFalse(built.get());
+		assertFalse(infoHandler.hasSubscribers());
+	}
+
+	@Test
+	@DisplayName("A slow subscriber does not block the caller and loses the oldest messages")
+	void slowSubscriberTest() throws Exception {
+		InfoHandler infoHandler = new InfoHandler(5);
+		CountDownLatch unblock = new CountDownLatch(1);
+		CountDownLatch allReceived = new CountDownLatch(6);
+		List<String> received = new CopyOnWriteArrayList<>();
+
+		WebSocketSession session = mock(WebSocketSession.class);
+		when(session.getId()).thenReturn("dashboard");
+		doAnswer(invocation -> {
+			unblock.await(5, TimeUnit.SECONDS);
+			received.add(((TextMessage) invocation.getArgument(0)).getPayload());
+			allReceived.countDown();
+			return null;
+		}).when(session).sendMessage(any());
+		infoHandler.afterConnectionEstablished(session);
+
+		long start = System.currentTimeMillis();
+		infoHandler.sendInfo("0");
+		// Wait for the sender to block on the first message
+		Thread.sleep(200);
+		for (int i = 1; i <= 20; i++) {
+			infoHandler.sendInfo("" + i);
+		}
+		assertTrue(System.currentTimeMillis() - start < 1000, "Sending info should not wait for the subscriber");
+		assertEquals(15, infoHandler.getNumberOfDiscardedMessages());
+
+		unblock.countDown();
+		assertTrue(allReceived.await(5, TimeUnit.SECONDS));
+		assertEquals(List.of("0", "16", "17", "18", "19", "20"), received);
+
+		infoHandler.afterConnectionClosed(session, CloseStatus.NORMAL);
+		assertFalse(infoHandler.hasSubscribers());
+	}
+
+}
@@ -0,0 +1,108 @@
+package io.openvidu.server.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.openvidu.server.utils.RemoteOperationUtils;
+
+public class ParallelSessionCloserTest {
+
+	@Test
+	@DisplayName("Sessions are closed in parallel without exceeding the concurrency limit")
+	void boundedParallelismTest() {
+		List<String> sessionIds = sessionIds(20);
+		AtomicInteger concurrent = new AtomicInteger(0);
+		AtomicInteger maxConcurrent = new AtomicInteger(0);
+		Set<String> closed = ConcurrentHashMap.newKeySet();
+
+		long start = System.nanoTime();
+		Collection<String> stragglers = new ParallelSessionCloser(5, 10000).closeAll("Test", sessionIds,
+				sessionId -> {
+					maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+					sleep(100);
+					concurrent.decrementAndGet();
+					closed.add(sessionId);
+				});
+		long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		assertTrue(stragglers.isEmpty());
+		assertEquals(20, closed.size());
+		assertEquals(5, maxConcurrent.get());
+		assertTrue(elapsedMs < 1000, "20 sessions of 100 ms should be closed in 4 rounds, not one after another");
+	}
+
+	@Test
+	@DisplayName("Sessions not closed before the deadline are reported")
+	void deadlineTest() {
+		List<String> sessionIds = sessionIds(10);
+		CountDownLatch stuck = new CountDownLatch(1);
+		AtomicInteger failures = new AtomicInteger(0);
+
+		long start = System.nanoTime();
+		Collection<String> stragglers = new ParallelSessionCloser(4, 500).closeAll("Test", sessionIds, sessionId -> {
+			if ("session3".equals(sessionId)) {
+				await(stuck);
+			} else if ("session4".equals(sessionId)) {
+				failures.incrementAndGet();
+				throw new IllegalStateException("Failure closing session");
+			}
+		});
+		long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		stuck.countDown();
+
+		assertEquals(List.of("session3"), new ArrayList<>(stragglers));
+		assertEquals(1, failures.get(), "A failing session should not prevent the rest from being closed");
+		assertTrue(elapsedMs < 2000, "Caller should not wait beyond the deadline");
+	}
+
+	@Test
+	@DisplayName("Threads closing the sessions skip remote operations if the caller does")
+	void skipRemoteOperationsTest() {
+		Set<Boolean> skipped = ConcurrentHashMap.newKeySet();
+		RemoteOperationUtils.setToSkipRemoteOperations();
+		try {
+			new ParallelSessionCloser(4, 10000).closeAll("Test", sessionIds(8),
+					sessionId -> skipped.add(RemoteOperationUtils.mustSkipRemoteOperation()));
+		} finally {
+			RemoteOperationUtils.revertToRunRemoteOperations();
+		}
+		assertEquals(Set.of(true), skipped);
+	}
+
+	private List<String> sessionIds(int count) {
+		List<String> sessionIds = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			sessionIds.add("session" + i);
+		}
+		return sessionIds;
+	}
+
+	private void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,128 @@
+package io.openvidu.server.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import io.openvidu.client.OpenViduException;
+import io.openvidu.client.internal.ProtocolElements;
+import io.openvidu.java.client.ConnectionProperties;
+import io.openvidu.java.client.SessionProperties;
+import io.openvidu.server.cdr.CallDetailRecord;
+import io.openvidu.server.kurento.endpoint.EndpointType;
+import io.openvidu.server.rpc.RpcNotificationService;
+
+public class SessionEventsHandlerTest {
+
+	private SessionEventsHandler sessionEventsHandler;
+	private RpcNotificationService rpcNotificationService;
+	private CallDetailRecord cdr;
+
+	private Session session;
+	private Participant p1;
+	private Participant p2;
+	private Participant p3;
+
+	@BeforeEach
+	void setUp() {
+		rpcNotificationService = mock(RpcNotificationService.class);
+		cdr = mock(CallDetailRecord.class);
+		sessionEventsHandler = new SessionEventsHandler();
+		ReflectionTestUtils.setField(sessionEventsHandler, "rpcNotificationService", rpcNotificationService);
+		ReflectionTestUtils.setField(sessionEventsHandler, "CDR", cdr);
+
+		session = new Session("session", new SessionProperties.Builder().build(), null, null);
+		p1 = participant("1");
+		p2 = participant("2");
+		p3 = participant("3");
+		session.addParticipant(p1);
+		session.addParticipant(p2);
+		session.addParticipant(p3);
+		ReflectionTestUtils.setField(p3, "closed", true);
+	}
+
+	@Test
+	@DisplayName("Signals without recipients are sent to every participant not closed")
+	void broadcastSignalTest() {
+		sessionEventsHandler.onSendMessage(p1, signal(), session, "session", "session_0", 1, null);
+
+		assertEquals(Set.of("privateId_1", "privateId_2"), Set.copyOf(recipients()));
+		verify(rpcNotificationService).sendResponse(eq("privateId_1"), eq(1), any());
+		verify(cdr).recordSignalSent(eq("session"), eq("session_0"), eq(p1.getParticipantPublicId()), any(),
+				eq("signal:chat"), eq("hello"));
+	}
+
+	@Test
+	@DisplayName("Signals with recipients are sent only to them, resolved by their public id")
+	void targetedSignalTest() {
+		sessionEventsHandler.onSendMessage(p1, signal(p2), session, "session", "session_0", 1, null);
+		assertEquals(List.of("privateId_2"), List.copyOf(recipients()));
+	}
+
+	@Test
+	@DisplayName("Signals to unknown or closed participants are rejected before being sent")
+	void invalidRecipientTest() {
+		assertThrows(OpenViduException.class, () -> sessionEventsHandler.onSendMessage(p1, signal(p2, p3),
+				session, "session", "session_0", 1, null));
+		verify(rpcNotificationService, never()).broadcastNotification(any(), anyString(), any());
+	}
+
+	@Test
+	@DisplayName("Signals to a set of participants are resolved the same way")
+	@SuppressWarnings("deprecation")
+	void participantsSetTest() {
+		Set<Participant> participants = Set.of(p1, p2);
+		sessionEventsHandler.onSendMessage(null, signal(p2), participants, "session", "session_0", null, null);
+		assertEquals(List.of("privateId_2"), List.copyOf(recipients()));
+
+		assertThrows(OpenViduException.class, () -> sessionEventsHandler.onSendMessage(null, signal(p3),
+				participants, "session", "session_0", null, null));
+	}
+
+	@SuppressWarnings("unchecked")
+	private Collection<String> recipients() {
+		ArgumentCaptor<Collection<String>> captor = ArgumentCaptor.forClass(Collection.class);
+		verify(rpcNotificationService).broadcastNotification(captor.capture(),
+				eq(ProtocolElements.PARTICIPANTSENDMESSAGE_METHOD), any());
+		return captor.getValue();
+	}
+
+	private JsonObject signal(Participant... to) {
+		JsonObject signal = new JsonObject();
+		signal.addProperty("data", "hello");
+		signal.addProperty("type", "signal:chat");
+		if (to.length > 0) {
+			JsonArray toJson = new JsonArray();
+			for (Participant p : to) {
+				toJson.add(p.getParticipantPublicId());
+			}
+			signal.add("to", toJson);
+		}
+		return signal;
+	}
+
+	private Participant participant(String id) {
+		Token token = new Token("TOKEN_" + id, "session", new ConnectionProperties.Builder().build(), null);
+		return new Participant("user" + id, "privateId_" + id, token.getConnectionId(), "session", "session_0",
+				token, null, null, null, EndpointType.WEBRTC_ENDPOINT, null);
+	}
+
+}
@@ -0,0 +1,56 @@
+package io.openvidu.server.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.openvidu.java.client.ConnectionProperties;
+import io.openvidu.java.client.SessionProperties;
+import io.openvidu.server.kurento.endpoint.EndpointType;
+
+public class SessionTest {
+
+	@Test
+	@DisplayName("Participants snapshot is shared until someone joins or leaves")
+	void participantsSnapshotTest() {
+		Session session = new Session("session", new SessionProperties.Builder().build(), null, null);
+		Participant p1 = participant("session", "1");
+		Participant p2 = participant("session", "2");
+
+		session.addParticipant(p1);
+		Set<Participant> snapshot = session.getParticipantsView();
+		assertSame(snapshot, session.getParticipantsView());
+		assertThrows(UnsupportedOperationException.class, () -> snapshot.add(p2));
+
+		session.addParticipant(p2);
+		Set<Participant> afterJoin = session.getParticipantsView();
+		assertEquals(1, snapshot.size());
+		assertEquals(2, afterJoin.size());
+		assertTrue(afterJoin.contains(p1) && afterJoin.contains(p2));
+
+		// Iterating an old snapshot is not affected by participants leaving
+		for (Participant p : afterJoin) {
+			session.removeParticipantByPrivateId(p.getParticipantPrivateId());
+		}
+		assertEquals(2, afterJoin.size());
+		assertTrue(session.getParticipantsView().isEmpty());
+
+		// Removing an unknown participant keeps the current snapshot
+		Set<Participant> empty = session.getParticipantsView();
+		session.removeParticipantByPrivateId("unknown");
+		assertSame(empty, session.getParticipantsView());
+	}
+
+	private Participant participant(String sessionId, String id) {
+		Token token = new Token("TOKEN_" + id, sessionId, new ConnectionProperties.Builder().build(), null);
+		return new Participant("user" + id, "privateId_" + id, token.getConnectionId(), sessionId, sessionId + "_0",
+				token, null, null, null, EndpointType.WEBRTC_ENDPOINT, null);
+	}
+
+}
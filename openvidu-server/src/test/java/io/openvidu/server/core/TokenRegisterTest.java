@@ -0,0 +1,104 @@
+package io.openvidu.server.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.openvidu.java.client.ConnectionProperties;
+import io.openvidu.server.kurento.endpoint.EndpointType;
+
+public class TokenRegisterTest {
+
+	@Test
+	@DisplayName("Deregistering a session only removes its own tokens")
+	void deregisterOnlyOwnTokensTest() {
+		TokenRegister tokenRegister = new TokenRegister();
+		Participant p1 = registerParticipant(tokenRegister, "session1", "TOKEN_1", "user1");
+		Participant p2 = registerParticipant(tokenRegister, "session2", "TOKEN_2", "user2");
+
+		tokenRegister.deregisterTokens("session1");
+
+		assertFalse(tokenRegister.isTokenRegistered("TOKEN_1", p1.getFinalUserId(), "session1"));
+		assertTrue(tokenRegister.isTokenRegistered("TOKEN_2", p2.getFinalUserId(), "session2"));
+	}
+
+	@Test
+	@DisplayName("Sessions opening and closing in parallel never drop foreign tokens")
+	void concurrentRegisterAndDeregisterTest() throws InterruptedException {
+		final TokenRegister tokenRegister = new TokenRegister();
+		final int numberOfThreads = 16;
+		final int sessionsPerThread = 200;
+		final int tokensPerSession = 10;
+
+		// Long lived sessions that must survive the whole test
+		List<Participant> survivors = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			survivors.add(registerParticipant(tokenRegister, "survivor" + i, "SURVIVOR_TOKEN_" + i, "survivor" + i));
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+		CountDownLatch start = new CountDownLatch(1);
+		ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<>();
+
+		for (int t = 0; t < numberOfThreads; t++) {
+			final int thread = t;
+			executor.submit(() -> {
+				try {
+					start.await();
+					for (int s = 0; s < sessionsPerThread; s++) {
+						String sessionId = "session_" + thread + "_" + s;
+						List<Participant> participants = new ArrayList<>();
+						for (int k = 0; k < tokensPerSession; k++) {
+							participants.add(registerParticipant(tokenRegister, sessionId,
+									"TOKEN_" + sessionId + "_" + k, "user_" + sessionId + "_" + k));
+						}
+						for (int k = 0; k < tokensPerSession; k++) {
+							if (!tokenRegister.isTokenRegistered("TOKEN_" + sessionId + "_" + k,
+									participants.get(k).getFinalUserId(), sessionId)) {
+								errors.add(new AssertionError("Token of own open session " + sessionId + " dropped"));
+							}
+						}
+						tokenRegister.deregisterTokens(sessionId);
+						if (tokenRegister.isTokenRegistered("TOKEN_" + sessionId + "_0",
+								participants.get(0).getFinalUserId(), sessionId)) {
+							errors.add(new AssertionError("Token of closed session " + sessionId + " still registered"));
+						}
+					}
+				} catch (Throwable e) {
+					errors.add(e);
+				}
+			});
+		}
+
+		start.countDown();
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+
+		assertEquals(0, errors.size(), () -> "Errors: " + errors);
+		for (int i = 0; i < survivors.size(); i++) {
+			assertTrue(tokenRegister.isTokenRegistered("SURVIVOR_TOKEN_" + i, survivors.get(i).getFinalUserId(),
+					"survivor" + i));
+		}
+	}
+
+	private Participant registerParticipant(TokenRegister tokenRegister, String sessionId, String tokenString,
+			String finalUserId) {
+		Token token = new Token(tokenString, sessionId, new ConnectionProperties.Builder().build(), null);
+		Participant participant = new Participant(finalUserId, "privateId_" + tokenString, token.getConnectionId(),
+				sessionId, sessionId + "_0", token, null, null, null, EndpointType.WEBRTC_ENDPOINT, null);
+		tokenRegister.registerToken(sessionId, participant, token);
+		return participant;
+	}
+
+}
@@ -0,0 +1,53 @@
+package io.openvidu.server.coturn;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.openvidu.server.config.OpenviduConfig;
+
+public class HmacCoturnCredentialsServiceTest {
+
+	private OpenviduConfig openviduConfig;
+	private HmacCoturnCredentialsService credentialsService;
+
+	@BeforeEach
+	void setUp() {
+		openviduConfig = mock(OpenviduConfig.class);
+		when(openviduConfig.getCoturnSharedSecretKey()).thenReturn("key");
+		when(openviduConfig.getCoturnCredentialsTtl()).thenReturn(3600);
+		credentialsService = new HmacCoturnCredentialsService();
+		ReflectionTestUtils.setField(credentialsService, "openviduConfig", openviduConfig);
+		ReflectionTestUtils.invokeMethod(credentialsService, "initialize");
+	}
+
+	@Test
+	@DisplayName("Credential is the Base64 HMAC-SHA1 of the username")
+	void generateCredentialTest() {
+		assertEquals("3nybhbi3iqa8ino29wqQcBydtNk=",
+				credentialsService.generateCredential("The quick brown fox jumps over the lazy dog"));
+		verify(openviduConfig).setTurnadminAvailable(true);
+	}
+
+	@Test
+	@DisplayName("Username carries the expiration timestamp")
+	void createUserTest() {
+		long now = System.currentTimeMillis() / 1000;
+		TurnCredentials credentials = credentialsService.createUser();
+		String[] username = credentials.getUsername().split(":");
+		long expiration = Long.parseLong(username[0]);
+		assertTrue(expiration >= now + 3600 && expiration <= now + 3601);
+		assertEquals(credentialsService.generateCredential(credentials.getUsername()), credentials.getCredential());
+		assertNotEquals(credentials.getUsername(), credentialsService.createUser().getUsername());
+		assertTrue(credentialsService.deleteUser(credentials.getUsername()));
+	}
+
+}
@@ -0,0 +1,72 @@
+package io.openvidu.server.kurento.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kurento.client.Continuation;
+import org.kurento.client.WebRtcEndpoint;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.openvidu.server.config.OpenviduConfig;
+import io.openvidu.server.kurento.endpoint.KmsEventType;
+import io.openvidu.server.kurento.endpoint.MediaEndpoint;
+
+public class KurentoParticipantEndpointConfigTest {
+
+	/**
+	 * Subscriptions requested to KMS and not answered yet
+	 */
+	private final List<Continuation<Object>> pendingSubscriptions = new CopyOnWriteArrayList<>();
+
+	@Test
+	@DisplayName("Only configured KMS events are subscribed, without waiting for KMS answers")
+	@SuppressWarnings("unchecked")
+	void subscribeWithoutWaitingTest() throws Exception {
+		// WebRtcEndpoint never answering listener subscriptions. Blocking subscriptions
+		// are not allowed
+		WebRtcEndpoint webRtcEndpoint = mock(WebRtcEndpoint.class, invocation -> {
+			Object[] args = invocation.getArguments();
+			if (args.length > 0 && args[args.length - 1] instanceof Continuation) {
+				pendingSubscriptions.add((Continuation<Object>) args[args.length - 1]);
+			} else if (invocation.getMethod().getName().matches("add.*Listener")) {
+				throw new AssertionError("Blocking subscription " + invocation.getMethod().getName());
+			}
+			return null;
+		});
+		MediaEndpoint endpoint = mock(MediaEndpoint.class);
+		when(endpoint.getWebEndpoint()).thenReturn(webRtcEndpoint);
+		when(endpoint.getEndpoint()).thenReturn(webRtcEndpoint);
+		when(endpoint.getEndpointName()).thenReturn("endpoint");
+
+		OpenviduConfig openviduConfig = mock(OpenviduConfig.class);
+		when(openviduConfig.getKmsEventTypes()).thenReturn(EnumSet.of(KmsEventType.Error,
+				KmsEventType.MediaFlowInStateChange, KmsEventType.MediaFlowOutStateChange,
+				KmsEventType.NewCandidatePairSelected));
+		KurentoParticipantEndpointConfig endpointConfig = new KurentoParticipantEndpointConfig();
+		ReflectionTestUtils.setField(endpointConfig, "openviduConfig", openviduConfig);
+
+		CompletableFuture<Void> future = endpointConfig.addEndpointListeners(endpoint, "subscriber");
+
+		// Every subscription has been requested even though none has been answered
+		assertEquals(4, pendingSubscriptions.size());
+		assertFalse(future.isDone());
+
+		for (Continuation<Object> continuation : pendingSubscriptions) {
+			assertFalse(future.isDone());
+			continuation.onSuccess(null);
+		}
+		assertTrue(future.isDone());
+		assertFalse(future.isCompletedExceptionally());
+	}
+
+}
@@ -0,0 +1,111 @@
+package io.openvidu.server.kurento.core;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kurento.client.Continuation;
+import org.kurento.client.MediaPipeline;
+import org.kurento.client.WebRtcEndpoint;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.openvidu.java.client.ConnectionProperties;
+import io.openvidu.java.client.OpenViduRole;
+import io.openvidu.server.cdr.CallDetailRecord;
+import io.openvidu.server.config.OpenviduConfig;
+import io.openvidu.server.core.EndReason;
+import io.openvidu.server.core.Participant;
+import io.openvidu.server.core.Token;
+import io.openvidu.server.kurento.endpoint.EndpointType;
+import io.openvidu.server.kurento.endpoint.PublisherEndpoint;
+import io.openvidu.server.kurento.endpoint.SubscriberEndpoint;
+
+public class KurentoParticipantTest {
+
+	private static final int SUBSCRIBERS = 10;
+
+	private KurentoSession session;
+	private CallDetailRecord cdr;
+	private WebRtcEndpoint webRtcEndpoint;
+	private KurentoParticipant participant;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		session = mock(KurentoSession.class);
+		when(session.getSessionId()).thenReturn("session");
+		when(session.getPipeline()).thenReturn(mock(MediaPipeline.class));
+		ReflectionTestUtils.setField(session, "publishedStreamIds", new ConcurrentHashMap<>());
+
+		cdr = mock(CallDetailRecord.class);
+		KurentoParticipantEndpointConfig endpointConfig = mock(KurentoParticipantEndpointConfig.class);
+		when(endpointConfig.getCdr()).thenReturn(cdr);
+
+		Token token = new Token("TOKEN", "session",
+				new ConnectionProperties.Builder().role(OpenViduRole.SUBSCRIBER).build(), null);
+		Participant p = new Participant("user", "privateId", "con_participant", "session", "session_0", token, null,
+				null, null, EndpointType.WEBRTC_ENDPOINT, null);
+		participant = new KurentoParticipant(p, session, endpointConfig, mock(OpenviduConfig.class), null);
+
+		webRtcEndpoint = mock(WebRtcEndpoint.class);
+		PublisherEndpoint publisher = mock(PublisherEndpoint.class);
+		ReflectionTestUtils.setField(publisher, "closingLock", new ReentrantReadWriteLock());
+		ReflectionTestUtils.setField(publisher, "cancelStatsLoop", new AtomicBoolean(false));
+		when(publisher.getEndpoint()).thenReturn(webRtcEndpoint);
+		when(publisher.getStreamId()).thenReturn("str_CAM_participant");
+		ReflectionTestUtils.setField(participant, "publisher", publisher);
+
+		Map<String, SubscriberEndpoint> subscribers = (Map<String, SubscriberEndpoint>) ReflectionTestUtils
+				.getField(participant, "subscribers");
+		for (int i = 0; i < SUBSCRIBERS; i++) {
+			SubscriberEndpoint subscriber = mock(SubscriberEndpoint.class);
+			ReflectionTestUtils.setField(subscriber, "cancelStatsLoop", new AtomicBoolean(false));
+			when(subscriber.getEndpoint()).thenReturn(webRtcEndpoint);
+			when(subscriber.getStreamId()).thenReturn("str_CAM_publisher" + i);
+			subscribers.put("con_publisher" + i, subscriber);
+		}
+	}
+
+	@Test
+	@DisplayName("Closing a participant releases each of its media elements")
+	@SuppressWarnings("unchecked")
+	void closeTest() {
+		participant.close(EndReason.sessionClosedByServer, true, null);
+
+		verify(webRtcEndpoint, times(SUBSCRIBERS + 1)).release(any(Continuation.class));
+		verify(session, times(SUBSCRIBERS)).getParticipantByPublicId(anyString());
+		verifyCdr();
+	}
+
+	@Test
+	@DisplayName("Closing a participant along with its pipeline only records CDR events")
+	@SuppressWarnings("unchecked")
+	void closeWithPipelineTest() {
+		participant.close(EndReason.sessionClosedByServer, true, null, false);
+
+		verify(webRtcEndpoint, never()).release(any(Continuation.class));
+		verify(webRtcEndpoint, never()).release();
+		verify(session, never()).getParticipantByPublicId(anyString());
+		verifyCdr();
+	}
+
+	private void verifyCdr() {
+		verify(cdr, times(SUBSCRIBERS)).stopSubscriber(eq("con_participant"), anyString(), anyString(),
+				eq(EndReason.sessionClosedByServer));
+		verify(cdr).stopPublisher("con_participant", "str_CAM_participant", EndReason.sessionClosedByServer);
+	}
+
+}
@@ -0,0 +1,93 @@
+package io.openvidu.server.kurento.endpoint;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kurento.client.IceComponentState;
+import org.kurento.client.IceComponentStateChangeEvent;
+import org.kurento.client.MediaFlowInStateChangeEvent;
+import org.kurento.client.MediaFlowState;
+import org.kurento.client.MediaType;
+import org.kurento.client.RaiseBaseEvent;
+
+import io.openvidu.server.core.Participant;
+
+public class KmsEventHistoryTest {
+
+	@Test
+	@DisplayName("Oldest events are overwritten once the history is full")
+	void ringBufferTest() {
+		KmsEventHistory history = new KmsEventHistory(3, null);
+		for (int i = 0; i < 5; i++) {
+			history.add(iceEvent(i));
+		}
+		List<KmsEvent> snapshot = history.snapshot();
+		assertEquals(3, snapshot.size());
+		assertEquals(2, snapshot.get(0).getTimestamp());
+		assertEquals(4, snapshot.get(2).getTimestamp());
+		assertEquals(2, history.getDiscardedEvents());
+
+		KmsEventHistory disabled = new KmsEventHistory(0, null);
+		disabled.add(iceEvent(0));
+		assertTrue(disabled.snapshot().isEmpty());
+	}
+
+	@Test
+	@DisplayName("Sampled event types only store one of every N events")
+	void samplingTest() {
+		KmsEventHistory history = new KmsEventHistory(100, Map.of("IceComponentStateChange", 10));
+		for (int i = 0; i < 50; i++) {
+			history.add(iceEvent(i));
+			history.add(mediaFlowEvent(i));
+		}
+		long iceEvents = history.snapshot().stream().filter(e -> "IceComponentStateChange".equals(e.getType()))
+				.count();
+		assertEquals(5, iceEvents);
+		assertEquals(55, history.size());
+	}
+
+	@Test
+	@DisplayName("History never grows beyond its capacity during a long session")
+	void sizeBoundTest() {
+		final int capacity = 100;
+		final long simulatedMs = 8 * 3600 * 1000L;
+		final long eventIntervalMs = 30 * 1000L;
+
+		KmsEventHistory history = new KmsEventHistory(capacity, Map.of("IceComponentStateChange", 4));
+		long addedEvents = 0;
+		for (long t = 0; t < simulatedMs; t += eventIntervalMs) {
+			history.add(iceEvent(t));
+			history.add(mediaFlowEvent(t));
+			addedEvents += 2;
+			assertTrue(history.size() <= capacity);
+		}
+
+		assertEquals(capacity, history.size());
+		// Sampled and overwritten events
+		assertEquals(addedEvents - capacity, history.getDiscardedEvents());
+		List<KmsEvent> snapshot = history.snapshot();
+		assertEquals(capacity, snapshot.size());
+		assertEquals(simulatedMs - eventIntervalMs, snapshot.get(snapshot.size() - 1).getTimestamp());
+	}
+
+	private KmsEvent iceEvent(long timestamp) {
+		return kmsEvent(new IceComponentStateChangeEvent(null, "0", Long.toString(timestamp), null,
+				"IceComponentStateChange", 1, 1, IceComponentState.CONNECTED));
+	}
+
+	private KmsEvent mediaFlowEvent(long timestamp) {
+		return kmsEvent(new MediaFlowInStateChangeEvent(null, "0", Long.toString(timestamp), null,
+				"MediaFlowInStateChange", MediaFlowState.FLOWING, "sink", MediaType.VIDEO));
+	}
+
+	private KmsEvent kmsEvent(RaiseBaseEvent event) {
+		return new KmsEvent(event, mock(Participant.class), "endpoint", 0);
+	}
+
+}
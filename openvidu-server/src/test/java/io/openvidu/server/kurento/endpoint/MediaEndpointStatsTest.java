@@ -0,0 +1,149 @@
+package io.openvidu.server.kurento.endpoint;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kurento.client.Continuation;
+import org.kurento.client.MediaPipeline;
+import org.kurento.client.WebRtcEndpoint;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+
+import io.openvidu.server.config.OpenviduConfig;
+import io.openvidu.server.core.Token;
+import io.openvidu.server.kurento.core.KurentoParticipant;
+
+public class MediaEndpointStatsTest {
+
+	private WebRtcEndpoint webRtcEndpoint;
+	private SubscriberEndpoint endpoint;
+
+	/**
+	 * Requests for SDPs waiting for an answer of KMS
+	 */
+	private final List<Continuation<String>> pendingRequests = new CopyOnWriteArrayList<>();
+	private volatile boolean answerImmediately = true;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		webRtcEndpoint = mock(WebRtcEndpoint.class);
+		doAnswer(invocation -> {
+			this.answer(invocation.getArgument(0), "remote");
+			return null;
+		}).when(webRtcEndpoint).getRemoteSessionDescriptor(any(Continuation.class));
+		doAnswer(invocation -> {
+			this.answer(invocation.getArgument(0), "local");
+			return null;
+		}).when(webRtcEndpoint).getLocalSessionDescriptor(any(Continuation.class));
+
+		KurentoParticipant owner = mock(KurentoParticipant.class);
+		when(owner.getToken()).thenReturn(mock(Token.class));
+		endpoint = new SubscriberEndpoint(EndpointType.WEBRTC_ENDPOINT, owner, "con_subscriber",
+				mock(MediaPipeline.class), mock(OpenviduConfig.class));
+		ReflectionTestUtils.setField(endpoint, "webEndpoint", webRtcEndpoint);
+	}
+
+	@Test
+	@DisplayName("SDPs are retrieved once and cached until the next negotiation")
+	@SuppressWarnings("unchecked")
+	void sdpCacheTest() throws Exception {
+		JsonObject stats = endpoint.withStatsToJson();
+		assertEquals(JsonNull.INSTANCE, stats.get("remoteSdp"), "Stats should never call KMS");
+		verify(webRtcEndpoint, never()).getRemoteSessionDescriptor();
+
+		Semaphore concurrencyLimit = new Semaphore(10);
+		fetch(concurrencyLimit, 1000).get(1, TimeUnit.SECONDS);
+		fetch(concurrencyLimit, 1000).get(1, TimeUnit.SECONDS);
+		verify(webRtcEndpoint, times(1)).getRemoteSessionDescriptor(any(Continuation.class));
+		verify(webRtcEndpoint, times(1)).getLocalSessionDescriptor(any(Continuation.class));
+		stats = endpoint.withStatsToJson();
+		assertEquals("remote", stats.get("remoteSdp").getAsString());
+		assertEquals("local", stats.get("localSdp").getAsString());
+
+		endpoint.processAnswerAsync("answer");
+		assertEquals(JsonNull.INSTANCE, endpoint.withStatsToJson().get("localSdp"));
+		fetch(concurrencyLimit, 1000).get(1, TimeUnit.SECONDS);
+		verify(webRtcEndpoint, times(2)).getLocalSessionDescriptor(any(Continuation.class));
+		assertEquals(10, concurrencyLimit.availablePermits());
+	}
+
+	@Test
+	@DisplayName("SDPs retrieved while a negotiation takes place are not cached")
+	void staleSdpTest() throws Exception {
+		answerImmediately = false;
+		CompletableFuture<Void> fetch = fetch(new Semaphore(10), 1000);
+		endpoint.processAnswerAsync("answer");
+		answerAll();
+		fetch.get(1, TimeUnit.SECONDS);
+		assertEquals(JsonNull.INSTANCE, endpoint.withStatsToJson().get("remoteSdp"));
+	}
+
+	@Test
+	@DisplayName("Requests in flight never exceed the concurrency limit and callers do not wait beyond the deadline")
+	@SuppressWarnings("unchecked")
+	void concurrencyLimitTest() throws Exception {
+		answerImmediately = false;
+		Semaphore concurrencyLimit = new Semaphore(1);
+
+		// Remote SDP gets the only permit. Local SDP gives up after the deadline
+		CompletableFuture<Void> fetch = fetch(concurrencyLimit, 200);
+		assertEquals(1, pendingRequests.size());
+		assertEquals(0, concurrencyLimit.availablePermits());
+		verify(webRtcEndpoint, never()).getLocalSessionDescriptor(any(Continuation.class));
+
+		answerAll();
+		fetch.get(1, TimeUnit.SECONDS);
+		assertEquals(1, concurrencyLimit.availablePermits());
+		JsonObject stats = endpoint.withStatsToJson();
+		assertEquals("remote", stats.get("remoteSdp").getAsString());
+		assertEquals(JsonNull.INSTANCE, stats.get("localSdp"));
+	}
+
+	private CompletableFuture<Void> fetch(Semaphore concurrencyLimit, long timeoutMs) {
+		return endpoint.fetchSessionDescriptors(concurrencyLimit, System.currentTimeMillis() + timeoutMs);
+	}
+
+	private void answer(Continuation<String> continuation, String sdp) throws Exception {
+		if (answerImmediately) {
+			continuation.onSuccess(sdp);
+		} else {
+			pendingRequests.add(new Continuation<String>() {
+				@Override
+				public void onSuccess(String result) throws Exception {
+					continuation.onSuccess(sdp);
+				}
+
+				@Override
+				public void onError(Throwable cause) throws Exception {
+					continuation.onError(cause);
+				}
+			});
+		}
+	}
+
+	private void answerAll() throws Exception {
+		for (Continuation<String> continuation : pendingRequests) {
+			continuation.onSuccess(null);
+		}
+		pendingRequests.clear();
+	}
+
+}
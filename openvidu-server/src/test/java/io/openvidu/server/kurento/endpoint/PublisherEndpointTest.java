@@ -0,0 +1,41 @@
+package io.openvidu.server.kurento.endpoint;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kurento.client.MediaPipeline;
+import org.kurento.client.PassThrough;
+
+import io.openvidu.server.config.OpenviduConfig;
+import io.openvidu.server.core.Token;
+import io.openvidu.server.kurento.core.KurentoParticipant;
+
+public class PublisherEndpointTest {
+
+	@Test
+	@DisplayName("Releasing the publisher waits for the subscriptions in progress")
+	void pendingSubscriptionsTest() throws Exception {
+		KurentoParticipant owner = mock(KurentoParticipant.class);
+		when(owner.getToken()).thenReturn(mock(Token.class));
+		PublisherEndpoint publisher = new PublisherEndpoint(EndpointType.WEBRTC_ENDPOINT, owner, "con_publisher",
+				mock(MediaPipeline.class), mock(OpenviduConfig.class), mock(PassThrough.class));
+
+		assertTrue(publisher.awaitPendingSubscriptions(0));
+		publisher.subscriptionStarted();
+		publisher.subscriptionStarted();
+		assertFalse(publisher.awaitPendingSubscriptions(10));
+
+		publisher.subscriptionFinished();
+		CompletableFuture.runAsync(publisher::subscriptionFinished,
+				CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS));
+		assertTrue(publisher.awaitPendingSubscriptions(5000));
+	}
+
+}
@@ -0,0 +1,174 @@
+package io.openvidu.server.kurento.endpoint;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kurento.client.Continuation;
+import org.kurento.client.EventListener;
+import org.kurento.client.IceCandidate;
+import org.kurento.client.IceCandidateFoundEvent;
+import org.kurento.client.MediaPipeline;
+import org.kurento.client.WebRtcEndpoint;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.openvidu.server.config.OpenviduConfig;
+import io.openvidu.server.core.MediaOptions;
+import io.openvidu.server.core.Token;
+import io.openvidu.server.kurento.core.KurentoParticipant;
+
+public class SubscriberEndpointTest {
+
+	private static final long RTT = 100;
+
+	private final ScheduledExecutorService kms = Executors.newScheduledThreadPool(4);
+
+	private WebRtcEndpoint webRtcEndpoint;
+	private OpenviduConfig openviduConfig;
+	private KurentoParticipant owner;
+	private PublisherEndpoint publisher;
+	private SubscriberEndpoint subscriber;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		// WebRtcEndpoint answering every asynchronous request after one RTT
+		webRtcEndpoint = mock(WebRtcEndpoint.class, invocation -> {
+			Object[] args = invocation.getArguments();
+			if (args.length > 0 && args[args.length - 1] instanceof Continuation) {
+				Continuation<Object> continuation = (Continuation<Object>) args[args.length - 1];
+				Object result = invocation.getMethod().getName().matches("processOffer|generateOffer") ? "sdp"
+						: null;
+				kms.schedule(() -> {
+					try {
+						continuation.onSuccess(result);
+					} catch (Exception e) {
+					}
+				}, RTT, TimeUnit.MILLISECONDS);
+			}
+			return null;
+		});
+
+		openviduConfig = mock(OpenviduConfig.class);
+		Token token = mock(Token.class);
+		owner = mock(KurentoParticipant.class);
+		when(owner.getToken()).thenReturn(token);
+		when(owner.getParticipantPublicId()).thenReturn("con_publisher");
+
+		publisher = mock(PublisherEndpoint.class);
+		when(publisher.getOwner()).thenReturn(owner);
+		when(publisher.getStreamId()).thenReturn("str_CAM_publisher");
+		when(publisher.getMediaOptions()).thenReturn(mock(MediaOptions.class));
+		when(publisher.connectAsync(any())).thenAnswer(invocation -> {
+			CompletableFuture<Void> connection = new CompletableFuture<>();
+			kms.schedule(() -> connection.complete(null), RTT, TimeUnit.MILLISECONDS);
+			return connection;
+		});
+
+		subscriber = new SubscriberEndpoint(EndpointType.WEBRTC_ENDPOINT, owner, "con_subscriber",
+				mock(MediaPipeline.class), openviduConfig);
+		ReflectionTestUtils.setField(subscriber, "webEndpoint", webRtcEndpoint);
+	}
+
+	@AfterEach
+	void shutdown() {
+		kms.shutdownNow();
+	}
+
+	@Test
+	@DisplayName("Client initiated subscription sends independent requests in parallel without blocking")
+	@SuppressWarnings("unchecked")
+	void subscribeTest() throws Exception {
+		long start = System.nanoTime();
+		CompletableFuture<String> sdpAnswer = subscriber.subscribe("offer", publisher);
+		long callMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		verify(webRtcEndpoint, never()).gatherCandidates(any(Continuation.class));
+
+		assertEquals("sdp", sdpAnswer.get(5, TimeUnit.SECONDS));
+		long totalMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		assertTrue(callMs < RTT, "Subscribing should not block the caller");
+		assertTrue(totalMs < 2 * RTT, "Listener, offer and connection should be requested in parallel");
+		verify(webRtcEndpoint, timeout(1000)).gatherCandidates(any(Continuation.class));
+	}
+
+	@Test
+	@DisplayName("Server initiated subscription gathers candidates once the offer is generated")
+	@SuppressWarnings("unchecked")
+	void prepareSubscriptionTest() throws Exception {
+		long start = System.nanoTime();
+		CompletableFuture<String> sdpOffer = subscriber.prepareSubscription(publisher);
+		long callMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		verify(webRtcEndpoint, never()).gatherCandidates(any(Continuation.class));
+
+		assertEquals("sdp", sdpOffer.get(5, TimeUnit.SECONDS));
+		long totalMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		assertTrue(callMs < RTT, "Preparing the subscription should not block the caller");
+		assertTrue(totalMs < 2 * RTT, "Listener, offer and connection should be requested in parallel");
+		verify(webRtcEndpoint, timeout(1000)).gatherCandidates(any(Continuation.class));
+
+		// Second step of the negotiation: the answer of the client
+		assertEquals(null, subscriber.subscribe("answer", publisher).get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	@DisplayName("Candidates gathered in a burst are sent in a single notification")
+	@SuppressWarnings("unchecked")
+	void gatheredCandidatesBatchTest() throws Exception {
+		when(owner.isBatchedIceCandidates()).thenReturn(true);
+		when(openviduConfig.getSessionIceCandidatesBatchWindow()).thenReturn(50);
+
+		subscriber.subscribe("offer", publisher).get(5, TimeUnit.SECONDS);
+		ArgumentCaptor<EventListener<IceCandidateFoundEvent>> listener = ArgumentCaptor.forClass(EventListener.class);
+		verify(webRtcEndpoint).addIceCandidateFoundListener(listener.capture(), any(Continuation.class));
+
+		for (int i = 0; i < 5; i++) {
+			IceCandidateFoundEvent event = mock(IceCandidateFoundEvent.class);
+			when(event.getCandidate()).thenReturn(new IceCandidate("candidate" + i, "0", 0));
+			listener.getValue().onEvent(event);
+		}
+
+		ArgumentCaptor<List<IceCandidate>> batch = ArgumentCaptor.forClass(List.class);
+		verify(owner, timeout(1000)).sendIceCandidates(eq("con_publisher"), any(), batch.capture());
+		assertEquals(5, batch.getValue().size());
+		verify(owner, never()).sendIceCandidate(any(), any(), any());
+	}
+
+	@Test
+	@DisplayName("Batched remote candidates are forwarded without waiting for each other")
+	@SuppressWarnings("unchecked")
+	void remoteCandidatesBatchTest() {
+		List<IceCandidate> candidates = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			candidates.add(new IceCandidate("candidate" + i, "0", 0));
+		}
+
+		long start = System.nanoTime();
+		subscriber.addIceCandidates(candidates);
+		long callMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		assertTrue(callMs < RTT, "Candidates should not wait for the Media Node");
+		verify(webRtcEndpoint, times(5)).addIceCandidate(any(IceCandidate.class), any(Continuation.class));
+	}
+
+}
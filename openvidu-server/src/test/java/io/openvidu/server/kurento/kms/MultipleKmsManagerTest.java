@@ -0,0 +1,147 @@
+package io.openvidu.server.kurento.kms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kurento.client.KurentoClient;
+import org.kurento.commons.exception.KurentoException;
+import org.kurento.jsonrpc.client.JsonRpcWSConnectionListener;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.openvidu.java.client.RecordingProperties;
+import io.openvidu.server.kurento.core.KurentoSession;
+import io.openvidu.server.kurento.core.KurentoSessionManager;
+import io.openvidu.server.utils.MediaNodeStatusManagerDummy;
+import io.openvidu.server.utils.QuarantineKillerDummy;
+
+public class MultipleKmsManagerTest {
+
+	private static final String UNREACHABLE_URI = "ws://unreachable:8888/kurento";
+
+	private final Map<String, KurentoClient> clients = new ConcurrentHashMap<>();
+	private final Set<String> unreachable = ConcurrentHashMap.newKeySet();
+	private CountDownLatch connecting;
+	private MultipleKmsManager kmsManager;
+
+	@BeforeEach
+	void setUp() {
+		connecting = new CountDownLatch(3);
+		kmsManager = new MultipleKmsManager(new KurentoSessionManager()) {
+			@Override
+			protected KurentoClient createKurentoClient(KmsProperties props, JsonRpcWSConnectionListener listener) {
+				// Every connection waits for the others: only succeeds if they are parallel
+				connecting.countDown();
+				try {
+					connecting.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				if (UNREACHABLE_URI.equals(props.getUri()) || unreachable.contains(props.getUri())) {
+					throw new KurentoException("Connection refused");
+				}
+				KurentoClient client = mock(KurentoClient.class);
+				clients.put(props.getUri(), client);
+				return client;
+			}
+
+			@Override
+			protected long getReconnectionInterval() {
+				return 100;
+			}
+		};
+		ReflectionTestUtils.setField(kmsManager, "loadManager", new DummyLoadManager());
+		ReflectionTestUtils.setField(kmsManager, "quarantineKiller", new QuarantineKillerDummy());
+		ReflectionTestUtils.setField(kmsManager, "mediaNodeStatusManager", new MediaNodeStatusManagerDummy());
+	}
+
+	@Test
+	@DisplayName("All Media Nodes are connected in parallel")
+	void initializeKurentoClientsTest() throws Exception {
+		List<Kms> kmss = kmsManager.initializeKurentoClients(
+				Arrays.asList(props("ws://kms1:8888/kurento"), props("ws://kms2:8888/kurento"),
+						props(UNREACHABLE_URI)),
+				false);
+		assertEquals(2, kmss.size());
+		assertEquals(2, kmsManager.getKmss().size());
+		assertTrue(kmss.stream().allMatch(Kms::isKurentoClientConnected));
+		assertTrue(kmsManager.atLeastOneConnectedAndRunningKms());
+	}
+
+	@Test
+	@DisplayName("Initialization fails if some Media Node is not reachable and disconnectUponFailure is set")
+	void initializeKurentoClientsFailureTest() {
+		assertThrows(Exception.class,
+				() -> kmsManager.initializeKurentoClients(Arrays.asList(props("ws://kms1:8888/kurento"),
+						props("ws://kms2:8888/kurento"), props(UNREACHABLE_URI)), true));
+		assertTrue(kmsManager.getKmss().isEmpty());
+		clients.values().forEach(client -> verify(client).destroy());
+	}
+
+	@Test
+	@DisplayName("Recordings are tracked on the Media Node hosting the session and crashed nodes are reconnected")
+	void recordingsAndCrashTest() throws Exception {
+		connecting = new CountDownLatch(2);
+		List<Kms> kmss = kmsManager.initializeKurentoClients(
+				Arrays.asList(props("ws://kms1:8888/kurento"), props("ws://kms2:8888/kurento")), true);
+		Kms host = kmss.get(1);
+		Kms other = kmss.get(0);
+
+		KurentoSession session = mock(KurentoSession.class);
+		when(session.getSessionId()).thenReturn("session");
+		when(session.getKms()).thenReturn(host);
+		RecordingProperties properties = new RecordingProperties.Builder().build();
+
+		kmsManager.incrementActiveRecordings(properties, "session~1", session);
+		assertEquals(1, host.getNumberOfComposedRecordings());
+		assertEquals(0, other.getNumberOfComposedRecordings());
+
+		kmsManager.decrementActiveRecordings(properties, "session~1", session);
+		assertEquals(0, host.getNumberOfComposedRecordings());
+
+		unreachable.add(host.getUri());
+		kmsManager.removeMediaNodeUponCrash(host.getId());
+		assertNull(kmsManager.getKms(host.getId()));
+		assertEquals(1, kmsManager.getKmss().size());
+		assertNotEquals(host, kmsManager.getLessLoadedConnectedAndRunningKms());
+		verify(host.getKurentoClient()).destroy();
+
+		// Media Node is connected again with the same id once it is reachable
+		Thread.sleep(300);
+		assertNull(kmsManager.getKms(host.getId()));
+		unreachable.remove(host.getUri());
+		long deadline = System.currentTimeMillis() + 5000;
+		while (kmsManager.getKms(host.getId()) == null && System.currentTimeMillis() < deadline) {
+			Thread.sleep(50);
+		}
+		Kms reconnected = kmsManager.getKms(host.getId());
+		assertNotNull(reconnected);
+		assertNotSame(host, reconnected);
+		assertEquals(host.getUri(), reconnected.getUri());
+		assertTrue(reconnected.isKurentoClientConnected());
+		assertEquals(2, kmsManager.getKmss().size());
+	}
+
+	private KmsProperties props(String uri) {
+		return new KmsProperties(KmsManager.generateKmsId(), uri);
+	}
+
+}
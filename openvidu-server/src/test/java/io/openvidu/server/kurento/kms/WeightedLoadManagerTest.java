@@ -0,0 +1,112 @@
+package io.openvidu.server.kurento.kms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kurento.client.Continuation;
+import org.kurento.client.KurentoClient;
+import org.kurento.client.ServerManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.openvidu.server.config.OpenviduConfig;
+
+public class WeightedLoadManagerTest {
+
+	private WeightedLoadManager loadManager;
+
+	@AfterEach
+	void tearDown() {
+		if (loadManager != null) {
+			loadManager.stopSampling();
+		}
+	}
+
+	@Test
+	@DisplayName("Local metrics are read live, so consecutive selections see each other")
+	void liveLocalMetricsTest() {
+		loadManager = loadManager(Map.of(LoadMetric.webrtcConnections, 1.0, LoadMetric.composedRecordings, 10.0),
+				Map.of());
+		Kms kms1 = kms("kms1", 0, 0);
+		Kms kms2 = kms("kms2", 3, 0);
+		loadManager.addKms(kms1);
+		loadManager.addKms(kms2);
+
+		assertEquals(0, loadManager.calculateLoad(kms1));
+		assertEquals(3, loadManager.calculateLoad(kms2));
+
+		when(kms1.getNumberOfWebrtcConnections()).thenReturn(4);
+		when(kms1.getNumberOfComposedRecordings()).thenReturn(1);
+		assertEquals(14, loadManager.calculateLoad(kms1));
+	}
+
+	@Test
+	@DisplayName("Media Nodes that reached any capacity limit refuse new sessions")
+	void capacityTest() {
+		loadManager = loadManager(Map.of(LoadMetric.webrtcConnections, 1.0),
+				Map.of(LoadMetric.webrtcConnections, 10.0, LoadMetric.composedRecordings, 0.0));
+		Kms kms = kms("kms1", 9, 100);
+		loadManager.addKms(kms);
+
+		assertTrue(loadManager.allowMoreElements(kms), "A limit of 0 is unlimited");
+		when(kms.getNumberOfWebrtcConnections()).thenReturn(10);
+		assertFalse(loadManager.allowMoreElements(kms));
+	}
+
+	@Test
+	@DisplayName("CPU and memory are sampled from the Media Nodes added until they are removed")
+	@SuppressWarnings("unchecked")
+	void remoteMetricsTest() {
+		loadManager = loadManager(Map.of(LoadMetric.cpu, 1.0, LoadMetric.memory, 10.0), Map.of());
+		Kms kms = kms("kms1", 0, 0);
+		ServerManager serverManager = mock(ServerManager.class);
+		doAnswer(invocation -> {
+			invocation.<Continuation<Float>>getArgument(1).onSuccess(50f);
+			return null;
+		}).when(serverManager).getUsedCpu(anyInt(), any(Continuation.class));
+		doAnswer(invocation -> {
+			invocation.<Continuation<Long>>getArgument(0).onSuccess(2L * 1024 * 1024);
+			return null;
+		}).when(serverManager).getUsedMemory(any(Continuation.class));
+		KurentoClient kurentoClient = mock(KurentoClient.class);
+		when(kurentoClient.getServerManager()).thenReturn(serverManager);
+		when(kms.getKurentoClient()).thenReturn(kurentoClient);
+		when(kms.isKurentoClientConnected()).thenReturn(true);
+
+		assertEquals(0, loadManager.calculateLoad(kms), "Media Node not added yet");
+		loadManager.addKms(kms);
+		assertEquals(70, loadManager.calculateLoad(kms));
+		loadManager.removeKms(kms);
+		assertEquals(0, loadManager.calculateLoad(kms));
+	}
+
+	private WeightedLoadManager loadManager(Map<LoadMetric, Double> weights, Map<LoadMetric, Double> capacity) {
+		OpenviduConfig openviduConfig = mock(OpenviduConfig.class);
+		when(openviduConfig.getMediaNodeLoadWeights()).thenReturn(weights);
+		when(openviduConfig.getMediaNodeCapacity()).thenReturn(capacity);
+		when(openviduConfig.getMediaNodeLoadSamplingInterval()).thenReturn(5);
+		WeightedLoadManager loadManager = new WeightedLoadManager();
+		ReflectionTestUtils.setField(loadManager, "openviduConfig", openviduConfig);
+		loadManager.startSampling();
+		return loadManager;
+	}
+
+	private Kms kms(String id, int webrtcConnections, int composedRecordings) {
+		Kms kms = mock(Kms.class);
+		when(kms.getId()).thenReturn(id);
+		when(kms.getNumberOfWebrtcConnections()).thenReturn(webrtcConnections);
+		when(kms.getNumberOfComposedRecordings()).thenReturn(composedRecordings);
+		return kms;
+	}
+
+}
@@ -0,0 +1,141 @@
+package io.openvidu.server.recording.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.BooleanSupplier;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.gson.JsonObject;
+
+public class RecordingCatalogueTest {
+
+	private Path recordingPath;
+	private RecordingCatalogue catalogue;
+
+	@BeforeEach
+	void setup() throws IOException {
+		recordingPath = Files.createTempDirectory("recordings");
+	}
+
+	@AfterEach
+	void teardown() throws IOException {
+		if (catalogue != null) {
+			catalogue.close();
+		}
+		FileUtils.deleteDirectory(recordingPath.toFile());
+	}
+
+	@Test
+	@DisplayName("Existing entity files are indexed by id and by session")
+	void loadTest() throws IOException {
+		for (int i = 0; i < 50; i++) {
+			writeEntityFile(i == 0 ? "session" : "session-" + i, "session");
+		}
+		writeEntityFile("other", "other");
+		Files.createDirectory(recordingPath.resolve("no-entity-file"));
+
+		catalogue = new RecordingCatalogue(recordingPath.toString() + "/");
+		catalogue.init();
+
+		assertEquals(51, catalogue.getAllRecordings().size());
+		assertEquals(50, catalogue.getRecordingsOfSession("session").size());
+		assertEquals("other", catalogue.getRecording("other").get("sessionId").getAsString());
+		assertNull(catalogue.getRecording("no-entity-file"));
+	}
+
+	@Test
+	@DisplayName("Free recording ids reuse the lowest available number tag")
+	void freeRecordingIdTest() throws IOException {
+		catalogue = new RecordingCatalogue(recordingPath.toString() + "/");
+		catalogue.init();
+
+		assertEquals("session", catalogue.getFreeRecordingId("session"));
+		catalogue.addRecording(entity("session", "session"));
+		assertEquals("session-1", catalogue.getFreeRecordingId("session"));
+		catalogue.addRecording(entity("session-1", "session"));
+		catalogue.addRecording(entity("session-2", "session"));
+		assertEquals("session-3", catalogue.getFreeRecordingId("session"));
+
+		catalogue.removeRecording("session-1");
+		assertFalse(catalogue.containsRecording("session-1"));
+		assertEquals("session-1", catalogue.getFreeRecordingId("session"));
+		catalogue.removeRecording("session");
+		assertEquals("session", catalogue.getFreeRecordingId("session"));
+		assertEquals(1, catalogue.getRecordingsOfSession("session").size());
+	}
+
+	@Test
+	@DisplayName("Folders created and deleted externally are reconciled")
+	void watchTest() throws Exception {
+		catalogue = new RecordingCatalogue(recordingPath.toString() + "/");
+		catalogue.init();
+
+		Path folder = Files.createDirectory(recordingPath.resolve("external"));
+		Thread.sleep(200);
+		Files.writeString(folder.resolve(RecordingService.RECORDING_ENTITY_FILE + "external"),
+				entity("external", "external").toString());
+		assertTrue(waitFor(() -> catalogue.containsRecording("external")));
+
+		FileUtils.deleteDirectory(folder.toFile());
+		assertTrue(waitFor(() -> !catalogue.containsRecording("external")));
+	}
+
+	@Test
+	@DisplayName("Entity files not yet notified are read from disk")
+	void fallbackTest() throws IOException {
+		catalogue = new RecordingCatalogue(recordingPath.toString() + "/");
+		catalogue.reload();
+		writeEntityFile("late", "late");
+		assertNotNull(catalogue.getRecording("late"));
+		assertTrue(catalogue.containsRecording("late"));
+	}
+
+	@Test
+	@DisplayName("Closing the catalogue stops its watcher thread")
+	void closeTest() throws Exception {
+		catalogue = new RecordingCatalogue(recordingPath.toString() + "/");
+		catalogue.init();
+		Thread watcher = (Thread) ReflectionTestUtils.getField(catalogue, "watcher");
+		assertTrue(watcher.isAlive());
+		catalogue.close();
+		assertFalse(watcher.isAlive());
+	}
+
+	private boolean waitFor(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 15000;
+		while (System.currentTimeMillis() < deadline) {
+			if (condition.getAsBoolean()) {
+				return true;
+			}
+			Thread.sleep(50);
+		}
+		return false;
+	}
+
+	private void writeEntityFile(String recordingId, String sessionId) throws IOException {
+		Path folder = Files.createDirectory(recordingPath.resolve(recordingId));
+		Files.writeString(folder.resolve(RecordingService.RECORDING_ENTITY_FILE + recordingId),
+				entity(recordingId, sessionId).toString());
+	}
+
+	private JsonObject entity(String recordingId, String sessionId) {
+		JsonObject json = new JsonObject();
+		json.addProperty("id", recordingId);
+		json.addProperty("sessionId", sessionId);
+		return json;
+	}
+
+}
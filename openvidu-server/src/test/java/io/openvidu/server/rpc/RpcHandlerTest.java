@@ -0,0 +1,180 @@
+package io.openvidu.server.rpc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kurento.jsonrpc.Session;
+import org.kurento.jsonrpc.Transaction;
+import org.kurento.jsonrpc.message.Request;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.gson.JsonObject;
+
+import io.openvidu.client.OpenViduException;
+import io.openvidu.client.OpenViduException.Code;
+import io.openvidu.client.internal.ProtocolElements;
+import io.openvidu.server.config.OpenviduConfig;
+import io.openvidu.server.core.SessionManager;
+
+public class RpcHandlerTest {
+
+	private static final String SLOW_PARTICIPANT = "slow";
+
+	private RpcHandler rpcHandler;
+	private CountDownLatch slowMediaNode;
+	private Map<String, List<Integer>> processed;
+
+	@BeforeEach
+	void setUp() {
+		slowMediaNode = new CountDownLatch(1);
+		processed = new ConcurrentHashMap<>();
+
+		rpcHandler = new RpcHandler();
+		rpcHandler.openviduConfig = mock(OpenviduConfig.class);
+		when(rpcHandler.openviduConfig.getSessionRpcThreads()).thenReturn(4);
+		rpcHandler.notificationService = new RpcNotificationService();
+		rpcHandler.sessionManager = mock(SessionManager.class);
+		// The Media Node takes its time to answer the requests of one participant
+		doAnswer(invocation -> {
+			String privateId = invocation.getArgument(0);
+			if (SLOW_PARTICIPANT.equals(privateId)) {
+				slowMediaNode.await(10, TimeUnit.SECONDS);
+			}
+			processed.computeIfAbsent(privateId, id -> new CopyOnWriteArrayList<>()).add(invocation.getArgument(1));
+			return null;
+		}).when(rpcHandler.sessionManager).onEcho(anyString(), anyInt());
+		rpcHandler.init();
+	}
+
+	@AfterEach
+	void tearDown() {
+		slowMediaNode.countDown();
+		rpcHandler.close();
+	}
+
+	@Test
+	@DisplayName("A slow Media Node does not block the caller nor the requests of other participants")
+	void slowMediaNodeTest() throws Exception {
+		List<Transaction> slowTransactions = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			slowTransactions.add(mockTransaction(SLOW_PARTICIPANT));
+		}
+
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < 50; i++) {
+			rpcHandler.handleRequest(slowTransactions.get(i), echoRequest(i));
+		}
+		assertTrue(System.currentTimeMillis() - start < 1000, "Requests should not wait for the Media Node");
+
+		for (int p = 0; p < 20; p++) {
+			String privateId = "participant" + p;
+			for (int i = 0; i < 10; i++) {
+				rpcHandler.handleRequest(mockTransaction(privateId), echoRequest(i));
+			}
+		}
+		waitFor(() -> processed.size() == 20 && processed.values().stream().allMatch(ids -> ids.size() == 10));
+		for (int p = 0; p < 20; p++) {
+			assertEquals(expectedIds(10), processed.get("participant" + p), "Requests must keep their order");
+		}
+		assertEquals(49, rpcHandler.getRpcRequestExecutor().getQueueDepth(SLOW_PARTICIPANT));
+		assertEquals(49, rpcHandler.getRpcRequestExecutor().getMaxQueueDepth());
+
+		slowMediaNode.countDown();
+		waitFor(() -> processed.containsKey(SLOW_PARTICIPANT) && processed.get(SLOW_PARTICIPANT).size() == 50);
+		assertEquals(expectedIds(50), processed.get(SLOW_PARTICIPANT), "Requests must keep their order");
+		assertEquals(0, rpcHandler.getRpcRequestExecutor().getQueueDepth());
+	}
+
+	@Test
+	@DisplayName("Errors of asynchronous requests are sent to the client")
+	void errorResponseTest() throws Exception {
+		OpenViduException error = new OpenViduException(Code.GENERIC_ERROR_CODE, "error");
+		doAnswer(invocation -> {
+			throw error;
+		}).when(rpcHandler.sessionManager).onEcho(anyString(), anyInt());
+
+		Transaction transaction = mockTransaction("participant");
+		rpcHandler.handleRequest(transaction, echoRequest(1));
+
+		verify(transaction, timeout(5000)).sendError(error);
+	}
+
+	@Test
+	@DisplayName("The last task of a closed connection runs after its previous requests and before any later one")
+	void closeConnectionTest() throws Exception {
+		RpcRequestExecutor executor = rpcHandler.getRpcRequestExecutor();
+		List<String> executed = new CopyOnWriteArrayList<>();
+		CountDownLatch firstRequest = new CountDownLatch(1);
+		executor.execute("participant", () -> {
+			try {
+				firstRequest.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+			}
+			executed.add("request");
+		});
+		executor.executeLast("participant", () -> executed.add("close"));
+		executor.execute("participant", () -> executed.add("late"));
+		firstRequest.countDown();
+
+		waitFor(() -> executor.getQueueDepth() == 0 && executed.contains("close"));
+		waitFor(() -> ((Map<?, ?>) ReflectionTestUtils.getField(executor, "queues")).isEmpty());
+		assertEquals(List.of("request", "close"), executed, "Late requests must be discarded");
+
+		// A new connection with the same id gets a new queue
+		executor.execute("participant", () -> executed.add("new"));
+		waitFor(() -> executed.size() == 3);
+		assertEquals("new", executed.get(2));
+	}
+
+	private Transaction mockTransaction(String privateId) {
+		Session session = mock(Session.class);
+		when(session.getSessionId()).thenReturn(privateId);
+		Transaction transaction = mock(Transaction.class);
+		when(transaction.getSession()).thenReturn(session);
+		if (rpcHandler.notificationService.getRpcConnection(privateId) == null) {
+			rpcHandler.notificationService.newRpcConnection(transaction, null).setSessionId("session");
+		}
+		return transaction;
+	}
+
+	private Request<JsonObject> echoRequest(int id) {
+		return new Request<>(id, ProtocolElements.ECHO_METHOD, new JsonObject());
+	}
+
+	private List<Integer> expectedIds(int size) {
+		List<Integer> ids = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			ids.add(i);
+		}
+		return ids;
+	}
+
+	private void waitFor(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertTrue(condition.getAsBoolean());
+	}
+
+}
@@ -0,0 +1,129 @@
+package io.openvidu.server.rpc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kurento.jsonrpc.Session;
+import org.kurento.jsonrpc.Transaction;
+import org.kurento.jsonrpc.internal.server.SessionsManager;
+import org.kurento.jsonrpc.internal.ws.WebSocketServerSession;
+import org.kurento.jsonrpc.message.Request;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+public class RpcNotificationServiceTest {
+
+	@Test
+	@DisplayName("Broadcast notifications are serialized once and sent to every participant")
+	void broadcastNotificationTest() throws Exception {
+		RpcNotificationService notificationService = new RpcNotificationService();
+
+		List<String> privateIds = new ArrayList<>();
+		List<WebSocketSession> wsSessions = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			String privateId = "privateId" + i;
+			privateIds.add(privateId);
+			wsSessions.add(mockConnection(notificationService, privateId));
+		}
+
+		JsonObject params = new JsonObject();
+		params.addProperty("connectionId", "con_1");
+		notificationService.broadcastNotification(privateIds, "participantLeft", params);
+
+		TextMessage firstMessage = null;
+		for (WebSocketSession wsSession : wsSessions) {
+			ArgumentCaptor<TextMessage> captor = ArgumentCaptor.forClass(TextMessage.class);
+			verify(wsSession).sendMessage(captor.capture());
+			if (firstMessage == null) {
+				firstMessage = captor.getValue();
+			}
+			assertSame(firstMessage, captor.getValue(), "Notification frame should be shared by all participants");
+		}
+
+		JsonObject frame = JsonParser.parseString(firstMessage.getPayload()).getAsJsonObject();
+		assertEquals("2.0", frame.get("jsonrpc").getAsString());
+		assertEquals("participantLeft", frame.get("method").getAsString());
+		assertEquals(params, frame.get("params"));
+	}
+
+	@Test
+	@DisplayName("Broadcast notifications skip unknown and closed connections")
+	void broadcastNotificationSkipsUnavailableConnectionsTest() throws Exception {
+		RpcNotificationService notificationService = new RpcNotificationService();
+		WebSocketSession open = mockConnection(notificationService, "open");
+		WebSocketSession closed = mockConnection(notificationService, "closed");
+		when(closed.isOpen()).thenReturn(false);
+
+		notificationService.broadcastNotification(Arrays.asList("unknown", "closed", "open"), "participantLeft",
+				new JsonObject());
+
+		verify(open).sendMessage(any(TextMessage.class));
+		verify(closed, never()).sendMessage(any(WebSocketMessage.class));
+	}
+
+	@Test
+	@DisplayName("Broadcast notification frames are the ones Kurento sends for each participant")
+	void broadcastNotificationFrameTest() throws Exception {
+		RpcNotificationService notificationService = new RpcNotificationService();
+		List<String> privateIds = Arrays.asList("privateId1", "privateId2");
+		List<WebSocketSession> wsSessions = new ArrayList<>();
+		List<Session> sessions = new ArrayList<>();
+		for (String privateId : privateIds) {
+			WebSocketSession wsSession = mock(WebSocketSession.class);
+			when(wsSession.isOpen()).thenReturn(true);
+			Session session = new WebSocketServerSession(privateId, null, mock(SessionsManager.class), wsSession);
+			Transaction transaction = mock(Transaction.class);
+			when(transaction.getSession()).thenReturn(session);
+			notificationService.newRpcConnection(transaction, mock(Request.class));
+			wsSessions.add(wsSession);
+			sessions.add(session);
+		}
+
+		JsonObject params = new JsonObject();
+		params.addProperty("connectionId", "con_1");
+		params.addProperty("reason", "disconnect");
+		notificationService.broadcastNotification(privateIds, "participantLeft", params);
+		for (Session session : sessions) {
+			session.sendNotification("participantLeft", params);
+		}
+
+		for (WebSocketSession wsSession : wsSessions) {
+			ArgumentCaptor<TextMessage> captor = ArgumentCaptor.forClass(TextMessage.class);
+			verify(wsSession, times(2)).sendMessage(captor.capture());
+			TextMessage broadcastFrame = captor.getAllValues().get(0);
+			TextMessage kurentoFrame = captor.getAllValues().get(1);
+			assertEquals(kurentoFrame.getPayload(), broadcastFrame.getPayload());
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private WebSocketSession mockConnection(RpcNotificationService notificationService, String privateId) {
+		WebSocketSession wsSession = mock(WebSocketSession.class);
+		when(wsSession.isOpen()).thenReturn(true);
+		WebSocketServerSession session = mock(WebSocketServerSession.class);
+		when(session.getSessionId()).thenReturn(privateId);
+		when(session.getWebSocketSession()).thenReturn(wsSession);
+		Transaction transaction = mock(Transaction.class);
+		when(transaction.getSession()).thenReturn(session);
+		notificationService.newRpcConnection(transaction, mock(Request.class));
+		return wsSession;
+	}
+
+}
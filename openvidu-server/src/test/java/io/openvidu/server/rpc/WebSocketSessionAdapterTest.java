@@ -0,0 +1,63 @@
+package io.openvidu.server.rpc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kurento.jsonrpc.JsonUtils;
+import org.kurento.jsonrpc.Session;
+import org.kurento.jsonrpc.internal.ws.WebSocketServerSession;
+import org.kurento.jsonrpc.message.Request;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import com.google.gson.JsonObject;
+
+public class WebSocketSessionAdapterTest {
+
+	@Test
+	@DisplayName("The WebSocket of a Kurento session is available while open")
+	void webSocketSessionTest() {
+		WebSocketSession wsSession = mock(WebSocketSession.class);
+		WebSocketServerSession session = mock(WebSocketServerSession.class);
+		when(session.getWebSocketSession()).thenReturn(wsSession);
+
+		when(wsSession.isOpen()).thenReturn(true);
+		assertSame(wsSession, WebSocketSessionAdapter.getWebSocketSession(session));
+		assertSame(wsSession, WebSocketSessionAdapter.getOpenWebSocketSession(session));
+
+		when(wsSession.isOpen()).thenReturn(false);
+		assertSame(wsSession, WebSocketSessionAdapter.getWebSocketSession(session));
+		assertNull(WebSocketSessionAdapter.getOpenWebSocketSession(session));
+
+		Session otherSession = mock(Session.class);
+		assertNull(WebSocketSessionAdapter.getWebSocketSession(otherSession));
+		assertNull(WebSocketSessionAdapter.getOpenWebSocketSession(otherSession));
+	}
+
+	@Test
+	@DisplayName("Notifications are valid JSON-RPC requests without id")
+	void notificationMessageTest() throws Exception {
+		JsonObject params = new JsonObject();
+		params.addProperty("connectionId", "con_1");
+		Session session = mock(Session.class);
+		when(session.getSessionId()).thenReturn("privateId");
+		TextMessage message = WebSocketSessionAdapter.notificationMessage(session, "participantLeft", params);
+
+		Request<JsonObject> request = JsonUtils.fromJsonRequest(message.getPayload(), JsonObject.class);
+		assertTrue(request.isNotification());
+		assertEquals("participantLeft", request.getMethod());
+		assertEquals(params, request.getParams());
+
+		WebSocketSession wsSession = mock(WebSocketSession.class);
+		WebSocketSessionAdapter.send(wsSession, message);
+		verify(wsSession).sendMessage(message);
+	}
+
+}
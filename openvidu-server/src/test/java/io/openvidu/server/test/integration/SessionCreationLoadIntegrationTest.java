@@ -0,0 +1,150 @@
+/*
+ * (C) Copyright 2017-2020 OpenVidu (https://openvidu.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.openvidu.server.test.integration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.web.WebAppConfiguration;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import io.openvidu.java.client.ConnectionProperties;
+import io.openvidu.server.core.Participant;
+import io.openvidu.server.core.Session;
+import io.openvidu.server.core.SessionManager;
+import io.openvidu.server.core.Token;
+import io.openvidu.server.kurento.kms.KmsManager;
+import io.openvidu.server.rest.SessionRestController;
+import io.openvidu.server.test.integration.config.IntegrationTestConfiguration;
+
+/**
+ * Joins many participants to many new sessions at the same time, using the
+ * mocked KurentoClient of {@link IntegrationTestConfiguration} (which takes up
+ * to 1 second to create each MediaPipeline)
+ */
+@SpringBootTest
+@TestPropertySource(locations = "classpath:integration-test.properties")
+@ContextConfiguration(classes = { IntegrationTestConfiguration.class })
+@WebAppConfiguration
+public class SessionCreationLoadIntegrationTest {
+
+	private static final Logger log = LoggerFactory.getLogger(SessionCreationLoadIntegrationTest.class);
+
+	private static final int NUMBER_OF_SESSIONS = 50;
+	private static final int PARTICIPANTS_PER_SESSION = 4;
+
+	@SpyBean
+	private KmsManager kmsManager;
+
+	@Autowired
+	private SessionManager sessionManager;
+
+	@Autowired
+	private SessionRestController sessionRestController;
+
+	@Test
+	@DisplayName("Parallel creation of sessions")
+	void parallelSessionCreationTest() throws Exception {
+
+		log.info("Parallel creation of sessions");
+
+		List<Session> sessions = new ArrayList<>();
+		List<String> tokens = new ArrayList<>();
+		for (int i = 0; i < NUMBER_OF_SESSIONS; i++) {
+			Session session = getSession();
+			sessions.add(session);
+			for (int j = 0; j < PARTICIPANTS_PER_SESSION; j++) {
+				tokens.add(getToken(session));
+			}
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(NUMBER_OF_SESSIONS * PARTICIPANTS_PER_SESSION);
+		CountDownLatch start = new CountDownLatch(1);
+		for (int i = 0; i < NUMBER_OF_SESSIONS; i++) {
+			final Session session = sessions.get(i);
+			for (int j = 0; j < PARTICIPANTS_PER_SESSION; j++) {
+				final String token = tokens.get(i * PARTICIPANTS_PER_SESSION + j);
+				executor.submit(() -> {
+					start.await();
+					joinParticipant(session, token);
+					return null;
+				});
+			}
+		}
+
+		final long initTime = System.currentTimeMillis();
+		start.countDown();
+		executor.shutdown();
+		Assert.assertTrue("Participants took too long to join",
+				executor.awaitTermination(KmsManager.MAX_SECONDS_LOCK_WAIT, TimeUnit.SECONDS));
+		log.info("{} participants joined {} new sessions in {} ms", NUMBER_OF_SESSIONS * PARTICIPANTS_PER_SESSION,
+				NUMBER_OF_SESSIONS, System.currentTimeMillis() - initTime);
+
+		Assert.assertEquals("Wrong number of active sessions", NUMBER_OF_SESSIONS,
+				sessionManager.getSessions().size());
+		for (Session session : sessions) {
+			Session activeSession = sessionManager.getSession(session.getSessionId());
+			Assert.assertNotNull("Session " + session.getSessionId() + " not active", activeSession);
+			Assert.assertEquals("Wrong number of participants in session " + session.getSessionId(),
+					PARTICIPANTS_PER_SESSION, activeSession.getParticipants().size());
+		}
+	}
+
+	private Session getSession() {
+		String stringResponse = (String) sessionRestController.initializeSession(new HashMap<>()).getBody();
+		JsonObject json = new Gson().fromJson(stringResponse, JsonObject.class);
+		String sessionId = json.get("id").getAsString();
+		return sessionManager.getSessionNotActive(sessionId);
+	}
+
+	private String getToken(Session session) {
+		String stringResponse = (String) sessionRestController
+				.initializeConnection(session.getSessionId(), new HashMap<>()).getBody();
+		return new Gson().fromJson(stringResponse, JsonObject.class).get("token").getAsString();
+	}
+
+	private void joinParticipant(Session session, String token) {
+		ConnectionProperties connectionProperties = new ConnectionProperties.Builder().data("SERVER_METADATA").build();
+		Token t = new Token(token, session.getSessionId(), connectionProperties, null);
+		String uuid = UUID.randomUUID().toString();
+		String participantPrivateId = "PARTICIPANT_PRIVATE_ID_" + uuid;
+		String finalUserId = "FINAL_USER_ID_" + uuid;
+		Participant participant = sessionManager.newParticipant(session, participantPrivateId, t, "CLIENT_METADATA",
+				null, "Chrome", finalUserId);
+		sessionManager.joinRoom(participant, session.getSessionId(), null);
+	}
+
+}
@@ -28,6 +28,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.web.WebAppConfiguration;
@@ -110,9 +111,10 @@ public class SessionGarbageCollectorIntegrationTest {
 		return new Gson().fromJson(stringResponse, JsonObject.class).get("token").getAsString();
 	}
 
-	private JsonObject listSessions() {
-		String stringResponse = (String) sessionRestController.listSessions(false, false).getBody();
-		return new Gson().fromJson(stringResponse, JsonObject.class);
+	private JsonObject listSessions() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		sessionRestController.listSessions(false, false, null, null, null, response);
+		return new Gson().fromJson(response.getContentAsString(), JsonObject.class);
 	}
 
 	private void joinParticipant(Session session, String token) {
@@ -0,0 +1,126 @@
+package io.openvidu.server.test.unit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.kurento.jsonrpc.Transaction;
+import org.kurento.jsonrpc.internal.server.SessionsManager;
+import org.kurento.jsonrpc.internal.ws.WebSocketServerSession;
+import org.kurento.jsonrpc.message.Request;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.WebSocketSession;
+
+import com.google.gson.JsonObject;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+
+import io.openvidu.client.internal.ProtocolElements;
+import io.openvidu.server.rpc.RpcNotificationService;
+
+/**
+ * Benchmarks {@link RpcNotificationService#broadcastNotification} against
+ * calling {@link RpcNotificationService#sendNotification} for every recipient,
+ * as session events were sent before. WebSockets discard the messages written
+ * to them. Not run by the test suite. Run it with:
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=io.openvidu.server.test.unit.BroadcastNotificationBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BroadcastNotificationBenchmark {
+
+	@Param({ "10", "100", "1000" })
+	public int recipients;
+
+	private RpcNotificationService notificationService;
+	private List<String> privateIds;
+	private JsonObject params;
+
+	@Setup
+	@SuppressWarnings("unchecked")
+	public void setup() {
+		// Same log level as OpenVidu Server, Kurento logs every request at DEBUG
+		((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.INFO);
+		this.notificationService = new RpcNotificationService();
+		this.privateIds = new ArrayList<>();
+		for (int i = 0; i < this.recipients; i++) {
+			String privateId = "privateId_" + i;
+			WebSocketServerSession session = new WebSocketServerSession(privateId, null, mock(SessionsManager.class),
+					discardingWebSocket());
+			Transaction transaction = mock(Transaction.class);
+			when(transaction.getSession()).thenReturn(session);
+			this.notificationService.newRpcConnection(transaction, mock(Request.class));
+			this.privateIds.add(privateId);
+		}
+		this.params = new JsonObject();
+		this.params.addProperty(ProtocolElements.PARTICIPANTJOINED_USER_PARAM, "con_benchmark");
+		this.params.addProperty(ProtocolElements.PARTICIPANTJOINED_CREATEDAT_PARAM, System.currentTimeMillis());
+		this.params.addProperty(ProtocolElements.PARTICIPANTJOINED_METADATA_PARAM,
+				"{\"clientData\":\"Benchmark participant\"}");
+	}
+
+	@Benchmark
+	public void broadcast() {
+		this.notificationService.broadcastNotification(this.privateIds, ProtocolElements.PARTICIPANTJOINED_METHOD,
+				this.params);
+	}
+
+	@Benchmark
+	public void sendPerRecipient() {
+		for (String privateId : this.privateIds) {
+			this.notificationService.sendNotification(privateId, ProtocolElements.PARTICIPANTJOINED_METHOD,
+					this.params);
+		}
+	}
+
+	private static WebSocketSession discardingWebSocket() {
+		return (WebSocketSession) Proxy.newProxyInstance(WebSocketSession.class.getClassLoader(),
+				new Class<?>[] { WebSocketSession.class }, (proxy, method, args) -> {
+					switch (method.getName()) {
+					case "isOpen":
+						return true;
+					case "getId":
+						return "ws_" + System.identityHashCode(proxy);
+					case "hashCode":
+						return System.identityHashCode(proxy);
+					case "equals":
+						return proxy == args[0];
+					default:
+						return null;
+					}
+				});
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder().include(BroadcastNotificationBenchmark.class.getSimpleName()).build();
+		new Runner(options).run();
+	}
+
+}
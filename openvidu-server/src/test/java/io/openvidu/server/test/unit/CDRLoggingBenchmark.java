@@ -0,0 +1,119 @@
+package io.openvidu.server.test.unit;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+
+import io.openvidu.java.client.ConnectionProperties;
+import io.openvidu.server.cdr.CDRLogger;
+import io.openvidu.server.cdr.CDRLoggerFile;
+import io.openvidu.server.cdr.CallDetailRecord;
+import io.openvidu.server.core.Participant;
+import io.openvidu.server.core.Token;
+import io.openvidu.server.kurento.endpoint.EndpointType;
+
+/**
+ * Benchmarks the latency added by the CDR to the threads recording session
+ * events, with the CDR disabled and enabled. When enabled, events are written
+ * by {@link CDRLoggerFile} to an appender discarding them, so they are fully
+ * serialized by the logger thread. Not run by the test suite. Run it with:
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=io.openvidu.server.test.unit.CDRLoggingBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CDRLoggingBenchmark {
+
+	@Param({ "off", "on" })
+	public String cdr;
+
+	private CallDetailRecord callDetailRecord;
+	private Participant participant;
+	private String[] to;
+
+	@Setup
+	public void setup() {
+		((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.INFO);
+		this.discardCdrFile();
+		List<CDRLogger> loggers = "on".equals(this.cdr) ? List.of(new CDRLoggerFile()) : List.of();
+		this.callDetailRecord = new CallDetailRecord(loggers, 10000);
+
+		String sessionId = "session";
+		Token token = new Token("TOKEN", sessionId, new ConnectionProperties.Builder().build(), null);
+		this.participant = new Participant("user", "privateId", token.getConnectionId(), sessionId, sessionId + "_0",
+				token, "{\"clientData\":\"Benchmark participant\"}", null, null, EndpointType.WEBRTC_ENDPOINT, null);
+		this.to = new String[] { "con_1", "con_2", "con_3" };
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.callDetailRecord.close();
+	}
+
+	@Benchmark
+	public void participantJoined() {
+		this.callDetailRecord.recordParticipantJoined(this.participant, "session");
+	}
+
+	@Benchmark
+	public void signalSent() {
+		this.callDetailRecord.recordSignalSent("session", "session_0", "con_0", this.to, "signal:chat",
+				"Benchmark message");
+	}
+
+	/**
+	 * Same layout as the CDR file, written nowhere
+	 */
+	private void discardCdrFile() {
+		LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+		PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+		encoder.setContext(context);
+		encoder.setPattern("%msg%n");
+		encoder.start();
+		OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+		appender.setContext(context);
+		appender.setEncoder(encoder);
+		appender.setOutputStream(OutputStream.nullOutputStream());
+		appender.start();
+		Logger cdrLogger = (Logger) LoggerFactory.getLogger(CDRLoggerFile.class);
+		cdrLogger.setAdditive(false);
+		cdrLogger.addAppender(appender);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder().include(CDRLoggingBenchmark.class.getSimpleName()).build();
+		new Runner(options).run();
+	}
+
+}
@@ -0,0 +1,105 @@
+package io.openvidu.server.test.unit;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.openvidu.java.client.ConnectionProperties;
+import io.openvidu.java.client.SessionProperties;
+import io.openvidu.server.core.Participant;
+import io.openvidu.server.core.Session;
+import io.openvidu.server.core.SessionManager;
+import io.openvidu.server.core.Token;
+import io.openvidu.server.kurento.core.KurentoSessionManager;
+import io.openvidu.server.kurento.endpoint.EndpointType;
+
+/**
+ * Benchmarks {@link SessionManager#getParticipant(String)}, as called on every
+ * WebSocket close, against the scan of every session it replaced. Not run by the
+ * test suite. Run it with:
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=io.openvidu.server.test.unit.ParticipantLookupBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParticipantLookupBenchmark {
+
+	@Param({ "100", "10000" })
+	public int sessions;
+
+	private SessionManager sessionManager;
+	private Map<String, Session> sessionsMap;
+	private String[] privateIds;
+
+	@Setup
+	@SuppressWarnings("unchecked")
+	public void setup() {
+		this.sessionManager = new KurentoSessionManager();
+		this.sessionsMap = (Map<String, Session>) ReflectionTestUtils.getField(this.sessionManager, "sessions");
+		Map<String, Participant> index = (Map<String, Participant>) ReflectionTestUtils
+				.getField(this.sessionManager, "participantsByPrivateId");
+		this.privateIds = new String[this.sessions];
+		for (int i = 0; i < this.sessions; i++) {
+			String sessionId = "session" + i;
+			Session session = new Session(sessionId, new SessionProperties.Builder().build(), null, null);
+			Token token = new Token("TOKEN_" + i, sessionId, new ConnectionProperties.Builder().build(), null);
+			Participant participant = new Participant("user" + i, "privateId_" + i, token.getConnectionId(),
+					sessionId, sessionId + "_0", token, null, null, null, EndpointType.WEBRTC_ENDPOINT, null);
+			ReflectionTestUtils.invokeMethod(session, "addParticipant", participant);
+			this.sessionsMap.put(sessionId, session);
+			index.put(participant.getParticipantPrivateId(), participant);
+			this.privateIds[i] = participant.getParticipantPrivateId();
+		}
+	}
+
+	@Benchmark
+	public Participant indexedLookup() {
+		return this.sessionManager.getParticipant(this.randomPrivateId());
+	}
+
+	@Benchmark
+	public Participant sessionsScan() {
+		String privateId = this.randomPrivateId();
+		for (Session session : this.sessionsMap.values()) {
+			if (!session.isClosed()) {
+				if (session.getParticipantByPrivateId(privateId) != null) {
+					return session.getParticipantByPrivateId(privateId);
+				}
+			}
+		}
+		return null;
+	}
+
+	private String randomPrivateId() {
+		return this.privateIds[ThreadLocalRandom.current().nextInt(this.privateIds.length)];
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder().include(ParticipantLookupBenchmark.class.getSimpleName()).build();
+		new Runner(options).run();
+	}
+
+}
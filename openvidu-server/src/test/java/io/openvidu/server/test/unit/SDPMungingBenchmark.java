@@ -0,0 +1,69 @@
+package io.openvidu.server.test.unit;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import io.openvidu.java.client.VideoCodec;
+import io.openvidu.server.utils.SDPMunging;
+
+/**
+ * Benchmarks {@link SDPMunging} over the real offers used by
+ * {@link SDPMungingTest}. Not run by the test suite. Run it with:
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=io.openvidu.server.test.unit.SDPMungingBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SDPMungingBenchmark {
+
+	@Param({ "sdp_chrome84.txt", "sdp_firefox79.txt", "sdp_safari13-1.txt", "sdp_kurento_h264.txt" })
+	public String sdpFile;
+
+	@Param({ "VP8", "H264" })
+	public VideoCodec codec;
+
+	private SDPMunging sdpMunging;
+	private String sdp;
+
+	@Setup
+	public void setup() throws IOException {
+		this.sdpMunging = new SDPMunging();
+		String sdpUnformatted = new String(getClass().getResourceAsStream("/sdp/" + sdpFile).readAllBytes(),
+				StandardCharsets.UTF_8);
+		this.sdp = String.join("\r\n", sdpUnformatted.split("\\R+")) + "\r\n";
+	}
+
+	@Benchmark
+	public String setCodecPreference() {
+		return this.sdpMunging.setCodecPreference(codec, sdp);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder().include(SDPMungingBenchmark.class.getSimpleName()).build();
+		new Runner(options).run();
+	}
+
+}
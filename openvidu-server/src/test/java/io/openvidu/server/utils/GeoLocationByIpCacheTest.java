@@ -0,0 +1,120 @@
+package io.openvidu.server.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class GeoLocationByIpCacheTest {
+
+	private final AtomicInteger lookups = new AtomicInteger(0);
+	private GeoLocationByIpCache cache;
+
+	@AfterEach
+	void tearDown() {
+		if (cache != null) {
+			cache.close();
+		}
+	}
+
+	@Test
+	@DisplayName("Participants behind the same IP cost a single lookup")
+	void cachedLookupTest() throws Exception {
+		cache = new GeoLocationByIpCache(ip -> {
+			lookups.incrementAndGet();
+			return location(ip);
+		}, 10, 3600);
+		InetAddress ip = InetAddress.getByName("10.0.0.1");
+
+		GeoLocation location = cache.getLocationByIp(ip);
+		for (int i = 0; i < 100; i++) {
+			assertSame(location, cache.getLocationByIp(ip));
+		}
+		assertEquals(1, lookups.get());
+		assertEquals(100, cache.getHits());
+	}
+
+	@Test
+	@DisplayName("Least recently used IPs are discarded first")
+	void lruTest() throws Exception {
+		cache = new GeoLocationByIpCache(ip -> {
+			lookups.incrementAndGet();
+			return location(ip);
+		}, 2, 3600);
+		InetAddress ip1 = InetAddress.getByName("10.0.0.1");
+		InetAddress ip2 = InetAddress.getByName("10.0.0.2");
+		InetAddress ip3 = InetAddress.getByName("10.0.0.3");
+
+		cache.getLocationByIp(ip1);
+		cache.getLocationByIp(ip2);
+		cache.getLocationByIp(ip1);
+		cache.getLocationByIp(ip3); // Discards ip2
+		assertEquals(2, cache.getSize());
+		assertEquals(3, lookups.get());
+
+		cache.getLocationByIp(ip1);
+		assertEquals(3, lookups.get());
+		cache.getLocationByIp(ip2);
+		assertEquals(4, lookups.get());
+	}
+
+	@Test
+	@DisplayName("IPs that cannot be located are cached too")
+	void negativeCacheTest() throws Exception {
+		cache = new GeoLocationByIpCache(ip -> {
+			lookups.incrementAndGet();
+			throw new IllegalStateException("Address not found");
+		}, 10, 3600);
+		InetAddress ip = InetAddress.getByName("10.0.0.1");
+
+		assertThrows(IllegalStateException.class, () -> cache.getLocationByIp(ip));
+		assertNull(cache.getLocationByIp(ip));
+		assertNull(cache.getLocationByIpAsync(ip).getNow(new GeoLocation(null, null, null, null, null, null)));
+		assertEquals(1, lookups.get());
+	}
+
+	@Test
+	@DisplayName("Concurrent asynchronous lookups of the same IP share the same resolution")
+	void asyncLookupTest() throws Exception {
+		CountDownLatch slowDatabase = new CountDownLatch(1);
+		cache = new GeoLocationByIpCache(ip -> {
+			lookups.incrementAndGet();
+			slowDatabase.await(5, TimeUnit.SECONDS);
+			return location(ip);
+		}, 10, 3600);
+		InetAddress ip = InetAddress.getByName("10.0.0.1");
+
+		List<CompletableFuture<GeoLocation>> futures = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			futures.add(cache.getLocationByIpAsync(ip));
+		}
+		assertFalse(futures.get(0).isDone(), "Lookup should not block the caller");
+
+		slowDatabase.countDown();
+		GeoLocation location = futures.get(0).get(5, TimeUnit.SECONDS);
+		for (CompletableFuture<GeoLocation> future : futures) {
+			assertSame(location, future.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(1, lookups.get());
+		assertTrue(cache.getLocationByIpAsync(ip).isDone(), "Location should be cached");
+	}
+
+	private GeoLocation location(InetAddress ip) {
+		return new GeoLocation(ip.getHostAddress(), "Spain", "Madrid", "Europe/Madrid", 40.4, -3.7);
+	}
+
+}
@@ -0,0 +1,49 @@
+package io.openvidu.server.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+public class RestUtilsTest {
+
+	private final List<String> ids = Arrays.asList("ses_D", "ses_A", "ses_C", "ses_B", "ses_E");
+
+	@Test
+	@DisplayName("Pages are sorted by id and linked by cursor")
+	void paginationTest() throws Exception {
+		JsonObject firstPage = this.writePage(null, 2);
+		assertEquals(2, firstPage.get("numberOfElements").getAsInt());
+		assertEquals("[\"ses_A\",\"ses_B\"]", firstPage.get("content").toString());
+		assertEquals("ses_B", firstPage.get("next").getAsString());
+
+		JsonObject lastPage = this.writePage("ses_D", 2);
+		assertEquals("[\"ses_E\"]", lastPage.get("content").toString());
+		assertFalse(lastPage.has("next"));
+	}
+
+	@Test
+	@DisplayName("Without limit every element is returned")
+	void noLimitTest() throws Exception {
+		JsonObject page = this.writePage(null, null);
+		assertEquals(5, page.get("numberOfElements").getAsInt());
+		assertFalse(page.has("next"));
+	}
+
+	private JsonObject writePage(String after, Integer limit) throws Exception {
+		StringWriter writer = new StringWriter();
+		RestUtils.writeJsonPage(writer, "numberOfElements", "content", RestUtils.getPage(ids, id -> id, after, limit),
+				limit, id -> id, JsonPrimitive::new);
+		return JsonParser.parseString(writer.toString()).getAsJsonObject();
+	}
+
+}
@@ -0,0 +1,48 @@
+package io.openvidu.server.utils;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class SharedSchedulerTest {
+
+	@Test
+	@DisplayName("Expired tasks beyond the worker limit are queued, not run in new threads nor rejected")
+	void boundedWorkersTest() throws Exception {
+		int workerThreads = (int) ReflectionTestUtils.getField(SharedScheduler.class, "WORKER_THREADS");
+		int tasks = workerThreads + 10;
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch finished = new CountDownLatch(tasks);
+		AtomicInteger running = new AtomicInteger(0);
+		AtomicInteger maxRunning = new AtomicInteger(0);
+
+		for (int i = 0; i < tasks; i++) {
+			SharedScheduler.schedule(() -> {
+				maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				running.decrementAndGet();
+				finished.countDown();
+			}, 0, TimeUnit.MILLISECONDS);
+		}
+
+		long deadline = System.currentTimeMillis() + 10000;
+		while (running.get() < workerThreads && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertTrue(maxRunning.get() <= workerThreads);
+		release.countDown();
+		assertTrue(finished.await(10, TimeUnit.SECONDS), "Queued tasks should run once workers are free");
+		assertTrue(maxRunning.get() <= workerThreads);
+	}
+
+}
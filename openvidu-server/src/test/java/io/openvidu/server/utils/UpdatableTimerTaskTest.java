@@ -0,0 +1,85 @@
+package io.openvidu.server.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class UpdatableTimerTaskTest {
+
+	@Test
+	@DisplayName("Period is updated after each execution and cancel stops the timer")
+	void updatablePeriodTest() throws InterruptedException {
+		AtomicInteger executions = new AtomicInteger(0);
+		AtomicLong period = new AtomicLong(50);
+		CountDownLatch firstExecutions = new CountDownLatch(3);
+		UpdatableTimerTask timer = new UpdatableTimerTask(() -> {
+			executions.incrementAndGet();
+			firstExecutions.countDown();
+		}, () -> period.get());
+
+		timer.updateTimer();
+		assertTrue(firstExecutions.await(5, TimeUnit.SECONDS));
+
+		period.set(60000);
+		Thread.sleep(200);
+		int executionsAfterUpdate = executions.get();
+		Thread.sleep(300);
+		assertEquals(executionsAfterUpdate, executions.get(), "New period should be respected");
+
+		timer.cancelTimer();
+		period.set(20);
+		Thread.sleep(200);
+		assertEquals(executionsAfterUpdate, executions.get(), "Cancelled timer should not run again");
+	}
+
+	@Test
+	@DisplayName("Many timers share the scheduler threads and a slow task does not delay the rest")
+	void sharedSchedulerTest() throws InterruptedException {
+		int timers = 500;
+		int threadsBefore = Thread.activeCount();
+		CountDownLatch slowTaskStarted = new CountDownLatch(1);
+		CountDownLatch releaseSlowTask = new CountDownLatch(1);
+		UpdatableTimerTask slowTimer = new UpdatableTimerTask(() -> {
+			slowTaskStarted.countDown();
+			try {
+				releaseSlowTask.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}, () -> 10L);
+		slowTimer.updateTimer();
+		assertTrue(slowTaskStarted.await(5, TimeUnit.SECONDS));
+
+		CountDownLatch executed = new CountDownLatch(timers);
+		UpdatableTimerTask[] tasks = new UpdatableTimerTask[timers];
+		for (int i = 0; i < timers; i++) {
+			tasks[i] = new UpdatableTimerTask(executed::countDown, () -> 60000L);
+		}
+		for (UpdatableTimerTask task : tasks) {
+			// Long period: timers are just waiting
+			task.updateTimer();
+		}
+		assertTrue(Thread.activeCount() - threadsBefore < 10, "Waiting timers should not own a thread");
+
+		CountDownLatch fastExecuted = new CountDownLatch(1);
+		UpdatableTimerTask fastTimer = new UpdatableTimerTask(fastExecuted::countDown, () -> 10L);
+		fastTimer.updateTimer();
+		assertTrue(fastExecuted.await(2, TimeUnit.SECONDS), "Slow task should not delay other timers");
+
+		for (UpdatableTimerTask task : tasks) {
+			task.cancelTimer();
+		}
+		fastTimer.cancelTimer();
+		slowTimer.cancelTimer();
+		releaseSlowTask.countDown();
+		assertEquals(timers, executed.getCount());
+	}
+
+}
@@ -0,0 +1,55 @@
+package io.openvidu.server.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ZipUtilsTest {
+
+	@Test
+	@DisplayName("Media files are stored without compression and the rest are deflated")
+	void zipFilesTest() throws IOException {
+		Path folder = Files.createTempDirectory("zip");
+		try {
+			byte[] video = new byte[3 * 1024 * 1024 + 17];
+			new Random(0).nextBytes(video);
+			File videoFile = Files.write(folder.resolve("stream.webm"), video).toFile();
+			File jsonFile = Files.writeString(folder.resolve("recording.json"), "{\"files\":[]}").toFile();
+			File zip = folder.resolve("recording.zip").toFile();
+
+			try (OutputStream out = new FileOutputStream(zip)) {
+				ZipUtils.zipFiles(Arrays.asList(videoFile, jsonFile), Collections.singleton("webm"), out);
+			}
+
+			try (ZipFile zipFile = new ZipFile(zip)) {
+				ZipEntry videoEntry = zipFile.getEntry("stream.webm");
+				assertEquals(ZipEntry.STORED, videoEntry.getMethod());
+				assertArrayEquals(video, zipFile.getInputStream(videoEntry).readAllBytes());
+
+				ZipEntry jsonEntry = zipFile.getEntry("recording.json");
+				assertEquals(ZipEntry.DEFLATED, jsonEntry.getMethod());
+				assertEquals("{\"files\":[]}",
+						new String(zipFile.getInputStream(jsonEntry).readAllBytes(), StandardCharsets.UTF_8));
+			}
+		} finally {
+			FileUtils.deleteDirectory(folder.toFile());
+		}
+	}
+
+}
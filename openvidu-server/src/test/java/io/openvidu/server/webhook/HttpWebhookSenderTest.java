@@ -0,0 +1,211 @@
+package io.openvidu.server.webhook;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.openvidu.server.cdr.CDREvent;
+import io.openvidu.server.cdr.CDREventName;
+
+public class HttpWebhookSenderTest {
+
+	private HttpServer server;
+	private String endpoint;
+	private HttpWebhookSender sender;
+
+	private final BlockingQueue<String> receivedBodies = new LinkedBlockingQueue<>();
+	private final AtomicInteger requestsToFail = new AtomicInteger(0);
+	private volatile CountDownLatch serverBlocked = new CountDownLatch(0);
+
+	@BeforeEach
+	void startServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/webhook", this::handle);
+		server.start();
+		endpoint = "http://localhost:" + server.getAddress().getPort() + "/webhook";
+	}
+
+	@AfterEach
+	void stopServer() {
+		serverBlocked.countDown();
+		if (sender != null) {
+			sender.close();
+		}
+		server.stop(0);
+	}
+
+	@Test
+	@DisplayName("Events are filtered, batched and posted in order")
+	void batchingTest() throws Exception {
+		sender = new HttpWebhookSender(endpoint, new ArrayList<>(), Arrays.asList(CDREventName.participantJoined),
+				100, 3, 500, 2, 0, null);
+
+		sender.sendHttpPostCallbackAsync(event(CDREventName.sessionCreated, "session", 0));
+		for (int i = 1; i <= 6; i++) {
+			sender.sendHttpPostCallbackAsync(event(CDREventName.participantJoined, "session", i));
+		}
+
+		List<JsonElement> received = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			String body = receivedBodies.poll(5, TimeUnit.SECONDS);
+			JsonArray batch = JsonParser.parseString(body).getAsJsonArray();
+			assertEquals(3, batch.size());
+			batch.forEach(received::add);
+		}
+		for (int i = 0; i < received.size(); i++) {
+			assertEquals("participantJoined", received.get(i).getAsJsonObject().get("event").getAsString());
+			assertEquals(i + 1, received.get(i).getAsJsonObject().get("timestamp").getAsLong());
+		}
+		assertEquals(null, receivedBodies.poll(1, TimeUnit.SECONDS), "Filtered event should not be posted");
+	}
+
+	@Test
+	@DisplayName("Failed requests are retried")
+	void retryTest() throws Exception {
+		sender = new HttpWebhookSender(endpoint, new ArrayList<>(), Arrays.asList(CDREventName.sessionCreated), 100,
+				1, 0, 1, 2, null);
+		requestsToFail.set(2);
+
+		sender.sendHttpPostCallbackAsync(event(CDREventName.sessionCreated, "session", 1));
+
+		String first = receivedBodies.poll(5, TimeUnit.SECONDS);
+		String second = receivedBodies.poll(5, TimeUnit.SECONDS);
+		String third = receivedBodies.poll(5, TimeUnit.SECONDS);
+		assertEquals(first, second);
+		assertEquals(first, third);
+		assertEquals("sessionCreated", JsonParser.parseString(third).getAsJsonObject().get("event").getAsString());
+		assertEquals(0, sender.getNumberOfDiscardedEvents());
+	}
+
+	@Test
+	@DisplayName("Events that do not fit in the queue are spooled to disk and delivered later")
+	void spoolTest() throws Exception {
+		Path spoolPath = Files.createTempDirectory("webhook-spool");
+		serverBlocked = new CountDownLatch(1);
+		sender = new HttpWebhookSender(endpoint, new ArrayList<>(), Arrays.asList(CDREventName.sessionCreated), 1,
+				1, 0, 1, 0, spoolPath.toString());
+
+		// First event blocks the worker, second one fills the queue
+		sender.sendHttpPostCallbackAsync(event(CDREventName.sessionCreated, "session", 1));
+		receivedBodies.poll(5, TimeUnit.SECONDS);
+		sender.sendHttpPostCallbackAsync(event(CDREventName.sessionCreated, "session", 2));
+		sender.sendHttpPostCallbackAsync(event(CDREventName.sessionCreated, "session", 3));
+
+		// Spooled events are written to disk by the spool drainer, not by producers
+		assertTrue(awaitSpooled(spoolPath.resolve("webhook-spool.jsonl"), "\"timestamp\":3"));
+		assertEquals(0, sender.getNumberOfDiscardedEvents());
+
+		serverBlocked.countDown();
+		List<Long> timestamps = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			String body = receivedBodies.poll(5, TimeUnit.SECONDS);
+			timestamps.add(JsonParser.parseString(body).getAsJsonObject().get("timestamp").getAsLong());
+		}
+		assertEquals(Arrays.asList(2L, 3L), timestamps);
+	}
+
+	@Test
+	@DisplayName("Events not posted after all the retries are spooled along with the next ones of their session")
+	void spoolAfterRetriesTest() throws Exception {
+		Path spoolPath = Files.createTempDirectory("webhook-spool");
+		serverBlocked = new CountDownLatch(1);
+		requestsToFail.set(1);
+		sender = new HttpWebhookSender(endpoint, new ArrayList<>(), Arrays.asList(CDREventName.sessionCreated), 10,
+				1, 0, 1, 0, spoolPath.toString());
+
+		// First event fails once its request is unblocked. The next ones wait in the
+		// queue or are sent while the first one is being spooled
+		sender.sendHttpPostCallbackAsync(event(CDREventName.sessionCreated, "session", 1));
+		receivedBodies.poll(5, TimeUnit.SECONDS);
+		sender.sendHttpPostCallbackAsync(event(CDREventName.sessionCreated, "session", 2));
+		sender.sendHttpPostCallbackAsync(event(CDREventName.sessionCreated, "session", 3));
+		serverBlocked.countDown();
+		sender.sendHttpPostCallbackAsync(event(CDREventName.sessionCreated, "session", 4));
+
+		List<Long> timestamps = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			String body = receivedBodies.poll(5, TimeUnit.SECONDS);
+			timestamps.add(JsonParser.parseString(body).getAsJsonObject().get("timestamp").getAsLong());
+		}
+		assertEquals(Arrays.asList(1L, 2L, 3L, 4L), timestamps);
+		assertEquals(0, sender.getNumberOfDiscardedEvents());
+	}
+
+	@Test
+	@DisplayName("Queued events are delivered before closing")
+	void closeTest() throws Exception {
+		serverBlocked = new CountDownLatch(1);
+		sender = new HttpWebhookSender(endpoint, new ArrayList<>(), Arrays.asList(CDREventName.sessionCreated), 100,
+				1, 0, 1, 0, null);
+		for (int i = 1; i <= 5; i++) {
+			sender.sendHttpPostCallbackAsync(event(CDREventName.sessionCreated, "session", i));
+		}
+		final CountDownLatch blocked = serverBlocked;
+		new Thread(() -> {
+			try {
+				Thread.sleep(200);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			blocked.countDown();
+		}).start();
+
+		sender.close();
+		assertEquals(5, receivedBodies.size());
+		assertEquals(0, sender.getNumberOfQueuedEvents());
+		assertEquals(0, sender.getNumberOfDiscardedEvents());
+	}
+
+	private boolean awaitSpooled(Path spoolFile, String content) throws Exception {
+		final long deadline = System.currentTimeMillis() + 5000;
+		while (System.currentTimeMillis() < deadline) {
+			if (Files.exists(spoolFile) && Files.readString(spoolFile).contains(content)) {
+				return true;
+			}
+			Thread.sleep(50);
+		}
+		return false;
+	}
+
+	private CDREvent event(CDREventName name, String sessionId, long timestamp) {
+		return new CDREvent(name, sessionId, sessionId + "_0", timestamp);
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+		receivedBodies.add(body);
+		try {
+			serverBlocked.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		int status = requestsToFail.getAndDecrement() > 0 ? 500 : 200;
+		exchange.sendResponseHeaders(status, -1);
+		exchange.close();
+	}
+
+}
@@ -0,0 +1,101 @@
+package io.openvidu.server.webhook;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.JsonObject;
+
+public class WebhookSpoolTest {
+
+	@Test
+	@DisplayName("Spooled events are read in chunks and only removed once consumed")
+	void readAndConsumeTest() throws Exception {
+		Path spoolPath = Files.createTempDirectory("webhook-spool");
+		WebhookSpool spool = new WebhookSpool(spoolPath.toString());
+		spool.append(events(1, 5));
+
+		assertEquals(timestamps(1, 3), timestamps(spool.read(3)));
+		// Only the first event of the chunk is consumed
+		spool.consume(1);
+		assertEquals(timestamps(2, 4), timestamps(spool.read(3)));
+		spool.consume(3);
+		assertEquals(timestamps(5, 5), timestamps(spool.read(3)));
+		spool.consume(1);
+
+		// Every event consumed: the spool is emptied
+		assertEquals(0, Files.size(spool.getPath()));
+		assertTrue(spool.read(3).isEmpty());
+
+		spool.append(events(6, 7));
+		assertEquals(timestamps(6, 7), timestamps(spool.read(3)));
+		spool.close();
+	}
+
+	@Test
+	@DisplayName("Events not consumed before closing the spool are read after restarting")
+	void restartTest() throws Exception {
+		Path spoolPath = Files.createTempDirectory("webhook-spool");
+		WebhookSpool spool = new WebhookSpool(spoolPath.toString());
+		spool.append(events(1, 4));
+		spool.read(2);
+		spool.consume(2);
+		spool.close();
+
+		spool = new WebhookSpool(spoolPath.toString());
+		assertEquals(timestamps(3, 4), timestamps(spool.read(10)));
+		spool.close();
+	}
+
+	@Test
+	@DisplayName("Malformed and partially written lines are not returned")
+	void malformedLinesTest() throws Exception {
+		Path spoolPath = Files.createTempDirectory("webhook-spool");
+		WebhookSpool spool = new WebhookSpool(spoolPath.toString());
+		spool.append(events(1, 1));
+		Files.writeString(spool.getPath(), "not json\n\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+		spool.append(events(2, 2));
+		Files.writeString(spool.getPath(), "{\"timestamp\":", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+		assertEquals(timestamps(1, 2), timestamps(spool.read(10)));
+		spool.consume(2);
+		assertTrue(spool.read(10).isEmpty());
+		spool.close();
+	}
+
+	private List<JsonObject> events(long from, long to) {
+		List<JsonObject> jsonEvents = new ArrayList<>();
+		for (long timestamp = from; timestamp <= to; timestamp++) {
+			JsonObject jsonEvent = new JsonObject();
+			jsonEvent.addProperty("event", "sessionCreated");
+			jsonEvent.addProperty("sessionId", "session");
+			jsonEvent.addProperty("timestamp", timestamp);
+			jsonEvents.add(jsonEvent);
+		}
+		return jsonEvents;
+	}
+
+	private List<Long> timestamps(long from, long to) {
+		List<Long> timestamps = new ArrayList<>();
+		for (long timestamp = from; timestamp <= to; timestamp++) {
+			timestamps.add(timestamp);
+		}
+		return timestamps;
+	}
+
+	private List<Long> timestamps(List<JsonObject> jsonEvents) {
+		List<Long> timestamps = new ArrayList<>();
+		jsonEvents.forEach(jsonEvent -> timestamps.add(jsonEvent.get("timestamp").getAsLong()));
+		return timestamps;
+	}
+
+}